@@ -0,0 +1,60 @@
+package com.smhrd.controller;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import com.smhrd.service.AnalysisResultCache;
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 만료된 분석 결과 캐시 정리
+ * 기동 시 한 번, 이후 analysis.cache.purge_interval_minutes 주기로 만료된 캐시를 삭제하여
+ * ANALYSIS_RESULT_CACHE 테이블에 만료 행이 쌓이지 않도록 합니다.
+ * 종료(재배포) 시에는 정리 스레드를 중지합니다.
+ */
+@WebListener
+public class AnalysisCachePurgeListener implements ServletContextListener {
+
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        if (!AnalysisConfig.isCacheEnabled()) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "analysis-cache-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Runnable purge = () -> {
+            try {
+                AnalysisResultCache.getInstance().purgeExpired();
+            } catch (Exception e) {
+                // 예외가 전파되면 이후 예약 실행이 중단되므로 로그만 남김
+                System.err.println("만료 캐시 정리 실패: " + e.getMessage());
+            }
+        };
+
+        int intervalMinutes = AnalysisConfig.getCachePurgeIntervalMinutes();
+        if (intervalMinutes > 0) {
+            scheduler.scheduleWithFixedDelay(purge, 0, intervalMinutes, TimeUnit.MINUTES);
+        } else {
+            scheduler.execute(purge);
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
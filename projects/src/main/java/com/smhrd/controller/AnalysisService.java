@@ -6,6 +6,7 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -18,7 +19,10 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.smhrd.model.AnalysisResult;
 import com.smhrd.model.AnalysisResultDAO;
+import com.smhrd.model.ResultJsonCache;
 import com.smhrd.model.UserInfo;
+import com.smhrd.service.AnalysisJob;
+import com.smhrd.service.AnalysisJobManager;
 import com.smhrd.service.GeminiAnalysisService;
 
 /**
@@ -26,22 +30,25 @@ import com.smhrd.service.GeminiAnalysisService;
  * 
  * 주요 기능:
  * 1. 클라이언트로부터 대화 데이터 수신
- * 2. Gemini API를 통한 분석 수행
+ * 2. 분석 작업 등록 후 jobId 즉시 반환 (Gemini API 분석은 작업 스레드에서 수행)
  * 3. 분석 결과를 데이터베이스에 저장
- * 4. Frontend에 결과 반환
+ * 4. 작업 상태 조회(jobStatus) 및 진행 상황 스트림(jobEvents, SSE) 제공
+ *    (mode=async 요청은 AsyncContext로 대기 후 작업 완료 시 결과를 바로 응답)
  * 5. 에러 처리 및 상태 관리
  */
-@WebServlet("/AnalysisService")
+@WebServlet(urlPatterns = "/AnalysisService", asyncSupported = true)
 public class AnalysisService extends HttpServlet {
     private static final long serialVersionUID = 1L;
     
     private final GeminiAnalysisService geminiService;
     private final AnalysisResultDAO analysisDAO;
+    private final AnalysisJobManager jobManager;
     private final Gson gson;
     
     public AnalysisService() {
         this.geminiService = new GeminiAnalysisService();
         this.analysisDAO = new AnalysisResultDAO();
+        this.jobManager = AnalysisJobManager.getInstance();
         this.gson = new GsonBuilder()
             .setPrettyPrinting()
             .setDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'")
@@ -102,107 +109,44 @@ public class AnalysisService extends HttpServlet {
                 partnerName = "상대방"; // 기본값
             }
             
-            // Gemini API를 통한 분석 수행
-            System.out.println("=== 대화 분석 시작 ===");
+            // 분석 작업 등록 (Gemini API 호출 → DB 저장은 작업 스레드에서 수행)
+            System.out.println("=== 대화 분석 작업 등록 ===");
             System.out.println("사용자: " + loginMember.getEmail());
             System.out.println("상대방: " + partnerName);
             System.out.println("대화 데이터 길이: " + conversationData.length());
             
-            System.out.println("10. Gemini API 호출 시작");
-            AnalysisResult analysisResult = null;
+            final String userEmail = loginMember.getEmail();
+            final String targetPartnerName = partnerName;
             
+            AnalysisJob job;
             try {
-                // 기본 방식 시도
-                analysisResult = geminiService.analyzeConversation(
-                    conversationData, 
-                    loginMember.getEmail(), 
-                    partnerName
-                );
-                System.out.println("11. 기본 방식 성공");
-            } catch (Exception mainException) {
-                System.err.println("11-1. 기본 방식 실패, 단계적 방식 시도: " + mainException.getMessage());
-                
-                try {
-                    // 단계적 분석 시도
-                    com.smhrd.service.IterativeAnalysisService iterativeService = 
-                        new com.smhrd.service.IterativeAnalysisService();
-                    
-                    analysisResult = iterativeService.analyzeConversationIteratively(
-                        conversationData, 
-                        loginMember.getEmail(), 
-                        partnerName
-                    );
-                    System.out.println("11-2. 단계적 방식 성공");
-                } catch (Exception iterativeException) {
-                    System.err.println("11-3. 모든 방식 실패");
-                    throw new Exception("분석 실패: " + iterativeException.getMessage(), iterativeException);
-                }
-            }
-            
-            System.out.println("11. Gemini API 호출 완료");
-            
-            System.out.println("분석 완료. 세션 ID: " + analysisResult.getSessionId());
-            
-            // 데이터베이스에 결과 저장
-            System.out.println("12. 데이터베이스 저장 시작");
-            boolean saved = analysisDAO.saveAnalysisResult(analysisResult);
-            
-            if (!saved) {
-                System.err.println("13. 데이터베이스 저장 실패");
-                sendErrorResponse(response, "분석 결과 저장에 실패했습니다.", 500);
+                job = jobManager.submit(userEmail, "gemini",
+                    currentJob -> runAnalysis(conversationData, userEmail, targetPartnerName, currentJob));
+            } catch (RejectedExecutionException e) {
+                System.err.println("10. 분석 작업 대기열 초과 - 503 에러 반환");
+                sendErrorResponse(response, "분석 요청이 많아 잠시 후 다시 시도해주세요.", 503);
                 return;
             }
             
-            System.out.println("13. 데이터베이스 저장 완료");
-            
-            // Frontend용 응답 데이터 생성
-            System.out.println("14. Frontend 데이터 생성 시작");
-            Map<String, Object> frontendData = analysisDAO.getAnalysisResultForFrontend(
-                analysisResult.getSessionId()
-            );
-            
-            // DB에서 조회 실패시 메모리 데이터 사용 (백업)
-            if (frontendData.isEmpty()) {
-                System.out.println("DB 조회 실패, 메모리 데이터 사용");
-                frontendData = analysisResult.toFrontendFormat();
+            // mode=async: 작업 완료 시점에 분석 결과를 한 번에 응답 (요청 스레드는 즉시 반환)
+            if ("async".equals(request.getParameter("mode"))) {
+                System.out.println("10. 비동기 응답 대기 - jobId: " + job.getJobId());
+                JobAsyncResponse.start(request, response, job, gson);
+                return;
             }
             
-            System.out.println("15. Frontend 데이터 생성 완료 - 데이터 크기: " + frontendData.size());
-            
-            // 성공 응답
-            System.out.println("16. 응답 데이터 생성 시작");
+            // 작업 접수 응답 (분석 결과는 jobStatus / jobEvents로 조회)
             Map<String, Object> responseData = new HashMap<>();
             responseData.put("success", true);
-            responseData.put("message", "분석이 완료되었습니다!");
-            responseData.put("sessionId", analysisResult.getSessionId());
-            responseData.put("analysisData", frontendData);
+            responseData.put("message", "분석 작업이 접수되었습니다.");
+            responseData.put("jobId", job.getJobId());
+            responseData.put("status", job.getStatus().name());
             
-            // 응답 전송 - Java 17 호환 방식
-            System.out.println("17. 클라이언트로 응답 전송 시작");
+            response.setStatus(HttpServletResponse.SC_ACCEPTED);
             PrintWriter out = response.getWriter();
-            
-            try {
-                out.print(gson.toJson(responseData));
-                System.out.println("JSON 직렬화 성공");
-            } catch (Exception e) {
-                System.err.println("JSON 직렬화 실패, 완전한 수동 JSON 생성: " + e.getMessage());
-                // Java 17 AtomicReference 문제 시 완전한 수동 JSON 생성
-                String manualJson = buildManualJsonResponse(responseData);
-                out.print(manualJson);
-                System.out.println("수동 JSON 생성 완료 - 길이: " + manualJson.length());
-            }
-            
+            out.print(gson.toJson(responseData));
             out.flush();
-            System.out.println("18. 응답 전송 완료");
-            
-            System.out.println("=== 대화 분석 완료 ===");
-            
-        } catch (GeminiAnalysisService.AnalysisException e) {
-            System.err.println("=== AnalysisException 발생 ===");
-            System.err.println("에러 메시지: " + e.getMessage());
-            System.err.println("스택 트레이스:");
-            e.printStackTrace();
-            sendErrorResponse(response, "분석 처리 중 오류가 발생했습니다: " + e.getMessage(), 500);
+            System.out.println("10. 분석 작업 접수 완료 - jobId: " + job.getJobId());
             
         } catch (Exception e) {
             System.err.println("=== 예상치 못한 Exception 발생 ===");
@@ -217,6 +161,71 @@ public class AnalysisService extends HttpServlet {
         }
     }
     
+    /**
+     * 분석 작업 본문 (작업 스레드에서 실행)
+     * Gemini 분석 → DB 저장 → Frontend 데이터 생성
+     */
+    private Map<String, Object> runAnalysis(String conversationData, String userEmail, String partnerName, 
+            AnalysisJob job) throws Exception {
+        
+        System.out.println("11. Gemini API 호출 시작 - jobId: " + job.getJobId());
+        AnalysisResult analysisResult;
+        
+        try {
+            // 기본 방식 시도 후 실패 시 윈도우를 줄여 청크 분석 (GeminiAnalysisService.analyze)
+            analysisResult = geminiService.analyze(conversationData, userEmail, partnerName, job);
+            System.out.println("11-1. Gemini 분석 성공");
+        } catch (Exception e) {
+            System.err.println("11-2. 모든 방식 실패");
+            throw new Exception("분석 실패: " + e.getMessage(), e);
+        }
+        
+        System.out.println("분석 완료. 세션 ID: " + analysisResult.getSessionId());
+        
+        // 데이터베이스에 결과 저장
+        System.out.println("12. 데이터베이스 저장 시작");
+        job.updateStage(AnalysisJob.Status.PERSISTING, null);
+        boolean saved = analysisDAO.saveFull(analysisResult);
+        
+        if (!saved) {
+            System.err.println("13. 데이터베이스 저장 실패");
+            throw new Exception("분석 결과 저장에 실패했습니다.");
+        }
+        
+        System.out.println("13. 데이터베이스 저장 완료");
+        
+        // Frontend용 응답 데이터 생성
+        Map<String, Object> frontendData = analysisDAO.getAnalysisResultForFrontend(
+            analysisResult.getSessionId()
+        );
+        
+        // DB에서 조회 실패시 메모리 데이터 사용 (백업)
+        if (frontendData.isEmpty()) {
+            System.out.println("DB 조회 실패, 메모리 데이터 사용");
+            frontendData = analysisResult.toFrontendFormat();
+        }
+        
+        Map<String, Object> responseData = new HashMap<>();
+        responseData.put("success", true);
+        responseData.put("message", "분석이 완료되었습니다!");
+        responseData.put("sessionId", analysisResult.getSessionId());
+        responseData.put("analysisData", frontendData);
+        
+        // 직렬화 가능 여부 확인 - Java 17 호환 방식
+        try {
+            gson.toJson(responseData);
+        } catch (Exception e) {
+            System.err.println("JSON 직렬화 실패, 완전한 수동 JSON 생성: " + e.getMessage());
+            // Java 17 AtomicReference 문제 시 완전한 수동 JSON 생성
+            @SuppressWarnings("unchecked")
+            Map<String, Object> manualData = gson.fromJson(buildManualJsonResponse(responseData), Map.class);
+            responseData = manualData;
+        }
+        
+        System.out.println("=== 대화 분석 완료 ===");
+        return responseData;
+    }
+    
     /**
      * GET 요청 처리: 저장된 분석 결과 조회
      */
@@ -239,7 +248,29 @@ public class AnalysisService extends HttpServlet {
             
             String action = request.getParameter("action");
             
-            if ("getResult".equals(action)) {
+            if ("jobStatus".equals(action) || "jobEvents".equals(action)) {
+                // 분석 작업 상태 조회 (폴링 / SSE)
+                AnalysisJob job = jobManager.getJob(request.getParameter("jobId"), loginMember.getEmail());
+                
+                if (job == null) {
+                    sendErrorResponse(response, "분석 작업을 찾을 수 없습니다.", 404);
+                    return;
+                }
+                
+                if ("jobEvents".equals(action)) {
+                    JobEventStream.open(request, response, job, gson);
+                    return;
+                }
+                
+                Map<String, Object> responseData = new HashMap<>();
+                responseData.put("success", true);
+                responseData.put("job", job.toStatusMap());
+                
+                PrintWriter out = response.getWriter();
+                out.print(gson.toJson(responseData));
+                out.flush();
+                
+            } else if ("getResult".equals(action)) {
                 // 특정 분석 결과 조회
                 String sessionId = request.getParameter("sessionId");
                 
@@ -248,26 +279,37 @@ public class AnalysisService extends HttpServlet {
                     return;
                 }
                 
-                Map<String, Object> analysisData = analysisDAO.getAnalysisResultForFrontend(sessionId);
+                ResultJsonCache.Entry cached = analysisDAO.getAnalysisResultJson(sessionId);
                 
-                if (analysisData.isEmpty()) {
+                if (cached == null) {
                     sendErrorResponse(response, "분석 결과를 찾을 수 없습니다.", 404);
                     return;
                 }
                 
-                Map<String, Object> responseData = new HashMap<>();
-                responseData.put("success", true);
-                responseData.put("analysisData", analysisData);
+                if (CachedResultResponse.notModified(request, response, cached)) {
+                    return;
+                }
                 
                 PrintWriter out = response.getWriter();
-                out.print(gson.toJson(responseData));
+                out.print(CachedResultResponse.body(cached));
                 out.flush();
                 
             } else if ("getHistory".equals(action)) {
-                // 사용자 분석 히스토리 조회
+                // 사용자 분석 히스토리 조회 (cursor: 이전 응답의 nextCursor, limit: 페이지 크기)
+                Map<String, Object> page;
+                try {
+                    page = analysisDAO.getUserHistoryPage(loginMember.getEmail(),
+                        request.getParameter("cursor"), parsePageSize(request.getParameter("limit")));
+                } catch (IllegalArgumentException e) {
+                    sendErrorResponse(response, "잘못된 페이지 요청입니다.", 400);
+                    return;
+                }
+                
                 Map<String, Object> responseData = new HashMap<>();
                 responseData.put("success", true);
-                responseData.put("history", analysisDAO.getUserAnalysisHistory(loginMember.getEmail()));
+                responseData.put("history", page.get("history"));
+                responseData.put("nextCursor", page.get("nextCursor"));
+                responseData.put("hasMore", page.get("hasMore"));
                 
                 PrintWriter out = response.getWriter();
                 out.print(gson.toJson(responseData));
@@ -295,6 +337,20 @@ public class AnalysisService extends HttpServlet {
         }
     }
     
+    /**
+     * 히스토리 페이지 크기 파라미터 (없으면 기본값 20, 범위는 DAO에서 보정)
+     */
+    private static int parsePageSize(String limit) {
+        if (limit == null || limit.trim().isEmpty()) {
+            return 20;
+        }
+        try {
+            return Integer.parseInt(limit.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("잘못된 페이지 크기입니다: " + limit, e);
+        }
+    }
+    
     /**
      * 요청 본문 읽기
      */
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -12,24 +13,37 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
+import org.apache.commons.fileupload.FileUploadBase;
+
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.smhrd.model.AnalysisResult;
 import com.smhrd.model.AnalysisResultDAO;
+import com.smhrd.model.ResultJsonCache;
 import com.smhrd.model.UserInfo;
-import com.smhrd.service.AnthropicAnalysisService;
+import com.smhrd.service.AnalysisJob;
+import com.smhrd.service.AnalysisJobManager;
+import com.smhrd.service.ConversationStatistics;
+import com.smhrd.service.ImportedConversation;
+import com.smhrd.service.ProviderRouter;
+import com.smhrd.util.AnalysisConfig;
 
 /**
- * Anthropic API를 사용한 대화 분석 컨트롤러
- * 전체 워크플로우: API 호출 → 데이터 처리 → DB 저장 → 결과 반환
+ * 대화 분석 컨트롤러 (Anthropic 우선, 프로바이더 라우터 경유)
+ * 전체 워크플로우: 작업 등록 → (작업 스레드) API 호출 → 데이터 처리 → DB 저장 → 결과 반환
+ * API 호출은 ProviderRouter가 상태가 가장 좋은 프로바이더로 보내며, 실패하면 같은 요청 안에서
+ * 다른 프로바이더(Gemini)로 대체합니다.
+ * 분석 요청은 jobId를 즉시 반환하고, 진행 상황은 jobStatus(폴링) 또는 jobEvents(SSE)로 조회합니다.
+ * mode=async 파라미터를 주면 AsyncContext로 연결을 유지했다가 작업 완료 시 결과를 바로 응답합니다.
  */
-@WebServlet("/AnthropicAnalysisController")
+@WebServlet(urlPatterns = "/AnthropicAnalysisController", asyncSupported = true)
 public class AnthropicAnalysisController extends HttpServlet {
     
     private static final long serialVersionUID = 1L;
     private final Gson gson;
-    private final AnthropicAnalysisService analysisService;
+    private final ProviderRouter providerRouter;
     private final AnalysisResultDAO resultDAO;
+    private final AnalysisJobManager jobManager;
     
     public AnthropicAnalysisController() {
         this.gson = new GsonBuilder()
@@ -37,8 +51,9 @@ public class AnthropicAnalysisController extends HttpServlet {
             .setLenient()
             .disableHtmlEscaping()
             .create();
-        this.analysisService = new AnthropicAnalysisService();
+        this.providerRouter = ProviderRouter.getInstance();
         this.resultDAO = new AnalysisResultDAO();
+        this.jobManager = AnalysisJobManager.getInstance();
     }
     
     @Override
@@ -47,6 +62,13 @@ public class AnthropicAnalysisController extends HttpServlet {
         
         // 인코딩 설정
         request.setCharacterEncoding("UTF-8");
+        
+        // SSE 스트림은 JSON 응답과 별도로 처리
+        if ("jobEvents".equals(request.getParameter("action"))) {
+            handleJobEvents(request, response);
+            return;
+        }
+        
         response.setContentType("application/json; charset=UTF-8");
         response.setCharacterEncoding("UTF-8");
         
@@ -97,6 +119,8 @@ public class AnthropicAnalysisController extends HttpServlet {
             
             if ("analyze".equals(action)) {
                 handleAnalysisRequest(request, response, user, responseData, out);
+            } else if ("jobStatus".equals(action)) {
+                handleJobStatus(request, response, user, responseData, out);
             } else if ("getResult".equals(action)) {
                 handleGetResult(request, response, user, responseData, out);
             } else if ("getHistory".equals(action)) {
@@ -117,8 +141,11 @@ public class AnthropicAnalysisController extends HttpServlet {
             responseData.put("message", "서버 오류가 발생했습니다: " + e.getMessage());
             out.print(gson.toJson(responseData));
         } finally {
-            out.flush();
-            out.close();
+            // 비동기 응답 중이면 작업 완료 콜백에서 응답을 마무리
+            if (!request.isAsyncStarted()) {
+                out.flush();
+                out.close();
+            }
         }
     }
     
@@ -130,9 +157,39 @@ public class AnthropicAnalysisController extends HttpServlet {
         
         System.out.println("분석 요청 처리 시작 - 사용자: " + user.getEmail());
         
-        // 대화 데이터 추출
-        String conversationData = request.getParameter("conversationData");
-        String partnerName = request.getParameter("partnerName");
+        // 대화 데이터 추출 (파일 업로드는 multipart로 받아 디스크에서 파싱)
+        String conversationData;
+        String partnerName;
+        ConversationStatistics uploadStatistics = null;
+        if (ConversationUpload.isMultipart(request)) {
+            ConversationUpload upload;
+            try {
+                upload = ConversationUpload.read(request);
+            } catch (FileUploadBase.FileSizeLimitExceededException | FileUploadBase.SizeLimitExceededException e) {
+                System.err.println("대화 파일 크기 제한 초과: " + e.getMessage());
+                
+                response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+                responseData.put("success", false);
+                responseData.put("message", "대화 파일이 너무 큽니다. 최대 "
+                    + (AnalysisConfig.getUploadMaxBytes() / (1024 * 1024)) + "MB까지 업로드할 수 있습니다.");
+                out.print(gson.toJson(responseData));
+                return;
+            }
+            if (upload == null) {
+                conversationData = null;
+                partnerName = null;
+            } else {
+                ImportedConversation imported = upload.getConversation();
+                conversationData = imported.getAnalysisText();
+                partnerName = upload.getPartnerName();
+                uploadStatistics = imported.getStatistics();
+                System.out.println("업로드 대화 - 형식: " + imported.getFormat()
+                    + ", 메시지: " + imported.getMessageCount() + "개, 화자: " + imported.getSpeakers());
+            }
+        } else {
+            conversationData = request.getParameter("conversationData");
+            partnerName = request.getParameter("partnerName");
+        }
         
         if (conversationData == null || conversationData.trim().isEmpty()) {
             responseData.put("success", false);
@@ -148,50 +205,123 @@ public class AnthropicAnalysisController extends HttpServlet {
         System.out.println("대화 데이터 길이: " + conversationData.length() + "자");
         System.out.println("상대방 이름: " + partnerName);
         
+        final String targetPartnerName = partnerName;
+        final ConversationStatistics fileStatistics = uploadStatistics;
+        final String userEmail = user.getEmail();
+        final HttpSession httpSession = request.getSession();
+        
         try {
-            // Anthropic API를 사용하여 분석 수행
-            AnalysisResult analysisResult = analysisService.analyzeConversation(
-                conversationData, user.getEmail(), partnerName);
-            
-            if (analysisResult == null) {
-                throw new Exception("분석 결과가 null입니다.");
-            }
-            
-            System.out.println("API 분석 완료 - sessionId: " + analysisResult.getSessionId());
-            
-            // 데이터베이스에 저장
-            boolean dbSaved = saveToDatabase(analysisResult);
-            
-            if (!dbSaved) {
-                System.err.println("데이터베이스 저장 실패, 하지만 분석 결과는 반환");
-                // DB 저장 실패해도 분석 결과는 반환 (사용자 경험 최우선)
+            // 분석 작업 등록 (작업 스레드에서 API 호출 → DB 저장 수행)
+            AnalysisJob job = jobManager.submit(userEmail, "auto", currentJob -> {
+                // 프로바이더 라우터로 분석 수행 (실패 시 다른 프로바이더로 대체)
+                AnalysisResult analysisResult = providerRouter.analyze(
+                    conversationData, userEmail, targetPartnerName, currentJob);
+                
+                if (analysisResult == null) {
+                    throw new Exception("분석 결과가 null입니다.");
+                }
+                
+                // 업로드 파일이면 프롬프트에 넣은 일부 메시지가 아니라 파일 전체 기준 통계로 덮어씀
+                if (fileStatistics != null) {
+                    fileStatistics.applyTo(analysisResult);
+                }
+                
+                System.out.println("API 분석 완료 - sessionId: " + analysisResult.getSessionId());
+                
+                // 데이터베이스에 저장
+                currentJob.updateStage(AnalysisJob.Status.PERSISTING, null);
+                boolean dbSaved = saveToDatabase(analysisResult);
+                
+                if (!dbSaved) {
+                    System.err.println("데이터베이스 저장 실패, 하지만 분석 결과는 반환");
+                    // DB 저장 실패해도 분석 결과는 반환 (사용자 경험 최우선)
+                }
+                
+                // 세션에 저장 (백업, 작업 스레드에서 실행되므로 그 사이 세션이 만료되었으면 건너뜀)
+                try {
+                    httpSession.setAttribute("lastAnalysisResult", analysisResult);
+                    httpSession.setAttribute("lastAnalysisSessionId", analysisResult.getSessionId());
+                } catch (IllegalStateException e) {
+                    System.err.println("세션 백업 생략 (세션 만료) - sessionId: " + analysisResult.getSessionId());
+                }
+                
+                // 응답 데이터 구성
+                Map<String, Object> resultData = new HashMap<>();
+                resultData.put("success", true);
+                resultData.put("message", "분석이 완료되었습니다.");
+                resultData.put("sessionId", analysisResult.getSessionId());
+                resultData.put("analysisData", analysisResult.toFrontendFormat());
+                return resultData;
+            });
+            
+            // mode=async: 작업 완료 시점에 분석 결과를 한 번에 응답 (요청 스레드는 즉시 반환)
+            if ("async".equals(request.getParameter("mode"))) {
+                System.out.println("비동기 응답 대기 - jobId: " + job.getJobId());
+                JobAsyncResponse.start(request, response, job, gson);
+                return;
             }
             
-            // 응답 데이터 구성
+            response.setStatus(HttpServletResponse.SC_ACCEPTED);
             responseData.put("success", true);
-            responseData.put("message", "분석이 완료되었습니다.");
-            responseData.put("sessionId", analysisResult.getSessionId());
-            responseData.put("analysisData", analysisResult.toFrontendFormat());
+            responseData.put("message", "분석 작업이 접수되었습니다.");
+            responseData.put("jobId", job.getJobId());
+            responseData.put("status", job.getStatus().name());
             
-            // 세션에 저장 (백업)
-            HttpSession httpSession = request.getSession();
-            httpSession.setAttribute("lastAnalysisResult", analysisResult);
-            httpSession.setAttribute("lastAnalysisSessionId", analysisResult.getSessionId());
-            
-            System.out.println("분석 완료 및 응답 전송");
+            System.out.println("분석 작업 접수 및 응답 전송 - jobId: " + job.getJobId());
             out.print(gson.toJson(responseData));
             
-        } catch (Exception e) {
-            System.err.println("분석 처리 중 오류: " + e.getMessage());
-            e.printStackTrace();
+        } catch (RejectedExecutionException e) {
+            System.err.println("분석 작업 대기열 초과: " + e.getMessage());
             
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
             responseData.put("success", false);
-            responseData.put("message", "분석 중 오류가 발생했습니다: " + e.getMessage());
-            responseData.put("errorDetail", e.getClass().getSimpleName());
+            responseData.put("message", "분석 요청이 많아 잠시 후 다시 시도해주세요.");
             out.print(gson.toJson(responseData));
         }
     }
     
+    /**
+     * 분석 작업 상태 조회 처리 (폴링용)
+     */
+    private void handleJobStatus(HttpServletRequest request, HttpServletResponse response, 
+            UserInfo user, Map<String, Object> responseData, PrintWriter out) {
+        
+        AnalysisJob job = jobManager.getJob(request.getParameter("jobId"), user.getEmail());
+        
+        if (job == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            responseData.put("success", false);
+            responseData.put("message", "분석 작업을 찾을 수 없습니다.");
+            out.print(gson.toJson(responseData));
+            return;
+        }
+        
+        responseData.put("success", true);
+        responseData.put("job", job.toStatusMap());
+        out.print(gson.toJson(responseData));
+    }
+    
+    /**
+     * 분석 작업 진행 상황 SSE 스트림 처리
+     */
+    private void handleJobEvents(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpSession session = request.getSession(false);
+        UserInfo user = (session != null) ? (UserInfo) session.getAttribute("loginMember") : null;
+        
+        if (user == null) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        
+        AnalysisJob job = jobManager.getJob(request.getParameter("jobId"), user.getEmail());
+        if (job == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        
+        JobEventStream.open(request, response, job, gson);
+    }
+    
     /**
      * 분석 결과 조회 처리
      */
@@ -209,30 +339,32 @@ public class AnthropicAnalysisController extends HttpServlet {
         }
         
         try {
-            // 데이터베이스에서 조회
-            Map<String, Object> analysisData = resultDAO.getAnalysisResultForFrontend(sessionId);
+            // 데이터베이스에서 조회 (결과 응답 캐시 경유)
+            ResultJsonCache.Entry cached = resultDAO.getAnalysisResultJson(sessionId);
             
-            if (analysisData.isEmpty()) {
-                // DB에 없으면 세션에서 확인
-                HttpSession httpSession = request.getSession();
-                String lastSessionId = (String) httpSession.getAttribute("lastAnalysisSessionId");
-                AnalysisResult lastResult = (AnalysisResult) httpSession.getAttribute("lastAnalysisResult");
-                
-                if (sessionId.equals(lastSessionId) && lastResult != null) {
-                    System.out.println("세션에서 분석 결과 복원");
-                    analysisData = lastResult.toFrontendFormat();
-                } else {
-                    responseData.put("success", false);
-                    responseData.put("message", "분석 결과를 찾을 수 없습니다.");
-                    out.print(gson.toJson(responseData));
+            if (cached != null) {
+                if (CachedResultResponse.notModified(request, response, cached)) {
+                    System.out.println("분석 결과 변경 없음 (304)");
                     return;
                 }
+                System.out.println("분석 결과 조회 완료");
+                out.print(CachedResultResponse.body(cached));
+                return;
             }
             
-            responseData.put("success", true);
-            responseData.put("analysisData", analysisData);
+            // DB에 없으면 세션에서 확인
+            HttpSession httpSession = request.getSession();
+            String lastSessionId = (String) httpSession.getAttribute("lastAnalysisSessionId");
+            AnalysisResult lastResult = (AnalysisResult) httpSession.getAttribute("lastAnalysisResult");
             
-            System.out.println("분석 결과 조회 완료");
+            if (sessionId.equals(lastSessionId) && lastResult != null) {
+                System.out.println("세션에서 분석 결과 복원");
+                responseData.put("success", true);
+                responseData.put("analysisData", lastResult.toFrontendFormat());
+            } else {
+                responseData.put("success", false);
+                responseData.put("message", "분석 결과를 찾을 수 없습니다.");
+            }
             out.print(gson.toJson(responseData));
             
         } catch (Exception e) {
@@ -254,9 +386,23 @@ public class AnthropicAnalysisController extends HttpServlet {
         System.out.println("분석 히스토리 조회 - 사용자: " + user.getEmail());
         
         try {
-            // 사용자별 분석 히스토리 조회
+            // 사용자별 분석 히스토리 한 페이지 조회 (cursor: 이전 응답의 nextCursor, limit: 페이지 크기)
+            Map<String, Object> page;
+            try {
+                page = resultDAO.getUserHistoryPage(user.getEmail(), request.getParameter("cursor"),
+                    parsePageSize(request.getParameter("limit")));
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                responseData.put("success", false);
+                responseData.put("message", "잘못된 페이지 요청입니다.");
+                out.print(gson.toJson(responseData));
+                return;
+            }
+            
             Map<String, Object> historyData = new HashMap<>();
-            historyData.put("analysisHistory", resultDAO.getUserAnalysisHistory(user.getEmail()));
+            historyData.put("analysisHistory", page.get("history"));
+            historyData.put("nextCursor", page.get("nextCursor"));
+            historyData.put("hasMore", page.get("hasMore"));
             historyData.put("analysisStats", resultDAO.getAnalysisStats(user.getEmail()));
             
             responseData.put("success", true);
@@ -276,178 +422,25 @@ public class AnthropicAnalysisController extends HttpServlet {
     }
     
     /**
-     * 분석 결과를 데이터베이스에 저장 (포괄적)
+     * 히스토리 페이지 크기 파라미터 (없으면 기본값 20, 범위는 DAO에서 보정)
      */
-    private boolean saveToDatabase(AnalysisResult analysisResult) {
-        try {
-            System.out.println("데이터베이스 저장 시작 - sessionId: " + analysisResult.getSessionId());
-            
-            // 메인 분석 결과 저장
-            boolean mainSaved = resultDAO.saveAnalysisResult(analysisResult);
-            
-            if (!mainSaved) {
-                System.err.println("메인 분석 결과 저장 실패");
-                return false;
-            }
-            
-            // 상세 데이터 저장 (Anthropic API 응답의 모든 데이터 저장)
-            saveDetailedAnalysisData(analysisResult);
-            
-            System.out.println("데이터베이스 저장 완료 (메인 + 상세 데이터)");
-            return true;
-            
-        } catch (Exception e) {
-            System.err.println("데이터베이스 저장 중 오류: " + e.getMessage());
-            e.printStackTrace();
-            return false;
+    private static int parsePageSize(String limit) {
+        if (limit == null || limit.trim().isEmpty()) {
+            return 20;
         }
-    }
-    
-    /**
-     * 상세 분석 데이터 저장 (관심도 추이, 긍정 신호, 대표 메시지, 조언 등)
-     */
-    private void saveDetailedAnalysisData(AnalysisResult analysisResult) {
-        String sessionId = analysisResult.getSessionId();
-        
         try {
-            // 관심도 추이 데이터 저장
-            if (analysisResult.getInterestTrends() != null && !analysisResult.getInterestTrends().isEmpty()) {
-                System.out.println("관심도 추이 데이터 저장 중...");
-                for (AnalysisResult.InterestTrend trend : analysisResult.getInterestTrends()) {
-                    Map<String, Object> trendData = new HashMap<>();
-                    trendData.put("sessionId", sessionId);
-                    trendData.put("trendDate", trend.getDate());
-                    trendData.put("interestValue", trend.getValue());
-                    trendData.put("messageCount", trend.getMessageCount());
-                    trendData.put("avgResponseTime", trend.getAvgResponseTime());
-                    trendData.put("emojiCount", trend.getEmojiCount());
-                    
-                    // ResultMapper의 insertInterestTrend 사용
-                    insertDataToDatabase("ResultMapper.insertInterestTrend", trendData);
-                }
-                System.out.println("관심도 추이 저장 완료: " + analysisResult.getInterestTrends().size() + "건");
-            }
-            
-            // 감정 분석 결과 저장
-            if (analysisResult.getEmotionAnalysis() != null) {
-                System.out.println("감정 분석 데이터 저장 중...");
-                Map<String, Object> emotionData = new HashMap<>();
-                emotionData.put("sessionId", sessionId);
-                emotionData.put("positive", analysisResult.getEmotionAnalysis().getPositive());
-                emotionData.put("neutral", analysisResult.getEmotionAnalysis().getNeutral());
-                emotionData.put("negative", analysisResult.getEmotionAnalysis().getNegative());
-                
-                // 주요 감정과 안정성 점수 계산
-                double maxEmotion = Math.max(Math.max(
-                    analysisResult.getEmotionAnalysis().getPositive(),
-                    analysisResult.getEmotionAnalysis().getNeutral()),
-                    analysisResult.getEmotionAnalysis().getNegative());
-                
-                String dominantEmotion = "neutral";
-                if (maxEmotion == analysisResult.getEmotionAnalysis().getPositive()) {
-                    dominantEmotion = "positive";
-                } else if (maxEmotion == analysisResult.getEmotionAnalysis().getNegative()) {
-                    dominantEmotion = "negative";
-                }
-                
-                emotionData.put("dominantEmotion", dominantEmotion);
-                emotionData.put("stabilityScore", maxEmotion); // 간단한 안정성 지수
-                emotionData.put("positiveKeywords", "긍정적 키워드 추출 필요"); // AI에서 추출 필요
-                emotionData.put("negativeKeywords", "부정적 키워드 추출 필요"); // AI에서 추출 필요
-                
-                insertDataToDatabase("ResultMapper.insertEmotionAnalysis", emotionData);
-                System.out.println("감정 분석 저장 완료");
-            }
-            
-            // 긍정적 신호 저장
-            if (analysisResult.getPositiveSignals() != null && !analysisResult.getPositiveSignals().isEmpty()) {
-                System.out.println("긍정 신호 저장 중...");
-                int priority = 1;
-                for (AnalysisResult.PositiveSignal signal : analysisResult.getPositiveSignals()) {
-                    Map<String, Object> signalData = new HashMap<>();
-                    signalData.put("sessionId", sessionId);
-                    signalData.put("text", signal.getText());
-                    signalData.put("description", signal.getDescription());
-                    signalData.put("confidence", signal.getConfidence());
-                    signalData.put("type", "positive_indicator");
-                    signalData.put("metricValue", 0); // 필요시 추가 메트릭
-                    signalData.put("metricUnit", "");
-                    signalData.put("priority", priority++);
-                    
-                    insertDataToDatabase("ResultMapper.insertPositiveSignal", signalData);
-                }
-                System.out.println("긍정 신호 저장 완료: " + analysisResult.getPositiveSignals().size() + "건");
-            }
-            
-            // 대표 호감 메시지 저장
-            if (analysisResult.getFavoriteMessage() != null) {
-                System.out.println("대표 메시지 저장 중...");
-                Map<String, Object> messageData = new HashMap<>();
-                messageData.put("sessionId", sessionId);
-                messageData.put("text", analysisResult.getFavoriteMessage().getText());
-                messageData.put("confidence", analysisResult.getFavoriteMessage().getConfidence());
-                messageData.put("reason", analysisResult.getFavoriteMessage().getReason());
-                messageData.put("messageDate", analysisResult.getFavoriteMessage().getDate());
-                messageData.put("sender", "partner"); // 기본값
-                messageData.put("sentimentScore", analysisResult.getFavoriteMessage().getConfidence()); 
-                messageData.put("intimacyLevel", Math.min(5, analysisResult.getFavoriteMessage().getConfidence() / 20));
-                messageData.put("actionType", "affection_expression");
-                
-                insertDataToDatabase("ResultMapper.insertFavoriteMessage", messageData);
-                System.out.println("대표 메시지 저장 완료");
-            }
-            
-            // 맞춤 조언 저장
-            if (analysisResult.getCustomAdvice() != null && !analysisResult.getCustomAdvice().isEmpty()) {
-                System.out.println("맞춤 조언 저장 중...");
-                int priority = 1;
-                for (AnalysisResult.CustomAdvice advice : analysisResult.getCustomAdvice()) {
-                    Map<String, Object> adviceData = new HashMap<>();
-                    adviceData.put("sessionId", sessionId);
-                    adviceData.put("title", advice.getTitle());
-                    adviceData.put("content", advice.getContent());
-                    adviceData.put("type", "general_advice");
-                    adviceData.put("priority", priority++);
-                    adviceData.put("urgency", "medium");
-                    adviceData.put("basedOnSuccessRate", analysisResult.getMainResults() != null ? 
-                        analysisResult.getMainResults().getSuccessRate() : 0);
-                    adviceData.put("basedOnSignals", analysisResult.getPositiveSignals() != null ? 
-                        analysisResult.getPositiveSignals().size() : 0);
-                    
-                    insertDataToDatabase("ResultMapper.insertCustomAdvice", adviceData);
-                }
-                System.out.println("맞춤 조언 저장 완료: " + analysisResult.getCustomAdvice().size() + "건");
-            }
-            
-        } catch (Exception e) {
-            System.err.println("상세 데이터 저장 중 오류: " + e.getMessage());
-            e.printStackTrace();
-            // 상세 데이터 저장 실패해도 메인 분석은 저장된 상태이므로 계속 진행
+            return Integer.parseInt(limit.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("잘못된 페이지 크기입니다: " + limit, e);
         }
     }
     
     /**
-     * 데이터베이스 삽입 헬퍼 메소드
+     * 분석 결과를 데이터베이스에 저장 (세션 + 모든 상세 데이터를 한 트랜잭션으로)
      */
-    private void insertDataToDatabase(String mapperId, Map<String, Object> data) {
-        try {
-            org.apache.ibatis.session.SqlSession session = 
-                com.smhrd.db.SqlSessionManager.getSqlSessionFactory().openSession();
-            try {
-                int result = session.insert(mapperId, data);
-                if (result > 0) {
-                    session.commit();
-                } else {
-                    session.rollback();
-                    System.err.println("데이터 삽입 실패: " + mapperId);
-                }
-            } finally {
-                session.close();
-            }
-        } catch (Exception e) {
-            System.err.println("데이터베이스 삽입 오류 (" + mapperId + "): " + e.getMessage());
-            // 개별 데이터 실패는 전체 프로세스를 중단하지 않음
-        }
+    private boolean saveToDatabase(AnalysisResult analysisResult) {
+        System.out.println("데이터베이스 저장 시작 - sessionId: " + analysisResult.getSessionId());
+        return resultDAO.saveFull(analysisResult);
     }
     
     /**
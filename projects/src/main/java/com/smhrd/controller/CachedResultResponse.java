@@ -0,0 +1,45 @@
+package com.smhrd.controller;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.smhrd.model.ResultJsonCache;
+
+/**
+ * 결과 조회(getResult) 응답 헬퍼 (ETag / 304)
+ *
+ * 캐시된 결과 JSON의 ETag와 Cache-Control 헤더를 설정하고, 요청의 If-None-Match가 일치하면
+ * 본문 없이 304로 응답합니다. 브라우저는 저장한 응답을 매번 재검증(no-cache)하므로
+ * 결과를 삭제하거나 다시 저장하면 다음 조회에서 바로 새 결과를 받습니다.
+ */
+final class CachedResultResponse {
+
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private CachedResultResponse() {
+    }
+
+    /**
+     * ETag/Cache-Control 설정 후 재검증 요청이면 304 응답
+     * @return 304로 응답했으면 true (본문을 쓰지 않음)
+     */
+    static boolean notModified(HttpServletRequest request, HttpServletResponse response, ResultJsonCache.Entry entry) {
+        response.setHeader("ETag", entry.getETag());
+        response.setHeader("Cache-Control", CACHE_CONTROL);
+        if (entry.matches(request.getHeader("If-None-Match"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 응답 본문 ({"success":true,"analysisData":...}, 결과 JSON은 다시 직렬화하지 않고 그대로 삽입)
+     */
+    static String body(ResultJsonCache.Entry entry) {
+        String json = entry.getJson();
+        return new StringBuilder(json.length() + 40)
+            .append("{\"success\":true,\"analysisData\":").append(json).append('}')
+            .toString();
+    }
+}
@@ -0,0 +1,129 @@
+package com.smhrd.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.apache.commons.fileupload.util.Streams;
+
+import com.smhrd.service.ImportedConversation;
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 대화 파일 업로드 (multipart/form-data) 처리 헬퍼
+ *
+ * commons-fileupload 스트리밍 API로 파일 파트를 힙에 올리지 않고 바로 임시 파일로 복사한 뒤,
+ * ImportedConversation이 메모리 매핑하여 파싱합니다. 파싱이 끝나면 임시 파일은 삭제합니다.
+ * 폼 필드: conversationFile(대화 내보내기 파일), partnerName(상대방 이름)
+ */
+final class ConversationUpload {
+
+    private static final String FILE_FIELD = "conversationFile";
+    private static final String PARTNER_FIELD = "partnerName";
+    // 파일 외 폼 필드와 multipart 경계 몫
+    private static final long FORM_OVERHEAD_BYTES = 64 * 1024;
+
+    private final ImportedConversation conversation;
+    private final String partnerName;
+
+    private ConversationUpload(ImportedConversation conversation, String partnerName) {
+        this.conversation = conversation;
+        this.partnerName = partnerName;
+    }
+
+    /**
+     * multipart 요청인지 확인
+     */
+    static boolean isMultipart(HttpServletRequest request) {
+        return ServletFileUpload.isMultipartContent(request);
+    }
+
+    /**
+     * 업로드 요청 읽기
+     * @return 대화 파일이 없으면 null
+     * @throws FileUploadException 크기 제한 초과(FileSizeLimitExceededException, SizeLimitExceededException) 또는 잘못된 multipart 요청
+     * @throws IOException 임시 파일 저장 실패 또는 UTF-8이 아닌 파일
+     */
+    static ConversationUpload read(HttpServletRequest request) throws FileUploadException, IOException {
+        long maxBytes = AnalysisConfig.getUploadMaxBytes();
+        ServletFileUpload upload = new ServletFileUpload();
+        upload.setHeaderEncoding("UTF-8");
+        upload.setFileSizeMax(maxBytes);
+        upload.setSizeMax(maxBytes + FORM_OVERHEAD_BYTES);
+
+        String partnerName = null;
+        Path spooled = null;
+        try {
+            FileItemIterator items = upload.getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemStream item = items.next();
+                try (InputStream stream = item.openStream()) {
+                    if (item.isFormField()) {
+                        if (PARTNER_FIELD.equals(item.getFieldName())) {
+                            partnerName = Streams.asString(stream, "UTF-8");
+                        }
+                    } else if (FILE_FIELD.equals(item.getFieldName()) && spooled == null) {
+                        spooled = Files.createTempFile(spoolDirectory(), "dategenie-upload-", ".txt");
+                        long bytes = Files.copy(stream, spooled, StandardCopyOption.REPLACE_EXISTING);
+                        System.out.println("대화 파일 업로드 저장 완료 - " + item.getName() + " (" + bytes + " bytes)");
+                    }
+                }
+            }
+            if (spooled == null) {
+                return null;
+            }
+
+            // 폼 필드 순서와 관계없이 상대방 이름을 받은 뒤 파싱
+            long startTime = System.currentTimeMillis();
+            ImportedConversation conversation = ImportedConversation.fromFile(
+                spooled, partnerName, AnalysisConfig.getUploadMaxPromptChars());
+            System.out.println("대화 파일 파싱 완료 - 형식: " + conversation.getFormat()
+                + ", 메시지: " + conversation.getMessageCount()
+                + ", 소요: " + (System.currentTimeMillis() - startTime) + "ms");
+            return new ConversationUpload(conversation, partnerName);
+        } catch (FileUploadBase.FileUploadIOException e) {
+            // 스트림을 읽는 도중 크기 제한을 넘으면 IOException으로 감싸져 나오므로 원래 예외로 풀어서 전달
+            throw (FileUploadException) e.getCause();
+        } finally {
+            if (spooled != null) {
+                deleteQuietly(spooled);
+            }
+        }
+    }
+
+    private static Path spoolDirectory() throws IOException {
+        String configured = AnalysisConfig.getUploadSpoolDirectory();
+        Path directory = (configured == null || configured.trim().isEmpty())
+            ? Paths.get(System.getProperty("java.io.tmpdir"))
+            : Paths.get(configured.trim());
+        return Files.createDirectories(directory);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // 매핑이 해제되기 전에는 삭제되지 않는 환경(Windows)이면 종료 시 삭제
+            System.err.println("업로드 임시 파일 삭제 실패, 종료 시 삭제 예약: " + file);
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    ImportedConversation getConversation() {
+        return conversation;
+    }
+
+    String getPartnerName() {
+        return partnerName;
+    }
+}
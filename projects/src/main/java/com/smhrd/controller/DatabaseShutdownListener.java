@@ -0,0 +1,28 @@
+package com.smhrd.controller;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import com.smhrd.db.SqlSessionManager;
+import com.smhrd.util.DatabaseConfig;
+
+/**
+ * 애플리케이션 종료(재배포) 시 데이터베이스 커넥션 풀 종료
+ * 풀의 커넥션과 관리 스레드가 이전 배포에 남지 않도록 합니다.
+ * 기동 시에는 데이터베이스 접속 정보가 설정되어 있는지 먼저 확인하여, 없으면 배포를 실패시킵니다.
+ */
+@WebListener
+public class DatabaseShutdownListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        // 커넥션 풀은 SqlSessionManager를 처음 사용할 때 생성 (접속 정보 누락은 첫 요청이 아니라 기동 시 실패)
+        DatabaseConfig.requireConnectionSettings();
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        SqlSessionManager.close();
+    }
+}
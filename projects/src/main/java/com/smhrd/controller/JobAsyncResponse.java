@@ -0,0 +1,153 @@
+package com.smhrd.controller;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.gson.Gson;
+import com.smhrd.service.AnalysisJob;
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 분석 작업 완료 시점에 응답을 보내는 AsyncContext 헬퍼 (mode=async)
+ *
+ * 요청 스레드는 작업 등록 직후 반환되고, 작업이 끝나면 작업 스레드의 콜백에서
+ * 최종 분석 결과를 한 번에 응답합니다. (서블릿에 asyncSupported = true 설정 필요)
+ * 응답 대기 시간이 초과되거나 클라이언트 연결이 끊기면 작업을 취소하여
+ * 진행 중인 프로바이더 HTTP 호출도 함께 중단합니다.
+ */
+final class JobAsyncResponse implements AnalysisJob.Listener, AsyncListener {
+
+    private final AnalysisJob job;
+    private final AsyncContext asyncContext;
+    private final Gson gson;
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+
+    private JobAsyncResponse(AnalysisJob job, AsyncContext asyncContext, Gson gson) {
+        this.job = job;
+        this.asyncContext = asyncContext;
+        this.gson = gson;
+    }
+
+    /**
+     * 비동기 응답 시작 (작업 등록 직후 요청 스레드에서 호출)
+     */
+    static void start(HttpServletRequest request, HttpServletResponse response, AnalysisJob job, Gson gson) {
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(AnalysisConfig.getAsyncTimeoutMs());
+
+        JobAsyncResponse asyncResponse = new JobAsyncResponse(job, asyncContext, gson);
+        asyncContext.addListener(asyncResponse);
+        job.addListener(asyncResponse);
+    }
+
+    @Override
+    public void onUpdate(Map<String, Object> snapshot, boolean terminal) {
+        if (!terminal) {
+            return;
+        }
+
+        if (job.getStatus() == AnalysisJob.Status.DONE && job.getResult() != null) {
+            finish(HttpServletResponse.SC_OK, job.getResult());
+        } else {
+            finish(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, errorBody(job.getMessage()));
+        }
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        System.err.println("분석 응답 대기 시간 초과 - jobId: " + job.getJobId());
+        // 취소 시 FAILED 갱신이 onUpdate로 동기 전달되므로 먼저 응답 권한을 가져와 500 응답을 막음
+        if (!claim()) {
+            return;
+        }
+        job.cancel("분석 응답 대기 시간이 초과되었습니다.");
+        respond(HttpServletResponse.SC_GATEWAY_TIMEOUT, errorBody("분석 응답 대기 시간이 초과되었습니다. 잠시 후 다시 시도해주세요."));
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        // 클라이언트 연결 종료 등: 결과를 받을 곳이 없으므로 작업 취소
+        System.err.println("분석 응답 연결 오류 - jobId: " + job.getJobId() +
+            (event.getThrowable() != null ? ", 원인: " + event.getThrowable().getMessage() : ""));
+        if (!claim()) {
+            return;
+        }
+        job.cancel("클라이언트 연결이 종료되었습니다.");
+        // 끊어진 연결에는 응답 본문을 쓰지 않고 컨텍스트만 종료
+        respond(0, null);
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        finished.set(true);
+        job.removeListener(this);
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    /**
+     * 응답 전송 후 비동기 컨텍스트 종료 (한 번만 수행)
+     * @param statusCode HTTP 상태 코드 (body가 null이면 응답 본문 없이 종료)
+     */
+    private void finish(int statusCode, Map<String, Object> body) {
+        if (claim()) {
+            respond(statusCode, body);
+        }
+    }
+
+    /**
+     * 응답 권한 획득 (처음 호출한 쪽만 true) 후 작업 리스너 해제
+     */
+    private boolean claim() {
+        if (!finished.compareAndSet(false, true)) {
+            return false;
+        }
+        job.removeListener(this);
+        return true;
+    }
+
+    /**
+     * 응답 전송 후 비동기 컨텍스트 종료 (claim()에 성공한 쪽에서만 호출)
+     */
+    private void respond(int statusCode, Map<String, Object> body) {
+        try {
+            if (body != null) {
+                HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+                response.setStatus(statusCode);
+                response.setContentType("application/json; charset=UTF-8");
+                response.setCharacterEncoding("UTF-8");
+
+                PrintWriter out = response.getWriter();
+                out.print(gson.toJson(body));
+                out.flush();
+            }
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("비동기 응답 전송 실패 - jobId: " + job.getJobId() + ", 오류: " + e.getMessage());
+        } finally {
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException e) {
+                // 이미 완료된 컨텍스트
+            }
+        }
+    }
+
+    private Map<String, Object> errorBody(String message) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("success", false);
+        body.put("message", message);
+        body.put("jobId", job.getJobId());
+        return body;
+    }
+}
@@ -0,0 +1,106 @@
+package com.smhrd.controller;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.gson.Gson;
+import com.smhrd.service.AnalysisJob;
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 분석 작업 진행 상황을 Server-Sent Events로 전송하는 헬퍼
+ *
+ * AsyncContext를 사용하므로 스트림이 열려 있는 동안 요청 스레드를 점유하지 않습니다.
+ * 작업이 완료/실패하면 마지막 이벤트를 보내고 스트림을 닫습니다.
+ * (서블릿에 asyncSupported = true 설정 필요)
+ */
+final class JobEventStream implements AnalysisJob.Listener, AsyncListener {
+
+    private final AnalysisJob job;
+    private final AsyncContext asyncContext;
+    private final PrintWriter out;
+    private final Gson gson;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private JobEventStream(AnalysisJob job, AsyncContext asyncContext, PrintWriter out, Gson gson) {
+        this.job = job;
+        this.asyncContext = asyncContext;
+        this.out = out;
+        this.gson = gson;
+    }
+
+    /**
+     * 작업 이벤트 스트림 열기
+     */
+    static void open(HttpServletRequest request, HttpServletResponse response, AnalysisJob job, Gson gson)
+            throws IOException {
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(AnalysisConfig.getJobSseTimeoutMs());
+
+        JobEventStream stream = new JobEventStream(job, asyncContext, response.getWriter(), gson);
+        asyncContext.addListener(stream);
+        job.addListener(stream);
+    }
+
+    @Override
+    public void onUpdate(Map<String, Object> snapshot, boolean terminal) {
+        if (closed.get()) {
+            return;
+        }
+
+        synchronized (out) {
+            out.write("event: " + (terminal ? "done" : "progress") + "\n");
+            out.write("data: " + gson.toJson(snapshot).replace("\n", "") + "\n\n");
+            out.flush();
+        }
+
+        if (terminal) {
+            close();
+        }
+    }
+
+    private void close() {
+        if (closed.compareAndSet(false, true)) {
+            job.removeListener(this);
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException e) {
+                // 이미 완료된 컨텍스트
+            }
+        }
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        // 클라이언트 연결 종료 등
+        close();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        closed.set(true);
+        job.removeListener(this);
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+}
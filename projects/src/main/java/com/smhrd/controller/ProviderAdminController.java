@@ -0,0 +1,90 @@
+package com.smhrd.controller;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.smhrd.db.SqlSessionManager;
+import com.smhrd.service.AnalysisFlights;
+import com.smhrd.service.AnalysisMetrics;
+import com.smhrd.service.ProviderRouter;
+import com.smhrd.service.PromptTemplateRegistry;
+import com.smhrd.service.TokenEstimator;
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 분석 프로바이더 관리용 조회 API
+ *
+ * 프로바이더 라우터의 호출 순서, 프로바이더별 가중치/지연 시간(p50/p95)/오류율,
+ * 토큰 추정기 보정 상태, 분석 파이프라인 지표(AnalysisMetrics)와 DB 커넥션 풀 상태를 JSON으로 반환합니다.
+ * 로컬(loopback) 접속이거나 X-Admin-Token 헤더가 analysis.admin.token과 일치할 때만 허용합니다.
+ */
+@WebServlet("/admin/providers")
+public class ProviderAdminController extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+    private static final String TOKEN_HEADER = "X-Admin-Token";
+
+    private final Gson gson = new GsonBuilder()
+        .setPrettyPrinting()
+        .disableHtmlEscaping()
+        .create();
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        if (!isAuthorized(request)) {
+            System.err.println("관리 API 접근 거부 - " + request.getRemoteAddr());
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        response.setContentType("application/json; charset=UTF-8");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+
+        Map<String, Object> responseData = new LinkedHashMap<>();
+        responseData.put("success", true);
+        responseData.put("router", ProviderRouter.getInstance().getStatus());
+        responseData.put("inFlightAnalyses", AnalysisFlights.inFlightCount());
+        responseData.put("tokenEstimators", TokenEstimator.statusAll());
+        responseData.put("promptTemplates", PromptTemplateRegistry.getInstance().getVersions());
+        responseData.put("metrics", AnalysisMetrics.snapshot());
+        responseData.put("databasePool", SqlSessionManager.getPoolStatus());
+
+        PrintWriter out = response.getWriter();
+        out.print(gson.toJson(responseData));
+        out.flush();
+    }
+
+    /**
+     * 로컬 접속 또는 관리 토큰 일치 여부 확인
+     */
+    static boolean isAuthorized(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if ("127.0.0.1".equals(remoteAddr) || "::1".equals(remoteAddr) || "0:0:0:0:0:0:0:1".equals(remoteAddr)) {
+            return true;
+        }
+
+        String expected = AnalysisConfig.getAdminToken();
+        String provided = request.getHeader(TOKEN_HEADER);
+        if (expected == null || expected.isEmpty() || provided == null) {
+            return false;
+        }
+        // 응답 시간으로 토큰을 추측할 수 없도록 고정 시간 비교
+        return MessageDigest.isEqual(
+            expected.getBytes(StandardCharsets.UTF_8), provided.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,62 @@
+package com.smhrd.db;
+
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.DataSourceFactory;
+
+import com.smhrd.util.DatabaseConfig;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.util.PropertyElf;
+
+/**
+ * HikariCP 커넥션 풀 데이터 소스 팩토리 (db.pool.factory=hikari)
+ *
+ * DatabaseConfig의 접속 정보와 풀 설정(최소 유휴/최대 크기, 대기/유휴/수명 시간, 누수 감지, 검증)으로
+ * HikariDataSource를 만들고, 드라이버 연결 속성(Oracle 문장 캐시, 행 프리페치)을 그대로 전달합니다.
+ * setProperties로 받은 값은 같은 이름의 HikariCP 속성(예: maximumPoolSize)으로 덮어씁니다.
+ */
+public class HikariDataSourceFactory implements DataSourceFactory {
+
+    private static final String POOL_NAME = "DateGenie-DB";
+
+    private HikariDataSource dataSource;
+
+    @Override
+    public void setProperties(Properties props) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(POOL_NAME);
+        config.setDriverClassName(DatabaseConfig.getDriver());
+        config.setJdbcUrl(DatabaseConfig.getUrl());
+        config.setUsername(DatabaseConfig.getUsername());
+        config.setPassword(DatabaseConfig.getPassword());
+
+        config.setMinimumIdle(DatabaseConfig.getPoolMinIdle());
+        config.setMaximumPoolSize(DatabaseConfig.getPoolMaxSize());
+        config.setConnectionTimeout(DatabaseConfig.getPoolConnectionTimeoutMs());
+        config.setIdleTimeout(DatabaseConfig.getPoolIdleTimeoutMs());
+        config.setMaxLifetime(DatabaseConfig.getPoolMaxLifetimeMs());
+        config.setLeakDetectionThreshold(DatabaseConfig.getPoolLeakDetectionMs());
+        config.setValidationTimeout(DatabaseConfig.getPoolValidationTimeoutMs());
+        if (!DatabaseConfig.getPoolValidationQuery().isEmpty()) {
+            config.setConnectionTestQuery(DatabaseConfig.getPoolValidationQuery());
+        }
+        // DB에 연결할 수 없어도 애플리케이션은 기동 (첫 요청 때 다시 연결 시도)
+        config.setInitializationFailTimeout(-1);
+        // 풀 상태(사용 중/유휴/대기 수)를 JMX로도 조회할 수 있도록 등록
+        config.setRegisterMbeans(true);
+        config.setDataSourceProperties(DatabaseConfig.getDriverProperties());
+
+        if (props != null && !props.isEmpty()) {
+            PropertyElf.setTargetFromProperties(config, props);
+        }
+        this.dataSource = new HikariDataSource(config);
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+}
@@ -2,11 +2,26 @@ package com.smhrd.db;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.util.ResourceBundle;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
 
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.DataSourceFactory;
+import org.apache.ibatis.datasource.pooled.PoolState;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+
+import com.smhrd.util.DatabaseConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 
 public class SqlSessionManager {
 	// 사용하는 DB의 기본 정보(driver, url, username, pw)를 가지고
@@ -14,32 +29,132 @@ public class SqlSessionManager {
 	// sqlSessionFactory를 생성하고 관리하는 클래스
 	// * sqlSession : DB에 접근할 수 있는 권한, 입장권
 	public static SqlSessionFactory sqlSessionFactory;
+	// 실제 커넥션을 빌려주는 데이터 소스 (커넥션 풀)
+	private static DataSource dataSource;
 	// 클래스 로딩 시(실행시), 딱 한번만 실행하고 더이상 실행 X
 	static {
-		// db의 정보가 담긴 xml파일 주소를 변수에 담아준다.
-		// mybatis-config에 작성된 DB 주소를 가져와서 factory생성
+		// 매퍼 목록이 담긴 xml파일 주소를 변수에 담아준다.
+		// DB 접속 정보와 커넥션 풀은 xml이 아니라 DatabaseConfig(설정 파일, 환경변수)로 구성
 		String resource = "com/smhrd/db/mybatis-config.xml";
 		// reader를 사용해서 정보를 읽어와서 factory 생성
 		try {
 			Reader reader = Resources.getResourceAsReader(resource);
 			// mybatis-config.xml에 담긴 정보를 reader를 통해 넘긴다.
 			sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
-		} catch (IOException e) {
+			// 접속 정보가 없으면 여기서 기동 실패 (기본 접속 정보 없음)
+			DatabaseConfig.requireConnectionSettings();
+			// 트랜잭션(JDBC) + 데이터 소스(db.pool.factory) 환경을 코드로 등록
+			dataSource = createDataSourceFactory(DatabaseConfig.getPoolFactory()).getDataSource();
+			sqlSessionFactory.getConfiguration().setEnvironment(
+				new Environment("default", new JdbcTransactionFactory(), dataSource));
+			DatabaseConfig.printConfig();
+		} catch (IOException | ReflectiveOperationException e) {
 			e.printStackTrace();
 		}
 	}
 	// 다른 클래스에서 sqlSessionFactory를 가져오고 싶을 때, 사용할 메서드
-	// 리턴값으로는 상단에 static 블럭에서 생성된 salSessionFactory 반환! 
+	// 리턴값으로는 상단에 static 블럭에서 생성된 salSessionFactory 반환!
 	public static SqlSessionFactory getSqlSessionFactory() {
 		return sqlSessionFactory;
 	}
-	
-	
-	
-	
-	
-	
-	
-	
-	
+
+	/**
+	 * 데이터 소스 팩토리 생성
+	 * @param factory hikari, pooled(MyBatis 내장 풀), unpooled,
+	 *                또는 DataSourceFactory 구현 클래스 이름 (driver/url/username/password/driver.* 속성 전달)
+	 */
+	private static DataSourceFactory createDataSourceFactory(String factory) throws ReflectiveOperationException {
+		DataSourceFactory dataSourceFactory;
+		Properties props = new Properties();
+
+		if ("hikari".equalsIgnoreCase(factory)) {
+			dataSourceFactory = new HikariDataSourceFactory();
+		} else if ("pooled".equalsIgnoreCase(factory)) {
+			dataSourceFactory = new PooledDataSourceFactory();
+			putConnectionProperties(props);
+			props.setProperty("poolMaximumActiveConnections", String.valueOf(DatabaseConfig.getPoolMaxSize()));
+			props.setProperty("poolMaximumIdleConnections", String.valueOf(DatabaseConfig.getPoolMaxSize()));
+			props.setProperty("poolTimeToWait", String.valueOf(DatabaseConfig.getPoolConnectionTimeoutMs()));
+			if (DatabaseConfig.getPoolLeakDetectionMs() > 0) {
+				// 내장 풀은 이 시간을 넘긴 커넥션을 회수
+				props.setProperty("poolMaximumCheckoutTime", String.valueOf(DatabaseConfig.getPoolLeakDetectionMs()));
+			}
+			String validationQuery = DatabaseConfig.getPoolValidationQuery();
+			if (validationQuery.isEmpty() && DatabaseConfig.isOracle()) {
+				validationQuery = "SELECT 1 FROM DUAL";
+			}
+			if (!validationQuery.isEmpty()) {
+				props.setProperty("poolPingEnabled", "true");
+				props.setProperty("poolPingQuery", validationQuery);
+				props.setProperty("poolPingConnectionsNotUsedFor", "30000");
+			}
+		} else if ("unpooled".equalsIgnoreCase(factory)) {
+			dataSourceFactory = new UnpooledDataSourceFactory();
+			putConnectionProperties(props);
+		} else {
+			dataSourceFactory = (DataSourceFactory) Class.forName(factory).getDeclaredConstructor().newInstance();
+			putConnectionProperties(props);
+		}
+
+		dataSourceFactory.setProperties(props);
+		System.out.println("데이터 소스 생성 - " + factory + " (" + dataSourceFactory.getDataSource().getClass().getSimpleName() + ")");
+		return dataSourceFactory;
+	}
+
+	/**
+	 * MyBatis 데이터 소스 공통 속성 (드라이버 연결 속성은 driver. 접두사)
+	 */
+	private static void putConnectionProperties(Properties props) {
+		props.setProperty("driver", DatabaseConfig.getDriver());
+		props.setProperty("url", DatabaseConfig.getUrl());
+		props.setProperty("username", DatabaseConfig.getUsername());
+		props.setProperty("password", DatabaseConfig.getPassword());
+		for (String name : DatabaseConfig.getDriverProperties().stringPropertyNames()) {
+			props.setProperty("driver." + name, DatabaseConfig.getDriverProperties().getProperty(name));
+		}
+	}
+
+	/**
+	 * 커넥션 풀 상태 (관리 API용)
+	 * @return 풀 종류와 사용 중/유휴/대기 커넥션 수 등
+	 */
+	public static Map<String, Object> getPoolStatus() {
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("type", dataSource != null ? dataSource.getClass().getSimpleName() : null);
+
+		if (dataSource instanceof HikariDataSource) {
+			HikariDataSource hikari = (HikariDataSource) dataSource;
+			HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+			status.put("maxSize", hikari.getMaximumPoolSize());
+			if (pool != null) {
+				status.put("active", pool.getActiveConnections());
+				status.put("idle", pool.getIdleConnections());
+				status.put("total", pool.getTotalConnections());
+				status.put("threadsAwaiting", pool.getThreadsAwaitingConnection());
+			}
+		} else if (dataSource instanceof PooledDataSource) {
+			PoolState pool = ((PooledDataSource) dataSource).getPoolState();
+			status.put("maxSize", ((PooledDataSource) dataSource).getPoolMaximumActiveConnections());
+			status.put("active", pool.getActiveConnectionCount());
+			status.put("idle", pool.getIdleConnectionCount());
+			status.put("requests", pool.getRequestCount());
+			status.put("averageRequestMs", pool.getAverageRequestTime());
+			status.put("hadToWait", pool.getHadToWaitCount());
+			status.put("claimedOverdue", pool.getClaimedOverdueConnectionCount());
+			status.put("badConnections", pool.getBadConnectionCount());
+		}
+		return status;
+	}
+
+	/**
+	 * 커넥션 풀 종료 (애플리케이션 종료 시)
+	 */
+	public static void close() {
+		if (dataSource instanceof HikariDataSource) {
+			((HikariDataSource) dataSource).close();
+		} else if (dataSource instanceof PooledDataSource) {
+			((PooledDataSource) dataSource).forceCloseAll();
+		}
+		System.out.println("데이터베이스 커넥션 풀 종료");
+	}
 }
@@ -0,0 +1,76 @@
+package com.smhrd.model;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import com.smhrd.db.SqlSessionManager;
+
+/**
+ * 분석 결과 캐시 데이터베이스 접근 객체
+ * ANALYSIS_RESULT_CACHE 테이블에 대한 조회/저장 작업을 담당합니다.
+ * 캐시는 부가 기능이므로 DB 오류는 로그만 남기고 캐시 미적중으로 처리합니다.
+ */
+public class AnalysisCacheDAO {
+
+    // SqlSessionFactory 가져오기
+    SqlSessionFactory sqlSessionFactory = SqlSessionManager.getSqlSessionFactory();
+
+    /**
+     * 만료되지 않은 캐시 결과 조회
+     * @param cacheKey 캐시 키
+     * @return resultJson(분석 결과 JSON), expiresAt(만료 시각)을 담은 Map, 없으면 null
+     */
+    public Map<String, Object> findEntry(String cacheKey) {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            return sqlSession.selectOne("com.smhrd.db.AnalysisCache.findEntry", cacheKey);
+        } catch (Exception e) {
+            System.err.println("분석 결과 캐시 조회 실패: " + e.getMessage());
+            return null;
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    /**
+     * 캐시 결과 저장 (같은 키가 있으면 갱신)
+     * @return 성공 여부
+     */
+    public boolean saveResultJson(String cacheKey, String provider, String resultJson, Timestamp expiresAt) {
+        SqlSession sqlSession = sqlSessionFactory.openSession(true);
+        try {
+            Map<String, Object> params = new HashMap<>();
+            params.put("cacheKey", cacheKey);
+            params.put("provider", provider);
+            params.put("resultJson", resultJson);
+            params.put("expiresAt", expiresAt);
+
+            return sqlSession.insert("com.smhrd.db.AnalysisCache.mergeResult", params) > 0;
+        } catch (Exception e) {
+            System.err.println("분석 결과 캐시 저장 실패: " + e.getMessage());
+            return false;
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    /**
+     * 만료된 캐시 삭제
+     * @return 삭제된 행 수
+     */
+    public int deleteExpired() {
+        SqlSession sqlSession = sqlSessionFactory.openSession(true);
+        try {
+            return sqlSession.delete("com.smhrd.db.AnalysisCache.deleteExpired");
+        } catch (Exception e) {
+            System.err.println("만료 캐시 삭제 실패: " + e.getMessage());
+            return 0;
+        } finally {
+            sqlSession.close();
+        }
+    }
+}
@@ -12,6 +12,8 @@ public class AnalysisResult {
     private String sessionId;
     private String userId;
     private String partnerName;
+    // 결과를 만든 프롬프트 템플릿 버전 (PromptTemplate.getVersion 조합)
+    private String promptVersion;
     
     private MainResults mainResults;
     private EmotionAnalysis emotionAnalysis;
@@ -182,6 +184,9 @@ public class AnalysisResult {
     public String getPartnerName() { return partnerName; }
     public void setPartnerName(String partnerName) { this.partnerName = partnerName; }
     
+    public String getPromptVersion() { return promptVersion; }
+    public void setPromptVersion(String promptVersion) { this.promptVersion = promptVersion; }
+    
     public MainResults getMainResults() { return mainResults; }
     public void setMainResults(MainResults mainResults) { this.mainResults = mainResults; }
     
@@ -209,6 +214,10 @@ public class AnalysisResult {
     public Map<String, Object> toFrontendFormat() {
         Map<String, Object> result = new java.util.HashMap<>();
         
+        if (promptVersion != null) {
+            result.put("promptVersion", promptVersion);
+        }
+        
         // 메인 분석 결과
         if (mainResults != null) {
             Map<String, Object> mainData = new java.util.HashMap<>();
@@ -1,15 +1,28 @@
 package com.smhrd.model;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 
+import com.google.gson.Gson;
 import com.smhrd.db.SqlSessionManager;
+import com.smhrd.util.AnalysisConfig;
 
 /**
  * 분석 결과 데이터베이스 접근 클래스
@@ -17,7 +30,24 @@ import com.smhrd.db.SqlSessionManager;
  */
 public class AnalysisResultDAO {
     
+    private static final String MAPPER = "com.smhrd.db.ResultMapper.";
+    
+    // 세션에 딸린 상세 데이터 테이블 (다시 저장할 때 지우고 새로 삽입)
+    private static final List<String> DETAIL_TABLES = Arrays.asList(
+        "interest_trends", "emotion_analysis", "positive_signals", "favorite_messages", "custom_advice");
+    // 관계 단계가 없는 분석의 통계 요약 키 (ResultMapper.insertUserStatsFromSessions의 NVL 값과 같아야 함)
+    private static final String UNCLASSIFIED_STAGE = "미분류";
+    // 사용자별 통계 요약 (메모리, 저장/삭제 커밋 후 무효화)
+    private static final StampedLruCache<UserAnalysisStats> USER_STATS =
+        new StampedLruCache<>(AnalysisConfig.getUserStatsCacheMaxEntries());
+    // 히스토리 페이지 크기 (기본 / 최대)
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 20;
+    private static final int MAX_HISTORY_PAGE_SIZE = 50;
+    private static final Pattern DATE_TIME = Pattern.compile("\\d{4}-\\d{2}-\\d{2}( \\d{2}:\\d{2}(:\\d{2})?)?");
+    
     private SqlSessionFactory sqlSessionFactory;
+    private final ResultJsonCache resultJsonCache = ResultJsonCache.getInstance();
+    private final Gson gson = new Gson();
     
     public AnalysisResultDAO() {
         this.sqlSessionFactory = SqlSessionManager.getSqlSessionFactory();
@@ -36,20 +66,21 @@ public class AnalysisResultDAO {
             session = sqlSessionFactory.openSession();
             
             // 기존 결과가 있는지 확인
-            AnalysisResult existing = session.selectOne("ResultMapper.getBySessionId", analysisResult.getSessionId());
+            AnalysisResult existing = session.selectOne(MAPPER + "getBySessionId", analysisResult.getSessionId());
             
             if (existing != null) {
                 // 업데이트
-                int result = session.update("ResultMapper.updateAnalysisResult", analysisResult);
+                int result = session.update(MAPPER + "updateAnalysisResult", analysisResult);
                 success = (result > 0);
             } else {
                 // 새로 삽입
-                int result = session.insert("ResultMapper.insertAnalysisResult", analysisResult);
+                int result = session.insert(MAPPER + "insertAnalysisResult", analysisResult);
                 success = (result > 0);
             }
             
             if (success) {
                 session.commit();
+                resultJsonCache.invalidate(analysisResult.getSessionId());
                 System.out.println("분석 결과 저장 성공 - sessionId: " + analysisResult.getSessionId());
             } else {
                 session.rollback();
@@ -72,6 +103,323 @@ public class AnalysisResultDAO {
         return success;
     }
     
+    /**
+     * 분석 결과 전체(세션, 관심도 추이, 감정 분석, 긍정 신호, 대표 메시지, 맞춤 조언)를 한 트랜잭션으로 저장
+     * BATCH 실행기로 같은 종류의 행을 JDBC 배치 한 번에 보내고 마지막에 한 번만 커밋하며,
+     * 하나라도 실패하면 전체를 롤백합니다. 같은 세션을 다시 저장하면 상세 데이터를 지우고 새로 삽입합니다.
+     * 사용자별 통계 요약은 커밋 후 별도 트랜잭션으로 반영하므로 요약 반영이 실패해도 분석 결과는 남습니다.
+     * @param analysisResult 저장할 분석 결과
+     * @return 저장 성공 여부
+     */
+    public boolean saveFull(AnalysisResult analysisResult) {
+        String sessionId = analysisResult.getSessionId();
+        long startTime = System.currentTimeMillis();
+        SqlSession session = null;
+        
+        try {
+            session = sqlSessionFactory.openSession(ExecutorType.BATCH, false);
+            
+            // 1. 세션 (기존 세션이면 갱신 후 상세 데이터 삭제)
+            Map<String, Object> sessionRow = toSessionRow(analysisResult);
+            Map<String, Object> existing = session.selectOne(MAPPER + "getSessionStatsRow", sessionId);
+            if (existing != null) {
+                session.update(MAPPER + "updateAnalysisSession", sessionRow);
+                for (String table : DETAIL_TABLES) {
+                    Map<String, Object> params = new HashMap<>();
+                    params.put("table", table);
+                    params.put("sessionId", sessionId);
+                    session.delete(MAPPER + "deleteSessionDetails", params);
+                }
+            } else {
+                session.insert(MAPPER + "insertAnalysisSession", sessionRow);
+            }
+            
+            // 2. 상세 데이터 (같은 문장은 하나의 JDBC 배치로 묶임)
+            int rows = 1;
+            if (analysisResult.getInterestTrends() != null) {
+                for (AnalysisResult.InterestTrend trend : analysisResult.getInterestTrends()) {
+                    session.insert(MAPPER + "insertInterestTrend", toTrendRow(sessionId, trend));
+                    rows++;
+                }
+            }
+            if (analysisResult.getEmotionAnalysis() != null) {
+                session.insert(MAPPER + "insertEmotionAnalysis",
+                    toEmotionRow(sessionId, analysisResult.getEmotionAnalysis()));
+                rows++;
+            }
+            if (analysisResult.getPositiveSignals() != null) {
+                int priority = 1;
+                for (AnalysisResult.PositiveSignal signal : analysisResult.getPositiveSignals()) {
+                    session.insert(MAPPER + "insertPositiveSignal", toSignalRow(sessionId, signal, priority++));
+                    rows++;
+                }
+            }
+            if (analysisResult.getFavoriteMessage() != null) {
+                session.insert(MAPPER + "insertFavoriteMessage",
+                    toFavoriteMessageRow(sessionId, analysisResult.getFavoriteMessage()));
+                rows++;
+            }
+            if (analysisResult.getCustomAdvice() != null) {
+                int priority = 1;
+                for (AnalysisResult.CustomAdvice advice : analysisResult.getCustomAdvice()) {
+                    session.insert(MAPPER + "insertCustomAdvice", toAdviceRow(analysisResult, advice, priority++));
+                    rows++;
+                }
+            }
+            
+            // 3. 배치 실행 결과 확인 후 한 번에 커밋
+            List<BatchResult> results = session.flushStatements();
+            for (BatchResult result : results) {
+                for (int count : result.getUpdateCounts()) {
+                    if (count == Statement.EXECUTE_FAILED) {
+                        throw new IllegalStateException("배치 실행 실패: " + result.getMappedStatement().getId());
+                    }
+                }
+            }
+            session.commit();
+            resultJsonCache.invalidate(sessionId);
+            
+            System.out.println("분석 결과 전체 저장 성공 - sessionId: " + sessionId + ", " + rows + "행, 배치 "
+                + results.size() + "개 (" + (System.currentTimeMillis() - startTime) + "ms)");
+            
+            // 4. 사용자별 통계 요약 (커밋된 저장과 분리: 기존 반영분을 빼고 새 결과를 더함)
+            if (AnalysisConfig.isUserStatsEnabled()) {
+                List<Map<String, Object>> deltas = new ArrayList<>();
+                if (existing != null) {
+                    deltas.add(toStatsDelta((String) existing.get("userId"),
+                        (String) existing.get("relationshipStage"), -1, (Double) existing.get("successRate"), null));
+                }
+                deltas.add(toStatsDelta(analysisResult.getUserId(),
+                    (String) sessionRow.get("relationshipStage"), 1, (Double) sessionRow.get("successRate"),
+                    existing != null ? (Timestamp) existing.get("analysisDate") : null));
+                applyUserStatsDeltas(deltas);
+            }
+            return true;
+            
+        } catch (Exception e) {
+            System.err.println("분석 결과 전체 저장 중 오류 (전체 롤백): " + e.getMessage());
+            e.printStackTrace();
+            if (session != null) {
+                session.rollback();
+            }
+            return false;
+        } finally {
+            if (session != null) {
+                session.close();
+            }
+        }
+    }
+    
+    /**
+     * 세션 행 (대화 기간과 메시지 수는 관심도 추이 기준)
+     */
+    private Map<String, Object> toSessionRow(AnalysisResult analysisResult) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("sessionId", analysisResult.getSessionId());
+        row.put("userId", analysisResult.getUserId());
+        row.put("partnerName", analysisResult.getPartnerName());
+        row.put("sessionName", analysisResult.getPartnerName() != null ? analysisResult.getPartnerName() + "님과의 대화" : null);
+        
+        AnalysisResult.MainResults main = analysisResult.getMainResults();
+        if (main != null) {
+            row.put("successRate", main.getSuccessRate());
+            row.put("confidenceLevel", main.getConfidenceLevel());
+            row.put("relationshipStage", main.getRelationshipStage());
+            row.put("heroInsight", main.getHeroInsight());
+        }
+        
+        List<AnalysisResult.InterestTrend> trends = analysisResult.getInterestTrends();
+        if (trends != null && !trends.isEmpty()) {
+            int totalMessages = 0;
+            for (AnalysisResult.InterestTrend trend : trends) {
+                totalMessages += trend.getMessageCount();
+            }
+            row.put("conversationStart", trends.get(0).getDate());
+            row.put("conversationEnd", trends.get(trends.size() - 1).getDate());
+            row.put("totalMessages", totalMessages);
+        }
+        return row;
+    }
+    
+    /**
+     * 사용자별 통계 요약 증감 반영 (분석 결과 커밋 후 별도 트랜잭션)
+     * 반영에 실패하면 관련 사용자의 요약을 analysis_sessions에서 다시 집계하여 보정합니다.
+     */
+    private void applyUserStatsDeltas(List<Map<String, Object>> deltas) {
+        Set<String> userIds = new LinkedHashSet<>();
+        for (Map<String, Object> delta : deltas) {
+            if (delta.get("userId") != null) {
+                userIds.add((String) delta.get("userId"));
+            }
+        }
+        
+        boolean applied = false;
+        SqlSession session = null;
+        try {
+            session = sqlSessionFactory.openSession();
+            for (Map<String, Object> delta : deltas) {
+                mergeUserStats(session, delta);
+            }
+            session.commit();
+            applied = true;
+        } catch (Exception e) {
+            System.err.println("사용자 통계 요약 반영 실패, 다시 집계합니다: " + e.getMessage());
+            if (session != null) {
+                session.rollback();
+            }
+        } finally {
+            if (session != null) {
+                session.close();
+            }
+        }
+        
+        for (String userId : userIds) {
+            if (applied) {
+                invalidateUserStats(userId);
+            } else {
+                rebuildUserStats(userId);
+            }
+        }
+    }
+    
+    /**
+     * 통계 요약 MERGE (같은 사용자/관계 단계의 첫 분석이 동시에 저장되어
+     * 양쪽 모두 INSERT를 시도하면 늦은 쪽이 고유 키 위반으로 실패하므로, 그때는 한 번 더 MERGE하여 UPDATE로 반영)
+     */
+    private static void mergeUserStats(SqlSession session, Map<String, Object> delta) {
+        try {
+            session.update(MAPPER + "mergeUserStats", delta);
+        } catch (PersistenceException e) {
+            if (!isUniqueViolation(e)) {
+                throw e;
+            }
+            System.out.println("사용자 통계 요약 동시 삽입 감지, UPDATE로 재시도 - 사용자: " + delta.get("userId"));
+            session.update(MAPPER + "mergeUserStats", delta);
+        }
+    }
+    
+    /**
+     * 고유 키 위반 여부 (Oracle ORA-00001 또는 SQLState 23505)
+     */
+    private static boolean isUniqueViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                SQLException sqlException = (SQLException) cause;
+                if (sqlException.getErrorCode() == 1 || "23505".equals(sqlException.getSQLState())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 통계 요약 증감 파라미터 (mergeUserStats)
+     * @param lastAnalysisAt 다시 저장한 분석의 기존 분석 일시 (새 분석이면 null → SYSDATE, 빼는 경우는 사용하지 않음)
+     */
+    private Map<String, Object> toStatsDelta(String userId, String stage, int countDelta, Double successRate,
+            Timestamp lastAnalysisAt) {
+        double rate = successRate != null ? successRate : 0;
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", userId);
+        params.put("stage", stage != null && !stage.trim().isEmpty() ? stage : UNCLASSIFIED_STAGE);
+        params.put("countDelta", countDelta);
+        params.put("rateDelta", countDelta * rate);
+        params.put("analyzedNow", countDelta > 0 && lastAnalysisAt == null);
+        params.put("lastAnalysisAt", countDelta > 0 ? lastAnalysisAt : null);
+        return params;
+    }
+    
+    private Map<String, Object> toTrendRow(String sessionId, AnalysisResult.InterestTrend trend) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("sessionId", sessionId);
+        row.put("trendDate", trend.getDate());
+        row.put("interestValue", trend.getValue());
+        row.put("messageCount", trend.getMessageCount());
+        row.put("avgResponseTime", trend.getAvgResponseTime());
+        row.put("emojiCount", trend.getEmojiCount());
+        return row;
+    }
+    
+    private Map<String, Object> toEmotionRow(String sessionId, AnalysisResult.EmotionAnalysis emotion) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("sessionId", sessionId);
+        row.put("positive", emotion.getPositive());
+        row.put("neutral", emotion.getNeutral());
+        row.put("negative", emotion.getNegative());
+        
+        // 주요 감정과 안정성 점수 계산
+        double maxEmotion = Math.max(Math.max(emotion.getPositive(), emotion.getNeutral()), emotion.getNegative());
+        String dominantEmotion = "neutral";
+        if (maxEmotion == emotion.getPositive()) {
+            dominantEmotion = "positive";
+        } else if (maxEmotion == emotion.getNegative()) {
+            dominantEmotion = "negative";
+        }
+        row.put("dominantEmotion", dominantEmotion);
+        row.put("stabilityScore", maxEmotion); // 간단한 안정성 지수
+        row.put("positiveKeywords", "긍정적 키워드 추출 필요"); // AI에서 추출 필요
+        row.put("negativeKeywords", "부정적 키워드 추출 필요"); // AI에서 추출 필요
+        return row;
+    }
+    
+    private Map<String, Object> toSignalRow(String sessionId, AnalysisResult.PositiveSignal signal, int priority) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("sessionId", sessionId);
+        row.put("text", signal.getText());
+        row.put("description", signal.getDescription());
+        row.put("confidence", signal.getConfidence());
+        row.put("type", "positive_indicator");
+        row.put("metricValue", 0); // 필요시 추가 메트릭
+        row.put("metricUnit", "");
+        row.put("priority", priority);
+        return row;
+    }
+    
+    private Map<String, Object> toFavoriteMessageRow(String sessionId, AnalysisResult.FavoriteMessage message) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("sessionId", sessionId);
+        row.put("text", message.getText());
+        row.put("confidence", message.getConfidence());
+        row.put("reason", message.getReason());
+        row.put("messageDate", toTimestampText(message.getDate()));
+        row.put("sender", "partner"); // 기본값
+        row.put("sentimentScore", message.getConfidence());
+        row.put("intimacyLevel", Math.min(5, message.getConfidence() / 20));
+        row.put("actionType", "affection_expression");
+        return row;
+    }
+    
+    private Map<String, Object> toAdviceRow(AnalysisResult analysisResult, AnalysisResult.CustomAdvice advice, int priority) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("sessionId", analysisResult.getSessionId());
+        row.put("title", advice.getTitle());
+        row.put("content", advice.getContent());
+        row.put("type", "general_advice");
+        row.put("priority", priority);
+        row.put("urgency", "medium");
+        row.put("basedOnSuccessRate", analysisResult.getMainResults() != null ?
+            analysisResult.getMainResults().getSuccessRate() : 0);
+        row.put("basedOnSignals", analysisResult.getPositiveSignals() != null ?
+            analysisResult.getPositiveSignals().size() : 0);
+        return row;
+    }
+    
+    /**
+     * 대표 메시지 날짜를 'YYYY-MM-DD HH24:MI:SS' 형식으로 맞춤
+     * 모델이 준 날짜 형식이 다르면 한 행 때문에 전체가 롤백되지 않도록 null로 저장
+     */
+    private static String toTimestampText(String date) {
+        if (date == null || !DATE_TIME.matcher(date.trim()).matches()) {
+            return null;
+        }
+        String value = date.trim();
+        if (value.length() == 10) {
+            return value + " 00:00:00";
+        }
+        return value.length() == 16 ? value + ":00" : value;
+    }
+    
     /**
      * 세션 ID로 분석 결과 조회
      * @param sessionId 세션 ID
@@ -83,7 +431,7 @@ public class AnalysisResultDAO {
         
         try {
             session = sqlSessionFactory.openSession();
-            result = session.selectOne("ResultMapper.getBySessionId", sessionId);
+            result = session.selectOne(MAPPER + "getBySessionId", sessionId);
             
             if (result != null) {
                 System.out.println("분석 결과 조회 성공 - sessionId: " + sessionId);
@@ -105,47 +453,31 @@ public class AnalysisResultDAO {
     
     /**
      * 프론트엔드용 분석 결과 데이터 조회 (포괄적 - 모든 상세 데이터 포함)
+     * 세션과 상세 데이터를 조인 쿼리 한 번(getFullResult)으로 읽어 AnalysisResult로 매핑합니다.
      * @param sessionId 세션 ID
      * @return 프론트엔드 형식의 포괄적 분석 데이터
      */
     public Map<String, Object> getAnalysisResultForFrontend(String sessionId) {
         SqlSession session = null;
-        Map<String, Object> frontendData = new HashMap<>();
         
         try {
             session = sqlSessionFactory.openSession();
             
-            // 1. 메인 분석 결과 조회
-            Map<String, Object> mainResult = session.selectOne("ResultMapper.getAnalysisResult", sessionId);
-            if (mainResult == null) {
+            long startTime = System.currentTimeMillis();
+            AnalysisResult result = session.selectOne(MAPPER + "getFullResult", sessionId);
+            if (result == null) {
                 System.out.println("분석 결과 없음 - sessionId: " + sessionId);
                 return new HashMap<>();
             }
             
-            // 2. 메인 결과 정보
-            Map<String, Object> mainResults = new HashMap<>();
-            mainResults.put("successRate", mainResult.get("successRate"));
-            mainResults.put("confidenceLevel", mainResult.get("confidenceLevel"));  
-            mainResults.put("relationshipStage", mainResult.get("relationshipStage"));
-            mainResults.put("heroInsight", mainResult.get("heroInsight"));
-            frontendData.put("mainResults", mainResults);
+            Map<String, Object> frontendData = result.toFrontendFormat();
             
-            // 3. 관심도 추이 데이터 조회
-            List<Map<String, Object>> interestTrends = session.selectList("ResultMapper.getInterestTrends", sessionId);
-            if (interestTrends != null && !interestTrends.isEmpty()) {
-                frontendData.put("interestTrends", interestTrends);
-                System.out.println("관심도 추이 데이터 조회됨: " + interestTrends.size() + "건");
-            } else {
-                // 기본 추이 데이터 생성
-                frontendData.put("interestTrends", generateDefaultTrendData());
+            // 추이는 대화에서 계산한 값만 표시 (없으면 빈 목록)
+            if (isEmpty(result.getInterestTrends())) {
+                frontendData.put("interestTrends", new ArrayList<>());
             }
             
-            // 4. 감정 분석 조회
-            Map<String, Object> emotionAnalysis = session.selectOne("ResultMapper.getEmotionAnalysis", sessionId);
-            if (emotionAnalysis != null) {
-                frontendData.put("emotionAnalysis", emotionAnalysis);
-                System.out.println("감정 분석 데이터 조회됨");
-            } else {
+            if (result.getEmotionAnalysis() == null) {
                 // 기본 감정 데이터
                 Map<String, Object> defaultEmotion = new HashMap<>();
                 defaultEmotion.put("positive", 60.0);
@@ -154,26 +486,13 @@ public class AnalysisResultDAO {
                 frontendData.put("emotionAnalysis", defaultEmotion);
             }
             
-            // 5. 긍정적 신호 조회
-            List<Map<String, Object>> positiveSignals = session.selectList("ResultMapper.getPositiveSignals", sessionId);
-            if (positiveSignals != null && !positiveSignals.isEmpty()) {
-                frontendData.put("positiveSignals", positiveSignals);
-                System.out.println("긍정 신호 조회됨: " + positiveSignals.size() + "건");
-            } else {
+            if (isEmpty(result.getPositiveSignals())) {
                 frontendData.put("positiveSignals", new ArrayList<>());
             }
             
-            // 6. 대표 호감 메시지 조회
-            Map<String, Object> favoriteMessage = session.selectOne("ResultMapper.getFavoriteMessage", sessionId);
-            if (favoriteMessage != null) {
-                // 날짜 형식 개선
-                String dateStr = favoriteMessage.get("messageDate") != null ? 
-                    favoriteMessage.get("messageDate").toString() : "날짜 정보 없음";
-                favoriteMessage.put("date", dateStr);
-                
-                frontendData.put("favoriteMessage", favoriteMessage);
-                System.out.println("대표 메시지 조회됨");
-            } else {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> favoriteMessage = (Map<String, Object>) frontendData.get("favoriteMessage");
+            if (favoriteMessage == null) {
                 // 기본 메시지
                 Map<String, Object> defaultMessage = new HashMap<>();
                 defaultMessage.put("text", "분석된 메시지가 없습니다.");
@@ -181,21 +500,21 @@ public class AnalysisResultDAO {
                 defaultMessage.put("date", "날짜 없음");
                 defaultMessage.put("reason", "메시지 분석 중");
                 frontendData.put("favoriteMessage", defaultMessage);
+            } else if (favoriteMessage.get("date") == null) {
+                favoriteMessage.put("date", "날짜 정보 없음");
             }
             
-            // 7. 맞춤 조언 조회
-            List<Map<String, Object>> customAdvice = session.selectList("ResultMapper.getCustomAdvice", sessionId);
-            if (customAdvice != null && !customAdvice.isEmpty()) {
-                frontendData.put("customAdvice", customAdvice);
-                System.out.println("맞춤 조언 조회됨: " + customAdvice.size() + "건");
-            } else {
+            if (isEmpty(result.getCustomAdvice())) {
                 frontendData.put("customAdvice", generateDefaultAdvice());
             }
             
-            // 8. 실전 대화 가이드 생성 (DB에 없는 경우 기본값)
+            // 실전 대화 가이드 생성 (DB에 없는 경우 기본값)
             frontendData.put("conversationGuides", generateDefaultConversationGuide());
             
-            System.out.println("포괄적 프론트엔드 데이터 조회 완료 - sessionId: " + sessionId);
+            System.out.println("포괄적 프론트엔드 데이터 조회 완료 - sessionId: " + sessionId
+                + " (추이 " + sizeOf(result.getInterestTrends()) + "건, 신호 " + sizeOf(result.getPositiveSignals())
+                + "건, 조언 " + sizeOf(result.getCustomAdvice()) + "건, "
+                + (System.currentTimeMillis() - startTime) + "ms)");
             return frontendData;
             
         } catch (Exception e) {
@@ -210,24 +529,31 @@ public class AnalysisResultDAO {
     }
     
     /**
-     * 기본 추이 데이터 생성
+     * 프론트엔드용 분석 결과 JSON 조회 (결과 응답 캐시를 거쳐 조회)
+     * 캐시에 있으면 DB 조회와 직렬화 없이 보관한 JSON을 반환하고, 없으면 조회 후 직렬화하여 보관합니다.
+     * @param sessionId 세션 ID
+     * @return JSON과 ETag, 결과가 없으면 null
      */
-    private List<Map<String, Object>> generateDefaultTrendData() {
-        List<Map<String, Object>> trendData = new ArrayList<>();
-        String[] dates = {"8월 13일", "8월 14일", "8월 15일", "8월 16일", "8월 17일", 
-                         "8월 18일", "8월 19일", "8월 20일", "8월 21일", "8월 22일"};
-        double[] values = {45, 52, 48, 58, 62, 59, 67, 71, 69, 76};
+    public ResultJsonCache.Entry getAnalysisResultJson(String sessionId) {
+        ResultJsonCache.Entry cached = resultJsonCache.get(sessionId);
+        if (cached != null) {
+            return cached;
+        }
         
-        for (int i = 0; i < dates.length; i++) {
-            Map<String, Object> trend = new HashMap<>();
-            trend.put("date", dates[i]);
-            trend.put("value", values[i]);
-            trend.put("messageCount", 5 + (int)(Math.random() * 10));
-            trend.put("avgResponseTime", 10 + (Math.random() * 30));
-            trend.put("emojiCount", (int)(Math.random() * 5));
-            trendData.add(trend);
+        long stamp = resultJsonCache.stamp();
+        Map<String, Object> frontendData = getAnalysisResultForFrontend(sessionId);
+        if (frontendData.isEmpty()) {
+            return null;
         }
-        return trendData;
+        return resultJsonCache.put(sessionId, gson.toJson(frontendData), stamp);
+    }
+    
+    private static boolean isEmpty(List<?> list) {
+        return list == null || list.isEmpty();
+    }
+    
+    private static int sizeOf(List<?> list) {
+        return list != null ? list.size() : 0;
     }
     
     /**
@@ -285,24 +611,59 @@ public class AnalysisResultDAO {
     }
     
     /**
-     * 사용자의 분석 히스토리 조회
+     * 사용자의 최근 분석 히스토리 조회 (첫 페이지)
      * @param userEmail 사용자 이메일
      * @return 분석 히스토리 목록
      */
+    @SuppressWarnings("unchecked")
     public List<Map<String, Object>> getUserAnalysisHistory(String userEmail) {
+        return (List<Map<String, Object>>) getUserHistoryPage(userEmail, null, DEFAULT_HISTORY_PAGE_SIZE).get("history");
+    }
+    
+    /**
+     * 사용자의 분석 히스토리 한 페이지 조회 (키셋 페이지네이션)
+     * 최신순((created_at, session_id) 내림차순)으로 커서 다음 항목부터 조회하므로
+     * 분석 수가 많아도 페이지마다 같은 비용이 들고, 그 사이 새 분석이 추가되어도 항목이 밀리거나 중복되지 않습니다.
+     * @param userEmail 사용자 이메일
+     * @param cursor 이전 페이지의 nextCursor (첫 페이지는 null)
+     * @param limit 페이지 크기 (1~MAX_HISTORY_PAGE_SIZE로 보정)
+     * @return history(목록), nextCursor(다음 페이지 커서, 마지막이면 null), hasMore
+     * @throws IllegalArgumentException 커서 형식이 잘못된 경우
+     */
+    public Map<String, Object> getUserHistoryPage(String userEmail, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(MAX_HISTORY_PAGE_SIZE, limit));
+        
+        Map<String, Object> params = new HashMap<>();
+        params.put("userEmail", userEmail);
+        params.put("limit", pageSize + 1); // 다음 페이지 존재 여부 확인용 1건 추가
+        if (cursor != null && !cursor.isEmpty()) {
+            decodeHistoryCursor(cursor, params);
+        }
+        
+        List<Map<String, Object>> history = new ArrayList<>();
+        String nextCursor = null;
         SqlSession session = null;
-        List<Map<String, Object>> history = null;
         
         try {
             session = sqlSessionFactory.openSession();
             
-            Map<String, Object> params = new HashMap<>();
-            params.put("userEmail", userEmail);
-            params.put("limit", 20); // 최근 20개만
+            long startTime = System.currentTimeMillis();
+            List<Map<String, Object>> rows = session.selectList(MAPPER + "getUserHistoryPage", params);
+            boolean hasMore = rows.size() > pageSize;
+            if (hasMore) {
+                rows = rows.subList(0, pageSize);
+            }
             
-            history = session.selectList("ResultMapper.getUserHistory", params);
+            for (Map<String, Object> row : rows) {
+                Timestamp createdAt = (Timestamp) row.remove("createdAt");
+                history.add(row);
+                if (hasMore && history.size() == pageSize) {
+                    nextCursor = encodeHistoryCursor(createdAt, (String) row.get("sessionId"));
+                }
+            }
             
-            System.out.println("사용자 히스토리 조회 - 사용자: " + userEmail + ", 건수: " + (history != null ? history.size() : 0));
+            System.out.println("사용자 히스토리 조회 - 사용자: " + userEmail + ", 건수: " + history.size()
+                + (hasMore ? " (다음 페이지 있음)" : "") + ", " + (System.currentTimeMillis() - startTime) + "ms");
             
         } catch (Exception e) {
             System.err.println("사용자 히스토리 조회 중 오류: " + e.getMessage());
@@ -313,7 +674,30 @@ public class AnalysisResultDAO {
             }
         }
         
-        return history;
+        Map<String, Object> page = new HashMap<>();
+        page.put("history", history);
+        page.put("nextCursor", nextCursor);
+        page.put("hasMore", nextCursor != null);
+        return page;
+    }
+    
+    /**
+     * 히스토리 커서: 마지막 항목의 (created_at, session_id)를 URL 안전 Base64로 인코딩
+     */
+    private static String encodeHistoryCursor(Timestamp createdAt, String sessionId) {
+        String raw = createdAt + "|" + sessionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static void decodeHistoryCursor(String cursor, Map<String, Object> params) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            params.put("cursorCreatedAt", Timestamp.valueOf(raw.substring(0, separator)));
+            params.put("cursorSessionId", raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("잘못된 히스토리 커서입니다: " + cursor, e);
+        }
     }
     
     /**
@@ -327,12 +711,20 @@ public class AnalysisResultDAO {
         
         try {
             session = sqlSessionFactory.openSession();
-            int result = session.delete("ResultMapper.deleteBySessionId", sessionId);
+            Map<String, Object> existing = session.selectOne(MAPPER + "getSessionStatsRow", sessionId);
+            int result = session.delete(MAPPER + "deleteBySessionId", sessionId);
             
             if (result > 0) {
                 session.commit();
+                resultJsonCache.invalidate(sessionId);
                 success = true;
                 System.out.println("분석 결과 삭제 성공 - sessionId: " + sessionId);
+                
+                // 통계 요약은 최근 분석 일시를 되돌릴 수 없으므로 커밋 후 해당 사용자만 다시 집계
+                String userId = existing != null ? (String) existing.get("userId") : null;
+                if (AnalysisConfig.isUserStatsEnabled() && userId != null) {
+                    rebuildUserStats(userId);
+                }
             } else {
                 System.out.println("삭제할 분석 결과 없음 - sessionId: " + sessionId);
             }
@@ -354,22 +746,34 @@ public class AnalysisResultDAO {
     
     /**
      * 분석 통계 조회 (대시보드용)
+     * analysis.user_stats.enabled=true면 메모리에 보관한 사용자별 통계 요약으로 응답합니다.
      * @param userEmail 사용자 이메일
      * @return 분석 통계
      */
     public Map<String, Object> getAnalysisStats(String userEmail) {
+        if (AnalysisConfig.isUserStatsEnabled()) {
+            UserAnalysisStats userStats = getUserStats(userEmail);
+            if (userStats != null) {
+                return userStats.toMap();
+            }
+        }
+        
         SqlSession session = null;
         Map<String, Object> stats = new HashMap<>();
         
         try {
             session = sqlSessionFactory.openSession();
             
-            // 총 분석 횟수
-            Integer totalCount = session.selectOne("ResultMapper.getTotalAnalysisCount", userEmail);
+            // 총 분석 횟수, 최근 분석 일시, 평균 성공률 (집계 쿼리 1회)
+            Map<String, Object> summary = session.selectOne(MAPPER + "getAnalysisStatsSummary", userEmail);
+            if (summary == null) {
+                summary = new HashMap<>();
+            }
+            
+            Integer totalCount = (Integer) summary.get("totalAnalysis");
             stats.put("totalAnalysis", totalCount != null ? totalCount : 0);
             
-            // 최근 분석 일시
-            Timestamp lastAnalysis = session.selectOne("ResultMapper.getLastAnalysisTime", userEmail);
+            Timestamp lastAnalysis = (Timestamp) summary.get("lastAnalysis");
             if (lastAnalysis != null) {
                 stats.put("lastAnalysis", lastAnalysis);
                 stats.put("lastAnalysisFormatted", lastAnalysis.toString());
@@ -378,8 +782,7 @@ public class AnalysisResultDAO {
                 stats.put("lastAnalysisFormatted", "-");
             }
             
-            // 평균 성공률
-            Double avgSuccessRate = session.selectOne("ResultMapper.getAverageSuccessRate", userEmail);
+            Double avgSuccessRate = (Double) summary.get("averageSuccessRate");
             stats.put("averageScore", avgSuccessRate != null ? Math.round(avgSuccessRate) : 0);
             
             System.out.println("분석 통계 조회 - 사용자: " + userEmail + ", 총 분석: " + stats.get("totalAnalysis"));
@@ -399,4 +802,98 @@ public class AnalysisResultDAO {
         
         return stats;
     }
+    
+    /**
+     * 사용자별 통계 요약 조회 (메모리에 없으면 ANALYSIS_USER_STATS에서 관계 단계 수만큼의 행만 읽어 보관)
+     * @param userEmail 사용자 이메일
+     * @return 통계 요약, 조회 실패 시 null
+     */
+    public UserAnalysisStats getUserStats(String userEmail) {
+        UserAnalysisStats cached = USER_STATS.get(userEmail);
+        if (cached != null) {
+            return cached;
+        }
+        
+        long stamp = USER_STATS.stamp();
+        SqlSession session = null;
+        try {
+            session = sqlSessionFactory.openSession();
+            List<Map<String, Object>> rows = session.selectList(MAPPER + "getUserStats", userEmail);
+            UserAnalysisStats userStats = UserAnalysisStats.fromRows(rows);
+            USER_STATS.put(userEmail, userStats, stamp);
+            return userStats;
+            
+        } catch (Exception e) {
+            System.err.println("사용자 통계 요약 조회 중 오류: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            if (session != null) {
+                session.close();
+            }
+        }
+    }
+    
+    /**
+     * 사용자 통계 요약을 analysis_sessions에서 다시 집계 (백필/보정용, 사용자 1명당 트랜잭션 1개)
+     * @param userId 사용자 ID
+     * @return 성공 여부
+     */
+    public boolean rebuildUserStats(String userId) {
+        // 삭제 후 다시 삽입하는 사이에 같은 사용자의 저장이 요약 행을 먼저 넣으면 고유 키 위반이 나므로 한 번 더 시도
+        for (int attempt = 1; ; attempt++) {
+            SqlSession session = null;
+            try {
+                session = sqlSessionFactory.openSession();
+                session.delete(MAPPER + "deleteUserStats", userId);
+                int rows = session.insert(MAPPER + "insertUserStatsFromSessions", userId);
+                session.commit();
+                invalidateUserStats(userId);
+                System.out.println("사용자 통계 요약 재계산 - 사용자: " + userId + ", 관계 단계 " + rows + "개");
+                return true;
+                
+            } catch (Exception e) {
+                if (session != null) {
+                    session.rollback();
+                }
+                if (attempt < 2 && isUniqueViolation(e)) {
+                    continue;
+                }
+                System.err.println("사용자 통계 요약 재계산 중 오류 (" + userId + "): " + e.getMessage());
+                invalidateUserStats(userId);
+                return false;
+            } finally {
+                if (session != null) {
+                    session.close();
+                }
+            }
+        }
+    }
+    
+    /**
+     * 분석 결과가 있는 사용자 ID 목록 (재계산 작업용)
+     */
+    public List<String> getStatsUserIds() {
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            return session.selectList(MAPPER + "getStatsUserIds");
+        }
+    }
+    
+    /**
+     * 분석 결과가 하나도 없는 사용자의 통계 요약 삭제 (재계산 작업용)
+     * @return 삭제한 행 수
+     */
+    public int deleteOrphanUserStats() {
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            int deleted = session.delete(MAPPER + "deleteOrphanUserStats");
+            session.commit();
+            return deleted;
+        }
+    }
+    
+    private static void invalidateUserStats(String userId) {
+        if (userId != null) {
+            USER_STATS.invalidate(userId);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.smhrd.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 결과 조회 응답 캐시 (세션 ID별 직렬화된 JSON + ETag)
+ *
+ * 완료된 분석 결과는 바뀌지 않으므로 결과 페이지가 같은 결과를 다시 조회하면
+ * DB 조회와 JSON 직렬화 없이 보관한 문자열을 그대로 응답합니다.
+ * 최대 개수(analysis.response_cache.max_entries)를 넘으면 가장 오래 사용하지 않은 항목부터 제거하고,
+ * 결과를 삭제하거나 다시 저장하면 AnalysisResultDAO가 해당 세션 항목을 무효화합니다.
+ */
+public class ResultJsonCache {
+
+    private static final ResultJsonCache INSTANCE = new ResultJsonCache();
+
+    private final StampedLruCache<Entry> entries =
+        new StampedLruCache<>(AnalysisConfig.getResponseCacheMaxEntries());
+
+    /**
+     * 캐시 항목 (JSON + 강한 ETag)
+     */
+    public static class Entry {
+        private final String json;
+        private final String eTag;
+
+        Entry(String json) {
+            this.json = json;
+            this.eTag = "\"" + sha256Hex(json) + "\"";
+        }
+
+        public String getJson() {
+            return json;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * If-None-Match 헤더와 일치하는지 확인 ("*", 여러 값, W/ 접두사 포함)
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(eTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private ResultJsonCache() {
+    }
+
+    public static ResultJsonCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 캐시된 항목 조회
+     * @return 없으면 null
+     */
+    public Entry get(String sessionId) {
+        return entries.get(sessionId);
+    }
+
+    /**
+     * 조회 시작 시점 표시 (put에 그대로 전달)
+     */
+    public long stamp() {
+        return entries.stamp();
+    }
+
+    /**
+     * 항목 저장
+     * @param stamp 조회를 시작할 때 받은 stamp() 값 (그 사이 무효화가 있었으면 저장하지 않음)
+     * @return 저장 여부와 관계없이 응답에 사용할 항목
+     */
+    public Entry put(String sessionId, String json, long stamp) {
+        Entry entry = new Entry(json);
+        entries.put(sessionId, entry, stamp);
+        return entry;
+    }
+
+    /**
+     * 세션 항목 무효화 (삭제/재저장 후 호출)
+     */
+    public void invalidate(String sessionId) {
+        if (entries.invalidate(sessionId)) {
+            System.out.println("결과 응답 캐시 무효화 - sessionId: " + sessionId);
+        }
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+                   .append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 알고리즘을 사용할 수 없습니다", e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.smhrd.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * DB 조회 결과를 보관하는 LRU 캐시 (최대 개수 초과 시 가장 오래 사용하지 않은 항목 제거)
+ *
+ * 조회를 시작할 때 stamp()를 받아 두었다가 put에 전달하면, 그 사이 무효화가 있었던 경우
+ * 저장하지 않으므로 무효화 직전에 읽은 오래된 값이 캐시에 남지 않습니다.
+ */
+class StampedLruCache<V> {
+
+    private final int maxEntries;
+    private final Map<String, V> entries;
+    // 무효화할 때마다 증가
+    private long generation;
+
+    StampedLruCache(final int maxEntries) {
+        this.maxEntries = maxEntries;
+        // accessOrder = true: 조회할 때마다 최근 사용 위치로 이동 (LRU)
+        this.entries = new LinkedHashMap<String, V>(64, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return 없으면 null
+     */
+    synchronized V get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * 조회 시작 시점 표시 (put에 그대로 전달)
+     */
+    synchronized long stamp() {
+        return generation;
+    }
+
+    /**
+     * 값 저장 (0개로 설정되었거나 stamp 이후 무효화가 있었으면 저장하지 않음)
+     */
+    synchronized void put(String key, V value, long stamp) {
+        if (maxEntries > 0 && stamp == generation) {
+            entries.put(key, value);
+        }
+    }
+
+    /**
+     * @return 캐시에 있던 항목을 제거했으면 true
+     */
+    synchronized boolean invalidate(String key) {
+        generation++;
+        return entries.remove(key) != null;
+    }
+}
@@ -0,0 +1,91 @@
+package com.smhrd.model;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 사용자별 분석 통계 요약 (ANALYSIS_USER_STATS의 관계 단계별 행을 합친 값)
+ *
+ * 총 분석 수, 성공률 합계, 최근 분석 일시, 관계 단계별 분석 수를 보관하며
+ * 한 번 만들면 바뀌지 않습니다. (갱신은 DB 요약 행에서 하고 메모리 항목은 무효화)
+ */
+public class UserAnalysisStats {
+
+    private final int totalAnalysis;
+    private final double successRateSum;
+    private final Timestamp lastAnalysis;
+    private final Map<String, Integer> stageHistogram;
+
+    private UserAnalysisStats(int totalAnalysis, double successRateSum, Timestamp lastAnalysis,
+            Map<String, Integer> stageHistogram) {
+        this.totalAnalysis = totalAnalysis;
+        this.successRateSum = successRateSum;
+        this.lastAnalysis = lastAnalysis;
+        this.stageHistogram = Collections.unmodifiableMap(stageHistogram);
+    }
+
+    /**
+     * getUserStats 조회 행(관계 단계별)으로 생성
+     */
+    static UserAnalysisStats fromRows(List<Map<String, Object>> rows) {
+        int total = 0;
+        double rateSum = 0;
+        Timestamp last = null;
+        Map<String, Integer> histogram = new LinkedHashMap<>();
+
+        for (Map<String, Object> row : rows) {
+            Integer count = (Integer) row.get("analysisCount");
+            Double sum = (Double) row.get("successRateSum");
+            Timestamp at = (Timestamp) row.get("lastAnalysisAt");
+            if (count == null || count <= 0) {
+                continue;
+            }
+            total += count;
+            rateSum += sum != null ? sum : 0;
+            if (at != null && (last == null || at.after(last))) {
+                last = at;
+            }
+            histogram.put((String) row.get("relationshipStage"), count);
+        }
+        return new UserAnalysisStats(total, rateSum, last, histogram);
+    }
+
+    public int getTotalAnalysis() {
+        return totalAnalysis;
+    }
+
+    public Timestamp getLastAnalysis() {
+        return lastAnalysis;
+    }
+
+    /**
+     * 평균 성공률 (분석이 없으면 0)
+     */
+    public double getAverageSuccessRate() {
+        return totalAnalysis > 0 ? successRateSum / totalAnalysis : 0;
+    }
+
+    /**
+     * 관계 단계별 분석 수 (많은 순)
+     */
+    public Map<String, Integer> getStageHistogram() {
+        return stageHistogram;
+    }
+
+    /**
+     * 대시보드 통계 응답 형식 (getAnalysisStats와 같은 키 + stageHistogram)
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalAnalysis", totalAnalysis);
+        stats.put("lastAnalysis", lastAnalysis);
+        stats.put("lastAnalysisFormatted", lastAnalysis != null ? lastAnalysis.toString() : "-");
+        stats.put("averageScore", totalAnalysis > 0 ? Math.round(getAverageSuccessRate()) : 0);
+        stats.put("stageHistogram", stageHistogram);
+        return stats;
+    }
+}
@@ -0,0 +1,73 @@
+package com.smhrd.service;
+
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.smhrd.model.AnalysisResult;
+import com.smhrd.util.AnalysisResultTypeAdapters;
+
+/**
+ * 동일 분석 요청 병합
+ *
+ * 같은 사용자가 같은 대화를 동시에 여러 번 분석 요청하면(업로드 버튼 중복 클릭,
+ * 프로바이더 대체 요청 등) 프로바이더 호출은 한 번만 수행하고 결과를 공유합니다.
+ * 병합 키는 프로바이더와 무관한 대화 지문 + 사용자이므로 Anthropic/Gemini 요청끼리도 병합됩니다.
+ * 공유받은 결과는 복사본에 새 세션 ID를 부여하여 각 요청이 별도로 저장할 수 있게 합니다.
+ * 헤지 요청(AnalysisJob.isHedge)은 원래 요청에 합류하면 의미가 없으므로 병합하지 않습니다.
+ */
+public class AnalysisFlights {
+
+    private static final SingleFlight<AnalysisResult> FLIGHTS = new SingleFlight<>();
+    private static final Gson GSON = AnalysisResultTypeAdapters.register(new GsonBuilder()).create();
+
+    private AnalysisFlights() {
+    }
+
+    /**
+     * 진행 중인 동일 분석이 있으면 합류, 없으면 직접 실행
+     * @param conversationData 대화 데이터
+     * @param partnerName 상대방 이름
+     * @param userId 요청 사용자
+     * @param job 진행 상황을 보고할 작업 (없으면 null)
+     * @param analysis 실제 분석 (프로바이더 호출)
+     */
+    public static AnalysisResult run(String conversationData, String partnerName, String userId,
+            AnalysisJob job, Callable<AnalysisResult> analysis) throws Exception {
+
+        // 헤지 요청은 지연된 원래 요청을 앞지르기 위한 것이므로 병합하지 않고 직접 호출
+        if (job != null && job.isHedge()) {
+            return analysis.call();
+        }
+
+        String key = userId + ":" + AnalysisResultCache.fingerprint(conversationData, partnerName);
+
+        SingleFlight.Outcome<AnalysisResult> outcome = FLIGHTS.execute(key, analysis, joinedKey -> {
+            AnalysisMetrics.increment("singleflight.coalesced");
+            System.out.println("동일 분석이 진행 중이어서 결과를 공유합니다 - 사용자: " + userId);
+            if (job != null) {
+                job.updateStage(AnalysisJob.Status.CALLING_PROVIDER, "동일한 분석이 진행 중이어서 결과를 기다리는 중입니다");
+            }
+        });
+
+        if (!outcome.isShared()) {
+            AnalysisMetrics.increment("singleflight.leader");
+            return outcome.getValue();
+        }
+
+        // 공유 결과는 다른 요청과 같은 객체이므로 복사 후 새 세션 ID 부여
+        AnalysisResult copy = GSON.fromJson(GSON.toJson(outcome.getValue()), AnalysisResult.class);
+        copy.setSessionId(UUID.randomUUID().toString());
+        copy.setUserId(userId);
+        copy.setPartnerName(partnerName);
+        return copy;
+    }
+
+    /**
+     * 현재 진행 중인 (병합 대상) 분석 수
+     */
+    public static int inFlightCount() {
+        return FLIGHTS.inFlightCount();
+    }
+}
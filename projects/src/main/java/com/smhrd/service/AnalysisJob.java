@@ -0,0 +1,334 @@
+package com.smhrd.service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 비동기 분석 작업의 진행 상태를 담는 클래스
+ *
+ * 상태 변경 시 등록된 리스너(SSE 스트림 등)에 최신 상태를 전달합니다.
+ * 작업이 취소되면 등록된 취소 훅(진행 중인 프로바이더 HTTP 연결 종료 등)을 실행합니다.
+ */
+public class AnalysisJob {
+
+    /**
+     * 작업 진행 단계
+     */
+    public enum Status {
+        QUEUED("대기 중", 5),
+        PREPROCESSING("대화 데이터 전처리 중", 20),
+        CALLING_PROVIDER("AI 분석 중", 50),
+        PERSISTING("분석 결과 저장 중", 85),
+        DONE("분석 완료", 100),
+        FAILED("분석 실패", 100);
+
+        private final String label;
+        private final int progress;
+
+        Status(String label, int progress) {
+            this.label = label;
+            this.progress = progress;
+        }
+
+        public String getLabel() { return label; }
+        public int getProgress() { return progress; }
+
+        public boolean isTerminal() {
+            return this == DONE || this == FAILED;
+        }
+    }
+
+    /**
+     * 상태 변경 리스너
+     */
+    public interface Listener {
+        void onUpdate(Map<String, Object> snapshot, boolean terminal);
+    }
+
+    private final String jobId;
+    private final String userId;
+    private final String provider;
+    private final long createdAt;
+
+    // 같은 작업의 보조 시도(헤지 요청 등)로 분기된 경우 원래 작업
+    private final AnalysisJob parent;
+    private final boolean hedge;
+    private final Runnable parentCancelHook;
+
+    private Status status;
+    private String message;
+    private Map<String, Object> result;
+    private final Map<String, Object> partialResults = new LinkedHashMap<>();
+    private long updatedAt;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> cancelHooks = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+
+    // 현재 스레드가 처리 중인 작업 (작업 스레드 및 청크 분석 스레드에 바인딩)
+    private static final ThreadLocal<AnalysisJob> CURRENT = new ThreadLocal<>();
+
+    public AnalysisJob(String userId, String provider) {
+        this.jobId = "job_" + UUID.randomUUID().toString().replace("-", "");
+        this.userId = userId;
+        this.provider = provider;
+        this.createdAt = System.currentTimeMillis();
+        this.updatedAt = createdAt;
+        this.status = Status.QUEUED;
+        this.message = Status.QUEUED.getLabel();
+        this.parent = null;
+        this.hedge = false;
+        this.parentCancelHook = null;
+    }
+
+    private AnalysisJob(AnalysisJob parent, boolean hedge) {
+        this.jobId = parent.jobId + (hedge ? "_hedge" : "_primary");
+        this.userId = parent.userId;
+        this.provider = parent.provider;
+        this.createdAt = System.currentTimeMillis();
+        this.updatedAt = createdAt;
+        this.status = Status.QUEUED;
+        this.message = Status.QUEUED.getLabel();
+        this.parent = parent;
+        this.hedge = hedge;
+        this.parentCancelHook = () -> cancel("상위 작업 취소");
+    }
+
+    /**
+     * 같은 작업을 별도로 취소할 수 있는 시도로 분기 (헤지 요청용)
+     * 분기된 작업의 진행 단계와 중간 결과는 원래 작업으로 전달되고, 원래 작업이 취소되면 함께 취소됩니다.
+     * 분기된 작업을 취소하면 그 시도의 훅만 실행되며 원래 작업은 계속 진행됩니다.
+     * 시도가 끝나면 detach()로 원래 작업과의 연결을 해제해야 합니다.
+     * @param hedge 지연된 응답을 대비한 보조 요청이면 true (동일 분석 병합 대상에서 제외)
+     */
+    public AnalysisJob fork(boolean hedge) {
+        AnalysisJob child = new AnalysisJob(this, hedge);
+        addCancelHook(child.parentCancelHook);
+        return child;
+    }
+
+    /**
+     * 분기된 작업을 원래 작업에서 분리 (원래 작업이면 아무 일도 하지 않음)
+     */
+    public void detach() {
+        if (parent != null) {
+            parent.removeCancelHook(parentCancelHook);
+        }
+    }
+
+    /**
+     * 헤지 요청으로 분기된 작업인지 여부
+     */
+    public boolean isHedge() {
+        return hedge;
+    }
+
+    /**
+     * 진행 단계 변경
+     * @param status 새 단계
+     * @param message 사용자에게 보여줄 메시지 (null이면 단계 기본 메시지)
+     */
+    public void updateStage(Status status, String message) {
+        if (parent != null) {
+            // 분기된 시도는 취소되기 전까지만 원래 작업에 보고
+            if (!cancelled) {
+                parent.updateStage(status, message);
+            }
+            return;
+        }
+        Map<String, Object> snapshot;
+        synchronized (this) {
+            if (this.status.isTerminal()) {
+                return;
+            }
+            this.status = status;
+            this.message = (message != null) ? message : status.getLabel();
+            this.updatedAt = System.currentTimeMillis();
+            snapshot = toStatusMap();
+        }
+        notifyListeners(snapshot, status.isTerminal());
+    }
+
+    /**
+     * 스트리밍 응답에서 먼저 완성된 결과 섹션 전달 (예: mainResults)
+     * 최종 결과 전에 클라이언트가 주요 결과를 먼저 표시할 수 있도록 합니다.
+     * @param section 섹션 이름
+     * @param value 섹션 데이터
+     */
+    public void publishPartial(String section, Object value) {
+        if (parent != null) {
+            if (!cancelled) {
+                parent.publishPartial(section, value);
+            }
+            return;
+        }
+        Map<String, Object> snapshot;
+        synchronized (this) {
+            if (status.isTerminal()) {
+                return;
+            }
+            partialResults.put(section, value);
+            this.updatedAt = System.currentTimeMillis();
+            snapshot = toStatusMap();
+        }
+        notifyListeners(snapshot, false);
+    }
+
+    /**
+     * 작업 완료 처리
+     * @param result 클라이언트에 전달할 분석 응답 데이터
+     */
+    public void complete(Map<String, Object> result) {
+        synchronized (this) {
+            this.result = result;
+        }
+        updateStage(Status.DONE, null);
+    }
+
+    /**
+     * 작업 실패 처리
+     */
+    public void fail(String errorMessage) {
+        updateStage(Status.FAILED, errorMessage);
+    }
+
+    /**
+     * 작업 취소 (응답 대기 시간 초과, 클라이언트 연결 종료 등)
+     * 작업을 실패 상태로 전환하고 등록된 취소 훅을 실행합니다.
+     * @param reason 취소 사유
+     */
+    public void cancel(String reason) {
+        synchronized (this) {
+            if (cancelled || status.isTerminal()) {
+                return;
+            }
+            cancelled = true;
+        }
+
+        System.out.println("분석 작업 취소 - jobId: " + jobId + ", 사유: " + reason);
+        fail(reason);
+
+        for (Runnable hook : cancelHooks) {
+            runCancelHook(hook);
+        }
+        cancelHooks.clear();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 취소된 작업이면 예외 발생 (프로바이더 호출 전 확인용)
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("분석 작업이 취소되었습니다: " + jobId);
+        }
+    }
+
+    /**
+     * 취소 훅 등록 (이미 취소된 작업이면 즉시 실행)
+     */
+    public void addCancelHook(Runnable hook) {
+        cancelHooks.add(hook);
+        if (cancelled && cancelHooks.remove(hook)) {
+            runCancelHook(hook);
+        }
+    }
+
+    public void removeCancelHook(Runnable hook) {
+        cancelHooks.remove(hook);
+    }
+
+    private void runCancelHook(Runnable hook) {
+        try {
+            hook.run();
+        } catch (Exception e) {
+            System.err.println("취소 훅 실행 실패 (" + jobId + "): " + e.getMessage());
+        }
+    }
+
+    /**
+     * 현재 스레드에 바인딩된 작업 (작업 스레드 밖에서 호출되면 null)
+     */
+    public static AnalysisJob current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 현재 스레드에 작업 바인딩 (null이면 해제)
+     */
+    static void bindCurrent(AnalysisJob job) {
+        if (job == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(job);
+        }
+    }
+
+    /**
+     * 리스너 등록 (등록 즉시 현재 상태를 한 번 전달)
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+        Map<String, Object> snapshot;
+        boolean terminal;
+        synchronized (this) {
+            snapshot = toStatusMap();
+            terminal = status.isTerminal();
+        }
+        listener.onUpdate(snapshot, terminal);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners(Map<String, Object> snapshot, boolean terminal) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onUpdate(snapshot, terminal);
+            } catch (Exception e) {
+                System.err.println("작업 상태 전달 실패 (" + jobId + "): " + e.getMessage());
+                listeners.remove(listener);
+            }
+        }
+    }
+
+    /**
+     * 클라이언트 응답용 상태 정보
+     */
+    public synchronized Map<String, Object> toStatusMap() {
+        Map<String, Object> statusMap = new HashMap<>();
+        statusMap.put("jobId", jobId);
+        statusMap.put("status", status.name());
+        statusMap.put("stage", status.getLabel());
+        statusMap.put("message", message);
+        statusMap.put("progress", status.getProgress());
+        statusMap.put("provider", provider);
+        statusMap.put("createdAt", createdAt);
+        statusMap.put("updatedAt", updatedAt);
+        if (status == Status.DONE && result != null) {
+            statusMap.put("result", result);
+        } else if (!partialResults.isEmpty()) {
+            statusMap.put("partial", new LinkedHashMap<>(partialResults));
+        }
+        return statusMap;
+    }
+
+    public String getJobId() { return jobId; }
+    public String getUserId() { return userId; }
+    public String getProvider() { return provider; }
+    public long getCreatedAt() { return createdAt; }
+
+    public synchronized Status getStatus() { return status; }
+    public synchronized String getMessage() { return message; }
+    public synchronized Map<String, Object> getResult() { return result; }
+    public synchronized long getUpdatedAt() { return updatedAt; }
+}
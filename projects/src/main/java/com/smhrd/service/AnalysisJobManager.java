@@ -0,0 +1,140 @@
+package com.smhrd.service;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 비동기 분석 작업 관리자
+ *
+ * 분석 요청을 전용 실행기(스레드 수/대기열 제한)에서 처리하여
+ * Tomcat 요청 스레드가 LLM 응답을 기다리지 않도록 합니다.
+ * 완료된 작업은 보관 시간이 지나면 정리됩니다.
+ */
+public class AnalysisJobManager {
+
+    private static final AnalysisJobManager INSTANCE = new AnalysisJobManager();
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 작업 본문 (작업 스레드에서 실행)
+     */
+    public interface JobTask {
+        /**
+         * @param job 진행 상태를 보고할 작업 객체
+         * @return 클라이언트에 전달할 분석 응답 데이터
+         */
+        Map<String, Object> run(AnalysisJob job) throws Exception;
+    }
+
+    private AnalysisJobManager() {
+        int threads = AnalysisConfig.getJobThreads();
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "analysis-job-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        this.executor = new ThreadPoolExecutor(
+            threads, threads,
+            60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(AnalysisConfig.getJobQueueSize()),
+            threadFactory,
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public static AnalysisJobManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 분석 작업 등록
+     * @param userId 요청 사용자
+     * @param provider 분석 프로바이더 이름
+     * @param task 작업 본문
+     * @return 등록된 작업
+     * @throws RejectedExecutionException 대기열이 가득 찬 경우
+     */
+    public AnalysisJob submit(String userId, String provider, JobTask task) {
+        evictExpiredJobs();
+
+        AnalysisJob job = new AnalysisJob(userId, provider);
+        jobs.put(job.getJobId(), job);
+
+        try {
+            Future<?> future = executor.submit(() -> runJob(job, task));
+            // 취소 시 대기 중인 작업은 실행하지 않고, 실행 중인 작업에는 인터럽트 전달
+            job.addCancelHook(() -> future.cancel(true));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            System.err.println("분석 작업 대기열 초과 - 활성: " + executor.getActiveCount() +
+                ", 대기: " + executor.getQueue().size());
+            throw e;
+        }
+
+        System.out.println("분석 작업 등록 - jobId: " + job.getJobId() + ", 사용자: " + userId +
+            ", 대기: " + executor.getQueue().size());
+        return job;
+    }
+
+    /**
+     * 작업 실행 (작업 스레드)
+     */
+    private void runJob(AnalysisJob job, JobTask task) {
+        long startTime = System.currentTimeMillis();
+        AnalysisJob.bindCurrent(job);
+        try {
+            job.checkCancelled();
+            Map<String, Object> result = task.run(job);
+            job.complete(result);
+            System.out.println("분석 작업 완료 - jobId: " + job.getJobId() +
+                " (" + (System.currentTimeMillis() - startTime) + "ms)");
+        } catch (Exception e) {
+            if (job.isCancelled()) {
+                System.out.println("취소된 분석 작업 종료 - jobId: " + job.getJobId());
+                return;
+            }
+            System.err.println("분석 작업 실패 - jobId: " + job.getJobId() + ", 오류: " + e.getMessage());
+            e.printStackTrace();
+            job.fail("분석 중 오류가 발생했습니다: " + e.getMessage());
+        } finally {
+            AnalysisJob.bindCurrent(null);
+        }
+    }
+
+    /**
+     * 작업 조회 (요청 사용자 본인의 작업만 반환)
+     * @return 작업 또는 null
+     */
+    public AnalysisJob getJob(String jobId, String userId) {
+        if (jobId == null) {
+            return null;
+        }
+        AnalysisJob job = jobs.get(jobId);
+        if (job == null || !job.getUserId().equals(userId)) {
+            return null;
+        }
+        return job;
+    }
+
+    /**
+     * 보관 시간이 지난 완료 작업 정리
+     */
+    private void evictExpiredJobs() {
+        long expireBefore = System.currentTimeMillis() -
+            TimeUnit.MINUTES.toMillis(AnalysisConfig.getJobRetentionMinutes());
+
+        jobs.values().removeIf(job -> job.getStatus().isTerminal() && job.getUpdatedAt() < expireBefore);
+    }
+}
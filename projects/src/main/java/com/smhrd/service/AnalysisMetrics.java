@@ -0,0 +1,59 @@
+package com.smhrd.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 분석 파이프라인 운영 지표 (카운터)
+ *
+ * 이름별 카운터를 LongAdder로 관리하므로 여러 작업 스레드에서 동시에 증가시켜도
+ * 경합이 적습니다. 관리용 조회 시 snapshot()으로 현재 값을 한 번에 가져옵니다.
+ */
+public class AnalysisMetrics {
+
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    private AnalysisMetrics() {
+    }
+
+    /**
+     * 카운터 1 증가
+     */
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    /**
+     * 카운터에 값 더하기
+     */
+    public static void add(String name, long value) {
+        COUNTERS.computeIfAbsent(name, key -> new LongAdder()).add(value);
+    }
+
+    /**
+     * 소요 시간 기록 (name.count / name.total_ms 카운터에 누적, 평균 = total_ms / count)
+     */
+    public static void recordTime(String name, long millis) {
+        add(name + ".count", 1);
+        add(name + ".total_ms", millis);
+    }
+
+    /**
+     * 카운터 현재 값 (없으면 0)
+     */
+    public static long get(String name) {
+        LongAdder counter = COUNTERS.get(name);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * 전체 카운터 현재 값 (이름순 정렬)
+     */
+    public static Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+        return snapshot;
+    }
+}
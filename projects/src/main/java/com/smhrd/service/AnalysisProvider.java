@@ -0,0 +1,33 @@
+package com.smhrd.service;
+
+import com.smhrd.model.AnalysisResult;
+
+/**
+ * 대화 분석 프로바이더 (Anthropic, Gemini 등)
+ *
+ * ProviderRouter가 프로바이더별 지연 시간/오류율을 기준으로 호출 순서를 정하고,
+ * 실패하면 같은 요청 안에서 다음 프로바이더로 대체합니다.
+ */
+public interface AnalysisProvider {
+
+    /**
+     * 프로바이더 식별 이름 (설정 키, 지표 이름에 사용)
+     */
+    String getName();
+
+    /**
+     * 사용자에게 보여줄 이름 (진행 상황 메시지용)
+     */
+    String getDisplayName();
+
+    /**
+     * 대화 분석 수행
+     * @param conversationData 분석할 대화 데이터
+     * @param userId 사용자 ID
+     * @param partnerName 상대방 이름
+     * @param job 진행 상황을 보고할 작업 (없으면 null)
+     * @return 분석 결과
+     */
+    AnalysisResult analyze(String conversationData, String userId, String partnerName, AnalysisJob job)
+        throws Exception;
+}
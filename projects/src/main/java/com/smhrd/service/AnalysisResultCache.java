@@ -0,0 +1,254 @@
+package com.smhrd.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.smhrd.model.AnalysisCacheDAO;
+import com.smhrd.model.AnalysisResult;
+import com.smhrd.util.AnalysisConfig;
+import com.smhrd.util.AnalysisResultTypeAdapters;
+
+/**
+ * 대화 내용 기반 분석 결과 캐시
+ *
+ * 같은 대화(정규화 후 동일)를 같은 프로바이더/모델/프롬프트 버전으로 다시 분석하면
+ * 프로바이더를 호출하지 않고 저장된 결과를 반환합니다.
+ * 1차: 메모리 LRU (TTL + 최대 개수), 2차: DB (analysis.cache.db_enabled=true 일 때)
+ *
+ * 결과는 JSON으로 보관하며, 조회할 때마다 새 객체로 복원하고 새 세션 ID를 부여합니다.
+ */
+public class AnalysisResultCache {
+
+    private static final AnalysisResultCache INSTANCE = new AnalysisResultCache();
+
+    private final Gson gson = AnalysisResultTypeAdapters.register(new GsonBuilder()).create();
+    private final AnalysisCacheDAO cacheDAO = new AnalysisCacheDAO();
+    private final Map<String, CacheEntry> memory;
+
+    /**
+     * 메모리 캐시 항목
+     */
+    private static class CacheEntry {
+        final String resultJson;
+        final long expiresAt;
+
+        CacheEntry(String resultJson, long expiresAt) {
+            this.resultJson = resultJson;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    private AnalysisResultCache() {
+        final int maxEntries = AnalysisConfig.getCacheMaxEntries();
+        // accessOrder = true: 조회할 때마다 최근 사용 위치로 이동 (LRU)
+        this.memory = new LinkedHashMap<String, CacheEntry>(64, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public static AnalysisResultCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 캐시 키 생성
+     * @param conversationData 원본 대화 데이터 (정규화 후 해시)
+     * @param partnerName 상대방 이름
+     * @param provider 프로바이더 이름
+     * @param model 모델 식별자
+     * @param promptVersion 프롬프트 템플릿 버전
+     * @return SHA-256 16진수 문자열
+     */
+    public static String buildKey(String conversationData, String partnerName, String provider,
+            String model, String promptVersion) {
+        StringBuilder keySource = new StringBuilder(conversationData.length() + 128);
+        keySource.append(provider).append('\u0000')
+                 .append(model).append('\u0000')
+                 .append(promptVersion).append('\u0000')
+                 .append(partnerName != null ? partnerName.trim() : "").append('\u0000');
+        appendNormalized(keySource, conversationData);
+        return sha256Hex(keySource.toString());
+    }
+
+    /**
+     * 프로바이더와 무관한 대화 지문 (정규화한 대화 + 상대방 이름의 SHA-256)
+     * 서로 다른 프로바이더로 들어온 같은 대화 요청을 식별할 때 사용합니다.
+     */
+    public static String fingerprint(String conversationData, String partnerName) {
+        StringBuilder source = new StringBuilder(conversationData.length() + 64);
+        source.append(partnerName != null ? partnerName.trim() : "").append('\u0000');
+        appendNormalized(source, conversationData);
+        return sha256Hex(source.toString());
+    }
+
+    /**
+     * 대화 정규화: 줄바꿈 통일(CRLF/CR → LF), 줄 끝 공백 제거, 빈 줄 제거
+     * 다시 내보낸 파일의 사소한 공백 차이로 캐시가 빗나가지 않도록 합니다.
+     */
+    private static void appendNormalized(StringBuilder target, String conversationData) {
+        int length = conversationData.length();
+        int lineStart = 0;
+
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && conversationData.charAt(lineEnd) != '\n' && conversationData.charAt(lineEnd) != '\r') {
+                lineEnd++;
+            }
+
+            int trimmedEnd = lineEnd;
+            while (trimmedEnd > lineStart && Character.isWhitespace(conversationData.charAt(trimmedEnd - 1))) {
+                trimmedEnd--;
+            }
+            if (trimmedEnd > lineStart) {
+                target.append(conversationData, lineStart, trimmedEnd).append('\n');
+            }
+
+            lineStart = lineEnd + 1;
+            if (lineEnd + 1 < length && conversationData.charAt(lineEnd) == '\r' && conversationData.charAt(lineEnd + 1) == '\n') {
+                lineStart++;
+            }
+        }
+    }
+
+    /**
+     * 문자열의 SHA-256 해시 (16진수)
+     */
+    public static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+                   .append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 알고리즘을 사용할 수 없습니다", e);
+        }
+    }
+
+    /**
+     * 캐시된 분석 결과 조회
+     * @return 새 세션 ID가 부여된 결과 사본, 없으면 null
+     */
+    public AnalysisResult get(String cacheKey) {
+        if (!AnalysisConfig.isCacheEnabled()) {
+            return null;
+        }
+
+        String resultJson = getFromMemory(cacheKey);
+
+        if (resultJson == null && AnalysisConfig.isCacheDbEnabled()) {
+            Map<String, Object> row = cacheDAO.findEntry(cacheKey);
+            if (row != null && row.get("resultJson") != null) {
+                resultJson = (String) row.get("resultJson");
+                // DB에서 찾은 결과는 메모리에도 올려 다음 조회를 빠르게 처리 (DB 행보다 오래 남지 않도록 만료 시각 유지)
+                long expiresAt = System.currentTimeMillis() + ttlMillis();
+                Object dbExpiresAt = row.get("expiresAt");
+                if (dbExpiresAt instanceof Timestamp) {
+                    expiresAt = Math.min(expiresAt, ((Timestamp) dbExpiresAt).getTime());
+                }
+                putToMemory(cacheKey, resultJson, expiresAt);
+            }
+        }
+
+        if (resultJson == null) {
+            AnalysisMetrics.increment("cache.miss");
+            return null;
+        }
+
+        AnalysisMetrics.increment("cache.hit");
+        AnalysisResult copy = gson.fromJson(resultJson, AnalysisResult.class);
+        copy.setSessionId(UUID.randomUUID().toString());
+        System.out.println("분석 결과 캐시 적중 - key: " + cacheKey.substring(0, 12) +
+            " (적중 " + AnalysisMetrics.get("cache.hit") + " / 미적중 " + AnalysisMetrics.get("cache.miss") + ")");
+        return copy;
+    }
+
+    /**
+     * 분석 결과 저장 (세션/사용자 정보는 제외하고 보관)
+     */
+    public void put(String cacheKey, String provider, AnalysisResult result) {
+        if (!AnalysisConfig.isCacheEnabled() || result == null) {
+            return;
+        }
+
+        JsonObject resultTree = gson.toJsonTree(result).getAsJsonObject();
+        resultTree.remove("sessionId");
+        resultTree.remove("userId");
+        String resultJson = resultTree.toString();
+
+        putToMemory(cacheKey, resultJson, System.currentTimeMillis() + ttlMillis());
+
+        if (AnalysisConfig.isCacheDbEnabled()) {
+            Timestamp expiresAt = new Timestamp(System.currentTimeMillis() + ttlMillis());
+            cacheDAO.saveResultJson(cacheKey, provider, resultJson, expiresAt);
+        }
+    }
+
+    private String getFromMemory(String cacheKey) {
+        synchronized (memory) {
+            CacheEntry entry = memory.get(cacheKey);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(System.currentTimeMillis())) {
+                memory.remove(cacheKey);
+                return null;
+            }
+            return entry.resultJson;
+        }
+    }
+
+    /**
+     * 만료된 캐시 정리 (메모리 항목 + DB 캐시 사용 시 ANALYSIS_RESULT_CACHE 행)
+     * @return DB에서 삭제된 행 수
+     */
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            memory.values().removeIf(entry -> entry.isExpired(now));
+        }
+
+        if (!AnalysisConfig.isCacheDbEnabled()) {
+            return 0;
+        }
+        int deleted = cacheDAO.deleteExpired();
+        if (deleted > 0) {
+            System.out.println("만료된 분석 결과 캐시 삭제: " + deleted + "건");
+        }
+        return deleted;
+    }
+
+    private void putToMemory(String cacheKey, String resultJson, long expiresAt) {
+        CacheEntry entry = new CacheEntry(resultJson, expiresAt);
+        synchronized (memory) {
+            memory.put(cacheKey, entry);
+        }
+    }
+
+    private long ttlMillis() {
+        return TimeUnit.MINUTES.toMillis(AnalysisConfig.getCacheTtlMinutes());
+    }
+}
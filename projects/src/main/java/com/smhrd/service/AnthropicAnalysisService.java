@@ -1,12 +1,5 @@
 package com.smhrd.service;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -15,81 +8,224 @@ import java.util.UUID;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.smhrd.model.AnalysisResult;
+import com.smhrd.util.AnalysisConfig;
+import com.smhrd.util.AnalysisResultTypeAdapters;
 import com.smhrd.util.AnthropicConfig;
+import com.smhrd.util.JsonExtractor;
+import com.smhrd.util.LlmHttpClient;
 
 /**
  * Anthropic Claude API를 사용한 대화 분석 서비스
+ * 긴 대화는 윈도우 단위로 나누어 병렬 분석 후 통합합니다 (ChunkedAnalysisService)
  */
-public class AnthropicAnalysisService {
+public class AnthropicAnalysisService implements AnalysisProvider, ChunkedAnalysisService.WindowAnalyzer {
+    
+    private static final String PROVIDER = "anthropic";
+    private static final String ANALYSIS_TEMPLATE = "anthropic_analysis_prompt";
+    private static final String REDUCE_TEMPLATE = "reduce_analysis_prompt";
     
     private final Gson gson;
     private final AnthropicConfig config;
+    private final ChunkedAnalysisService chunkedService;
+    private final AnalysisResultCache resultCache;
+    private final RetryPolicy retryPolicy;
+    private final TokenEstimator tokenEstimator;
+    private final PromptTemplateRegistry templates = PromptTemplateRegistry.getInstance();
     
     public AnthropicAnalysisService() {
-        this.gson = new GsonBuilder()
+        this.gson = AnalysisResultTypeAdapters.register(new GsonBuilder())
             .setPrettyPrinting()
             .setLenient()
             .disableHtmlEscaping()
             .create();
         this.config = new AnthropicConfig();
+        this.chunkedService = new ChunkedAnalysisService();
+        this.resultCache = AnalysisResultCache.getInstance();
+        this.retryPolicy = new RetryPolicy(PROVIDER, config.getRetryMaxAttempts(), config.getRetryDelayMs(),
+            AnalysisConfig.getRetryMaxDelayMs(), RetryPolicy.PROVIDER_ERRORS);
+        this.tokenEstimator = TokenEstimator.forProvider(PROVIDER);
     }
     
     /**
      * 대화 분석 수행
+     * 대화가 윈도우 하나에 들어가면 단일 호출, 그렇지 않으면 청크 분석을 수행합니다.
      */
     public AnalysisResult analyzeConversation(String conversationData, String userId, String partnerName) throws Exception {
+        return analyzeConversation(conversationData, userId, partnerName, null);
+    }
+    
+    /**
+     * 대화 분석 수행 (비동기 작업 진행 상황 보고)
+     * @param job 진행 상황을 보고할 작업 (없으면 null)
+     */
+    public AnalysisResult analyzeConversation(String conversationData, String userId, String partnerName, 
+            AnalysisJob job) throws Exception {
         System.out.println("=== Anthropic 대화 분석 시작 ===");
+        reportStage(job, AnalysisJob.Status.PREPROCESSING, null);
+        
+        // 같은 대화의 분석 결과가 캐시에 있으면 API 호출 없이 반환 (템플릿이 바뀌면 키도 바뀜)
+        String promptVersion = getPromptVersion();
+        String cacheKey = AnalysisResultCache.buildKey(
+            conversationData, partnerName, PROVIDER, config.getModel(), promptVersion);
+        AnalysisResult cached = resultCache.get(cacheKey);
+        if (cached != null) {
+            cached.setUserId(userId);
+            cached.setPartnerName(partnerName);
+            return cached;
+        }
         
-        // 대화 데이터 압축 (토큰 제한 고려)
-        String compressedData = compressConversationData(conversationData);
-        System.out.println("압축된 데이터 길이: " + compressedData.length() + "자");
+        // 같은 대화의 동시 요청은 프로바이더 호출 한 번으로 병합
+        return AnalysisFlights.run(conversationData, partnerName, userId, job,
+            () -> analyzeAndCache(conversationData, userId, partnerName, cacheKey, promptVersion, job));
+    }
+    
+    @Override
+    public String getName() {
+        return PROVIDER;
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return "Claude AI";
+    }
+    
+    @Override
+    public AnalysisResult analyze(String conversationData, String userId, String partnerName, 
+            AnalysisJob job) throws Exception {
+        return analyzeConversation(conversationData, userId, partnerName, job);
+    }
+    
+    /**
+     * 프로바이더 호출로 분석 후 결과 캐시에 저장
+     */
+    private AnalysisResult analyzeAndCache(String conversationData, String userId, String partnerName, 
+            String cacheKey, String promptVersion, AnalysisJob job) throws Exception {
+        // 토큰 예산 단위로 대화 분할 (템플릿 + 윈도우 + 출력이 컨텍스트 창을 넘지 않는 범위)
+        int windowTokens = tokenEstimator.windowBudget(config.getChunkWindowTokens(), config.getContextWindow(),
+            config.getMaxTokens(), templates.get(ANALYSIS_TEMPLATE).getSource());
+        ConversationChunker chunker = new ConversationChunker(
+            windowTokens, AnalysisConfig.getChunkMaxWindows(), tokenEstimator);
+        // 한 번만 파싱하여 통계와 윈도우 분할에 함께 사용 (인식하지 못한 형식이면 원문을 줄 단위로 분할)
+        // 최대 윈도우 수에 담기지 않으면 중요 메시지를 샘플링하여 전달
+        ConversationBuffer buffer = ConversationBuffer.parse(conversationData);
+        List<String> windows = buffer.isEmpty() ? chunker.split(conversationData)
+            : chunker.split(SalienceSampler.fromConfig().sample(buffer, chunker.getCapacityTokens(),
+                SalienceSampler.tokenCost(buffer, tokenEstimator)));
+        System.out.println("대화 윈도우 수: " + windows.size());
+        
+        reportStage(job, AnalysisJob.Status.CALLING_PROVIDER, windows.size() > 1 ?
+            "Claude AI가 " + windows.size() + "개 구간을 분석 중입니다" : "Claude AI가 대화를 분석 중입니다");
+        
+        AnalysisResult result;
+        if (windows.size() == 1) {
+            result = analyzeWindow(windows.get(0), partnerName, 1, 1);
+        } else {
+            result = chunkedService.analyze(windows, partnerName, this);
+        }
         
-        // 프롬프트 템플릿 로드 및 생성
-        String prompt = createAnalysisPrompt(compressedData);
+        result.setSessionId(UUID.randomUUID().toString());
+        result.setUserId(userId);
+        result.setPartnerName(partnerName);
+        result.setPromptVersion(promptVersion);
+        // 관심도 추이는 모델 출력 대신 대화에서 직접 계산한 값 사용
+        ConversationStatistics.compute(buffer, partnerName).applyTo(result);
+        
+        resultCache.put(cacheKey, PROVIDER, result);
+        return result;
+    }
+    
+    /**
+     * 프롬프트 템플릿 버전 (분석.통합 템플릿 버전, 캐시 키와 결과에 기록)
+     */
+    private String getPromptVersion() throws Exception {
+        return templates.get(ANALYSIS_TEMPLATE).getVersion() + "." + templates.get(REDUCE_TEMPLATE).getVersion();
+    }
+    
+    /**
+     * 작업 진행 단계 보고
+     */
+    private void reportStage(AnalysisJob job, AnalysisJob.Status status, String message) {
+        if (job != null) {
+            job.updateStage(status, message);
+        }
+    }
+    
+    /**
+     * 대화 윈도우 하나를 분석 (청크 분석의 Map 단계)
+     */
+    @Override
+    public AnalysisResult analyzeWindow(String window, String partnerName, int index, int total) throws Exception {
+        String windowData = window;
+        if (total > 1) {
+            windowData = "[전체 대화 " + total + "개 구간 중 " + index + "번째 구간]\n" + window;
+        }
         
-        // Anthropic API 호출
-        Map<String, Object> apiResponse = callAnthropicAPI(prompt);
+        // 프롬프트 생성 (정량 지표는 로컬에서 계산하여 요약만 전달)
+        String statsSummary = ConversationStatistics.compute(window, partnerName).toPromptSummary();
+        String prompt = createAnalysisPrompt(windowData, statsSummary);
         
-        // 응답을 AnalysisResult로 변환
-        return parseToAnalysisResult(apiResponse, userId, partnerName);
+        // Anthropic API 호출 (단일 윈도우면 최종 결과이므로 완성된 섹션을 먼저 전달)
+        AnalysisResult result = callAnthropicAPI(prompt, total == 1);
+        return completeResult(result, null, partnerName);
+    }
+    
+    /**
+     * 윈도우별 부분 결과를 하나로 통합 (청크 분석의 Reduce 단계)
+     */
+    @Override
+    public AnalysisResult reduce(String partialResultsJson, String partnerName, int total) throws Exception {
+        Map<String, String> values = new HashMap<>();
+        values.put("WINDOW_COUNT", String.valueOf(total));
+        values.put("PARTNER_NAME", partnerName);
+        values.put("PARTIAL_RESULTS", partialResultsJson);
+        String prompt = templates.get(REDUCE_TEMPLATE).render(values);
+        
+        AnalysisResult result = callAnthropicAPI(prompt, true);
+        return completeResult(result, null, partnerName);
     }
     
     /**
      * 분석 프롬프트 생성
+     * 대화가 입력 토큰 예산을 넘으면 최근 대화가 남도록 앞쪽부터 제외합니다.
      */
-    private String createAnalysisPrompt(String conversationData) throws Exception {
-        try {
-            String template = new String(
-                getClass().getClassLoader().getResourceAsStream("prompt_templates/anthropic_analysis_prompt.txt").readAllBytes(),
-                StandardCharsets.UTF_8
-            );
-            return template.replace("{{CONVERSATION_DATA}}", conversationData);
-        } catch (Exception e) {
-            System.err.println("프롬프트 템플릿 로드 실패");
-            throw new Exception("프롬프트 템플릿을 로드할 수 없습니다.", e);
-        }
+    private String createAnalysisPrompt(String conversationData, String statsSummary) throws Exception {
+        PromptTemplate template = templates.get(ANALYSIS_TEMPLATE);
+        int conversationBudget = tokenEstimator.inputBudget(config.getContextWindow(), config.getMaxTokens())
+            - tokenEstimator.estimate(template.getSource()) - tokenEstimator.estimate(statsSummary);
+        
+        Map<String, String> values = new HashMap<>();
+        values.put("CONVERSATION_STATS", statsSummary);
+        values.put("CONVERSATION_DATA", tokenEstimator.keepRecent(conversationData, Math.max(1, conversationBudget)));
+        return template.render(values);
     }
     
     /**
-     * Anthropic API 호출
+     * Anthropic API 호출 (재시도 정책 + 회로 차단기/동시 호출 제한 적용)
+     * 일시적 오류와 429만 재시도하며, 회로가 열려 있으면 호출하지 않고 즉시 ProviderUnavailableException을 던집니다.
+     * @param publishSections 스트리밍 중 완성된 결과 섹션을 작업에 먼저 전달할지 여부
      */
-    private Map<String, Object> callAnthropicAPI(String prompt) throws Exception {
-        URL url = new URL(config.getApiUrl());
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        
-        connection.setRequestMethod("POST");
-        connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-        connection.setRequestProperty("x-api-key", config.getApiKey());
-        connection.setRequestProperty("anthropic-version", config.getApiVersion());
-        connection.setDoOutput(true);
-        connection.setConnectTimeout(config.getConnectTimeout());
-        connection.setReadTimeout(config.getReadTimeout());
+    private AnalysisResult callAnthropicAPI(String prompt, boolean publishSections) throws Exception {
+        ProviderGuard guard = ProviderGuard.forProvider(PROVIDER);
+        int promptTokens = tokenEstimator.estimate(prompt);
+        return retryPolicy.execute(() -> guard.call(() -> requestAnthropicAPI(prompt, promptTokens, publishSections)));
+    }
+    
+    /**
+     * Anthropic API 요청 (공용 HTTP 클라이언트 사용)
+     * max_tokens는 최근 출력 크기 기준으로 정하고, 응답의 실제 사용량으로 토큰 추정기를 보정합니다.
+     * @param promptTokens 프롬프트 토큰 추정치
+     */
+    private AnalysisResult requestAnthropicAPI(String prompt, int promptTokens, boolean publishSections) throws Exception {
+        int maxTokens = tokenEstimator.chooseMaxTokens(promptTokens, config.getMaxTokens(),
+            config.getContextWindow(), AnalysisConfig.getMinOutputTokens());
+        System.out.println("프롬프트 토큰 추정: " + promptTokens + ", max_tokens: " + maxTokens);
         
         // 요청 본문 생성
         Map<String, Object> requestBody = new HashMap<>();
         requestBody.put("model", config.getModel());
-        requestBody.put("max_tokens", config.getMaxTokens());
+        requestBody.put("max_tokens", maxTokens);
         
         // 메시지 배열 생성
         Map<String, Object> userMessage = new HashMap<>();
@@ -97,63 +233,154 @@ public class AnthropicAnalysisService {
         userMessage.put("content", prompt);
         requestBody.put("messages", Arrays.asList(userMessage));
         
+        Map<String, String> headers = new HashMap<>();
+        headers.put("x-api-key", config.getApiKey());
+        headers.put("anthropic-version", config.getApiVersion());
+        
+        AnalysisJob job = AnalysisJob.current();
+        if (job != null) {
+            job.checkCancelled();
+        }
+        
+        if (config.isStreamEnabled()) {
+            requestBody.put("stream", true);
+            return streamAnthropicAPI(gson.toJson(requestBody), headers, job, publishSections, promptTokens, maxTokens);
+        }
+        
         String requestJson = gson.toJson(requestBody);
         System.out.println("API 요청 크기: " + requestJson.length() + " bytes");
         
-        // UTF-8 인코딩으로 요청 전송
-        byte[] jsonBytes = requestJson.getBytes(StandardCharsets.UTF_8);
-        connection.setRequestProperty("Content-Length", String.valueOf(jsonBytes.length));
+        long startTime = System.currentTimeMillis();
+        LlmHttpClient.Call call = httpClient().postJsonAsync(
+            config.getApiUrl(), headers, requestJson);
         
-        try (java.io.OutputStream os = connection.getOutputStream()) {
-            os.write(jsonBytes);
-            os.flush();
+        // 작업이 취소되면 응답 대기와 프로바이더 요청을 즉시 중단
+        Runnable abortRequest = call::cancel;
+        if (job != null) {
+            job.addCancelHook(abortRequest);
         }
         
-        // 응답 읽기
-        int responseCode = connection.getResponseCode();
-        System.out.println("응답 코드: " + responseCode);
-        
-        if (responseCode != 200) {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                    connection.getErrorStream(), StandardCharsets.UTF_8))) {
-                StringBuilder errorResponse = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    errorResponse.append(line);
-                }
-                throw new Exception("Anthropic API 호출 실패 (" + responseCode + "): " + errorResponse.toString());
+        LlmHttpClient.Response response;
+        try {
+            response = call.await();
+        } finally {
+            if (job != null) {
+                job.removeCancelHook(abortRequest);
             }
         }
         
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                connection.getInputStream(), StandardCharsets.UTF_8))) {
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
+        // 비스트리밍 응답은 본문 전체를 받은 시점이 첫 응답 시점
+        AnalysisMetrics.recordTime("provider." + PROVIDER + ".ttfb", System.currentTimeMillis() - startTime);
+        System.out.println("응답 코드: " + response.getStatusCode());
+        
+        if (response.getStatusCode() != 200) {
+            throw new ProviderHttpException(PROVIDER, response.getStatusCode(), response.getRetryAfterMs(),
+                "Anthropic API 호출 실패 (" + response.getStatusCode() + "): " + response.getBody());
+        }
+        
+        String responseBody = response.getBody();
+        System.out.println("응답 크기: " + responseBody.length() + " bytes");
+        
+        // 응답 파싱
+        return parseAnthropicResponse(responseBody, promptTokens, maxTokens);
+    }
+    
+    /**
+     * Anthropic API 스트리밍 호출 (stream: true, SSE)
+     * 텍스트 조각을 받는 대로 누적하며, 최상위 JSON 섹션이 완성되면 작업에 먼저 전달합니다.
+     */
+    @SuppressWarnings("unchecked")
+    private AnalysisResult streamAnthropicAPI(String requestJson, Map<String, String> headers, 
+            AnalysisJob job, boolean publishSections, int promptTokens, int maxTokens) throws Exception {
+        System.out.println("API 스트리밍 요청 크기: " + requestJson.length() + " bytes");
+        
+        StreamingSectionParser sectionParser = new StreamingSectionParser(
+            publishSections ? StreamingSectionParser.jobPublisher(job, gson) : null);
+        Map<String, Object> usage = new HashMap<>();
+        
+        LlmHttpClient.StreamCall call = httpClient().openStream(config.getApiUrl(), headers, requestJson);
+        
+        // 작업이 취소되면 스트림을 닫아 수신을 즉시 중단
+        Runnable abortRequest = call::cancel;
+        if (job != null) {
+            job.addCancelHook(abortRequest);
+        }
+        
+        LlmHttpClient.Response response;
+        try {
+            response = call.read(line -> {
+                if (!line.startsWith("data:")) {
+                    return;
+                }
+                Map<String, Object> event = gson.fromJson(line.substring(5).trim(), Map.class);
+                String type = (String) event.get("type");
+                
+                if ("content_block_delta".equals(type)) {
+                    Map<String, Object> delta = (Map<String, Object>) event.get("delta");
+                    if (delta != null && delta.get("text") != null) {
+                        sectionParser.append((String) delta.get("text"));
+                    }
+                } else if ("message_start".equals(type)) {
+                    Map<String, Object> message = (Map<String, Object>) event.get("message");
+                    if (message != null && message.get("usage") != null) {
+                        usage.putAll((Map<String, Object>) message.get("usage"));
+                    }
+                } else if ("message_delta".equals(type)) {
+                    if (event.get("usage") != null) {
+                        usage.putAll((Map<String, Object>) event.get("usage"));
+                    }
+                    Map<String, Object> delta = (Map<String, Object>) event.get("delta");
+                    if (delta != null && delta.get("stop_reason") != null) {
+                        usage.put("stop_reason", delta.get("stop_reason"));
+                    }
+                } else if ("error".equals(type)) {
+                    Map<String, Object> error = (Map<String, Object>) event.get("error");
+                    throw new java.io.IOException("Anthropic 스트림 오류: " + 
+                        (error != null ? error.get("type") + " - " + error.get("message") : line));
+                }
+            });
+        } finally {
+            if (job != null) {
+                job.removeCancelHook(abortRequest);
             }
-            
-            String responseBody = response.toString();
-            System.out.println("응답 크기: " + responseBody.length() + " bytes");
-            
-            // 응답 파싱
-            return parseAnthropicResponse(responseBody);
         }
+        
+        System.out.println("응답 코드: " + response.getStatusCode());
+        if (response.getStatusCode() != 200) {
+            throw new ProviderHttpException(PROVIDER, response.getStatusCode(), response.getRetryAfterMs(),
+                "Anthropic API 호출 실패 (" + response.getStatusCode() + "): " + response.getBody());
+        }
+        
+        long ttfb = call.getTimeToFirstByteMs();
+        if (ttfb >= 0) {
+            AnalysisMetrics.recordTime("provider." + PROVIDER + ".ttfb", ttfb);
+            System.out.println("첫 응답 수신 시간(TTFB): " + ttfb + "ms");
+        }
+        
+        recordUsage(usage, promptTokens, maxTokens);
+        
+        return parseResponseText(sectionParser.getText());
+    }
+    
+    /**
+     * 프로바이더 공용 HTTP 클라이언트 (연결 재사용)
+     */
+    private LlmHttpClient httpClient() {
+        return LlmHttpClient.forProvider(PROVIDER, config.getConnectTimeout(), config.getReadTimeout());
     }
     
     /**
      * Anthropic API 응답 파싱
      */
     @SuppressWarnings("unchecked")
-    private Map<String, Object> parseAnthropicResponse(String responseBody) throws Exception {
+    private AnalysisResult parseAnthropicResponse(String responseBody, int promptTokens, int maxTokens) throws Exception {
         Map<String, Object> responseJson = gson.fromJson(responseBody, Map.class);
         
-        // 사용량 정보 출력
+        // 사용량 정보 출력 및 토큰 추정기 보정
         Map<String, Object> usage = (Map<String, Object>) responseJson.get("usage");
         if (usage != null) {
-            System.out.println("토큰 사용량:");
-            System.out.println("  입력 토큰: " + usage.get("input_tokens"));
-            System.out.println("  출력 토큰: " + usage.get("output_tokens"));
+            usage.put("stop_reason", responseJson.get("stop_reason"));
+            recordUsage(usage, promptTokens, maxTokens);
         }
         
         // 응답 내용 추출
@@ -165,170 +392,59 @@ public class AnthropicAnalysisService {
         Map<String, Object> firstContent = content.get(0);
         String responseText = (String) firstContent.get("text");
         
-        if (responseText == null) {
-            throw new Exception("응답 텍스트를 찾을 수 없습니다.");
-        }
-        
-        System.out.println("분석 응답 받음: " + responseText.length() + "자");
-        
-        // JSON 블록 추출
-        String jsonText = extractJsonFromText(responseText);
-        
-        // JSON 파싱하여 반환
-        return gson.fromJson(jsonText, Map.class);
+        return parseResponseText(responseText);
     }
     
     /**
-     * 텍스트에서 JSON 블록 추출
+     * 토큰 사용량 출력 및 토큰 추정기 보정
+     * 출력이 max_tokens에서 잘렸으면 실제 필요한 출력은 그 이상이므로 설정된 최대 출력 토큰 수로 기록합니다.
      */
-    private String extractJsonFromText(String text) throws Exception {
-        // ```json 블록 찾기
-        int jsonStart = text.indexOf("```json");
-        int jsonEnd = text.indexOf("```", jsonStart + 7);
-        
-        if (jsonStart != -1 && jsonEnd != -1) {
-            String jsonBlock = text.substring(jsonStart + 7, jsonEnd).trim();
-            System.out.println("JSON 블록 추출 성공");
-            return jsonBlock;
+    private void recordUsage(Map<String, Object> usage, int promptTokens, int maxTokens) {
+        if (usage.isEmpty()) {
+            return;
         }
-        
-        // 일반 JSON 블록 찾기
-        jsonStart = text.indexOf("{");
-        jsonEnd = text.lastIndexOf("}");
-        
-        if (jsonStart != -1 && jsonEnd != -1 && jsonEnd > jsonStart) {
-            String jsonBlock = text.substring(jsonStart, jsonEnd + 1).trim();
-            System.out.println("일반 JSON 추출 성공");
-            return jsonBlock;
+        System.out.println("토큰 사용량:");
+        System.out.println("  입력 토큰: " + usage.get("input_tokens"));
+        System.out.println("  출력 토큰: " + usage.get("output_tokens"));
+        
+        int inputTokens = usage.get("input_tokens") instanceof Number ? ((Number) usage.get("input_tokens")).intValue() : 0;
+        int outputTokens = usage.get("output_tokens") instanceof Number ? ((Number) usage.get("output_tokens")).intValue() : 0;
+        if ("max_tokens".equals(usage.get("stop_reason"))) {
+            System.err.println("출력이 max_tokens(" + maxTokens + ")에서 잘렸습니다");
+            outputTokens = Math.max(outputTokens, config.getMaxTokens());
         }
-        
-        throw new Exception("응답에서 유효한 JSON을 찾을 수 없습니다.");
+        tokenEstimator.recordUsage(promptTokens, inputTokens, outputTokens);
     }
     
     /**
-     * API 응답을 AnalysisResult로 변환
+     * 모델 응답 텍스트에서 분석 JSON을 찾아 AnalysisResult로 바로 변환
      */
-    @SuppressWarnings("unchecked")
-    private AnalysisResult parseToAnalysisResult(Map<String, Object> apiResponse, String userId, String partnerName) {
-        AnalysisResult result = new AnalysisResult();
-        result.setSessionId(UUID.randomUUID().toString());
-        result.setUserId(userId);
-        result.setPartnerName(partnerName);
-        
-        // 메인 결과 파싱
-        if (apiResponse.containsKey("mainResults")) {
-            Map<?, ?> mainData = (Map<?, ?>) apiResponse.get("mainResults");
-            AnalysisResult.MainResults main = new AnalysisResult.MainResults();
-            main.setSuccessRate(((Number) mainData.get("successRate")).doubleValue());
-            main.setConfidenceLevel(mainData.containsKey("confidenceLevel") ? 
-                ((Number) mainData.get("confidenceLevel")).doubleValue() : main.getSuccessRate() * 0.8);
-            main.setRelationshipStage((String) mainData.get("relationshipStage"));
-            main.setSummary((String) mainData.get("summary"));
-            main.setHeroInsight((String) mainData.get("heroInsight"));
-            result.setMainResults(main);
-        }
-        
-        // 감정 분석 파싱
-        if (apiResponse.containsKey("emotionAnalysis")) {
-            Map<?, ?> emotionData = (Map<?, ?>) apiResponse.get("emotionAnalysis");
-            AnalysisResult.EmotionAnalysis emotion = new AnalysisResult.EmotionAnalysis();
-            emotion.setPositive(((Number) emotionData.get("positive")).doubleValue());
-            emotion.setNeutral(((Number) emotionData.get("neutral")).doubleValue());
-            emotion.setNegative(((Number) emotionData.get("negative")).doubleValue());
-            result.setEmotionAnalysis(emotion);
-        }
-        
-        // 관심도 추이 파싱
-        if (apiResponse.containsKey("interestTrends")) {
-            List<?> trendList = (List<?>) apiResponse.get("interestTrends");
-            List<AnalysisResult.InterestTrend> interestTrends = new ArrayList<>();
-            
-            for (Object trendObj : trendList) {
-                Map<?, ?> trendData = (Map<?, ?>) trendObj;
-                AnalysisResult.InterestTrend trend = new AnalysisResult.InterestTrend();
-                trend.setDate((String) trendData.get("date"));
-                trend.setValue(((Number) trendData.get("value")).doubleValue());
-                trend.setMessageCount(trendData.containsKey("messageCount") ? 
-                    ((Number) trendData.get("messageCount")).intValue() : 0);
-                trend.setAvgResponseTime(trendData.containsKey("avgResponseTime") ? 
-                    ((Number) trendData.get("avgResponseTime")).doubleValue() : 0);
-                interestTrends.add(trend);
-            }
-            result.setInterestTrends(interestTrends);
-        }
-        
-        // 긍정적 신호 파싱
-        if (apiResponse.containsKey("positiveSignals")) {
-            List<?> signalList = (List<?>) apiResponse.get("positiveSignals");
-            List<AnalysisResult.PositiveSignal> positiveSignals = new ArrayList<>();
-            
-            for (Object signalObj : signalList) {
-                Map<?, ?> signalData = (Map<?, ?>) signalObj;
-                AnalysisResult.PositiveSignal signal = new AnalysisResult.PositiveSignal();
-                signal.setText((String) signalData.get("text"));
-                signal.setDescription((String) signalData.get("description"));
-                signal.setConfidence(signalData.containsKey("confidence") ? 
-                    ((Number) signalData.get("confidence")).intValue() : 3);
-                positiveSignals.add(signal);
-            }
-            result.setPositiveSignals(positiveSignals);
-        }
-        
-        // 대표 호감 메시지 파싱
-        if (apiResponse.containsKey("favoriteMessage")) {
-            Map<?, ?> messageData = (Map<?, ?>) apiResponse.get("favoriteMessage");
-            AnalysisResult.FavoriteMessage message = new AnalysisResult.FavoriteMessage();
-            message.setText((String) messageData.get("text"));
-            message.setConfidence(messageData.containsKey("confidence") ? 
-                ((Number) messageData.get("confidence")).intValue() : 85);
-            message.setDate((String) messageData.get("date"));
-            message.setReason((String) messageData.get("reason"));
-            result.setFavoriteMessage(message);
+    private AnalysisResult parseResponseText(String responseText) throws Exception {
+        if (responseText == null || responseText.isEmpty()) {
+            throw new Exception("응답 텍스트를 찾을 수 없습니다.");
         }
         
-        // 실전 대화 가이드 파싱
-        if (apiResponse.containsKey("conversationGuides")) {
-            List<?> guideList = (List<?>) apiResponse.get("conversationGuides");
-            List<AnalysisResult.ConversationGuide> conversationGuides = new ArrayList<>();
-            
-            for (Object guideObj : guideList) {
-                Map<?, ?> guideData = (Map<?, ?>) guideObj;
-                AnalysisResult.ConversationGuide guide = new AnalysisResult.ConversationGuide();
-                guide.setType((String) guideData.get("type"));
-                guide.setText((String) guideData.get("text"));
-                guide.setTiming((String) guideData.get("timing"));
-                guide.setContext((String) guideData.get("context"));
-                conversationGuides.add(guide);
-            }
-            result.setConversationGuides(conversationGuides);
-        }
+        System.out.println("분석 응답 받음: " + responseText.length() + "자");
         
-        // 조언 파싱
-        if (apiResponse.containsKey("customAdvice")) {
-            List<?> adviceList = (List<?>) apiResponse.get("customAdvice");
-            List<AnalysisResult.CustomAdvice> customAdviceList = new ArrayList<>();
-            
-            for (Object adviceObj : adviceList) {
-                Map<?, ?> adviceData = (Map<?, ?>) adviceObj;
-                AnalysisResult.CustomAdvice advice = new AnalysisResult.CustomAdvice();
-                advice.setTitle((String) adviceData.get("title"));
-                advice.setContent((String) adviceData.get("content"));
-                customAdviceList.add(advice);
+        // JSON 객체를 찾아 복사/중간 Map 없이 바로 파싱
+        try {
+            AnalysisResult result = JsonExtractor.parse(responseText, gson, AnalysisResult.class);
+            if (result == null) {
+                throw new Exception("응답 JSON이 분석 결과 형식이 아닙니다.");
             }
-            result.setCustomAdvice(customAdviceList);
+            return result;
+        } catch (JsonParseException e) {
+            throw new Exception("응답에서 유효한 JSON을 찾을 수 없습니다: " + e.getMessage(), e);
         }
-        
-        System.out.println("AnalysisResult 변환 완료 - 모든 필드 포함");
-        return result;
     }
     
     /**
-     * 대화 데이터 압축
+     * 파싱된 분석 결과에 세션/사용자 정보 설정
      */
-    private String compressConversationData(String data) {
-        if (data.length() > 3000) {
-            return data.substring(0, 3000) + "...[대화가 길어 일부만 분석에 사용됩니다]";
-        }
-        return data;
+    private AnalysisResult completeResult(AnalysisResult result, String userId, String partnerName) {
+        result.setSessionId(UUID.randomUUID().toString());
+        result.setUserId(userId);
+        result.setPartnerName(partnerName);
+        return result;
     }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.smhrd.service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 프로바이더별 동시 호출 수 제한 (격벽)
+ *
+ * 한 프로바이더가 느려져도 그 프로바이더 호출이 전체 작업/청크 스레드를 점유하지 못하도록
+ * 동시에 진행 중인 호출 수를 제한합니다. 한도를 넘으면 잠시 기다렸다가 거절합니다.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final long maxWaitMs;
+    private final Semaphore permits;
+
+    public Bulkhead(String name, int maxConcurrent, long maxWaitMs) {
+        this.name = name;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxWaitMs = Math.max(0, maxWaitMs);
+        this.permits = new Semaphore(this.maxConcurrent);
+    }
+
+    /**
+     * 호출 슬롯 획득 (최대 maxWaitMs 대기)
+     * @return 획득 여부 (true면 호출 후 반드시 release)
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        return permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * 현재 진행 중인 호출 수
+     */
+    public int getInUse() {
+        return maxConcurrent - permits.availablePermits();
+    }
+}
@@ -0,0 +1,375 @@
+package com.smhrd.service;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 메신저 대화 내보내기 파일 파서 (줄 단위 스트리밍)
+ *
+ * 카카오톡 PC/모바일(Android, iOS)과 LINE 내보내기 형식을 줄마다 인식하여
+ * 메시지(시각, 화자 번호, 본문 위치)를 Listener로 하나씩 전달합니다.
+ * 파일 전체를 String으로 만들지 않도록 UTF-8 ByteBuffer(메모리 매핑 파일)를 직접 읽을 수 있으며,
+ * 이때 본문 위치는 버퍼 안의 바이트 오프셋입니다. (CharSequence 입력이면 문자 오프셋)
+ *
+ * 내보내기 파일에는 시간대 정보가 없으므로 시각은 기기 현지 시각을 UTC 기준 epoch 초로 표현합니다.
+ * 여러 줄 메시지는 다음 메시지 머리줄이 나올 때까지의 줄을 본문에 이어 붙이고,
+ * 입장/퇴장 같은 시스템 메시지는 건너뜁니다.
+ */
+public class ChatExportParser {
+
+    /**
+     * 인식한 내보내기 형식 (처음 인식한 메시지 기준)
+     */
+    public enum Format { KAKAO_PC, KAKAO_MOBILE, LINE, UNKNOWN }
+
+    /**
+     * 메시지 수신
+     */
+    public interface Listener {
+        /**
+         * @param epochSecond 메시지 시각 (현지 시각의 UTC 기준 epoch 초)
+         * @param speaker 화자 번호 (getSpeakers()의 인덱스, 등장 순서)
+         * @param textStart 원본에서 본문 시작 위치
+         * @param textEnd 원본에서 본문 끝 위치 (여러 줄이면 마지막 줄 끝)
+         * @param text 본문 (호출 중에만 유효, 보관하려면 복사)
+         */
+        void onMessage(long epochSecond, int speaker, long textStart, long textEnd, CharSequence text);
+    }
+
+    // 카카오톡 PC: "--------------- 2024년 8월 13일 화요일 ---------------", Android: "2024년 8월 13일 화요일"
+    private static final Pattern KAKAO_DATE = Pattern.compile(
+        "^[-\\s]*(\\d{4})년\\s*(\\d{1,2})월\\s*(\\d{1,2})일\\s*[가-힣]*요일[-\\s]*$");
+    // 카카오톡 PC: "[민지] [오후 3:21] 안녕"
+    private static final Pattern KAKAO_PC_MESSAGE = Pattern.compile(
+        "^\\[(.+?)\\] \\[(오전|오후)?\\s*(\\d{1,2}):(\\d{2})\\] (.*)$");
+    // 카카오톡 Android: "2024년 8월 13일 오후 3:21, 민지 : 안녕", iOS: "2024. 8. 13. 오후 3:21, 민지 : 안녕"
+    private static final Pattern KAKAO_MOBILE_MESSAGE = Pattern.compile(
+        "^(\\d{4})(?:년|\\.)\\s*(\\d{1,2})(?:월|\\.)\\s*(\\d{1,2})(?:일|\\.)?\\s*(오전|오후)?\\s*(\\d{1,2}):(\\d{2}),\\s*(.+?) : (.*)$");
+    // 카카오톡 모바일 시스템 메시지 ("2024년 8월 13일 오후 3:21, 민지님이 들어왔습니다.")
+    private static final Pattern KAKAO_MOBILE_SYSTEM = Pattern.compile(
+        "^\\d{4}(?:년|\\.)\\s*\\d{1,2}(?:월|\\.)\\s*\\d{1,2}(?:일|\\.)?\\s*(?:오전|오후)?\\s*\\d{1,2}:\\d{2},");
+    // LINE: "2024/08/13(화)", "2024.08.13 화요일", "2024/08/13 Tue"
+    private static final Pattern LINE_DATE = Pattern.compile(
+        "^(\\d{4})[./](\\d{1,2})[./](\\d{1,2})\\.?\\s*(?:\\(.*\\)|[가-힣]*요일|[A-Za-z]{3,9})?\\s*$");
+    // LINE: "15:21\t민지\t안녕", "오후 3:21\t민지\t안녕", "3:21 PM\t민지\t안녕"
+    private static final Pattern LINE_MESSAGE = Pattern.compile(
+        "^(?:(오전|오후|AM|PM)\\s*)?(\\d{1,2}):(\\d{2})(?:\\s*(AM|PM))?\\t([^\\t]+)\\t(.*)$");
+    // LINE 시스템 메시지 ("15:21\t민지님이 참여했습니다.")
+    private static final Pattern LINE_SYSTEM = Pattern.compile(
+        "^(?:(?:오전|오후|AM|PM)\\s*)?\\d{1,2}:\\d{2}(?:\\s*(?:AM|PM))?\\t[^\\t]*$");
+
+    private static final int INITIAL_LINE_CAPACITY = 1024;
+
+    private final Listener listener;
+    private final List<String> speakers = new ArrayList<>();
+    private final Map<String, Integer> speakerIds = new HashMap<>();
+    private Format format = Format.UNKNOWN;
+    private int messageCount;
+
+    private final Matcher kakaoDate = KAKAO_DATE.matcher("");
+    private final Matcher kakaoPcMessage = KAKAO_PC_MESSAGE.matcher("");
+    private final Matcher kakaoMobileMessage = KAKAO_MOBILE_MESSAGE.matcher("");
+    private final Matcher kakaoMobileSystem = KAKAO_MOBILE_SYSTEM.matcher("");
+    private final Matcher lineDate = LINE_DATE.matcher("");
+    private final Matcher lineMessage = LINE_MESSAGE.matcher("");
+    private final Matcher lineSystem = LINE_SYSTEM.matcher("");
+
+    // 현재 줄 (바이트 입력이면 줄 안의 문자 위치를 바이트 오프셋으로 환산)
+    private boolean byteOffsets;
+    private long lineStart;
+
+    // 날짜 줄에서 얻은 현재 날짜 (카카오톡 PC, LINE)
+    private LocalDate currentDate;
+
+    // 본문이 아직 이어질 수 있는 메시지
+    private boolean open;
+    private long openTime;
+    private int openSpeaker;
+    private long openStart;
+    private long openEnd;
+    private final StringBuilder openText = new StringBuilder();
+
+    public ChatExportParser(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 텍스트 파싱 (본문 위치는 문자 오프셋)
+     */
+    public void parse(CharSequence text) {
+        byteOffsets = false;
+        int length = text.length();
+        int start = (length > 0 && text.charAt(0) == '\uFEFF') ? 1 : 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && text.charAt(end) != '\n') {
+                end++;
+            }
+            int lineEnd = (end > start && text.charAt(end - 1) == '\r') ? end - 1 : end;
+            lineStart = start;
+            acceptLine(text.subSequence(start, lineEnd), lineEnd);
+            start = end + 1;
+        }
+        finishMessage();
+    }
+
+    /**
+     * UTF-8 버퍼 파싱 (position부터 limit까지, 본문 위치는 버퍼 안의 바이트 오프셋)
+     * 메모리 매핑 파일을 그대로 넘기면 줄 하나 크기의 문자 버퍼만 사용합니다.
+     * @throws CharacterCodingException UTF-8이 아닌 파일
+     */
+    public void parse(ByteBuffer utf8) throws CharacterCodingException {
+        byteOffsets = true;
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer line = CharBuffer.allocate(INITIAL_LINE_CAPACITY);
+
+        int limit = utf8.limit();
+        int start = utf8.position();
+        if (limit - start >= 3 && (utf8.get(start) & 0xFF) == 0xEF
+                && (utf8.get(start + 1) & 0xFF) == 0xBB && (utf8.get(start + 2) & 0xFF) == 0xBF) {
+            start += 3;
+        }
+        while (start < limit) {
+            int end = start;
+            while (end < limit && utf8.get(end) != '\n') {
+                end++;
+            }
+            int lineEnd = (end > start && utf8.get(end - 1) == '\r') ? end - 1 : end;
+
+            ByteBuffer bytes = utf8.duplicate();
+            bytes.limit(lineEnd).position(start);
+            line = decodeLine(decoder, bytes, line);
+            lineStart = start;
+            acceptLine(line, lineEnd);
+            start = end + 1;
+        }
+        finishMessage();
+    }
+
+    private static CharBuffer decodeLine(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer line)
+            throws CharacterCodingException {
+        // UTF-8은 바이트당 최대 한 글자이므로 바이트 수만큼이면 충분
+        if (line.capacity() < bytes.remaining()) {
+            line = CharBuffer.allocate(Math.max(bytes.remaining(), line.capacity() * 2));
+        }
+        line.clear();
+        decoder.reset();
+        CoderResult result = decoder.decode(bytes, line, true);
+        if (result.isError()) {
+            result.throwException();
+        }
+        decoder.flush(line);
+        line.flip();
+        return line;
+    }
+
+    private void acceptLine(CharSequence line, long lineEnd) {
+        if (line.length() == 0) {
+            appendContinuation(line, lineEnd);
+            return;
+        }
+        char first = line.charAt(0);
+
+        if (first == '[') {
+            if (kakaoPcMessage.reset(line).matches()) {
+                if (currentDate != null) {
+                    long time = toEpochSecond(currentDate,
+                        toHour(kakaoPcMessage.group(2), Integer.parseInt(kakaoPcMessage.group(3))),
+                        Integer.parseInt(kakaoPcMessage.group(4)));
+                    startMessage(Format.KAKAO_PC, kakaoPcMessage.group(1), time, line, kakaoPcMessage.start(5), lineEnd);
+                }
+                return;
+            }
+        } else if (Character.isDigit(first) || first == '-') {
+            if (kakaoMobileMessage.reset(line).matches()) {
+                LocalDate date = toDate(kakaoMobileMessage.group(1), kakaoMobileMessage.group(2), kakaoMobileMessage.group(3));
+                if (date != null) {
+                    currentDate = date;
+                    long time = toEpochSecond(date,
+                        toHour(kakaoMobileMessage.group(4), Integer.parseInt(kakaoMobileMessage.group(5))),
+                        Integer.parseInt(kakaoMobileMessage.group(6)));
+                    startMessage(Format.KAKAO_MOBILE, kakaoMobileMessage.group(7), time, line,
+                        kakaoMobileMessage.start(8), lineEnd);
+                }
+                return;
+            }
+            if (kakaoDate.reset(line).matches()) {
+                changeDate(toDate(kakaoDate.group(1), kakaoDate.group(2), kakaoDate.group(3)));
+                return;
+            }
+            if (lineDate.reset(line).matches()) {
+                changeDate(toDate(lineDate.group(1), lineDate.group(2), lineDate.group(3)));
+                return;
+            }
+            if (acceptLineMessage(line, lineEnd)) {
+                return;
+            }
+            if (kakaoMobileSystem.reset(line).lookingAt()) {
+                finishMessage();
+                return;
+            }
+        } else if (first == '오' || first == 'A' || first == 'P') {
+            if (acceptLineMessage(line, lineEnd)) {
+                return;
+            }
+        }
+        appendContinuation(line, lineEnd);
+    }
+
+    private boolean acceptLineMessage(CharSequence line, long lineEnd) {
+        if (lineMessage.reset(line).matches()) {
+            if (currentDate != null) {
+                String meridiem = lineMessage.group(1) != null ? lineMessage.group(1) : lineMessage.group(4);
+                long time = toEpochSecond(currentDate,
+                    toHour(meridiem, Integer.parseInt(lineMessage.group(2))), Integer.parseInt(lineMessage.group(3)));
+                startMessage(Format.LINE, lineMessage.group(5), time, line, lineMessage.start(6), lineEnd);
+            }
+            return true;
+        }
+        if (lineSystem.reset(line).matches()) {
+            finishMessage();
+            return true;
+        }
+        return false;
+    }
+
+    private void changeDate(LocalDate date) {
+        finishMessage();
+        if (date != null) {
+            currentDate = date;
+        }
+    }
+
+    private void startMessage(Format lineFormat, String speakerName, long time, CharSequence line,
+            int textIndex, long lineEnd) {
+        finishMessage();
+        String speaker = speakerName.trim();
+        if (speaker.isEmpty()) {
+            return;
+        }
+        if (format == Format.UNKNOWN) {
+            format = lineFormat;
+        }
+        Integer id = speakerIds.get(speaker);
+        if (id == null) {
+            id = speakers.size();
+            speakers.add(speaker);
+            speakerIds.put(speaker, id);
+        }
+
+        open = true;
+        openTime = time;
+        openSpeaker = id;
+        openStart = offsetOf(line, textIndex);
+        openEnd = lineEnd;
+        openText.setLength(0);
+        openText.append(line, textIndex, line.length());
+    }
+
+    private void appendContinuation(CharSequence line, long lineEnd) {
+        if (!open) {
+            return;
+        }
+        openText.append('\n').append(line);
+        // 끝의 빈 줄은 본문에서 제외하므로 끝 위치도 마지막으로 내용이 있던 줄 기준
+        if (line.length() > 0) {
+            openEnd = lineEnd;
+        }
+    }
+
+    private void finishMessage() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        // 여러 줄 메시지 끝의 빈 줄은 본문에서 제외
+        int length = openText.length();
+        while (length > 0 && openText.charAt(length - 1) == '\n') {
+            length--;
+        }
+        openText.setLength(length);
+        messageCount++;
+        listener.onMessage(openTime, openSpeaker, openStart, openEnd, openText);
+    }
+
+    /**
+     * 현재 줄 안의 문자 위치를 원본 오프셋으로 환산
+     */
+    private long offsetOf(CharSequence line, int charIndex) {
+        if (!byteOffsets) {
+            return lineStart + charIndex;
+        }
+        long bytes = 0;
+        for (int i = 0; i < charIndex; i++) {
+            char c = line.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isSurrogate(c)) {
+                // 서로게이트 쌍은 UTF-8 4바이트 (한 쪽당 2)
+                bytes += 2;
+            } else {
+                bytes += 3;
+            }
+        }
+        return lineStart + bytes;
+    }
+
+    /**
+     * 등장 순서대로의 화자 이름 (화자 번호가 인덱스)
+     */
+    public List<String> getSpeakers() {
+        return Collections.unmodifiableList(speakers);
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    private static long toEpochSecond(LocalDate date, int hour, int minute) {
+        if (hour > 23 || minute > 59) {
+            hour = Math.min(hour, 23);
+            minute = Math.min(minute, 59);
+        }
+        return date.atTime(hour, minute).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static int toHour(String meridiem, int hour) {
+        if ("오후".equals(meridiem) || "PM".equals(meridiem)) {
+            return hour == 12 ? 12 : hour + 12;
+        }
+        if ("오전".equals(meridiem) || "AM".equals(meridiem)) {
+            return hour == 12 ? 0 : hour;
+        }
+        return hour;
+    }
+
+    private static LocalDate toDate(String year, String month, String day) {
+        try {
+            return LocalDate.of(Integer.parseInt(year), Integer.parseInt(month), Integer.parseInt(day));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
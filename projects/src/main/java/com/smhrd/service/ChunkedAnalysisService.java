@@ -0,0 +1,339 @@
+package com.smhrd.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.Gson;
+import com.smhrd.model.AnalysisResult;
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 긴 대화를 위한 Map-Reduce 방식 청크 분석 서비스
+ *
+ * 처리 흐름:
+ * 1. Map: 각 윈도우를 공용 실행기에서 병렬로 분석 (요청당 동시 호출 수 제한)
+ * 2. Reduce: 윈도우별 부분 결과를 프로바이더에 다시 보내 하나의 결과로 통합
+ * 3. Reduce 호출이 실패하면 로컬 병합 규칙으로 통합
+ */
+public class ChunkedAnalysisService {
+
+    /**
+     * 모든 청크 분석 요청이 공유하는 실행기 (스레드 수와 대기열 크기 제한)
+     * 대기열이 가득 차면 호출 스레드에서 직접 실행하여 자연스럽게 속도를 조절합니다.
+     */
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private final Gson gson;
+
+    /**
+     * 윈도우 분석과 결과 통합을 수행하는 프로바이더별 구현
+     */
+    public interface WindowAnalyzer {
+
+        /**
+         * 대화 윈도우 하나를 분석
+         * @param window 윈도우 대화 텍스트
+         * @param partnerName 상대방 이름
+         * @param index 윈도우 순번 (1부터 시작)
+         * @param total 전체 윈도우 수
+         */
+        AnalysisResult analyzeWindow(String window, String partnerName, int index, int total) throws Exception;
+
+        /**
+         * 윈도우별 부분 결과(JSON)를 하나의 결과로 통합
+         * @param partialResultsJson 부분 결과 목록 JSON
+         * @param partnerName 상대방 이름
+         * @param total 부분 결과 수
+         */
+        AnalysisResult reduce(String partialResultsJson, String partnerName, int total) throws Exception;
+    }
+
+    public ChunkedAnalysisService() {
+        this.gson = new Gson();
+    }
+
+    /**
+     * 윈도우 목록을 병렬 분석 후 하나의 결과로 통합
+     * @param windows 시간 순서대로 정렬된 대화 윈도우
+     * @param partnerName 상대방 이름
+     * @param analyzer 프로바이더별 분석기
+     * @return 통합 분석 결과
+     */
+    public AnalysisResult analyze(List<String> windows, String partnerName, WindowAnalyzer analyzer) throws Exception {
+        int total = windows.size();
+        System.out.println("=== 청크 분석 시작 - 윈도우 " + total + "개 ===");
+        long startTime = System.currentTimeMillis();
+
+        List<AnalysisResult> partials = mapWindows(windows, partnerName, analyzer);
+
+        System.out.println("Map 단계 완료 - 성공 " + partials.size() + "/" + total +
+            " (" + (System.currentTimeMillis() - startTime) + "ms)");
+
+        if (partials.size() == 1) {
+            return partials.get(0);
+        }
+
+        AnalysisResult merged;
+        try {
+            merged = analyzer.reduce(toPartialResultsJson(partials), partnerName, partials.size());
+            System.out.println("Reduce 호출로 결과 통합 완료");
+        } catch (Exception e) {
+            System.err.println("Reduce 호출 실패, 로컬 병합 사용: " + e.getMessage());
+            merged = mergeLocally(partials);
+        }
+
+        System.out.println("=== 청크 분석 완료 (" + (System.currentTimeMillis() - startTime) + "ms) ===");
+        return merged;
+    }
+
+    /**
+     * Map 단계: 윈도우를 병렬로 분석
+     * 요청 스레드가 세마포어로 동시 호출 수를 제한하며 작업을 제출합니다.
+     */
+    private List<AnalysisResult> mapWindows(List<String> windows, String partnerName, WindowAnalyzer analyzer)
+            throws Exception {
+        int total = windows.size();
+        Semaphore permits = new Semaphore(AnalysisConfig.getChunkMaxConcurrencyPerRequest());
+        List<Future<AnalysisResult>> futures = new CopyOnWriteArrayList<>();
+
+        // 작업 스레드의 분석 작업을 청크 분석 스레드로 전달 (취소 전파용)
+        AnalysisJob job = AnalysisJob.current();
+        Runnable cancelFutures = () -> futures.forEach(f -> f.cancel(true));
+        if (job != null) {
+            job.addCancelHook(cancelFutures);
+        }
+
+        try {
+            try {
+                for (int i = 0; i < total; i++) {
+                    final String window = windows.get(i);
+                    final int index = i + 1;
+
+                    permits.acquire();
+                    try {
+                        futures.add(EXECUTOR.submit(() -> {
+                            // CallerRunsPolicy로 작업 스레드에서 실행될 수 있으므로 기존 바인딩 복원
+                            AnalysisJob previous = AnalysisJob.current();
+                            AnalysisJob.bindCurrent(job);
+                            try {
+                                if (job != null) {
+                                    job.checkCancelled();
+                                }
+                                return analyzer.analyzeWindow(window, partnerName, index, total);
+                            } finally {
+                                AnalysisJob.bindCurrent(previous);
+                                permits.release();
+                            }
+                        }));
+                    } catch (RuntimeException e) {
+                        permits.release();
+                        throw e;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelFutures.run();
+                throw new Exception("청크 분석 중 인터럽트 발생", e);
+            }
+
+            List<AnalysisResult> partials = new ArrayList<>(total);
+            Exception lastException = null;
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    partials.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    lastException = (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+                    System.err.println("윈도우 " + (i + 1) + "/" + total + " 분석 실패: " + lastException.getMessage());
+                } catch (CancellationException e) {
+                    throw new Exception("분석 작업이 취소되어 청크 분석을 중단합니다", e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cancelFutures.run();
+                    throw new Exception("청크 분석 중 인터럽트 발생", e);
+                }
+            }
+
+            int failed = total - partials.size();
+            AnalysisMetrics.add("chunk.window.success", partials.size());
+            AnalysisMetrics.add("chunk.window.failure", failed);
+
+            if (partials.isEmpty()) {
+                AnalysisMetrics.increment("chunk.coverage_rejected");
+                throw new Exception("모든 윈도우 분석이 실패했습니다", lastException);
+            }
+
+            // 성공한 윈도우가 너무 적으면 대화 일부만 본 결과가 되므로 실패 처리
+            if (partials.size() < total * AnalysisConfig.getChunkMinSuccessRatio()) {
+                AnalysisMetrics.increment("chunk.coverage_rejected");
+                throw new Exception("윈도우 분석 실패가 너무 많습니다 (성공 " + partials.size() + "/" + total + ")",
+                    lastException);
+            }
+            if (failed > 0) {
+                AnalysisMetrics.increment("chunk.partial_coverage");
+            }
+
+            return partials;
+
+        } finally {
+            if (job != null) {
+                job.removeCancelHook(cancelFutures);
+            }
+        }
+    }
+
+    /**
+     * Reduce 프롬프트에 넣을 부분 결과 JSON 생성
+     */
+    private String toPartialResultsJson(List<AnalysisResult> partials) {
+        List<Map<String, Object>> items = new ArrayList<>(partials.size());
+        for (int i = 0; i < partials.size(); i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("window", i + 1);
+            item.put("result", partials.get(i).toFrontendFormat());
+            items.add(item);
+        }
+        return gson.toJson(items);
+    }
+
+    /**
+     * 로컬 병합 (Reduce 호출 실패 시)
+     * - 수치: 평균
+     * - 관계 단계/요약/가이드/조언: 가장 최근 윈도우 기준
+     * - 관심도 추이: 시간 순서대로 이어붙임
+     * - 긍정 신호: 신뢰도 상위 5개
+     * - 대표 메시지: 신뢰도가 가장 높은 메시지
+     */
+    AnalysisResult mergeLocally(List<AnalysisResult> partials) {
+        AnalysisResult latest = partials.get(partials.size() - 1);
+        AnalysisResult merged = new AnalysisResult();
+
+        // 메인 결과
+        AnalysisResult.MainResults main = new AnalysisResult.MainResults();
+        double successSum = 0;
+        double confidenceSum = 0;
+        int mainCount = 0;
+        for (AnalysisResult partial : partials) {
+            if (partial.getMainResults() != null) {
+                successSum += partial.getMainResults().getSuccessRate();
+                confidenceSum += partial.getMainResults().getConfidenceLevel();
+                mainCount++;
+            }
+        }
+        if (mainCount > 0) {
+            main.setSuccessRate(successSum / mainCount);
+            main.setConfidenceLevel(confidenceSum / mainCount);
+        }
+        if (latest.getMainResults() != null) {
+            main.setRelationshipStage(latest.getMainResults().getRelationshipStage());
+            main.setSummary(latest.getMainResults().getSummary());
+            main.setHeroInsight(latest.getMainResults().getHeroInsight());
+        }
+        merged.setMainResults(main);
+
+        // 감정 분석 (합계 100으로 정규화)
+        double positive = 0;
+        double neutral = 0;
+        double negative = 0;
+        for (AnalysisResult partial : partials) {
+            if (partial.getEmotionAnalysis() != null) {
+                positive += partial.getEmotionAnalysis().getPositive();
+                neutral += partial.getEmotionAnalysis().getNeutral();
+                negative += partial.getEmotionAnalysis().getNegative();
+            }
+        }
+        double emotionTotal = positive + neutral + negative;
+        if (emotionTotal > 0) {
+            AnalysisResult.EmotionAnalysis emotion = new AnalysisResult.EmotionAnalysis();
+            emotion.setPositive(Math.round(positive / emotionTotal * 1000) / 10.0);
+            emotion.setNegative(Math.round(negative / emotionTotal * 1000) / 10.0);
+            emotion.setNeutral(Math.round((100.0 - emotion.getPositive() - emotion.getNegative()) * 10) / 10.0);
+            merged.setEmotionAnalysis(emotion);
+        }
+
+        // 관심도 추이 / 긍정 신호 / 대표 메시지
+        List<AnalysisResult.InterestTrend> trends = new ArrayList<>();
+        List<AnalysisResult.PositiveSignal> signals = new ArrayList<>();
+        AnalysisResult.FavoriteMessage favorite = null;
+        for (AnalysisResult partial : partials) {
+            if (partial.getInterestTrends() != null) {
+                trends.addAll(partial.getInterestTrends());
+            }
+            if (partial.getPositiveSignals() != null) {
+                signals.addAll(partial.getPositiveSignals());
+            }
+            AnalysisResult.FavoriteMessage candidate = partial.getFavoriteMessage();
+            if (candidate != null && (favorite == null || candidate.getConfidence() > favorite.getConfidence())) {
+                favorite = candidate;
+            }
+        }
+        signals.sort(Comparator.comparingInt(AnalysisResult.PositiveSignal::getConfidence).reversed());
+        merged.setInterestTrends(trends);
+        merged.setPositiveSignals(new ArrayList<>(signals.subList(0, Math.min(5, signals.size()))));
+        merged.setFavoriteMessage(favorite);
+
+        // 가이드/조언은 가장 최근 관계 상태 기준
+        merged.setConversationGuides(latest.getConversationGuides());
+        merged.setCustomAdvice(latest.getCustomAdvice());
+
+        return merged;
+    }
+
+    /**
+     * 윈도우를 줄이면 해결될 수 있는 실패인지 확인
+     * 회로 차단, 취소, 네트워크 오류, 재시도 대상 HTTP 오류(408/429/5xx)와 인증/경로 오류는 제외하고
+     * 400/413(입력 크기 초과 등)과 응답 처리 실패(JSON 파싱 등)만 해당합니다.
+     */
+    public static boolean isFixableWithSmallerWindows(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ProviderUnavailableException || cause instanceof CancellationException) {
+                return false;
+            }
+            if (cause instanceof ProviderHttpException) {
+                ProviderHttpException httpError = (ProviderHttpException) cause;
+                if (RetryPolicy.PROVIDER_ERRORS.classify(httpError) != RetryPolicy.ErrorType.PERMANENT) {
+                    return false;
+                }
+                return httpError.getStatusCode() == 400 || httpError.getStatusCode() == 413;
+            }
+            if (cause instanceof IOException) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 공용 실행기 생성
+     */
+    private static ThreadPoolExecutor createExecutor() {
+        int threads = AnalysisConfig.getExecutorThreads();
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "chunk-analysis-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        return new ThreadPoolExecutor(
+            threads, threads,
+            60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(AnalysisConfig.getExecutorQueueSize()),
+            threadFactory,
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
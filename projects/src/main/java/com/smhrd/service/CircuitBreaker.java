@@ -0,0 +1,133 @@
+package com.smhrd.service;
+
+/**
+ * 프로바이더 호출 회로 차단기
+ *
+ * - CLOSED: 정상 호출. 연속 실패가 한도에 도달하면 OPEN
+ * - OPEN: 호출 즉시 거절. 차단 시간이 지나면 HALF_OPEN
+ * - HALF_OPEN: 시험 호출만 허용. 성공하면 CLOSED, 실패하면 다시 OPEN
+ *
+ * 상태가 바뀔 때마다 AnalysisMetrics에 breaker.{이름}.{opened|half_opened|closed} 카운터를 올립니다.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMs;
+    private final int halfOpenMaxCalls;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private int halfOpenCalls = 0;
+
+    /**
+     * @param name 프로바이더 이름
+     * @param failureThreshold 회로를 여는 연속 실패 수
+     * @param openMs 회로를 연 뒤 시험 호출까지 대기 시간 (밀리초)
+     * @param halfOpenMaxCalls HALF_OPEN 상태에서 동시에 허용할 시험 호출 수
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMs, int halfOpenMaxCalls) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMs = openMs;
+        this.halfOpenMaxCalls = Math.max(1, halfOpenMaxCalls);
+    }
+
+    /**
+     * 호출 허용 여부 확인 (허용 시 호출 후 반드시 onSuccess/onFailure/onIgnored 중 하나 호출)
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMs) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenCalls >= halfOpenMaxCalls) {
+                return false;
+            }
+            halfOpenCalls++;
+        }
+        return true;
+    }
+
+    /**
+     * 호출 성공
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    /**
+     * 호출 실패 (프로바이더 장애로 볼 수 있는 오류)
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN
+                || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * 결과를 반영하지 않는 호출 종료 (취소 등)
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && halfOpenCalls > 0) {
+            halfOpenCalls--;
+        }
+    }
+
+    /**
+     * 지금 호출하면 허용될지 여부 (상태를 바꾸지 않음, 라우팅 순위 계산용)
+     */
+    public synchronized boolean isCallPermitted() {
+        if (state == State.OPEN) {
+            return System.currentTimeMillis() - openedAt >= openMs;
+        }
+        return state == State.CLOSED || halfOpenCalls < halfOpenMaxCalls;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 시험 호출까지 남은 시간 (밀리초, OPEN이 아니면 0)
+     */
+    public synchronized long getRemainingOpenMs() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openMs - (System.currentTimeMillis() - openedAt));
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    private void transitionTo(State newState) {
+        State previous = state;
+        state = newState;
+        halfOpenCalls = 0;
+        if (newState == State.OPEN) {
+            openedAt = System.currentTimeMillis();
+            AnalysisMetrics.increment("breaker." + name + ".opened");
+        } else if (newState == State.HALF_OPEN) {
+            AnalysisMetrics.increment("breaker." + name + ".half_opened");
+        } else {
+            consecutiveFailures = 0;
+            AnalysisMetrics.increment("breaker." + name + ".closed");
+        }
+        System.out.println("회로 차단기 상태 변경 - " + name + ": " + previous + " → " + newState);
+    }
+}
@@ -0,0 +1,330 @@
+package com.smhrd.service;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 파싱된 대화의 열(column) 단위 메시지 저장소
+ *
+ * 메시지마다 객체(Map, String)를 만들지 않고 열별 배열에 나누어 담습니다.
+ * - 시각: long[] (현지 시각의 UTC 기준 epoch 초, ChatExportParser와 동일)
+ * - 화자: byte[] (화자 사전 getSpeakers()의 인덱스, 최대 256명)
+ * - 본문: 하나의 UTF-8 byte[] 아레나와 int[] 오프셋 (i번째 본문은 offsets[i] ~ offsets[i + 1])
+ * 100만 개 메시지 기준 약 13바이트 + 본문 바이트 수만 차지하므로 메시지별 객체 목록보다 힙 사용량과 GC 부담이 훨씬 적습니다.
+ *
+ * 대화 통계(ConversationStatistics), 윈도우 분할(ConversationChunker), 프롬프트용 정규화 텍스트 생성이
+ * 모두 이 저장소를 읽습니다. 정규화 텍스트는 ChatExportParser가 다시 인식할 수 있는 LINE 형식입니다.
+ * (날짜 줄 "2024/08/13", 메시지 줄 "15:21\t화자\t본문")
+ * 파싱이 끝난 뒤에는 읽기 전용이므로 여러 스레드에서 함께 읽어도 됩니다. (replay는 호출마다 자체 디코더 사용)
+ */
+public final class ConversationBuffer implements ChatExportParser.Listener {
+
+    /**
+     * 화자 번호를 byte 하나에 담으므로 최대 화자 수
+     */
+    public static final int MAX_SPEAKERS = 256;
+
+    private static final int INITIAL_MESSAGES = 1024;
+    private static final int INITIAL_ARENA_BYTES = 32 * 1024;
+
+    private long[] times = new long[INITIAL_MESSAGES];
+    private byte[] speakerIds = new byte[INITIAL_MESSAGES];
+    private int[] offsets = new int[INITIAL_MESSAGES + 1];
+    private byte[] arena = new byte[INITIAL_ARENA_BYTES];
+    private int size;
+    private int droppedMessages;
+
+    private List<String> speakers = Collections.emptyList();
+    private ChatExportParser.Format format = ChatExportParser.Format.UNKNOWN;
+
+    // 파싱 중에만 사용 (짝이 없는 서로게이트는 '?'로 대체)
+    private CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private ConversationBuffer() {
+    }
+
+    /**
+     * 대화 텍스트를 파싱하여 저장소 생성 (인식하지 못한 형식이면 빈 저장소)
+     */
+    public static ConversationBuffer parse(CharSequence text) {
+        ConversationBuffer buffer = new ConversationBuffer();
+        ChatExportParser parser = new ChatExportParser(buffer);
+        if (text != null) {
+            parser.parse(text);
+        }
+        return buffer.complete(parser);
+    }
+
+    /**
+     * UTF-8 버퍼(메모리 매핑 파일)를 파싱하여 저장소 생성
+     * @throws CharacterCodingException UTF-8이 아닌 파일
+     */
+    public static ConversationBuffer parse(ByteBuffer utf8) throws CharacterCodingException {
+        ConversationBuffer buffer = new ConversationBuffer();
+        ChatExportParser parser = new ChatExportParser(buffer);
+        parser.parse(utf8);
+        return buffer.complete(parser);
+    }
+
+    @Override
+    public void onMessage(long epochSecond, int speaker, long textStart, long textEnd, CharSequence text) {
+        if (speaker >= MAX_SPEAKERS) {
+            droppedMessages++;
+            return;
+        }
+        if (size == times.length) {
+            int capacity = size * 2;
+            times = Arrays.copyOf(times, capacity);
+            speakerIds = Arrays.copyOf(speakerIds, capacity);
+            offsets = Arrays.copyOf(offsets, capacity + 1);
+        }
+        times[size] = epochSecond;
+        speakerIds[size] = (byte) speaker;
+        offsets[size + 1] = encode(text, offsets[size]);
+        size++;
+    }
+
+    /**
+     * 본문을 아레나 끝에 UTF-8로 추가하고 끝 위치 반환
+     */
+    private int encode(CharSequence text, int position) {
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        while (true) {
+            ByteBuffer target = ByteBuffer.wrap(arena, position, arena.length - position);
+            CoderResult result = encoder.encode(chars, target, true);
+            if (!result.isOverflow()) {
+                result = encoder.flush(target);
+            }
+            position = target.position();
+            if (!result.isOverflow()) {
+                return position;
+            }
+            if (arena.length == Integer.MAX_VALUE) {
+                throw new IllegalStateException("대화 본문이 너무 큽니다 (2GB 초과)");
+            }
+            // UTF-8은 글자당 최대 3바이트(서로게이트 쌍은 4바이트)
+            long needed = (long) position + (long) chars.remaining() * 3 + 4;
+            int capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(needed, (long) arena.length * 2));
+            arena = Arrays.copyOf(arena, capacity);
+        }
+    }
+
+    /**
+     * 파싱 완료 후 사전/형식을 기록하고 남는 배열 공간 정리
+     */
+    private ConversationBuffer complete(ChatExportParser parser) {
+        speakers = Collections.unmodifiableList(new ArrayList<>(parser.getSpeakers()));
+        format = parser.getFormat();
+        times = Arrays.copyOf(times, size);
+        speakerIds = Arrays.copyOf(speakerIds, size);
+        offsets = Arrays.copyOf(offsets, size + 1);
+        arena = Arrays.copyOf(arena, offsets[size]);
+        encoder = null;
+        if (droppedMessages > 0) {
+            System.err.println("화자가 " + MAX_SPEAKERS + "명을 넘어 메시지 " + droppedMessages + "개를 제외했습니다.");
+        }
+        return this;
+    }
+
+    /**
+     * 지정한 메시지만 담은 새 저장소 생성 (화자 사전과 형식은 그대로 공유)
+     * @param indices 선택할 메시지 번호 (오름차순)
+     */
+    public ConversationBuffer select(int[] indices) {
+        ConversationBuffer selected = new ConversationBuffer();
+        int count = indices.length;
+        int bytes = 0;
+        for (int index : indices) {
+            bytes += offsets[index + 1] - offsets[index];
+        }
+        selected.times = new long[count];
+        selected.speakerIds = new byte[count];
+        selected.offsets = new int[count + 1];
+        selected.arena = new byte[bytes];
+        for (int i = 0; i < count; i++) {
+            int index = indices[i];
+            int length = offsets[index + 1] - offsets[index];
+            selected.times[i] = times[index];
+            selected.speakerIds[i] = speakerIds[index];
+            System.arraycopy(arena, offsets[index], selected.arena, selected.offsets[i], length);
+            selected.offsets[i + 1] = selected.offsets[i] + length;
+        }
+        selected.size = count;
+        selected.speakers = speakers;
+        selected.format = format;
+        selected.encoder = null;
+        return selected;
+    }
+
+    /**
+     * 저장된 메시지를 [from, to) 범위만큼 순서대로 리스너에 전달
+     * 본문 위치(textStart, textEnd)는 아레나 안의 바이트 오프셋입니다.
+     */
+    public void replay(int from, int to, ChatExportParser.Listener listener) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer text = CharBuffer.allocate(256);
+        for (int i = from; i < to; i++) {
+            int start = offsets[i];
+            int end = offsets[i + 1];
+            // UTF-8은 바이트당 최대 한 글자이므로 바이트 수만큼이면 충분
+            if (text.capacity() < end - start) {
+                text = CharBuffer.allocate(Math.max(end - start, text.capacity() * 2));
+            }
+            text.clear();
+            decoder.reset();
+            decoder.decode(ByteBuffer.wrap(arena, start, end - start), text, true);
+            decoder.flush(text);
+            text.flip();
+            listener.onMessage(times[i], speakerIds[i] & 0xFF, start, end, text);
+        }
+    }
+
+    /**
+     * 전체 메시지를 정규화 텍스트로 생성
+     */
+    public String render() {
+        return render(0, size);
+    }
+
+    /**
+     * [from, to) 범위의 메시지를 정규화 텍스트로 생성 (첫 메시지 앞과 날짜가 바뀔 때 날짜 줄 추가)
+     */
+    public String render(int from, int to) {
+        StringBuilder builder = new StringBuilder(offsets[to] - offsets[from] + (to - from) * 16);
+        long currentDay = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            long day = Math.floorDiv(times[i], 86400L);
+            if (day != currentDay) {
+                currentDay = day;
+                appendDateLine(builder, i);
+            }
+            appendMessageLine(builder, i);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 날짜 줄 추가 ("2024/08/13\n")
+     */
+    public void appendDateLine(StringBuilder target, int index) {
+        LocalDateTime time = LocalDateTime.ofEpochSecond(times[index], 0, ZoneOffset.UTC);
+        target.append(time.getYear()).append('/');
+        appendTwoDigits(target, time.getMonthValue()).append('/');
+        appendTwoDigits(target, time.getDayOfMonth()).append('\n');
+    }
+
+    /**
+     * 메시지 줄 추가 ("15:21\t화자\t본문\n")
+     */
+    public void appendMessageLine(StringBuilder target, int index) {
+        LocalDateTime time = LocalDateTime.ofEpochSecond(times[index], 0, ZoneOffset.UTC);
+        appendTwoDigits(target, time.getHour()).append(':');
+        appendTwoDigits(target, time.getMinute()).append('\t');
+        target.append(getSpeakerName(index)).append('\t').append(getText(index)).append('\n');
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder target, int value) {
+        if (value < 10) {
+            target.append('0');
+        }
+        return target.append(value);
+    }
+
+    /**
+     * 날짜(현지 기준 epoch 일)가 바뀌는 메시지인지 (첫 메시지 포함)
+     */
+    public boolean startsNewDay(int index) {
+        return index == 0 || Math.floorDiv(times[index], 86400L) != Math.floorDiv(times[index - 1], 86400L);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getEpochSecond(int index) {
+        return times[index];
+    }
+
+    public int getSpeakerId(int index) {
+        return speakerIds[index] & 0xFF;
+    }
+
+    public String getSpeakerName(int index) {
+        return speakers.get(speakerIds[index] & 0xFF);
+    }
+
+    /**
+     * 본문 (아레나에서 디코딩한 새 문자열)
+     */
+    public String getText(int index) {
+        return new String(arena, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 본문의 UTF-8 바이트 수
+     */
+    public int getTextBytes(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * 디코딩하지 않고 계산한 본문 글자 수 (String.length()와 같은 UTF-16 기준)
+     */
+    public int getTextLength(int index) {
+        int length = 0;
+        for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+            int b = arena[i] & 0xFF;
+            // 이어지는 바이트(10xxxxxx)는 건너뛰고, 4바이트 문자는 서로게이트 쌍이므로 2글자
+            if ((b & 0xC0) != 0x80) {
+                length += (b >= 0xF0) ? 2 : 1;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 등장 순서대로의 화자 이름 (화자 번호가 인덱스)
+     */
+    public List<String> getSpeakers() {
+        return speakers;
+    }
+
+    public ChatExportParser.Format getFormat() {
+        return format;
+    }
+
+    /**
+     * 화자 수 제한으로 제외한 메시지 수
+     */
+    public int getDroppedMessages() {
+        return droppedMessages;
+    }
+
+    /**
+     * 배열이 차지하는 대략적인 힙 크기 (로그용)
+     */
+    public long getFootprintBytes() {
+        return (long) times.length * 8 + speakerIds.length + (long) offsets.length * 4 + arena.length;
+    }
+}
@@ -0,0 +1,162 @@
+package com.smhrd.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 긴 대화를 토큰 예산 단위의 윈도우로 분할하는 클래스
+ *
+ * 메시지가 중간에 잘리지 않도록 줄 단위(저장소 입력이면 메시지 단위)로 분할하며,
+ * 윈도우 수가 최대치를 넘으면 가장 오래된 윈도우부터 제외합니다.
+ * 토큰 수는 호출할 프로바이더의 TokenEstimator 기준으로 계산합니다.
+ */
+public class ConversationChunker {
+
+    private final int windowTokens;
+    private final int maxWindows;
+    private final TokenEstimator estimator;
+
+    /**
+     * @param windowTokens 윈도우 하나에 담을 최대 토큰 수 (추정치 기준)
+     * @param maxWindows 최대 윈도우 수
+     * @param estimator 호출할 프로바이더의 토큰 추정기
+     */
+    public ConversationChunker(int windowTokens, int maxWindows, TokenEstimator estimator) {
+        this.windowTokens = Math.max(1, windowTokens);
+        this.maxWindows = Math.max(1, maxWindows);
+        this.estimator = estimator;
+    }
+
+    /**
+     * 최대 윈도우 수 안에 담을 수 있는 대화의 토큰 수
+     * 윈도우 경계에서 남는 공간과 날짜 줄 몫으로 10%를 남겨둡니다. (샘플링 예산으로 사용)
+     */
+    public long getCapacityTokens() {
+        return (long) windowTokens * maxWindows * 9 / 10;
+    }
+
+    /**
+     * 대화를 윈도우 목록으로 분할
+     * @param conversation 원본 대화 텍스트
+     * @return 시간 순서대로 정렬된 윈도우 목록 (최소 1개)
+     */
+    public List<String> split(String conversation) {
+        List<String> windows = new ArrayList<>();
+
+        if (estimator.estimate(conversation) <= windowTokens) {
+            windows.add(conversation);
+            return windows;
+        }
+
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        int lineStart = 0;
+        int length = conversation.length();
+
+        while (lineStart < length) {
+            int lineEnd = conversation.indexOf('\n', lineStart);
+            lineEnd = (lineEnd == -1) ? length : lineEnd + 1;
+
+            int lineTokens = estimator.estimate(conversation, lineStart, lineEnd);
+
+            // 한 줄이 윈도우보다 큰 경우 강제로 나눔
+            if (lineTokens > windowTokens) {
+                if (current.length() > 0) {
+                    windows.add(current.toString());
+                    current.setLength(0);
+                    currentTokens = 0;
+                }
+                splitLongLine(conversation, lineStart, lineEnd, windows);
+                lineStart = lineEnd;
+                continue;
+            }
+
+            if (currentTokens + lineTokens > windowTokens && current.length() > 0) {
+                windows.add(current.toString());
+                current.setLength(0);
+                currentTokens = 0;
+            }
+
+            current.append(conversation, lineStart, lineEnd);
+            currentTokens += lineTokens;
+            lineStart = lineEnd;
+        }
+
+        if (current.length() > 0) {
+            windows.add(current.toString());
+        }
+
+        // 최대 윈도우 수 초과 시 최근 대화 위주로 유지
+        if (windows.size() > maxWindows) {
+            System.out.println("윈도우 수 초과 (" + windows.size() + "개) - 최근 " + maxWindows + "개 윈도우만 분석");
+            return new ArrayList<>(windows.subList(windows.size() - maxWindows, windows.size()));
+        }
+
+        return windows;
+    }
+
+    /**
+     * 파싱된 대화 저장소를 메시지 단위로 분할하여 윈도우별 정규화 텍스트 생성
+     * 윈도우마다 첫 줄에 날짜 줄이 들어가므로 그 몫까지 포함하여 토큰을 계산합니다.
+     * @param buffer 대화 저장소 (비어 있지 않아야 함)
+     * @return 시간 순서대로 정렬된 윈도우 목록 (최소 1개)
+     */
+    public List<String> split(ConversationBuffer buffer) {
+        List<String> windows = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        int size = buffer.size();
+        int windowStart = 0;
+        int currentTokens = 0;
+
+        for (int i = 0; i < size; i++) {
+            line.setLength(0);
+            buffer.appendDateLine(line, i);
+            int dateTokens = estimator.estimate(line);
+            line.setLength(0);
+            buffer.appendMessageLine(line, i);
+            int messageTokens = estimator.estimate(line);
+            int lineTokens = messageTokens + (buffer.startsNewDay(i) ? dateTokens : 0);
+
+            // 윈도우를 새로 시작하면 날짜 줄이 항상 앞에 붙음
+            if (i > windowStart && currentTokens + lineTokens > windowTokens) {
+                windows.add(buffer.render(windowStart, i));
+                windowStart = i;
+                currentTokens = dateTokens + messageTokens;
+            } else {
+                currentTokens += (i == windowStart) ? dateTokens + messageTokens : lineTokens;
+            }
+
+            // 메시지 하나가 윈도우보다 큰 경우 강제로 나눔
+            if (currentTokens > windowTokens) {
+                String message = buffer.render(i, i + 1);
+                splitLongLine(message, 0, message.length(), windows);
+                windowStart = i + 1;
+                currentTokens = 0;
+            }
+        }
+
+        if (windowStart < size) {
+            windows.add(buffer.render(windowStart, size));
+        }
+
+        // 최대 윈도우 수 초과 시 최근 대화 위주로 유지
+        if (windows.size() > maxWindows) {
+            System.out.println("윈도우 수 초과 (" + windows.size() + "개) - 최근 " + maxWindows + "개 윈도우만 분석");
+            return new ArrayList<>(windows.subList(windows.size() - maxWindows, windows.size()));
+        }
+
+        return windows;
+    }
+
+    /**
+     * 윈도우보다 긴 한 줄을 윈도우 크기 단위로 분할
+     */
+    private void splitLongLine(String text, int start, int end, List<String> windows) {
+        int pieceStart = start;
+        while (pieceStart < end) {
+            int pieceEnd = estimator.advance(text, pieceStart, end, windowTokens);
+            windows.add(text.substring(pieceStart, pieceEnd));
+            pieceStart = pieceEnd;
+        }
+    }
+}
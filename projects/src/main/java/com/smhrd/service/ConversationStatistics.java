@@ -0,0 +1,382 @@
+package com.smhrd.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.smhrd.model.AnalysisResult;
+
+/**
+ * 대화 통계 (LLM 없이 로컬에서 계산)
+ *
+ * ChatExportParser가 전달하는 메시지를 한 번 훑으면서 날짜별 메시지 수, 화자별 답장 시간,
+ * 이모지 사용 빈도, 메시지 길이 분포를 정확히 계산합니다.
+ * 관심도 추이(interestTrends)는 이 값으로 채우고, 모델에는 요약(toPromptSummary)만 전달하여
+ * 정성적인 분석에 집중하게 합니다.
+ *
+ * 관심도 값(0~100)은 상대방의 그날 대화 비중(50%), 답장 속도(30%), 이모지 사용률(20%)로 계산합니다.
+ */
+public class ConversationStatistics implements ChatExportParser.Listener {
+
+    // 이 시간보다 늦은 답장은 대화가 끊겼다가 새로 시작한 것으로 보고 답장 시간에서 제외
+    private static final long MAX_REPLY_GAP_MINUTES = 360;
+    // 답장 속도 점수가 절반이 되는 답장 시간
+    private static final double HALF_SCORE_REPLY_MINUTES = 30.0;
+    // 이모지 사용률 만점 기준 (메시지당)
+    private static final double FULL_SCORE_EMOJI_RATE = 0.3;
+    // 관심도 추이 최대 개수 (넘으면 연속된 날짜를 묶음)
+    private static final int MAX_TREND_POINTS = 60;
+    // 메시지 길이 분포 구간 상한 (글자 수)
+    private static final int[] LENGTH_BUCKET_LIMITS = {5, 20, 50, 100};
+    private static final String EMOTICON = "이모티콘";
+
+    private final String requestedPartner;
+    private final TreeMap<LocalDate, DayStats> days = new TreeMap<>();
+    private final List<SpeakerStats> speakers = new ArrayList<>();
+    private final Map<String, Integer> emojiCounts = new HashMap<>();
+    private final int[] lengthBuckets = new int[LENGTH_BUCKET_LIMITS.length + 1];
+    private int messageCount;
+    private List<String> speakerNames = Collections.emptyList();
+    private int partner = -1;
+
+    // 직전 메시지 (답장 시간 계산용)
+    private int lastSpeaker = -1;
+    private long lastTime;
+
+    /**
+     * 파서에 직접 연결할 때 사용 (파싱이 끝나면 complete 호출)
+     * @param partnerName 상대방 이름 (화자 이름과 같거나 포함 관계면 상대방으로 인식)
+     */
+    public ConversationStatistics(String partnerName) {
+        this.requestedPartner = partnerName != null ? partnerName.trim() : "";
+    }
+
+    /**
+     * 대화 텍스트 통계 계산 (한 번 순회)
+     * @param conversationData 카카오톡/LINE 내보내기 텍스트
+     * @param partnerName 상대방 이름
+     */
+    public static ConversationStatistics compute(CharSequence conversationData, String partnerName) {
+        ConversationStatistics stats = new ConversationStatistics(partnerName);
+        ChatExportParser parser = new ChatExportParser(stats);
+        if (conversationData != null) {
+            parser.parse(conversationData);
+        }
+        stats.complete(parser.getSpeakers());
+        return stats;
+    }
+
+    /**
+     * 파싱된 대화 저장소의 통계 계산 (저장소를 한 번 순회)
+     * @param buffer 대화 저장소
+     * @param partnerName 상대방 이름
+     */
+    public static ConversationStatistics compute(ConversationBuffer buffer, String partnerName) {
+        ConversationStatistics stats = new ConversationStatistics(partnerName);
+        buffer.replay(0, buffer.size(), stats);
+        stats.complete(buffer.getSpeakers());
+        return stats;
+    }
+
+    @Override
+    public void onMessage(long epochSecond, int speaker, long textStart, long textEnd, CharSequence text) {
+        messageCount++;
+        DayStats day = days.computeIfAbsent(
+            LocalDate.ofEpochDay(Math.floorDiv(epochSecond, 86400L)), date -> new DayStats());
+        day.messages++;
+        while (speakers.size() <= speaker) {
+            speakers.add(new SpeakerStats());
+        }
+        SpeakerStats speakerStats = speakers.get(speaker);
+        speakerStats.messages++;
+        DayStats.SpeakerDay speakerDay = day.speakers.computeIfAbsent(speaker, id -> new DayStats.SpeakerDay());
+        speakerDay.messages++;
+
+        // 화자가 바뀐 메시지는 직전 메시지에 대한 답장으로 보고 답장 시간 기록
+        if (lastSpeaker >= 0 && lastSpeaker != speaker) {
+            long gap = (epochSecond - lastTime) / 60;
+            if (gap >= 0 && gap <= MAX_REPLY_GAP_MINUTES) {
+                speakerStats.addReply((int) gap);
+                speakerDay.replyMinutesSum += gap;
+                speakerDay.replies++;
+            }
+        }
+        lastSpeaker = speaker;
+        lastTime = epochSecond;
+
+        int emojis = 0;
+        int length = 0;
+        if (isEmoticon(text)) {
+            // 카카오톡 이모티콘/LINE 스티커는 내보내기에서 이름으로만 표시됨
+            emojiCounts.merge(EMOTICON, 1, Integer::sum);
+            emojis = 1;
+        } else {
+            for (int i = 0; i < text.length(); ) {
+                int codePoint = Character.codePointAt(text, i);
+                if (isEmoji(codePoint)) {
+                    // 피부색/성별 조합(ZWJ) 이모지는 글자별로 집계
+                    emojiCounts.merge(new String(Character.toChars(codePoint)), 1, Integer::sum);
+                    emojis++;
+                }
+                if (codePoint != 0x200D && codePoint != 0xFE0F && !(codePoint >= 0x1F3FB && codePoint <= 0x1F3FF)) {
+                    length++;
+                }
+                i += Character.charCount(codePoint);
+            }
+        }
+        day.emojis += emojis;
+        speakerStats.emojis += emojis;
+        speakerDay.emojis += emojis;
+        speakerStats.characters += length;
+
+        int bucket = 0;
+        while (bucket < LENGTH_BUCKET_LIMITS.length && length > LENGTH_BUCKET_LIMITS[bucket]) {
+            bucket++;
+        }
+        lengthBuckets[bucket]++;
+    }
+
+    /**
+     * 파싱 완료 후 화자 이름을 받아 상대방 화자 결정
+     * (이름이 같은 화자 > 이름을 포함하는 화자, 없으면 상대방 미확인)
+     * @param names 화자 번호 순서의 이름 (ChatExportParser.getSpeakers)
+     */
+    public void complete(List<String> names) {
+        this.speakerNames = new ArrayList<>(names);
+        partner = -1;
+        if (requestedPartner.isEmpty()) {
+            return;
+        }
+        int index = speakerNames.indexOf(requestedPartner);
+        if (index >= 0) {
+            partner = index;
+            return;
+        }
+        for (int i = 0; i < speakerNames.size(); i++) {
+            String speaker = speakerNames.get(i);
+            if (speaker.contains(requestedPartner) || requestedPartner.contains(speaker)) {
+                partner = i;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 인식한 메시지가 없는지 (지원하지 않는 형식)
+     */
+    public boolean isEmpty() {
+        return messageCount == 0;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     * 상대방으로 인식한 화자 (찾지 못하면 null)
+     */
+    public String getPartner() {
+        return partner >= 0 && partner < speakerNames.size() ? speakerNames.get(partner) : null;
+    }
+
+    /**
+     * 날짜별 관심도 추이 (날짜는 YYYY-MM-DD, 답장 시간은 분 단위 상대방 평균)
+     * 날짜가 MAX_TREND_POINTS를 넘으면 연속된 날짜를 묶어 첫 날짜로 표시합니다.
+     */
+    public List<AnalysisResult.InterestTrend> toInterestTrends() {
+        List<AnalysisResult.InterestTrend> trends = new ArrayList<>();
+        if (days.isEmpty()) {
+            return trends;
+        }
+        List<Map.Entry<LocalDate, DayStats>> entries = new ArrayList<>(days.entrySet());
+        int groupSize = (entries.size() + MAX_TREND_POINTS - 1) / MAX_TREND_POINTS;
+
+        for (int from = 0; from < entries.size(); from += groupSize) {
+            DayStats group = new DayStats();
+            for (int i = from; i < Math.min(entries.size(), from + groupSize); i++) {
+                group.add(entries.get(i).getValue());
+            }
+            AnalysisResult.InterestTrend trend = new AnalysisResult.InterestTrend();
+            trend.setDate(entries.get(from).getKey().toString());
+            trend.setMessageCount(group.messages);
+            trend.setEmojiCount(group.emojis);
+            trend.setAvgResponseTime(round1(Math.max(0, group.averageReplyMinutes(partner))));
+            trend.setValue(round1(interestScore(group)));
+            trends.add(trend);
+        }
+        return trends;
+    }
+
+    /**
+     * 결과의 관심도 추이를 계산한 값으로 교체 (인식한 메시지가 없으면 그대로 둠)
+     */
+    public void applyTo(AnalysisResult result) {
+        if (!isEmpty()) {
+            result.setInterestTrends(toInterestTrends());
+        }
+    }
+
+    /**
+     * 관심도 점수 (0~100)
+     */
+    private double interestScore(DayStats day) {
+        DayStats.SpeakerDay partnerDay = partner >= 0 ? day.speakers.get(partner) : null;
+        int partnerMessages = partnerDay != null ? partnerDay.messages : 0;
+        int partnerEmojis = partnerDay != null ? partnerDay.emojis : 0;
+
+        // 상대방을 찾지 못하면 전체 화자 기준으로 비중은 중간값 사용
+        double share = partner >= 0 ? Math.min(1.0, 2.0 * partnerMessages / Math.max(1, day.messages)) : 0.5;
+        double replyMinutes = day.averageReplyMinutes(partner);
+        double speed = replyMinutes >= 0 ? HALF_SCORE_REPLY_MINUTES / (HALF_SCORE_REPLY_MINUTES + replyMinutes) : 0.5;
+        double emojiRate = partner >= 0
+            ? (double) partnerEmojis / Math.max(1, partnerMessages)
+            : (double) day.emojis / Math.max(1, day.messages);
+        double emoji = Math.min(1.0, emojiRate / FULL_SCORE_EMOJI_RATE);
+
+        return 100.0 * (0.5 * share + 0.3 * speed + 0.2 * emoji);
+    }
+
+    /**
+     * 모델 프롬프트용 요약 (정성 분석의 근거로 사용)
+     */
+    public String toPromptSummary() {
+        if (isEmpty()) {
+            return "- 대화 형식을 인식하지 못해 통계를 계산하지 못했습니다.";
+        }
+        StringBuilder summary = new StringBuilder(512);
+        summary.append("- 기간: ").append(days.firstKey()).append(" ~ ").append(days.lastKey())
+            .append(" (대화한 날 ").append(days.size()).append("일), 메시지 ").append(messageCount).append("개\n");
+
+        List<Integer> ranked = new ArrayList<>();
+        for (int i = 0; i < speakers.size(); i++) {
+            ranked.add(i);
+        }
+        ranked.sort((a, b) -> Integer.compare(speakers.get(b).messages, speakers.get(a).messages));
+        for (int id : ranked.subList(0, Math.min(5, ranked.size()))) {
+            SpeakerStats speaker = speakers.get(id);
+            summary.append("- ").append(id < speakerNames.size() ? speakerNames.get(id) : "화자" + (id + 1));
+            if (id == partner) {
+                summary.append("(상대방)");
+            }
+            summary.append(": 메시지 ").append(speaker.messages).append("개, 평균 ")
+                .append(round1((double) speaker.characters / speaker.messages)).append("자, 이모지 ")
+                .append(speaker.emojis).append("개");
+            if (speaker.replies > 0) {
+                summary.append(", 답장 평균 ").append(round1(speaker.averageReplyMinutes()))
+                    .append("분(중앙값 ").append(speaker.medianReplyMinutes()).append("분)");
+            }
+            summary.append('\n');
+        }
+
+        if (!emojiCounts.isEmpty()) {
+            List<Map.Entry<String, Integer>> emojis = new ArrayList<>(emojiCounts.entrySet());
+            emojis.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+            summary.append("- 자주 쓴 이모지:");
+            for (Map.Entry<String, Integer> emoji : emojis.subList(0, Math.min(5, emojis.size()))) {
+                summary.append(' ').append(emoji.getKey()).append(' ').append(emoji.getValue());
+            }
+            summary.append('\n');
+        }
+
+        summary.append("- 메시지 길이 분포:");
+        for (int i = 0; i < lengthBuckets.length; i++) {
+            String label = i < LENGTH_BUCKET_LIMITS.length
+                ? LENGTH_BUCKET_LIMITS[i] + "자 이하"
+                : LENGTH_BUCKET_LIMITS[LENGTH_BUCKET_LIMITS.length - 1] + "자 초과";
+            summary.append(i == 0 ? " " : ", ").append(label).append(' ')
+                .append(Math.round(100.0 * lengthBuckets[i] / messageCount)).append('%');
+        }
+        summary.append('\n');
+        return summary.toString();
+    }
+
+    static boolean isEmoticon(CharSequence text) {
+        return EMOTICON.contentEquals(text) || "(이모티콘)".contentEquals(text)
+            || "[스티커]".contentEquals(text) || "[Sticker]".contentEquals(text);
+    }
+
+    static boolean isEmoji(int codePoint) {
+        return (codePoint >= 0x1F300 && codePoint <= 0x1FAFF && !(codePoint >= 0x1F3FB && codePoint <= 0x1F3FF))
+            || (codePoint >= 0x2600 && codePoint <= 0x27BF)
+            || (codePoint >= 0x1F000 && codePoint <= 0x1F2FF);
+    }
+
+    private static double round1(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static class SpeakerStats {
+        int messages;
+        long characters;
+        int emojis;
+        // 답장 시간(분) 목록 (중앙값 계산용, 박싱 없이 배열로 보관)
+        int[] replyMinutes = new int[16];
+        int replies;
+
+        void addReply(int minutes) {
+            if (replies == replyMinutes.length) {
+                replyMinutes = Arrays.copyOf(replyMinutes, replies * 2);
+            }
+            replyMinutes[replies++] = minutes;
+        }
+
+        double averageReplyMinutes() {
+            long sum = 0;
+            for (int i = 0; i < replies; i++) {
+                sum += replyMinutes[i];
+            }
+            return (double) sum / replies;
+        }
+
+        int medianReplyMinutes() {
+            int[] sorted = Arrays.copyOf(replyMinutes, replies);
+            Arrays.sort(sorted);
+            return sorted[replies / 2];
+        }
+    }
+
+    private static class DayStats {
+        int messages;
+        int emojis;
+        final Map<Integer, SpeakerDay> speakers = new HashMap<>();
+
+        static class SpeakerDay {
+            int messages;
+            int emojis;
+            long replyMinutesSum;
+            int replies;
+        }
+
+        void add(DayStats other) {
+            messages += other.messages;
+            emojis += other.emojis;
+            for (Map.Entry<Integer, SpeakerDay> entry : other.speakers.entrySet()) {
+                SpeakerDay target = speakers.computeIfAbsent(entry.getKey(), name -> new SpeakerDay());
+                target.messages += entry.getValue().messages;
+                target.emojis += entry.getValue().emojis;
+                target.replyMinutesSum += entry.getValue().replyMinutesSum;
+                target.replies += entry.getValue().replies;
+            }
+        }
+
+        /**
+         * 평균 답장 시간 (분, 상대방을 모르면 전체 화자 기준, 답장이 없으면 -1)
+         */
+        double averageReplyMinutes(int partner) {
+            long sum = 0;
+            int replies = 0;
+            for (Map.Entry<Integer, SpeakerDay> entry : speakers.entrySet()) {
+                if (partner < 0 || partner == entry.getKey()) {
+                    sum += entry.getValue().replyMinutesSum;
+                    replies += entry.getValue().replies;
+                }
+            }
+            return replies > 0 ? (double) sum / replies : -1;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.smhrd.service;
 
 import java.security.SecureRandom;
+import java.sql.SQLDataException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLSyntaxErrorException;
 import java.sql.Timestamp;
 import java.util.Base64;
 import java.util.concurrent.TimeUnit;
@@ -109,53 +112,48 @@ public class EmailVerificationService {
     
     /**
      * 재시도 로직이 포함된 토큰 삽입 메서드
+     * 연결/잠금 등 일시적 DB 오류와 삽입 결과 0건만 재시도하고,
+     * 제약 조건 위반이나 SQL 오류처럼 다시 해도 같은 결과인 오류는 바로 실패로 처리합니다.
      * @param verification 삽입할 인증 정보
-     * @param maxRetries 최대 재시도 횟수
+     * @param maxRetries 최대 시도 횟수
      * @return 성공 시 1, 실패 시 0
      */
     private int insertVerificationWithRetry(EmailVerification verification, int maxRetries) {
-        int result = 0;
-        Exception lastException = null;
+        RetryPolicy retryPolicy = new RetryPolicy("email", maxRetries, 100, 1000, EmailVerificationService::classifyInsertError);
         
-        for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            try {
-                System.out.println("=== 토큰 삽입 시도 " + attempt + "/" + maxRetries + " ===");
-                
-                result = emailVerificationDAO.insertVerification(verification);
-                
-                if (result > 0) {
-                    System.out.println("=== 토큰 삽입 성공! (시도 " + attempt + ") ===");
-                    return result;
-                } else {
-                    System.err.println("=== 토큰 삽입 결과: " + result + " (시도 " + attempt + ") ===");
-                }
-                
-            } catch (Exception e) {
-                lastException = e;
-                System.err.println("=== 토큰 삽입 시도 " + attempt + " 실패 ===");
-                System.err.println("오류: " + e.getMessage());
-                
-                // 마지막 시도가 아니면 잠시 대기 후 재시도
-                if (attempt < maxRetries) {
-                    try {
-                        Thread.sleep(100 * attempt); // 점진적 대기 (100ms, 200ms, 300ms)
-                        System.out.println("=== " + (100 * attempt) + "ms 대기 후 재시도 ===");
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
+        try {
+            int result = retryPolicy.execute(() -> {
+                int inserted = emailVerificationDAO.insertVerification(verification);
+                if (inserted <= 0) {
+                    System.err.println("=== 토큰 삽입 결과: " + inserted + " ===");
+                    throw new RetryPolicy.RetryableException("토큰 삽입 결과가 0건입니다");
                 }
-            }
+                return inserted;
+            });
+            System.out.println("=== 토큰 삽입 성공! ===");
+            return result;
+            
+        } catch (Exception e) {
+            // 모든 재시도 실패
+            System.err.println("=== 토큰 삽입 최종 실패 ===");
+            System.err.println("최종 오류: " + e.getMessage());
+            e.printStackTrace();
+            return 0;
         }
-        
-        // 모든 재시도 실패
-        System.err.println("=== 모든 재시도 실패. 최종 결과: " + result + " ===");
-        if (lastException != null) {
-            System.err.println("최종 오류: " + lastException.getMessage());
-            lastException.printStackTrace();
+    }
+    
+    /**
+     * 토큰 삽입 오류 분류 (MyBatis 예외 안의 원인 SQLException 기준)
+     */
+    private static RetryPolicy.ErrorType classifyInsertError(Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLIntegrityConstraintViolationException
+                    || cause instanceof SQLDataException
+                    || cause instanceof SQLSyntaxErrorException) {
+                return RetryPolicy.ErrorType.PERMANENT;
+            }
         }
-        
-        return result;
+        return RetryPolicy.ErrorType.TRANSIENT;
     }
     
     /**
@@ -1,20 +1,20 @@
 package com.smhrd.service;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.smhrd.model.AnalysisResult;
+import com.smhrd.util.AnalysisConfig;
+import com.smhrd.util.AnalysisResultTypeAdapters;
 import com.smhrd.util.GeminiConfig;
+import com.smhrd.util.JsonExtractor;
+import com.smhrd.util.LlmHttpClient;
 
 /**
  * Gemini API를 활용한 대화 분석 서비스
@@ -24,24 +24,50 @@ import com.smhrd.util.GeminiConfig;
  * 2. JSON 응답 파싱 및 검증
  * 3. 데이터베이스 저장 준비
  * 4. 에러 처리 및 재시도 로직
+ * 5. 긴 대화의 청크 분할 병렬 분석 (ChunkedAnalysisService)
  */
-public class GeminiAnalysisService {
+public class GeminiAnalysisService implements AnalysisProvider, ChunkedAnalysisService.WindowAnalyzer {
     
-    private static final String PROMPT_TEMPLATE_PATH = "src/main/resources/prompt_templates/analysis_prompt_template.txt";
+    private static final String ANALYSIS_TEMPLATE = "analysis_prompt_template";
+    private static final String REDUCE_TEMPLATE = "reduce_analysis_prompt";
+    
+    // 템플릿 파일을 읽을 수 없을 때 사용하는 기본 프롬프트
+    private static final PromptTemplate DEFAULT_TEMPLATE = PromptTemplate.compile("default_prompt",
+        "당신은 썸 관계 전문 분석가입니다. 제공된 대화를 분석하여 JSON 형식으로 결과를 제공해주세요.\n\n"
+        + "## 대화 통계 (서버에서 직접 계산한 정확한 값)\n"
+        + "{{CONVERSATION_STATS}}\n"
+        + "## 분석 대상 대화\n"
+        + "상대방 이름: {{PARTNER_NAME}}\n"
+        + "대화 내용:\n"
+        + "{{WINDOW_HEADER}}{{CONVERSATION_DATA}}\n\n"
+        + "위 대화를 분석하여 정확한 JSON 형식으로 응답해주세요.");
+    
+    private static final String PROVIDER = "gemini";
     
     private final Gson gson;
+    private final ChunkedAnalysisService chunkedService;
+    private final AnalysisResultCache resultCache;
+    private final RetryPolicy retryPolicy;
+    private final TokenEstimator tokenEstimator;
+    private final PromptTemplateRegistry templates = PromptTemplateRegistry.getInstance();
     
     public GeminiAnalysisService() {
-        this.gson = new GsonBuilder()
+        this.gson = AnalysisResultTypeAdapters.register(new GsonBuilder())
             .setPrettyPrinting()
             .setDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'")
             .disableHtmlEscaping()
             .setLenient()
             .create();
+        this.chunkedService = new ChunkedAnalysisService();
+        this.resultCache = AnalysisResultCache.getInstance();
+        this.retryPolicy = new RetryPolicy(PROVIDER, GeminiConfig.getMaxRetryAttempts(), GeminiConfig.getRetryDelayMs(),
+            AnalysisConfig.getRetryMaxDelayMs(), RetryPolicy.PROVIDER_ERRORS);
+        this.tokenEstimator = TokenEstimator.forProvider(PROVIDER);
     }
     
     /**
      * 대화 내용을 분석하여 결과 반환
+     * 대화가 윈도우 하나에 들어가면 단일 호출, 그렇지 않으면 청크 분석을 수행합니다.
      * 
      * @param conversationData 분석할 대화 데이터
      * @param userId 사용자 ID
@@ -51,6 +77,67 @@ public class GeminiAnalysisService {
      */
     public AnalysisResult analyzeConversation(String conversationData, String userId, String partnerName) 
             throws AnalysisException {
+        return analyzeConversation(conversationData, userId, partnerName, null);
+    }
+    
+    /**
+     * 대화 내용을 분석하여 결과 반환 (비동기 작업 진행 상황 보고)
+     * @param job 진행 상황을 보고할 작업 (없으면 null)
+     */
+    public AnalysisResult analyzeConversation(String conversationData, String userId, String partnerName, 
+            AnalysisJob job) throws AnalysisException {
+        return analyzeInWindows(conversationData, userId, partnerName, GeminiConfig.getChunkWindowTokens(), job);
+    }
+    
+    /**
+     * 윈도우 크기를 절반으로 줄여 강제로 청크 분석 수행
+     * 단일 호출이 실패한 경우(토큰 제한 등)의 대체 분석 경로로 사용합니다.
+     * @param job 진행 상황을 보고할 작업 (없으면 null)
+     */
+    public AnalysisResult analyzeConversationChunked(String conversationData, String userId, String partnerName, 
+            AnalysisJob job) throws AnalysisException {
+        return analyzeInWindows(conversationData, userId, partnerName, 
+            Math.max(1, GeminiConfig.getChunkWindowTokens() / 2), job);
+    }
+    
+    @Override
+    public String getName() {
+        return PROVIDER;
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return "Gemini AI";
+    }
+    
+    /**
+     * 기본 윈도우로 분석하고, 작은 윈도우로 풀 수 있는 실패(입력 크기 초과, 응답 JSON 파싱 실패 등)만
+     * 윈도우를 줄여 청크 분석으로 한 번 더 시도
+     * 일시적 오류/요청 한도 초과는 RetryPolicy가 이미 재시도(또는 예산 소진으로 포기)한 결과이므로
+     * 윈도우 수만큼 다시 호출하지 않고 바로 던져 라우터가 다른 프로바이더로 넘기게 합니다.
+     */
+    @Override
+    public AnalysisResult analyze(String conversationData, String userId, String partnerName, 
+            AnalysisJob job) throws Exception {
+        try {
+            return analyzeConversation(conversationData, userId, partnerName, job);
+        } catch (AnalysisException mainException) {
+            if (job != null) {
+                job.checkCancelled();
+            }
+            if (!ChunkedAnalysisService.isFixableWithSmallerWindows(mainException)) {
+                throw mainException;
+            }
+            System.err.println("기본 방식 실패, 청크 분석 방식 시도: " + mainException.getMessage());
+            return analyzeConversationChunked(conversationData, userId, partnerName, job);
+        }
+    }
+    
+    /**
+     * 대화를 윈도우로 분할하여 분석
+     */
+    private AnalysisResult analyzeInWindows(String conversationData, String userId, String partnerName, 
+            int windowTokens, AnalysisJob job) throws AnalysisException {
         
         try {
             System.out.println("=== GeminiAnalysisService.analyzeConversation 시작 ===");
@@ -66,25 +153,25 @@ public class GeminiAnalysisService {
                 throw new AnalysisException("사용자 ID가 없습니다");
             }
             
-            // 1. 프롬프트 생성
-            System.out.println("1. 프롬프트 생성 시작");
-            String prompt = buildAnalysisPrompt(conversationData, partnerName);
-            System.out.println("1-1. 프롬프트 생성 완료 - 길이: " + prompt.length());
-            
-            // 2. Gemini API 호출 (재시도 포함)
-            System.out.println("2. Gemini API 호출 시작");
-            String apiResponse = callGeminiAPIWithRetry(prompt);
-            System.out.println("2-1. Gemini API 호출 완료 - 응답 길이: " + (apiResponse != null ? apiResponse.length() : 0));
-            
-            // 3. 응답 파싱 및 검증
-            System.out.println("3. 응답 파싱 및 검증 시작");
-            AnalysisResult result = parseAndValidateResponse(apiResponse, userId, partnerName);
-            System.out.println("3-1. 응답 파싱 및 검증 완료");
+            // 1. 대화 데이터 정리 및 윈도우 분할
+            System.out.println("1. 대화 윈도우 분할 시작");
+            reportStage(job, AnalysisJob.Status.PREPROCESSING, null);
+            
+            // 같은 대화의 분석 결과가 캐시에 있으면 API 호출 없이 반환 (템플릿이 바뀌면 키도 바뀜)
+            String promptVersion = getPromptVersion();
+            String cacheKey = AnalysisResultCache.buildKey(
+                conversationData, partnerName, PROVIDER, GeminiConfig.getApiUrl(), promptVersion);
+            AnalysisResult cached = resultCache.get(cacheKey);
+            if (cached != null) {
+                cached.setUserId(userId);
+                cached.setPartnerName(partnerName);
+                System.out.println("1-0. 캐시된 분석 결과 사용: " + cached.getSessionId());
+                return cached;
+            }
             
-            // 4. 세션 ID 생성
-            System.out.println("4. 세션 ID 생성");
-            result.setSessionId(generateSessionId());
-            System.out.println("4-1. 세션 ID 생성 완료: " + result.getSessionId());
+            // 같은 대화의 동시 요청은 프로바이더 호출 한 번으로 병합
+            AnalysisResult result = AnalysisFlights.run(conversationData, partnerName, userId, job,
+                () -> analyzeAndCache(conversationData, userId, partnerName, windowTokens, cacheKey, promptVersion, job));
             
             System.out.println("=== GeminiAnalysisService.analyzeConversation 완료 ===");
             return result;
@@ -104,56 +191,150 @@ public class GeminiAnalysisService {
     }
     
     /**
-     * 프롬프트 템플릿과 대화 데이터를 결합하여 완성된 프롬프트 생성
+     * 윈도우 분할 후 프로바이더 호출로 분석하고 결과 캐시에 저장
+     */
+    private AnalysisResult analyzeAndCache(String conversationData, String userId, String partnerName, 
+            int windowTokens, String cacheKey, String promptVersion, AnalysisJob job) throws Exception {
+        // 템플릿 + 윈도우 + 출력이 컨텍스트 창을 넘지 않는 범위에서 윈도우 크기 결정
+        int budgetTokens = tokenEstimator.windowBudget(windowTokens, GeminiConfig.getContextWindow(),
+            GeminiConfig.getMaxOutputTokens(), analysisTemplate().getSource());
+        ConversationChunker chunker = new ConversationChunker(
+            budgetTokens, AnalysisConfig.getChunkMaxWindows(), tokenEstimator);
+        // 한 번만 파싱하여 통계와 윈도우 분할에 함께 사용
+        ConversationBuffer buffer = ConversationBuffer.parse(conversationData);
+        List<String> windows = formatConversationData(conversationData, buffer, chunker);
+        System.out.println("1-1. 대화 윈도우 분할 완료 - " + windows.size() + "개");
+        
+        // 2. 윈도우 분석 (단일 또는 청크 병렬 분석)
+        System.out.println("2. 윈도우 분석 시작");
+        reportStage(job, AnalysisJob.Status.CALLING_PROVIDER, windows.size() > 1 ?
+            "Gemini AI가 " + windows.size() + "개 구간을 분석 중입니다" : "Gemini AI가 대화를 분석 중입니다");
+        AnalysisResult result;
+        if (windows.size() == 1) {
+            result = analyzeWindow(windows.get(0), partnerName, 1, 1);
+        } else {
+            result = chunkedService.analyze(windows, partnerName, this);
+        }
+        System.out.println("2-1. 윈도우 분석 완료");
+        
+        // 3. 기본 정보 및 세션 ID 설정
+        result.setUserId(userId);
+        result.setPartnerName(partnerName);
+        result.setSessionId(generateSessionId());
+        result.setPromptVersion(promptVersion);
+        // 관심도 추이는 모델 출력 대신 대화에서 직접 계산한 값 사용
+        ConversationStatistics.compute(buffer, partnerName).applyTo(result);
+        System.out.println("3. 세션 ID 생성 완료: " + result.getSessionId());
+        
+        resultCache.put(cacheKey, PROVIDER, result);
+        return result;
+    }
+    
+    /**
+     * 프롬프트 템플릿 버전 (분석.통합 템플릿 버전, 캐시 키와 결과에 기록)
+     */
+    private String getPromptVersion() throws Exception {
+        return analysisTemplate().getVersion() + "." + templates.get(REDUCE_TEMPLATE).getVersion();
+    }
+    
+    /**
+     * 작업 진행 단계 보고
+     */
+    private void reportStage(AnalysisJob job, AnalysisJob.Status status, String message) {
+        if (job != null) {
+            job.updateStage(status, message);
+        }
+    }
+    
+    /**
+     * 대화 윈도우 하나를 분석 (청크 분석의 Map 단계)
+     */
+    @Override
+    public AnalysisResult analyzeWindow(String window, String partnerName, int index, int total) throws Exception {
+        
+        // 1. 프롬프트 생성
+        String prompt = buildAnalysisPrompt(window, partnerName, index, total);
+        System.out.println("윈도우 " + index + "/" + total + " 프롬프트 생성 완료 - 길이: " + prompt.length());
+        
+        // 2. Gemini API 호출 (재시도 포함, 단일 윈도우면 섹션을 완성되는 대로 전달)
+        int promptTokens = tokenEstimator.estimate(prompt);
+        GeminiReply reply = callGeminiAPIWithRetry(prompt, promptTokens, total == 1);
+        
+        // 3. 응답 파싱 및 검증
+        return parseAndValidateResponse(reply, null, partnerName, promptTokens);
+    }
+    
+    /**
+     * 윈도우별 부분 결과를 하나로 통합 (청크 분석의 Reduce 단계)
+     */
+    @Override
+    public AnalysisResult reduce(String partialResultsJson, String partnerName, int total) throws Exception {
+        Map<String, String> values = new HashMap<>();
+        values.put("WINDOW_COUNT", String.valueOf(total));
+        values.put("PARTNER_NAME", partnerName);
+        values.put("PARTIAL_RESULTS", partialResultsJson);
+        String prompt = templates.get(REDUCE_TEMPLATE).render(values);
+        
+        int promptTokens = tokenEstimator.estimate(prompt);
+        GeminiReply reply = callGeminiAPIWithRetry(prompt, promptTokens, true);
+        return parseAndValidateResponse(reply, null, partnerName, promptTokens);
+    }
+    
+    /**
+     * 프롬프트 템플릿에 상대방 이름과 대화 윈도우를 채워 완성된 프롬프트 생성
      */
-    private String buildAnalysisPrompt(String conversationData, String partnerName) throws Exception {
+    private String buildAnalysisPrompt(String conversationWindow, String partnerName, int index, int total) throws Exception {
+        
+        PromptTemplate template = analysisTemplate();
         
-        // 프롬프트 템플릿 로드
-        String template = loadPromptTemplate();
+        // 청크 분석인 경우 구간 정보 표시
+        String windowHeader = total > 1 ? "[전체 대화 " + total + "개 구간 중 " + index + "번째 구간]\n" : "";
         
-        // 대화 데이터를 JSON 형태로 정리
-        String formattedConversation = formatConversationData(conversationData);
+        // 정량 지표는 로컬에서 계산하여 요약만 전달
+        String statsSummary = ConversationStatistics.compute(conversationWindow, partnerName).toPromptSummary();
         
-        // 프롬프트 완성
-        String fullPrompt = template + "\n\n## 분석 대상 대화\n" + 
-                           "상대방 이름: " + partnerName + "\n" +
-                           "대화 내용:\n" + formattedConversation + 
-                           "\n\n위 대화를 분석하여 정확한 JSON 형식으로 응답해주세요.";
+        // 입력 토큰 예산을 넘으면 최근 대화가 남도록 앞쪽부터 제외
+        int conversationBudget = tokenEstimator.inputBudget(GeminiConfig.getContextWindow(), GeminiConfig.getMaxOutputTokens())
+            - tokenEstimator.estimate(template.getSource()) - tokenEstimator.estimate(partnerName)
+            - tokenEstimator.estimate(windowHeader) - tokenEstimator.estimate(statsSummary);
         
-        return fullPrompt;
+        Map<String, String> values = new HashMap<>();
+        values.put("PARTNER_NAME", partnerName);
+        values.put("CONVERSATION_STATS", statsSummary);
+        values.put("WINDOW_HEADER", windowHeader);
+        values.put("CONVERSATION_DATA", tokenEstimator.keepRecent(conversationWindow, Math.max(1, conversationBudget)));
+        return template.render(values);
     }
     
     /**
-     * 프롬프트 템플릿 파일 로드
+     * 분석 프롬프트 템플릿 (읽을 수 없으면 기본 프롬프트)
      */
-    private String loadPromptTemplate() throws Exception {
+    private PromptTemplate analysisTemplate() {
         try {
-            System.out.println("=== 프롬프트 템플릿 로드 시도 ===");
-            System.out.println("템플릿 경로: " + PROMPT_TEMPLATE_PATH);
-            
-            // 클래스패스에서 리소스 로드 시도
-            java.io.InputStream inputStream = getClass().getClassLoader().getResourceAsStream("prompt_templates/analysis_prompt_template.txt");
-            if (inputStream != null) {
-                String template = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-                inputStream.close();
-                System.out.println("클래스패스에서 템플릿 로드 성공 - 길이: " + template.length());
-                return template;
-            }
-            
-            // 파일 시스템에서 로드 시도 (fallback)
-            String template = new String(Files.readAllBytes(Paths.get(PROMPT_TEMPLATE_PATH)), StandardCharsets.UTF_8);
-            System.out.println("파일시스템에서 템플릿 로드 성공 - 길이: " + template.length());
-            return template;
-            
-        } catch (Exception e) {
+            return templates.get(ANALYSIS_TEMPLATE);
+        } catch (IOException e) {
             System.err.println("프롬프트 템플릿 로드 실패: " + e.getMessage());
             System.err.println("기본 프롬프트 사용");
-            return getDefaultPrompt();
+            return DEFAULT_TEMPLATE;
+        }
+    }
+    
+    /**
+     * 대화 데이터를 분석에 적합한 형태로 포맷팅하여 윈도우로 분할
+     * 인식한 대화는 최대 윈도우 수에 담기지 않으면 중요 메시지를 샘플링하고,
+     * 인식하지 못한 형식(JSON 등)은 원문을 줄 단위로 분할합니다.
+     */
+    private List<String> formatConversationData(String conversationData, ConversationBuffer buffer,
+            ConversationChunker chunker) {
+        if (!buffer.isEmpty()) {
+            return chunker.split(SalienceSampler.fromConfig().sample(buffer, chunker.getCapacityTokens(),
+                SalienceSampler.tokenCost(buffer, tokenEstimator)));
         }
+        return chunker.split(formatConversationData(conversationData));
     }
     
     /**
-     * 대화 데이터를 분석에 적합한 형태로 포맷팅
+     * 인식하지 못한 형식의 대화 데이터 정리 (JSON이면 다시 직렬화)
      */
     private String formatConversationData(String conversationData) {
         String formattedData;
@@ -167,119 +348,174 @@ public class GeminiAnalysisService {
             formattedData = conversationData;
         }
         
-        // 데이터 길이 제한 (2000자로 제한 - 2.5-flash의 thinking token 문제 해결)
-        if (formattedData.length() > 2000) {
-            System.out.println("=== 대화 데이터 길이 제한 적용 ===");
-            System.out.println("원본 길이: " + formattedData.length() + "자");
-            formattedData = formattedData.substring(0, 2000) + "...[truncated]";
-            System.out.println("제한된 길이: " + formattedData.length() + "자");
-        }
-        
+        // 길이 제한은 윈도우 분할(ConversationChunker)에서 처리
         return formattedData;
     }
     
     /**
      * Gemini API 호출 (재시도 포함)
+     * 일시적 오류(408/5xx/네트워크)와 429만 재시도하며, 대기 시간과 재시도량은 RetryPolicy가 결정합니다.
+     * @param publishSections 스트리밍 중 완성된 섹션을 작업의 중간 결과로 전달할지 여부
      */
-    private String callGeminiAPIWithRetry(String prompt) throws Exception {
-        int maxAttempts = GeminiConfig.getMaxRetryAttempts();
-        long delayMs = GeminiConfig.getRetryDelayMs();
+    private GeminiReply callGeminiAPIWithRetry(String prompt, int promptTokens, boolean publishSections) throws Exception {
+        try {
+            return retryPolicy.execute(() -> callGeminiAPI(prompt, promptTokens, publishSections));
+            
+        } catch (ProviderUnavailableException | CancellationException e) {
+            // 회로 차단/동시 호출 한도 초과와 취소는 그대로 전달 (라우터가 다른 프로바이더로 넘기거나 중단)
+            throw e;
+        } catch (Exception e) {
+            System.err.println("Gemini API 호출 실패: " + e.getMessage());
+            throw new Exception("Gemini API 호출 실패 (최대 " + GeminiConfig.getMaxRetryAttempts() + "회 시도)", e);
+        }
+    }
+
+    /**
+     * Gemini API 호출 (회로 차단기/동시 호출 제한 적용)
+     * 회로가 열려 있으면 호출하지 않고 즉시 ProviderUnavailableException을 던집니다.
+     */
+    private GeminiReply callGeminiAPI(String prompt, int promptTokens, boolean publishSections) throws Exception {
+        return ProviderGuard.forProvider(PROVIDER).call(() -> requestGeminiAPI(prompt, promptTokens, publishSections));
+    }
+    
+    /**
+     * Gemini API 요청 (공용 HTTP 클라이언트 사용)
+     */
+    private GeminiReply requestGeminiAPI(String prompt, int promptTokens, boolean publishSections) throws Exception {
         
-        Exception lastException = null;
+        AnalysisJob job = AnalysisJob.current();
+        if (job != null) {
+            job.checkCancelled();
+        }
         
-        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
-            try {
-                System.out.println("=== API 호출 시도 " + attempt + "/" + maxAttempts + " ===");
-                return callGeminiAPI(prompt);
-                
-            } catch (Exception e) {
-                lastException = e;
-                System.err.println("API 호출 시도 " + attempt + " 실패: " + e.getMessage());
-                
-                // 500 에러 또는 일시적 오류인 경우에만 재시도
-                if (attempt < maxAttempts && isRetryableError(e)) {
-                    System.out.println("재시도 대기: " + delayMs + "ms");
-                    try {
-                        Thread.sleep(delayMs);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        throw new Exception("재시도 중 인터럽트 발생", ie);
-                    }
-                    // 다음 시도에서는 더 오랜 시간 대기 (exponential backoff)
-                    delayMs *= 2;
-                } else {
-                    break;
-                }
+        // 요청 본문 생성
+        int maxOutputTokens = tokenEstimator.chooseMaxTokens(promptTokens, GeminiConfig.getMaxOutputTokens(),
+            GeminiConfig.getContextWindow(), AnalysisConfig.getMinOutputTokens());
+        System.out.println("프롬프트 토큰 추정: " + promptTokens + ", maxOutputTokens: " + maxOutputTokens);
+        String requestBody = createGeminiRequestBody(prompt, maxOutputTokens);
+        
+        if (GeminiConfig.isStreamEnabled()) {
+            return streamGeminiAPI(requestBody, job, publishSections);
+        }
+        
+        // 요청 전송
+        long startTime = System.currentTimeMillis();
+        LlmHttpClient.Call call = httpClient().postJsonAsync(
+            GeminiConfig.getApiUrl() + "?key=" + GeminiConfig.getApiKey(), null, requestBody);
+        
+        // 작업이 취소되면 응답 대기와 프로바이더 요청을 즉시 중단
+        Runnable abortRequest = call::cancel;
+        if (job != null) {
+            job.addCancelHook(abortRequest);
+        }
+        
+        LlmHttpClient.Response response;
+        try {
+            response = call.await();
+        } finally {
+            if (job != null) {
+                job.removeCancelHook(abortRequest);
             }
         }
         
-        throw new Exception("Gemini API 호출 실패 (최대 " + maxAttempts + "회 시도)", lastException);
+        // 비스트리밍 응답은 본문 전체를 받은 시점이 첫 응답 시점
+        AnalysisMetrics.recordTime("provider." + PROVIDER + ".ttfb", System.currentTimeMillis() - startTime);
+        
+        // 응답 확인
+        int responseCode = response.getStatusCode();
+        
+        if (responseCode == 200) {
+            return readReply(response.getBody());
+        } else {
+            throw new ProviderHttpException(PROVIDER, responseCode, response.getRetryAfterMs(),
+                "Gemini API 호출 실패 (코드: " + responseCode + "): " + response.getBody());
+        }
     }
     
     /**
-     * 재시도 가능한 오류인지 확인
+     * Gemini API 스트리밍 호출 (streamGenerateContent, SSE)
+     * 텍스트 조각을 받는 대로 누적하며, 최상위 JSON 섹션이 완성되면 작업에 먼저 전달합니다.
+     * 누적한 텍스트와 마지막 finishReason/usageMetadata를 그대로 반환합니다.
      */
-    private boolean isRetryableError(Exception e) {
-        String message = e.getMessage();
-        if (message == null) return false;
-        
-        // 500, 502, 503, 504 등 서버 오류나 일시적 오류인 경우 재시도
-        return message.contains("코드: 500") || 
-               message.contains("코드: 502") || 
-               message.contains("코드: 503") || 
-               message.contains("코드: 504") ||
-               message.contains("internal error") ||
-               message.contains("timeout") ||
-               message.contains("timed out") ||
-               message.contains("Read timed out") ||
-               message.contains("Connect timed out") ||
-               message.contains("temporarily unavailable");
-    }
-
-    /**
-     * Gemini API 호출
-     */
-    private String callGeminiAPI(String prompt) throws Exception {
+    @SuppressWarnings("unchecked")
+    private GeminiReply streamGeminiAPI(String requestBody, AnalysisJob job, boolean publishSections) throws Exception {
+        
+        StreamingSectionParser sectionParser = new StreamingSectionParser(
+            publishSections ? StreamingSectionParser.jobPublisher(job, gson) : null);
+        Map<String, Object> lastChunk = new HashMap<>();
+        
+        LlmHttpClient.StreamCall call = httpClient().openStream(
+            GeminiConfig.getStreamApiUrl() + "?alt=sse&key=" + GeminiConfig.getApiKey(), null, requestBody);
         
-        URL url = new URL(GeminiConfig.getApiUrl() + "?key=" + GeminiConfig.getApiKey());
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        // 작업이 취소되면 스트림을 닫아 수신을 즉시 중단
+        Runnable abortRequest = call::cancel;
+        if (job != null) {
+            job.addCancelHook(abortRequest);
+        }
         
+        LlmHttpClient.Response response;
         try {
-            // 요청 설정
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-            conn.setDoOutput(true);
-            conn.setConnectTimeout(GeminiConfig.getConnectTimeout());
-            conn.setReadTimeout(GeminiConfig.getReadTimeout());
-            
-            // 요청 본문 생성
-            String requestBody = createGeminiRequestBody(prompt);
-            
-            // 요청 전송
-            try (OutputStreamWriter writer = new OutputStreamWriter(conn.getOutputStream(), StandardCharsets.UTF_8)) {
-                writer.write(requestBody);
-                writer.flush();
-            }
-            
-            // 응답 읽기
-            int responseCode = conn.getResponseCode();
-            
-            if (responseCode == 200) {
-                return readResponse(conn.getInputStream());
-            } else {
-                String errorResponse = readResponse(conn.getErrorStream());
-                throw new Exception("Gemini API 호출 실패 (코드: " + responseCode + "): " + errorResponse);
-            }
-            
+            response = call.read(line -> {
+                if (!line.startsWith("data:")) {
+                    return;
+                }
+                Map<String, Object> chunk = gson.fromJson(line.substring(5).trim(), Map.class);
+                List<Map<String, Object>> candidates = (List<Map<String, Object>>) chunk.get("candidates");
+                if (candidates != null && !candidates.isEmpty()) {
+                    Map<String, Object> candidate = candidates.get(0);
+                    Map<String, Object> content = (Map<String, Object>) candidate.get("content");
+                    List<Map<String, Object>> parts = content != null
+                        ? (List<Map<String, Object>>) content.get("parts") : null;
+                    if (parts != null) {
+                        for (Map<String, Object> part : parts) {
+                            if (part.get("text") != null) {
+                                sectionParser.append((String) part.get("text"));
+                            }
+                        }
+                    }
+                    if (candidate.get("finishReason") != null) {
+                        lastChunk.put("finishReason", candidate.get("finishReason"));
+                    }
+                }
+                if (chunk.get("usageMetadata") != null) {
+                    lastChunk.put("usageMetadata", chunk.get("usageMetadata"));
+                }
+            });
         } finally {
-            conn.disconnect();
+            if (job != null) {
+                job.removeCancelHook(abortRequest);
+            }
         }
+        
+        int responseCode = response.getStatusCode();
+        if (responseCode != 200) {
+            throw new ProviderHttpException(PROVIDER, responseCode, response.getRetryAfterMs(),
+                "Gemini API 호출 실패 (코드: " + responseCode + "): " + response.getBody());
+        }
+        
+        long ttfb = call.getTimeToFirstByteMs();
+        if (ttfb >= 0) {
+            AnalysisMetrics.recordTime("provider." + PROVIDER + ".ttfb", ttfb);
+            System.out.println("첫 응답 수신 시간(TTFB): " + ttfb + "ms");
+        }
+        
+        // 텍스트를 받지 못했으면 null로 두어 finishReason 검사가 그대로 동작하게 함
+        String text = sectionParser.getText();
+        return new GeminiReply(text.isEmpty() ? null : text, (String) lastChunk.get("finishReason"),
+            lastChunk.get("usageMetadata"));
+    }
+    
+    /**
+     * 프로바이더 공용 HTTP 클라이언트 (연결 재사용)
+     */
+    private LlmHttpClient httpClient() {
+        return LlmHttpClient.forProvider(PROVIDER, GeminiConfig.getConnectTimeout(), GeminiConfig.getReadTimeout());
     }
     
     /**
      * Gemini API 요청 본문 생성
      */
-    private String createGeminiRequestBody(String prompt) {
+    private String createGeminiRequestBody(String prompt, int maxOutputTokens) {
         
         // Gemini API 요청 형식에 맞게 구성 (설정 파일 기반)
         String requestJson = "{\n" +
@@ -292,7 +528,7 @@ public class GeminiAnalysisService {
             "    \"temperature\": " + GeminiConfig.getTemperature() + ",\n" +
             "    \"topK\": " + GeminiConfig.getTopK() + ",\n" +
             "    \"topP\": " + GeminiConfig.getTopP() + ",\n" +
-            "    \"maxOutputTokens\": " + GeminiConfig.getMaxOutputTokens() + ",\n" +
+            "    \"maxOutputTokens\": " + maxOutputTokens + ",\n" +
             "    \"candidateCount\": 1\n" +
             "  },\n" +
             "  \"safetySettings\": [\n" +
@@ -319,71 +555,104 @@ public class GeminiAnalysisService {
     }
     
     /**
-     * HTTP 응답 스트림에서 텍스트 읽기
+     * 토큰 사용량(usageMetadata)으로 토큰 추정기 보정
+     * 2.5 모델은 thinking 토큰도 maxOutputTokens에 포함되므로 출력 토큰에 함께 기록하고,
+     * 출력이 잘린 경우(MAX_TOKENS)에는 설정된 최대 출력 토큰 수로 기록합니다.
      */
-    private String readResponse(java.io.InputStream inputStream) throws Exception {
+    private void recordUsage(Object usageMetadata, int promptTokens, String finishReason) {
+        if (!(usageMetadata instanceof Map)) {
+            return;
+        }
+        Map<?, ?> usage = (Map<?, ?>) usageMetadata;
+        int inputTokens = tokenCount(usage.get("promptTokenCount"));
+        int outputTokens = tokenCount(usage.get("candidatesTokenCount")) + tokenCount(usage.get("thoughtsTokenCount"));
+        System.out.println("토큰 사용량 - 입력: " + inputTokens + ", 출력: " + outputTokens);
+        if ("MAX_TOKENS".equals(finishReason)) {
+            outputTokens = Math.max(outputTokens, GeminiConfig.getMaxOutputTokens());
+        }
+        tokenEstimator.recordUsage(promptTokens, inputTokens, outputTokens);
+    }
+    
+    private static int tokenCount(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+    
+    /**
+     * Gemini 응답에서 꺼낸 분석 텍스트와 종료 사유, 토큰 사용량
+     */
+    private static class GeminiReply {
+        final String text;
+        final String finishReason;
+        final Object usageMetadata;
+        
+        GeminiReply(String text, String finishReason, Object usageMetadata) {
+            this.text = text;
+            this.finishReason = finishReason;
+            this.usageMetadata = usageMetadata;
+        }
+    }
+    
+    /**
+     * 비스트리밍 응답 본문에서 분석 텍스트 추출 (candidates[0].content.parts[0].text)
+     */
+    private GeminiReply readReply(String apiResponse) throws Exception {
         
-        StringBuilder response = new StringBuilder();
+        Map<?, ?> responseJson = gson.fromJson(apiResponse, Map.class);
+        System.out.println("Gemini API 응답 수신 - 길이: " + apiResponse.length() + ", keys: " + responseJson.keySet());
         
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-            
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line).append("\n");
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> candidates = (List<Map<String, Object>>) responseJson.get("candidates");
+        if (candidates == null || candidates.isEmpty()) {
+            throw new Exception("Gemini API 응답에서 candidates를 찾을 수 없습니다");
+        }
+        
+        Map<String, Object> candidate = candidates.get(0);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> content = candidate.get("content") instanceof Map
+            ? (Map<String, Object>) candidate.get("content") : Map.of();
+        
+        String analysisText = null;
+        
+        // 표준 응답 구조: content.parts[0].text
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> parts = (List<Map<String, Object>>) content.get("parts");
+        if (parts != null && !parts.isEmpty() && parts.get(0) != null && parts.get(0).containsKey("text")) {
+            analysisText = (String) parts.get(0).get("text");
+        }
+        
+        // parts가 null이거나 비어있는 경우 대체 파싱 시도
+        if (analysisText == null) {
+            if (content.containsKey("text")) {
+                analysisText = (String) content.get("text");
+                System.out.println("대체 방법 1: content.text에서 추출 성공");
+            } else if (content.containsKey("message")) {
+                analysisText = (String) content.get("message");
+                System.out.println("대체 방법 2: content.message에서 추출 성공");
+            } else if (candidate.containsKey("text")) {
+                analysisText = (String) candidate.get("text");
+                System.out.println("대체 방법 3: candidates[0].text에서 추출 성공");
+            } else {
+                System.err.println("응답 텍스트 없음 - content keys: " + content.keySet() +
+                    ", candidate keys: " + candidate.keySet());
             }
         }
         
-        return response.toString();
+        return new GeminiReply(analysisText, (String) candidate.get("finishReason"), responseJson.get("usageMetadata"));
     }
     
     /**
-     * Gemini API 응답에서 실제 분석 결과 추출 및 검증
+     * Gemini 응답 텍스트에서 실제 분석 결과 추출 및 검증
      */
-    private AnalysisResult parseAndValidateResponse(String apiResponse, String userId, String partnerName) 
-            throws Exception {
+    private AnalysisResult parseAndValidateResponse(GeminiReply reply, String userId, String partnerName, 
+            int promptTokens) throws Exception {
         
         try {
-            // Gemini API 응답 파싱
-            Map<?, ?> responseJson = gson.fromJson(apiResponse, Map.class);
-            
-            // 전체 응답 구조 디버깅
-            System.out.println("=== 전체 Gemini API 응답 구조 ===");
-            System.out.println("Response JSON: " + gson.toJson(responseJson));
-            System.out.println("Top level keys: " + responseJson.keySet());
-            
-            // candidates[0].content.parts[0].text에서 실제 응답 추출
-            @SuppressWarnings("unchecked")
-            java.util.List<Map<String, Object>> candidates = 
-                (java.util.List<Map<String, Object>>) responseJson.get("candidates");
-            
-            if (candidates == null || candidates.isEmpty()) {
-                throw new Exception("Gemini API 응답에서 candidates를 찾을 수 없습니다");
-            }
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Object> content = (Map<String, Object>) candidates.get(0).get("content");
-            
-            String analysisText = null;
-            
-            // parts 필드가 존재하는 경우의 파싱 시도
-            @SuppressWarnings("unchecked")
-            java.util.List<Map<String, Object>> parts = 
-                (java.util.List<Map<String, Object>>) content.get("parts");
-            
-            if (parts != null && !parts.isEmpty()) {
-                // 표준 응답 구조: content.parts[0].text
-                Map<String, Object> firstPart = parts.get(0);
-                if (firstPart != null && firstPart.containsKey("text")) {
-                    analysisText = (String) firstPart.get("text");
-                    System.out.println("=== 표준 응답 구조로 텍스트 추출 성공 ===");
-                }
-            }
+            String analysisText = reply.text;
             
             // finishReason 확인 - 안전 필터나 기타 문제로 조기 종료되었는지 검사
-            String finishReason = (String) candidates.get(0).get("finishReason");
-            System.out.println("=== finishReason 분석 ===");
+            String finishReason = reply.finishReason;
             System.out.println("finishReason: " + finishReason);
+            recordUsage(reply.usageMetadata, promptTokens, finishReason);
             
             if ("SAFETY".equals(finishReason)) {
                 throw new Exception("Gemini API 안전 필터에 의해 차단됨. 프롬프트 내용을 검토해주세요.");
@@ -393,40 +662,9 @@ public class GeminiAnalysisService {
                 throw new Exception("Gemini API 기타 이유로 인해 차단됨.");
             } else if ("STOP".equals(finishReason) && analysisText == null) {
                 // STOP 상태이지만 텍스트가 없는 경우 - 파라미터 문제일 가능성
-                System.out.println("=== STOP 상태이지만 텍스트 없음 - 파라미터 재검토 필요 ===");
                 throw new Exception("Gemini API가 정상 완료되었으나 응답 텍스트가 없습니다. API 파라미터를 확인해주세요.");
             }
             
-            // parts가 null이거나 비어있는 경우 대체 파싱 시도
-            if (analysisText == null) {
-                System.out.println("=== 대체 파싱 시도: parts 필드가 null 또는 비어있음 ===");
-                
-                // 응답 구조 디버깅
-                System.out.println("=== 응답 구조 디버그 정보 ===");
-                System.out.println("content keys: " + content.keySet());
-                System.out.println("candidate keys: " + candidates.get(0).keySet());
-                
-                // 대체 1: content에 직접 text 필드가 있는 경우
-                if (content.containsKey("text")) {
-                    analysisText = (String) content.get("text");
-                    System.out.println("대체 방법 1: content.text에서 추출 성공");
-                }
-                // 대체 2: content에 message 필드가 있는 경우
-                else if (content.containsKey("message")) {
-                    analysisText = (String) content.get("message");
-                    System.out.println("대체 방법 2: content.message에서 추출 성공");
-                }
-                // 대체 3: candidates[0]에 직접 text가 있는 경우
-                else {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> candidate = (Map<String, Object>) candidates.get(0);
-                    if (candidate.containsKey("text")) {
-                        analysisText = (String) candidate.get("text");
-                        System.out.println("대체 방법 3: candidates[0].text에서 추출 성공");
-                    }
-                }
-            }
-            
             // MAX_TOKENS로 인한 빈 응답 처리
             if (analysisText == null && "MAX_TOKENS".equals(finishReason)) {
                 System.err.println("=== MAX_TOKENS 감지: 기본 JSON 응답 생성 ===");
@@ -453,38 +691,32 @@ public class GeminiAnalysisService {
             
             // 모든 파싱 시도가 실패한 경우
             else if (analysisText == null) {
-                System.err.println("=== 응답 구조 디버그 정보 ===");
-                System.err.println("content keys: " + content.keySet());
-                @SuppressWarnings("unchecked")
-                Map<String, Object> candidate = (Map<String, Object>) candidates.get(0);
-                System.err.println("candidate keys: " + candidate.keySet());
                 throw new Exception("Gemini API 응답에서 텍스트를 추출할 수 없습니다. 응답 구조가 예상과 다릅니다.");
             }
             
-            // JSON 응답에서 실제 분석 결과 추출
-            String cleanJsonText = extractJsonFromResponse(analysisText);
+            // JSON 응답에서 실제 분석 결과 범위 찾기 (한 번만 훑고 복사하지 않음)
+            JsonExtractor.Span jsonSpan = JsonExtractor.find(analysisText);
+            if (jsonSpan == null) {
+                System.err.println("JSON 객체를 찾을 수 없음 - 응답 앞부분: " +
+                    analysisText.substring(0, Math.min(300, analysisText.length())));
+                throw new Exception("응답에서 유효한 JSON을 찾을 수 없습니다. 응답 길이: " + analysisText.length());
+            }
             
             // 디버그 로깅
             System.out.println("=== GEMINI API 응답 디버그 ===");
-            System.out.println("원본 응답 텍스트 (처음 500자):");
-            System.out.println(analysisText.length() > 500 ? analysisText.substring(0, 500) + "..." : analysisText);
-            System.out.println("\n추출된 JSON 텍스트:");
-            System.out.println(cleanJsonText);
+            System.out.println("응답 텍스트 길이: " + analysisText.length() + 
+                ", JSON 범위: " + jsonSpan.getStart() + "~" + jsonSpan.getEnd());
+            System.out.println("JSON 미리보기 (처음 300자): " + JsonExtractor.preview(analysisText, jsonSpan, 300));
             System.out.println("=== 디버그 끝 ===");
             
             // 분석 결과 객체로 변환
-            System.out.println("=== JSON 파싱 시도 ===");
-            System.out.println("파싱할 JSON 길이: " + cleanJsonText.length());
-            System.out.println("파싱할 JSON 미리보기 (처음 300자): " + 
-                (cleanJsonText.length() > 300 ? cleanJsonText.substring(0, 300) + "..." : cleanJsonText));
-            
             AnalysisResult result;
             try {
-                result = gson.fromJson(cleanJsonText, AnalysisResult.class);
+                result = JsonExtractor.parse(analysisText, jsonSpan, gson, AnalysisResult.class);
                 System.out.println("JSON 파싱 성공!");
-            } catch (com.google.gson.JsonSyntaxException jsonError) {
+            } catch (com.google.gson.JsonParseException jsonError) {
                 System.err.println("JSON 구문 오류: " + jsonError.getMessage());
-                System.err.println("문제가 된 JSON: " + cleanJsonText);
+                System.err.println("문제가 된 JSON (처음 300자): " + JsonExtractor.preview(analysisText, jsonSpan, 300));
                 throw new Exception("JSON 구문이 올바르지 않습니다: " + jsonError.getMessage(), jsonError);
             }
             
@@ -509,79 +741,6 @@ public class GeminiAnalysisService {
         }
     }
     
-    /**
-     * 응답 텍스트에서 JSON 부분만 추출
-     */
-    private String extractJsonFromResponse(String responseText) {
-        System.out.println("=== JSON 추출 시작 ===");
-        System.out.println("응답 텍스트 길이: " + responseText.length());
-        System.out.println("응답 미리보기 (처음 200자): " + 
-            (responseText.length() > 200 ? responseText.substring(0, 200) + "..." : responseText));
-        
-        // 1. ```json ... ``` 형태 처리 (여러 패턴 지원)
-        String[] jsonPatterns = {
-            "```json\\s*\\n([\\s\\S]*?)\\n\\s*```",  // ```json\n...\n```
-            "```json\\s*([\\s\\S]*?)```",           // ```json...```
-            "```\\s*\\n?([\\s\\S]*?)\\n\\s*```"     // ```\n...\n```
-        };
-        
-        for (String jsonPattern : jsonPatterns) {
-            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(jsonPattern, java.util.regex.Pattern.MULTILINE | java.util.regex.Pattern.DOTALL);
-            java.util.regex.Matcher matcher = pattern.matcher(responseText);
-            
-            if (matcher.find()) {
-                String extracted = matcher.group(1).trim();
-                System.out.println("패턴으로 JSON 추출 성공: " + jsonPattern);
-                System.out.println("추출된 JSON 길이: " + extracted.length());
-                return extracted;
-            }
-        }
-        
-        // 2. 중첩된 중괄호를 고려한 JSON 찾기
-        int startIndex = -1;
-        int endIndex = -1;
-        int braceCount = 0;
-        
-        for (int i = 0; i < responseText.length(); i++) {
-            char c = responseText.charAt(i);
-            
-            if (c == '{') {
-                if (startIndex == -1) {
-                    startIndex = i;
-                }
-                braceCount++;
-            } else if (c == '}') {
-                braceCount--;
-                if (braceCount == 0 && startIndex != -1) {
-                    endIndex = i;
-                    break;
-                }
-            }
-        }
-        
-        if (startIndex != -1 && endIndex != -1) {
-            String extracted = responseText.substring(startIndex, endIndex + 1);
-            System.out.println("중괄호 매칭으로 JSON 추출 성공");
-            System.out.println("추출된 JSON 길이: " + extracted.length());
-            return extracted;
-        }
-        
-        // 3. 마지막 수단: 간단한 { ... } 찾기
-        startIndex = responseText.indexOf("{");
-        int lastIndex = responseText.lastIndexOf("}");
-        
-        if (startIndex != -1 && lastIndex != -1 && startIndex < lastIndex) {
-            String extracted = responseText.substring(startIndex, lastIndex + 1);
-            System.out.println("기본 방식으로 JSON 추출 시도");
-            System.out.println("추출된 JSON 길이: " + extracted.length());
-            return extracted;
-        }
-        
-        System.err.println("모든 JSON 추출 방법 실패");
-        System.err.println("응답 전문: " + responseText);
-        throw new RuntimeException("응답에서 유효한 JSON을 찾을 수 없습니다. 응답 길이: " + responseText.length());
-    }
-    
     /**
      * 분석 결과 데이터 검증
      */
@@ -639,13 +798,6 @@ public class GeminiAnalysisService {
         return "session_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
     }
     
-    /**
-     * 기본 프롬프트 (템플릿 파일이 없는 경우)
-     */
-    private String getDefaultPrompt() {
-        return "당신은 썸 관계 전문 분석가입니다. 제공된 대화를 분석하여 JSON 형식으로 결과를 제공해주세요.";
-    }
-    
     /**
      * 분석 예외 클래스
      */
@@ -0,0 +1,113 @@
+package com.smhrd.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 업로드된 대화 파일 (메모리 매핑 후 스트리밍 파싱)
+ *
+ * 디스크에 저장된 내보내기 파일을 메모리 매핑하여 ChatExportParser로 한 번 훑으면서
+ * 메시지를 열 단위 저장소(ConversationBuffer)에 담고, 저장소에서 전체 대화의 통계(ConversationStatistics)를 계산합니다.
+ * 분석 프롬프트에는 최대 글자 수(analysis.upload.max_prompt_chars) 안에서 고른 메시지(SalienceSampler)만
+ * 정규화된 텍스트로 만들어 전달합니다.
+ * 정규화 형식은 ChatExportParser가 다시 인식할 수 있는 LINE 형식입니다.
+ * (날짜 줄 "2024/08/13", 메시지 줄 "15:21\t화자\t본문")
+ * 형식을 인식하지 못한 파일은 끝부분을 그대로 사용합니다.
+ */
+public class ImportedConversation {
+
+    private final ConversationStatistics statistics;
+    private final ChatExportParser.Format format;
+    private final List<String> speakers;
+    private final int messageCount;
+    private final String analysisText;
+
+    private ImportedConversation(ConversationBuffer buffer, String partnerName, String analysisText) {
+        this.statistics = ConversationStatistics.compute(buffer, partnerName);
+        this.format = buffer.getFormat();
+        this.speakers = buffer.getSpeakers();
+        this.messageCount = buffer.size();
+        this.analysisText = analysisText;
+    }
+
+    /**
+     * 파일을 메모리 매핑하여 파싱
+     * 반환 후에는 파일을 참조하지 않으므로 호출한 쪽에서 삭제해도 됩니다.
+     * @param file UTF-8 대화 내보내기 파일
+     * @param partnerName 상대방 이름
+     * @param maxPromptChars 분석 프롬프트에 넣을 대화의 최대 글자 수 (넘으면 중요 메시지 샘플링)
+     * @throws IOException 파일을 읽을 수 없거나 UTF-8이 아닌 경우
+     */
+    public static ImportedConversation fromFile(Path file, String partnerName, int maxPromptChars) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("대화 파일이 너무 큽니다: " + channel.size() + " bytes");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            ConversationBuffer buffer;
+            try {
+                buffer = ConversationBuffer.parse(mapped);
+            } catch (CharacterCodingException e) {
+                throw new IOException("UTF-8 형식의 대화 파일만 지원합니다.", e);
+            }
+            System.out.println("대화 저장소 생성 - 메시지 " + buffer.size() + "개, 약 "
+                + (buffer.getFootprintBytes() / 1024) + "KB");
+
+            String analysisText = buffer.isEmpty()
+                ? tailText(mapped, maxPromptChars)
+                : SalienceSampler.fromConfig().sample(buffer, maxPromptChars, SalienceSampler.charCost(buffer))
+                    .render();
+            return new ImportedConversation(buffer, partnerName, analysisText);
+        }
+    }
+
+    /**
+     * 형식을 인식하지 못한 파일은 끝부분(최근 대화)을 그대로 사용
+     * UTF-8은 글자당 최대 4바이트이므로 maxChars * 4바이트까지만 읽고, 글자 중간에서 시작하지 않도록 맞춤
+     */
+    private static String tailText(ByteBuffer source, int maxChars) {
+        int end = source.limit();
+        int start = (int) Math.max(0, end - (long) maxChars * 4);
+        while (start < end && (source.get(start) & 0xC0) == 0x80) {
+            start++;
+        }
+        ByteBuffer slice = source.duplicate();
+        slice.limit(end).position(start);
+        String text = StandardCharsets.UTF_8.decode(slice).toString();
+        return text.length() > maxChars ? text.substring(text.length() - maxChars) : text;
+    }
+
+    /**
+     * 프로바이더에 전달할 정규화된 대화 텍스트 (최대 글자 수 제한)
+     */
+    public String getAnalysisText() {
+        return analysisText;
+    }
+
+    /**
+     * 파일 전체 기준 대화 통계
+     */
+    public ConversationStatistics getStatistics() {
+        return statistics;
+    }
+
+    public ChatExportParser.Format getFormat() {
+        return format;
+    }
+
+    public List<String> getSpeakers() {
+        return speakers;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+}
@@ -0,0 +1,146 @@
+package com.smhrd.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 미리 분할된 프롬프트 템플릿
+ *
+ * 템플릿을 읽을 때 한 번만 {{NAME}} 자리표시자를 기준으로 고정 문자열 조각과 자리표시자 조각으로 나누고,
+ * 렌더링할 때는 값의 길이를 합산해 크기를 맞춘 StringBuilder 하나에 순서대로 씁니다.
+ * (요청마다 String.replace를 반복하면 자리표시자 수만큼 전체 문자열을 복사함)
+ * 버전은 템플릿 내용의 해시로, 같은 내용이면 서버가 바뀌어도 같은 값입니다.
+ */
+public class PromptTemplate {
+
+    private final String name;
+    private final String source;
+    private final String version;
+
+    // placeholder[i]가 true면 segments[i]는 자리표시자 이름, false면 고정 문자열
+    private final String[] segments;
+    private final boolean[] placeholder;
+    private final int literalLength;
+    private final Set<String> placeholderNames;
+
+    private PromptTemplate(String name, String source, List<String> segments, List<Boolean> placeholder) {
+        this.name = name;
+        this.source = source;
+        this.version = AnalysisResultCache.sha256Hex(source).substring(0, 12);
+        this.segments = segments.toArray(new String[0]);
+        this.placeholder = new boolean[segments.size()];
+
+        int length = 0;
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = 0; i < this.segments.length; i++) {
+            this.placeholder[i] = placeholder.get(i);
+            if (this.placeholder[i]) {
+                names.add(this.segments[i]);
+            } else {
+                length += this.segments[i].length();
+            }
+        }
+        this.literalLength = length;
+        this.placeholderNames = Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * 템플릿 원문을 조각으로 분할
+     * 자리표시자는 {{ 와 }} 사이의 영문 대문자/숫자/밑줄 이름이며, 그 외의 중괄호는 고정 문자열로 취급합니다.
+     * @param name 템플릿 이름 (예: anthropic_analysis_prompt)
+     */
+    public static PromptTemplate compile(String name, String source) {
+        List<String> segments = new ArrayList<>();
+        List<Boolean> placeholder = new ArrayList<>();
+
+        int literalStart = 0;
+        int searchFrom = 0;
+        while (true) {
+            int open = source.indexOf("{{", searchFrom);
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                break;
+            }
+            String key = source.substring(open + 2, close);
+            if (!isPlaceholderName(key)) {
+                searchFrom = open + 1;
+                continue;
+            }
+            if (open > literalStart) {
+                segments.add(source.substring(literalStart, open));
+                placeholder.add(false);
+            }
+            segments.add(key);
+            placeholder.add(true);
+            literalStart = close + 2;
+            searchFrom = literalStart;
+        }
+        if (literalStart < source.length()) {
+            segments.add(source.substring(literalStart));
+            placeholder.add(false);
+        }
+
+        return new PromptTemplate(name, source, segments, placeholder);
+    }
+
+    /**
+     * 자리표시자에 값을 채워 프롬프트 생성
+     * @throws IllegalArgumentException 값이 없는 자리표시자가 있는 경우
+     */
+    public String render(Map<String, ? extends CharSequence> values) {
+        int capacity = literalLength;
+        for (int i = 0; i < segments.length; i++) {
+            if (placeholder[i]) {
+                CharSequence value = values.get(segments[i]);
+                if (value == null) {
+                    throw new IllegalArgumentException("프롬프트 템플릿 " + name + "의 {{" + segments[i] + "}} 값이 없습니다");
+                }
+                capacity += value.length();
+            }
+        }
+
+        StringBuilder prompt = new StringBuilder(capacity);
+        for (int i = 0; i < segments.length; i++) {
+            if (placeholder[i]) {
+                prompt.append(values.get(segments[i]));
+            } else {
+                prompt.append(segments[i]);
+            }
+        }
+        return prompt.toString();
+    }
+
+    private static boolean isPlaceholderName(String key) {
+        if (key.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (!((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getName() { return name; }
+
+    /**
+     * 템플릿 원문 (토큰 수 추정용)
+     */
+    public String getSource() { return source; }
+
+    /**
+     * 템플릿 버전 (내용 SHA-256 앞 12자리)
+     */
+    public String getVersion() { return version; }
+
+    public Set<String> getPlaceholderNames() { return placeholderNames; }
+}
@@ -0,0 +1,201 @@
+package com.smhrd.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 프롬프트 템플릿 저장소
+ *
+ * 시작 시 템플릿 디렉터리(analysis.prompt.directory, 비어 있으면 클래스패스의 prompt_templates)의
+ * *.txt 파일을 한 번 읽어 PromptTemplate으로 분할해 두고, 요청마다 파일을 다시 읽지 않습니다.
+ * 디렉터리가 파일 시스템에 있으면(압축 해제된 WAR 등) WatchService로 변경을 감지하여 다시 읽으며,
+ * 읽기에 실패하면 이전 템플릿을 계속 사용합니다. JAR 안에 있으면 처음 요청될 때 클래스패스에서 읽습니다.
+ *
+ * 지표: prompt.reloaded, prompt.reload_failed
+ */
+public class PromptTemplateRegistry {
+
+    private static final String CLASSPATH_DIRECTORY = "prompt_templates";
+    private static final String EXTENSION = ".txt";
+    // 편집기가 파일을 나눠 쓰는 동안 읽지 않도록 변경 감지 후 잠시 대기
+    private static final long RELOAD_SETTLE_MS = 200;
+
+    private static final PromptTemplateRegistry INSTANCE = new PromptTemplateRegistry();
+
+    private final Map<String, PromptTemplate> templates = new ConcurrentHashMap<>();
+    private final Path directory;
+
+    private PromptTemplateRegistry() {
+        this.directory = resolveDirectory();
+        if (directory != null) {
+            loadAll();
+            if (AnalysisConfig.isPromptHotReload()) {
+                startWatcher();
+            }
+        } else {
+            System.out.println("프롬프트 템플릿 디렉터리를 파일 시스템에서 찾을 수 없어 클래스패스에서 필요할 때 읽습니다");
+        }
+    }
+
+    public static PromptTemplateRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 템플릿 조회
+     * @param name 확장자를 뺀 파일 이름 (예: anthropic_analysis_prompt)
+     * @throws IOException 템플릿 파일이 없거나 읽을 수 없는 경우
+     */
+    public PromptTemplate get(String name) throws IOException {
+        PromptTemplate template = templates.get(name);
+        if (template != null) {
+            return template;
+        }
+        template = load(name);
+        PromptTemplate existing = templates.putIfAbsent(name, template);
+        return existing != null ? existing : template;
+    }
+
+    /**
+     * 현재 템플릿별 버전 (관리용)
+     */
+    public Map<String, String> getVersions() {
+        Map<String, String> versions = new TreeMap<>();
+        for (PromptTemplate template : templates.values()) {
+            versions.put(template.getName(), template.getVersion());
+        }
+        return versions;
+    }
+
+    private PromptTemplate load(String name) throws IOException {
+        if (directory != null) {
+            Path file = directory.resolve(name + EXTENSION);
+            if (Files.isRegularFile(file)) {
+                return PromptTemplate.compile(name, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }
+        }
+        String resource = CLASSPATH_DIRECTORY + "/" + name + EXTENSION;
+        try (InputStream input = PromptTemplateRegistry.class.getClassLoader().getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IOException("프롬프트 템플릿을 찾을 수 없습니다: " + name);
+            }
+            return PromptTemplate.compile(name, new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private void loadAll() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                reload(file);
+            }
+        } catch (IOException e) {
+            System.err.println("프롬프트 템플릿 목록 읽기 실패 (" + directory + "): " + e.getMessage());
+        }
+        System.out.println("프롬프트 템플릿 로드 완료 - " + getVersions());
+    }
+
+    /**
+     * 파일 하나를 다시 읽어 교체 (실패하면 기존 템플릿 유지)
+     */
+    private void reload(Path file) {
+        String fileName = file.getFileName().toString();
+        if (!fileName.endsWith(EXTENSION)) {
+            return;
+        }
+        String name = fileName.substring(0, fileName.length() - EXTENSION.length());
+        try {
+            PromptTemplate template = PromptTemplate.compile(name,
+                new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            PromptTemplate previous = templates.put(name, template);
+            if (previous != null && !previous.getVersion().equals(template.getVersion())) {
+                AnalysisMetrics.increment("prompt.reloaded");
+                System.out.println("프롬프트 템플릿 변경 감지 - " + name + ": "
+                    + previous.getVersion() + " → " + template.getVersion());
+            }
+        } catch (IOException e) {
+            AnalysisMetrics.increment("prompt.reload_failed");
+            System.err.println("프롬프트 템플릿 읽기 실패 (" + name + "), 기존 템플릿 유지: " + e.getMessage());
+        }
+    }
+
+    private void startWatcher() {
+        WatchService watchService;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            System.err.println("프롬프트 템플릿 변경 감지 시작 실패: " + e.getMessage());
+            return;
+        }
+
+        Thread watcher = new Thread(() -> watch(watchService), "prompt-template-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        System.out.println("프롬프트 템플릿 변경 감지 시작 - " + directory);
+    }
+
+    private void watch(WatchService watchService) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Thread.sleep(RELOAD_SETTLE_MS);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        loadAll();
+                        continue;
+                    }
+                    reload(directory.resolve((Path) event.context()));
+                }
+                if (!key.reset()) {
+                    System.err.println("프롬프트 템플릿 디렉터리를 더 이상 감지할 수 없습니다: " + directory);
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 템플릿 디렉터리 (설정 디렉터리 > 파일 시스템에 있는 클래스패스 디렉터리 > 없음)
+     */
+    private static Path resolveDirectory() {
+        String configured = AnalysisConfig.getPromptDirectory();
+        if (configured != null && !configured.trim().isEmpty()) {
+            Path path = Paths.get(configured.trim());
+            if (Files.isDirectory(path)) {
+                return path;
+            }
+            System.err.println("analysis.prompt.directory가 디렉터리가 아닙니다: " + configured);
+        }
+
+        URL url = PromptTemplateRegistry.class.getClassLoader().getResource(CLASSPATH_DIRECTORY);
+        if (url != null && "file".equals(url.getProtocol())) {
+            try {
+                return Paths.get(url.toURI());
+            } catch (URISyntaxException e) {
+                System.err.println("프롬프트 템플릿 경로 해석 실패: " + url);
+            }
+        }
+        return null;
+    }
+}
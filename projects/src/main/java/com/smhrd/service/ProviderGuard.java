@@ -0,0 +1,126 @@
+package com.smhrd.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 프로바이더 API 호출 보호 (회로 차단기 + 동시 호출 제한)
+ *
+ * 프로바이더 장애가 이어지면 회로를 열어 호출을 즉시 거절하므로, 사용자는 재시도/타임아웃을
+ * 기다리지 않고 ProviderUnavailableException을 받아 다른 프로바이더로 넘어갑니다.
+ * 작업 취소로 중단된 호출과 요청 자체의 문제인 4xx 응답(408/429 제외)은 장애로 집계하지 않습니다.
+ * (큰 입력이나 잘못된 요청을 보낸 일부 사용자 때문에 모든 사용자의 호출이 대체 프로바이더로 넘어가지 않도록)
+ */
+public class ProviderGuard {
+
+    private static final Map<String, ProviderGuard> GUARDS = new ConcurrentHashMap<>();
+
+    private final String provider;
+    private final CircuitBreaker breaker;
+    private final Bulkhead bulkhead;
+
+    private ProviderGuard(String provider) {
+        this.provider = provider;
+        this.breaker = new CircuitBreaker(provider,
+            AnalysisConfig.getBreakerFailureThreshold(),
+            AnalysisConfig.getBreakerOpenMs(),
+            AnalysisConfig.getBreakerHalfOpenMaxCalls());
+        this.bulkhead = new Bulkhead(provider,
+            AnalysisConfig.getBulkheadMaxConcurrent(provider),
+            AnalysisConfig.getBulkheadMaxWaitMs());
+    }
+
+    /**
+     * 프로바이더용 보호 객체 조회 (최초 호출 시 생성)
+     */
+    public static ProviderGuard forProvider(String provider) {
+        return GUARDS.computeIfAbsent(provider, ProviderGuard::new);
+    }
+
+    /**
+     * 보호된 API 호출
+     * @throws ProviderUnavailableException 회로가 열려 있거나 동시 호출 한도를 넘은 경우 (호출하지 않음)
+     */
+    public <T> T call(Callable<T> apiCall) throws Exception {
+        if (!breaker.tryAcquire()) {
+            AnalysisMetrics.increment("breaker." + provider + ".rejected");
+            throw new ProviderUnavailableException(provider, provider + " 프로바이더 호출 차단 중 (회로 열림, "
+                + breaker.getRemainingOpenMs() + "ms 후 재시도)");
+        }
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire();
+        } catch (InterruptedException e) {
+            breaker.onIgnored();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("프로바이더 호출 대기 중 인터럽트 발생");
+        }
+        if (!acquired) {
+            breaker.onIgnored();
+            AnalysisMetrics.increment("bulkhead." + provider + ".rejected");
+            throw new ProviderUnavailableException(provider, provider + " 프로바이더 동시 호출 한도 초과 ("
+                + bulkhead.getMaxConcurrent() + "건)");
+        }
+
+        try {
+            T result = apiCall.call();
+            breaker.onSuccess();
+            return result;
+        } catch (Exception e) {
+            if (isCancellation(e) || isClientError(e)) {
+                breaker.onIgnored();
+            } else {
+                breaker.onFailure();
+            }
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * 지금 호출이 허용되는지 여부 (라우팅 순위 계산용)
+     */
+    public boolean isCallPermitted() {
+        return breaker.isCallPermitted();
+    }
+
+    /**
+     * 관리용 상태 (회로 상태, 연속 실패 수, 동시 호출 수)
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("breakerState", breaker.getState().name());
+        status.put("consecutiveFailures", breaker.getConsecutiveFailures());
+        status.put("openRemainingMs", breaker.getRemainingOpenMs());
+        status.put("inFlight", bulkhead.getInUse());
+        status.put("maxConcurrent", bulkhead.getMaxConcurrent());
+        return status;
+    }
+
+    /**
+     * 요청 자체의 문제로 거절된 응답 여부 (4xx 중 408/429 제외, RetryPolicy.PROVIDER_ERRORS의 PERMANENT와 같은 기준)
+     */
+    static boolean isClientError(Exception e) {
+        Throwable error = e instanceof ProviderHttpException ? e : e.getCause();
+        if (!(error instanceof ProviderHttpException)) {
+            return false;
+        }
+        int status = ((ProviderHttpException) error).getStatusCode();
+        return status >= 400 && status < 500 && status != 408 && status != 429;
+    }
+
+    private static boolean isCancellation(Exception e) {
+        if (e instanceof CancellationException || e.getCause() instanceof CancellationException) {
+            return true;
+        }
+        AnalysisJob job = AnalysisJob.current();
+        return job != null && job.isCancelled();
+    }
+}
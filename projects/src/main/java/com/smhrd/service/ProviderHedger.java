@@ -0,0 +1,132 @@
+package com.smhrd.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.smhrd.model.AnalysisResult;
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 헤지 요청 (꼬리 지연 완화)
+ *
+ * 원래 요청의 응답이 최근 지연 시간의 백분위(analysis.hedge.percentile)까지 오지 않으면
+ * 같은 분석을 한 번 더 요청하고(다른 프로바이더 또는 같은 프로바이더), 먼저 성공한 응답을 사용합니다.
+ * 진 요청은 분기된 작업(AnalysisJob.fork)을 취소하여 HTTP 연결까지 끊습니다.
+ * 헤지 요청 수는 요청 대비 비율(analysis.hedge.max_rate)을 넘지 않도록 TokenBudget으로 제한합니다.
+ *
+ * 지표: hedge.fired, hedge.won(헤지 요청이 먼저 성공), hedge.lost(원래 요청이 먼저 성공), hedge.rate_capped
+ */
+class ProviderHedger {
+
+    /**
+     * 분석 시도 (분기된 작업을 받아 프로바이더를 호출)
+     */
+    interface Attempt {
+        AnalysisResult run(AnalysisJob attemptJob) throws Exception;
+    }
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private final TokenBudget budget = new TokenBudget(
+        AnalysisConfig.getHedgeMaxRate(), AnalysisConfig.getHedgeMaxBurst());
+
+    /**
+     * 헤지 비율 계산용 요청 1건 적립 (헤지 여부와 관계없이 모든 분석 요청마다 호출)
+     */
+    void recordRequest() {
+        budget.deposit();
+    }
+
+    /**
+     * 원래 요청을 보내고 hedgeDelayMs 안에 끝나지 않으면 헤지 요청을 추가로 보내 먼저 성공한 결과를 반환
+     * 두 요청이 모두 실패하면 마지막 오류를 던집니다.
+     * @param job 원래 작업 (두 요청은 이 작업에서 분기됨)
+     */
+    AnalysisResult call(Attempt primary, Attempt hedge, long hedgeDelayMs, AnalysisJob job) throws Exception {
+        ExecutorCompletionService<AnalysisResult> completion = new ExecutorCompletionService<>(EXECUTOR);
+        Map<Future<AnalysisResult>, AnalysisJob> attempts = new LinkedHashMap<>();
+        Future<AnalysisResult> hedgeFuture = null;
+
+        try {
+            AnalysisJob primaryJob = job.fork(false);
+            attempts.put(submit(completion, primary, primaryJob), primaryJob);
+
+            Future<AnalysisResult> done = completion.poll(hedgeDelayMs, TimeUnit.MILLISECONDS);
+            if (done == null) {
+                job.checkCancelled();
+                if (budget.tryWithdraw()) {
+                    AnalysisMetrics.increment("hedge.fired");
+                    System.out.println("응답 지연(" + hedgeDelayMs + "ms 초과)으로 헤지 요청 전송 - jobId: " + job.getJobId());
+                    AnalysisJob hedgeJob = job.fork(true);
+                    hedgeFuture = submit(completion, hedge, hedgeJob);
+                    attempts.put(hedgeFuture, hedgeJob);
+                } else {
+                    AnalysisMetrics.increment("hedge.rate_capped");
+                }
+            }
+
+            Exception lastException = null;
+            for (int remaining = attempts.size(); remaining > 0; remaining--) {
+                if (done == null) {
+                    done = completion.take();
+                }
+                try {
+                    AnalysisResult result = done.get();
+                    if (hedgeFuture != null) {
+                        AnalysisMetrics.increment(done == hedgeFuture ? "hedge.won" : "hedge.lost");
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    lastException = (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+                    if (job.isCancelled()) {
+                        throw lastException;
+                    }
+                }
+                done = null;
+            }
+            throw lastException;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("헤지 요청 대기 중 인터럽트 발생");
+        } finally {
+            // 아직 진행 중인 요청(진 쪽)은 취소하여 HTTP 연결과 재시도 대기를 중단
+            for (Map.Entry<Future<AnalysisResult>, AnalysisJob> entry : attempts.entrySet()) {
+                if (!entry.getKey().isDone()) {
+                    entry.getValue().cancel("다른 요청이 먼저 응답하여 취소");
+                    entry.getKey().cancel(true);
+                }
+                entry.getValue().detach();
+            }
+        }
+    }
+
+    private static Future<AnalysisResult> submit(ExecutorCompletionService<AnalysisResult> completion,
+            Attempt attempt, AnalysisJob attemptJob) {
+        return completion.submit(() -> {
+            AnalysisJob.bindCurrent(attemptJob);
+            try {
+                return attempt.run(attemptJob);
+            } finally {
+                AnalysisJob.bindCurrent(null);
+            }
+        });
+    }
+
+    private static ExecutorService createExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "provider-hedge-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
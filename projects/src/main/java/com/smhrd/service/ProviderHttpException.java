@@ -0,0 +1,32 @@
+package com.smhrd.service;
+
+import java.io.IOException;
+
+/**
+ * 프로바이더 API가 오류 상태 코드로 응답한 경우
+ *
+ * 상태 코드와 Retry-After 값을 함께 보관하여 RetryPolicy가 메시지 문자열이 아닌
+ * 코드로 재시도 여부와 대기 시간을 판단할 수 있게 합니다.
+ */
+public class ProviderHttpException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String provider;
+    private final int statusCode;
+    private final long retryAfterMs;
+
+    /**
+     * @param retryAfterMs Retry-After 헤더 값 (밀리초, 없으면 -1)
+     */
+    public ProviderHttpException(String provider, int statusCode, long retryAfterMs, String message) {
+        super(message);
+        this.provider = provider;
+        this.statusCode = statusCode;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public String getProvider() { return provider; }
+    public int getStatusCode() { return statusCode; }
+    public long getRetryAfterMs() { return retryAfterMs; }
+}
@@ -0,0 +1,351 @@
+package com.smhrd.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.smhrd.model.AnalysisResult;
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 분석 프로바이더 라우터
+ *
+ * 프로바이더별로 최근 호출의 지연 시간(p50/p95)과 오류율을 집계하여
+ * 가장 건강한 프로바이더부터 호출하고, 실패하면 같은 요청 안에서 다음 프로바이더로 대체합니다.
+ * (이전에는 upload.html이 Anthropic 실패 후 Gemini를 다시 호출하여 실패 시 지연이 두 배였음)
+ *
+ * 순위 기준: 회로가 열린 프로바이더(ProviderGuard)는 맨 뒤, 오류율이 한도(analysis.router.max_error_rate)
+ * 이상인 프로바이더는 그 앞, 나머지는 p95 × (1 + 오류율 × 4) / 가중치 가 작은 순서.
+ * 표본이 부족하면 등록 순서를 유지합니다.
+ * analysis.hedge.enabled가 켜져 있으면 첫 프로바이더 요청에 헤지 요청을 붙입니다 (ProviderHedger).
+ */
+public class ProviderRouter {
+
+    private static final ProviderRouter INSTANCE = new ProviderRouter(
+        Arrays.asList(new AnthropicAnalysisService(), new GeminiAnalysisService()));
+
+    private static final double ERROR_PENALTY = 4.0;
+
+    private final List<AnalysisProvider> providers;
+    private final Map<String, ProviderHealth> healthByProvider = new LinkedHashMap<>();
+    private final ProviderHedger hedger = new ProviderHedger();
+
+    ProviderRouter(List<AnalysisProvider> providers) {
+        this.providers = providers;
+        for (AnalysisProvider provider : providers) {
+            healthByProvider.put(provider.getName(), new ProviderHealth(AnalysisConfig.getRouterWindowSize()));
+        }
+        System.out.println("분석 프로바이더 라우터 초기화 - " + healthByProvider.keySet());
+    }
+
+    public static ProviderRouter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 가장 건강한 프로바이더로 분석하고, 실패하면 다음 프로바이더로 대체
+     * 헤지가 켜져 있으면 첫 프로바이더의 응답이 늦을 때 헤지 요청을 함께 보냅니다 (ProviderHedger).
+     * @param job 진행 상황을 보고할 작업 (없으면 null)
+     */
+    public AnalysisResult analyze(String conversationData, String userId, String partnerName, AnalysisJob job)
+            throws Exception {
+
+        List<AnalysisProvider> order = rankProviders();
+        Set<String> attempted = ConcurrentHashMap.newKeySet();
+        Exception lastException = null;
+
+        if (AnalysisConfig.isHedgeEnabled()) {
+            hedger.recordRequest();
+        }
+
+        for (int i = 0; i < order.size(); i++) {
+            AnalysisProvider provider = order.get(i);
+            if (attempted.contains(provider.getName())) {
+                // 헤지 요청으로 이미 호출한 프로바이더
+                continue;
+            }
+
+            if (job != null) {
+                job.checkCancelled();
+                if (i > 0) {
+                    job.updateStage(AnalysisJob.Status.CALLING_PROVIDER,
+                        provider.getDisplayName() + "로 대체하여 분석 중입니다");
+                }
+            }
+
+            System.out.println("분석 프로바이더 선택 - " + provider.getName() + " (" + (i + 1) + "/" + order.size() + ")");
+
+            try {
+                AnalysisProvider hedgeTarget = (i == 0) ? selectHedgeTarget(order) : null;
+                long hedgeDelayMs = (hedgeTarget != null && job != null) ? hedgeDelayMs(provider) : -1;
+
+                if (hedgeDelayMs >= 0) {
+                    return hedger.call(
+                        attemptJob -> attempt(provider, conversationData, userId, partnerName, attemptJob, attempted),
+                        attemptJob -> attempt(hedgeTarget, conversationData, userId, partnerName, attemptJob, attempted),
+                        hedgeDelayMs, job);
+                }
+                return attempt(provider, conversationData, userId, partnerName, job, attempted);
+
+            } catch (Exception e) {
+                // 사용자/작업 취소는 즉시 중단
+                if (e instanceof CancellationException || (job != null && job.isCancelled())) {
+                    throw e;
+                }
+                lastException = e;
+
+                if (i < order.size() - 1) {
+                    AnalysisMetrics.increment("router.failover");
+                }
+            }
+        }
+
+        throw new Exception("모든 분석 프로바이더 호출 실패: " +
+            (lastException != null ? lastException.getMessage() : "사용 가능한 프로바이더 없음"), lastException);
+    }
+
+    /**
+     * 프로바이더 한 곳에 분석 요청 (지연 시간/성공 여부를 상태에 기록)
+     * 취소된 요청(헤지 경쟁에서 진 요청 포함)은 기록하지 않습니다.
+     */
+    private AnalysisResult attempt(AnalysisProvider provider, String conversationData, String userId,
+            String partnerName, AnalysisJob job, Set<String> attempted) throws Exception {
+        ProviderHealth health = healthByProvider.get(provider.getName());
+        attempted.add(provider.getName());
+        AnalysisMetrics.increment("router." + provider.getName() + ".selected");
+        long startNanos = System.nanoTime();
+
+        try {
+            AnalysisResult result = provider.analyze(conversationData, userId, partnerName, job);
+            health.record(elapsedMs(startNanos), true);
+            return result;
+
+        } catch (Exception e) {
+            if (e instanceof CancellationException || (job != null && job.isCancelled())) {
+                throw e;
+            }
+            health.record(elapsedMs(startNanos), false);
+            AnalysisMetrics.increment("router." + provider.getName() + ".failure");
+            System.err.println("프로바이더 분석 실패 (" + provider.getName() + "): " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * 헤지 요청 대상 (다음 순위 프로바이더가 정상이면 그 프로바이더, 아니면 같은 프로바이더)
+     * 헤지가 꺼져 있거나 첫 프로바이더도 회로가 열려 있으면 null
+     */
+    private AnalysisProvider selectHedgeTarget(List<AnalysisProvider> order) {
+        if (!AnalysisConfig.isHedgeEnabled() || order.isEmpty()) {
+            return null;
+        }
+        if (order.size() > 1) {
+            AnalysisProvider next = order.get(1);
+            ProviderHealth.Snapshot snapshot = healthByProvider.get(next.getName()).snapshot();
+            if (routingTier(next.getName(), snapshot) == 0) {
+                return next;
+            }
+        }
+        AnalysisProvider first = order.get(0);
+        return ProviderGuard.forProvider(first.getName()).isCallPermitted() ? first : null;
+    }
+
+    /**
+     * 헤지 요청 전까지 기다릴 시간 (최근 성공 지연 시간의 백분위, 표본이 부족하면 -1)
+     */
+    private long hedgeDelayMs(AnalysisProvider provider) {
+        ProviderHealth health = healthByProvider.get(provider.getName());
+        long percentileMs = health.successPercentileMs(AnalysisConfig.getHedgePercentile(),
+            AnalysisConfig.getRouterMinSamples());
+        if (percentileMs < 0) {
+            return -1;
+        }
+        return Math.max(AnalysisConfig.getHedgeMinDelayMs(), percentileMs);
+    }
+
+    /**
+     * 현재 상태 기준 호출 순서
+     */
+    List<AnalysisProvider> rankProviders() {
+        Map<String, double[]> scores = new LinkedHashMap<>();
+        for (AnalysisProvider provider : providers) {
+            ProviderHealth.Snapshot snapshot = healthByProvider.get(provider.getName()).snapshot();
+            scores.put(provider.getName(), new double[] {
+                routingTier(provider.getName(), snapshot),
+                routingCost(provider.getName(), snapshot)
+            });
+        }
+
+        List<AnalysisProvider> order = new ArrayList<>(providers);
+        // 안정 정렬이므로 점수가 같으면 등록 순서(Anthropic → Gemini) 유지
+        order.sort(Comparator
+            .comparingDouble((AnalysisProvider p) -> scores.get(p.getName())[0])
+            .thenComparingDouble(p -> scores.get(p.getName())[1]));
+        return order;
+    }
+
+    /**
+     * 관리용 상태 조회 (호출 순서, 프로바이더별 지연 시간/오류율/가중치)
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+
+        List<String> order = new ArrayList<>();
+        for (AnalysisProvider provider : rankProviders()) {
+            order.add(provider.getName());
+        }
+        status.put("order", order);
+
+        Map<String, Object> providerStatus = new LinkedHashMap<>();
+        for (AnalysisProvider provider : providers) {
+            ProviderHealth.Snapshot snapshot = healthByProvider.get(provider.getName()).snapshot();
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("displayName", provider.getDisplayName());
+            entry.put("healthy", isHealthy(snapshot));
+            entry.put("weight", AnalysisConfig.getRouterWeight(provider.getName()));
+            entry.put("routingCost", routingCost(provider.getName(), snapshot));
+            entry.put("samples", snapshot.getSamples());
+            entry.put("errorRate", snapshot.getErrorRate());
+            entry.put("p50Ms", snapshot.getP50Ms());
+            entry.put("p95Ms", snapshot.getP95Ms());
+            entry.put("selected", AnalysisMetrics.get("router." + provider.getName() + ".selected"));
+            entry.put("failures", AnalysisMetrics.get("router." + provider.getName() + ".failure"));
+            entry.put("guard", ProviderGuard.forProvider(provider.getName()).getStatus());
+            providerStatus.put(provider.getName(), entry);
+        }
+        status.put("providers", providerStatus);
+        status.put("failovers", AnalysisMetrics.get("router.failover"));
+
+        Map<String, Object> hedgeStatus = new LinkedHashMap<>();
+        hedgeStatus.put("enabled", AnalysisConfig.isHedgeEnabled());
+        hedgeStatus.put("percentile", AnalysisConfig.getHedgePercentile());
+        hedgeStatus.put("maxRate", AnalysisConfig.getHedgeMaxRate());
+        hedgeStatus.put("fired", AnalysisMetrics.get("hedge.fired"));
+        hedgeStatus.put("won", AnalysisMetrics.get("hedge.won"));
+        hedgeStatus.put("lost", AnalysisMetrics.get("hedge.lost"));
+        hedgeStatus.put("rateCapped", AnalysisMetrics.get("hedge.rate_capped"));
+        status.put("hedge", hedgeStatus);
+        return status;
+    }
+
+    /**
+     * 순위 구간 (0: 정상, 1: 오류율 높음, 2: 회로 열림)
+     */
+    private int routingTier(String provider, ProviderHealth.Snapshot snapshot) {
+        if (!ProviderGuard.forProvider(provider).isCallPermitted()) {
+            return 2;
+        }
+        return isHealthy(snapshot) ? 0 : 1;
+    }
+
+    private boolean isHealthy(ProviderHealth.Snapshot snapshot) {
+        return snapshot.getSamples() < AnalysisConfig.getRouterMinSamples()
+            || snapshot.getErrorRate() < AnalysisConfig.getRouterMaxErrorRate();
+    }
+
+    private double routingCost(String provider, ProviderHealth.Snapshot snapshot) {
+        if (snapshot.getSamples() < AnalysisConfig.getRouterMinSamples()) {
+            return 0;
+        }
+        double weight = Math.max(0.01, AnalysisConfig.getRouterWeight(provider));
+        return snapshot.getP95Ms() * (1 + snapshot.getErrorRate() * ERROR_PENALTY) / weight;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 프로바이더 최근 호출 기록 (고정 크기 링 버퍼)
+     */
+    static class ProviderHealth {
+        private final long[] latencies;
+        private final boolean[] successes;
+        private int next = 0;
+        private int size = 0;
+
+        ProviderHealth(int windowSize) {
+            this.latencies = new long[Math.max(1, windowSize)];
+            this.successes = new boolean[latencies.length];
+        }
+
+        synchronized void record(long latencyMs, boolean success) {
+            latencies[next] = latencyMs;
+            successes[next] = success;
+            next = (next + 1) % latencies.length;
+            if (size < latencies.length) {
+                size++;
+            }
+        }
+
+        synchronized Snapshot snapshot() {
+            long[] successLatencies = new long[size];
+            int successCount = sortedSuccessLatencies(successLatencies);
+            double errorRate = size == 0 ? 0 : (double) (size - successCount) / size;
+            return new Snapshot(size, errorRate,
+                percentile(successLatencies, successCount, 0.50),
+                percentile(successLatencies, successCount, 0.95));
+        }
+
+        /**
+         * 성공한 호출의 지연 시간 백분위 (성공 표본이 minSamples보다 적으면 -1)
+         */
+        synchronized long successPercentileMs(double quantile, int minSamples) {
+            long[] successLatencies = new long[size];
+            int successCount = sortedSuccessLatencies(successLatencies);
+            if (successCount == 0 || successCount < minSamples) {
+                return -1;
+            }
+            return percentile(successLatencies, successCount, quantile);
+        }
+
+        private int sortedSuccessLatencies(long[] target) {
+            int successCount = 0;
+            for (int i = 0; i < size; i++) {
+                if (successes[i]) {
+                    target[successCount++] = latencies[i];
+                }
+            }
+            Arrays.sort(target, 0, successCount);
+            return successCount;
+        }
+
+        private static long percentile(long[] sorted, int count, double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, index))];
+        }
+
+        /**
+         * 집계 결과 (지연 시간은 성공한 호출 기준)
+         */
+        static class Snapshot {
+            private final int samples;
+            private final double errorRate;
+            private final long p50Ms;
+            private final long p95Ms;
+
+            Snapshot(int samples, double errorRate, long p50Ms, long p95Ms) {
+                this.samples = samples;
+                this.errorRate = errorRate;
+                this.p50Ms = p50Ms;
+                this.p95Ms = p95Ms;
+            }
+
+            int getSamples() { return samples; }
+            double getErrorRate() { return errorRate; }
+            long getP50Ms() { return p50Ms; }
+            long getP95Ms() { return p95Ms; }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.smhrd.service;
+
+/**
+ * 프로바이더를 지금 호출할 수 없음 (회로 차단 중이거나 동시 호출 한도 초과)
+ *
+ * 실제 API 호출 없이 즉시 발생하므로 재시도하지 않고 다른 프로바이더로 대체합니다.
+ */
+public class ProviderUnavailableException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String provider;
+
+    public ProviderUnavailableException(String provider, String message) {
+        super(message);
+        this.provider = provider;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+}
@@ -0,0 +1,182 @@
+package com.smhrd.service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 오류 분류 기반 재시도 정책
+ *
+ * - 오류를 분류기(Classifier)로 TRANSIENT / RATE_LIMITED / PERMANENT 로 나누어 PERMANENT는 재시도하지 않음
+ * - 대기 시간은 decorrelated jitter: min(최대 대기, random(기본 대기, 직전 대기 × 3))
+ * - Retry-After가 있으면 그 시간 이상 대기하고, 최대 대기보다 길면 재시도하지 않음 (다른 프로바이더로 대체)
+ * - 이름별 재시도 예산: 요청마다 budget_ratio 만큼 적립하고 재시도마다 1씩 사용하므로,
+ *   장애 시 전체 재시도량이 요청의 일정 비율(기본 10%)을 넘지 않아 재시도 폭주를 막음
+ *
+ * 지표: retry.{이름}.attempts, retry.{이름}.budget_exhausted, retry.{이름}.retry_after_too_long
+ */
+public class RetryPolicy {
+
+    /**
+     * 오류 분류
+     */
+    public enum ErrorType {
+        /** 일시적 오류 (타임아웃, 5xx, 연결 실패 등) */
+        TRANSIENT,
+        /** 요청 한도 초과 (429) - Retry-After를 우선 */
+        RATE_LIMITED,
+        /** 재시도해도 같은 결과 (4xx, 취소, 회로 차단 등) */
+        PERMANENT
+    }
+
+    /**
+     * 오류 분류기
+     */
+    public interface Classifier {
+        ErrorType classify(Exception e);
+    }
+
+    /**
+     * 호출자가 재시도 대상임을 직접 표시하는 오류 (예: 삽입 결과 0건)
+     */
+    public static class RetryableException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        public RetryableException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * LLM 프로바이더 호출 오류 분류
+     * 408/429/5xx(529 포함)와 네트워크 오류는 재시도, 그 외 4xx와 취소/회로 차단은 재시도하지 않음
+     */
+    public static final Classifier PROVIDER_ERRORS = e -> {
+        if (isCancellation(e) || e instanceof ProviderUnavailableException) {
+            return ErrorType.PERMANENT;
+        }
+        if (e instanceof ProviderHttpException) {
+            int status = ((ProviderHttpException) e).getStatusCode();
+            if (status == 429) {
+                return ErrorType.RATE_LIMITED;
+            }
+            return (status == 408 || status >= 500) ? ErrorType.TRANSIENT : ErrorType.PERMANENT;
+        }
+        if (e instanceof IOException || e instanceof RetryableException) {
+            return ErrorType.TRANSIENT;
+        }
+        return ErrorType.PERMANENT;
+    };
+
+    private static final Map<String, TokenBudget> BUDGETS = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final Classifier classifier;
+    private final TokenBudget budget;
+
+    /**
+     * @param name 정책 이름 (재시도 예산과 지표를 이 이름으로 공유)
+     * @param maxAttempts 최대 시도 횟수 (첫 시도 포함)
+     * @param baseDelayMs 기본 대기 시간 (밀리초)
+     * @param maxDelayMs 최대 대기 시간 (밀리초)
+     * @param classifier 오류 분류기
+     */
+    public RetryPolicy(String name, int maxAttempts, long baseDelayMs, long maxDelayMs, Classifier classifier) {
+        this.name = name;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = Math.max(1, baseDelayMs);
+        this.maxDelayMs = Math.max(this.baseDelayMs, maxDelayMs);
+        this.classifier = classifier;
+        this.budget = BUDGETS.computeIfAbsent(name, key -> new TokenBudget(
+            AnalysisConfig.getRetryBudgetRatio(), AnalysisConfig.getRetryBudgetMaxTokens()));
+    }
+
+    /**
+     * 재시도 정책을 적용하여 호출
+     * 재시도하지 않기로 한 시점의 마지막 오류를 그대로 던집니다.
+     */
+    public <T> T execute(Callable<T> call) throws Exception {
+        budget.deposit();
+        long previousDelayMs = baseDelayMs;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call();
+
+            } catch (Exception e) {
+                ErrorType type = classifier.classify(e);
+                if (type == ErrorType.PERMANENT || attempt >= maxAttempts) {
+                    throw e;
+                }
+
+                long retryAfterMs = retryAfterMs(e);
+                if (retryAfterMs > maxDelayMs) {
+                    AnalysisMetrics.increment("retry." + name + ".retry_after_too_long");
+                    System.err.println("[" + name + "] Retry-After(" + retryAfterMs + "ms)가 최대 대기 시간보다 길어 재시도하지 않습니다");
+                    throw e;
+                }
+                if (!budget.tryWithdraw()) {
+                    AnalysisMetrics.increment("retry." + name + ".budget_exhausted");
+                    System.err.println("[" + name + "] 재시도 예산 소진 - 재시도하지 않습니다: " + e.getMessage());
+                    throw e;
+                }
+
+                long delayMs = nextDelayMs(previousDelayMs);
+                if (retryAfterMs >= 0) {
+                    delayMs = Math.max(delayMs, retryAfterMs);
+                } else if (type == ErrorType.RATE_LIMITED) {
+                    // Retry-After 없는 429는 한 단계 더 길게 대기
+                    delayMs = Math.min(maxDelayMs, delayMs * 2);
+                }
+                previousDelayMs = delayMs;
+
+                AnalysisMetrics.increment("retry." + name + ".attempts");
+                System.out.println("[" + name + "] " + type + " 오류로 재시도 " + (attempt + 1) + "/" + maxAttempts
+                    + " (" + delayMs + "ms 대기): " + e.getMessage());
+                sleep(delayMs);
+            }
+        }
+    }
+
+    /**
+     * decorrelated jitter 대기 시간
+     */
+    private long nextDelayMs(long previousDelayMs) {
+        long upper = Math.max(baseDelayMs + 1, previousDelayMs * 3);
+        return Math.min(maxDelayMs, ThreadLocalRandom.current().nextLong(baseDelayMs, upper));
+    }
+
+    private static void sleep(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("재시도 대기 중 인터럽트 발생");
+        }
+    }
+
+    private static long retryAfterMs(Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ProviderHttpException) {
+                return ((ProviderHttpException) cause).getRetryAfterMs();
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isCancellation(Exception e) {
+        if (e instanceof CancellationException || e.getCause() instanceof CancellationException) {
+            return true;
+        }
+        AnalysisJob job = AnalysisJob.current();
+        return job != null && job.isCancelled();
+    }
+}
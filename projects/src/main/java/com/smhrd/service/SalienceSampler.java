@@ -0,0 +1,261 @@
+package com.smhrd.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 예산 안에서 중요한 메시지를 고르는 로컬 샘플러 (외부 호출 없음)
+ *
+ * 대화가 예산(토큰 또는 글자 수)을 넘으면 앞이나 뒤를 잘라내는 대신 메시지마다 중요도 점수를 매기고,
+ * 대화 기간을 여러 구간으로 나누어 구간마다 예산을 배정한 뒤 점수가 높은 메시지부터 고릅니다.
+ * 선택한 메시지는 시간 순서를 유지한 새 ConversationBuffer로 반환합니다.
+ *
+ * 점수 (각 0~1, 가중 합):
+ * - 최근성: 대화 기간 중 위치 (최근일수록 높음)
+ * - 답장: 화자가 바뀐 메시지의 답장 속도
+ * - 이모지: 글자 대비 이모지 비율 (이모티콘/스티커 메시지는 만점)
+ * - 질문: 물음표 포함 여부
+ * - 길이: 글자 수 (로그 스케일)
+ * - 키워드: analysis.sampling.keywords 포함 개수
+ * 구간 예산은 구간의 대화량에 비례하되 최근 구간일수록 최대 2배까지 더 배정하고, 남은 예산은 전체 점수 순으로 채웁니다.
+ */
+public class SalienceSampler {
+
+    private static final double RECENCY_WEIGHT = 0.25;
+    private static final double REPLY_WEIGHT = 0.2;
+    private static final double KEYWORD_WEIGHT = 0.2;
+    private static final double QUESTION_WEIGHT = 0.15;
+    private static final double EMOJI_WEIGHT = 0.1;
+    private static final double LENGTH_WEIGHT = 0.1;
+
+    // 답장 점수가 절반이 되는 답장 시간
+    private static final double HALF_SCORE_REPLY_MINUTES = 30.0;
+    // 이모지 점수 만점 기준 (글자 대비 비율)
+    private static final double FULL_SCORE_EMOJI_RATE = 0.3;
+    // 길이 점수 만점 기준 (글자 수)
+    private static final int FULL_SCORE_LENGTH = 100;
+    // 키워드 점수 만점 기준 (포함 개수)
+    private static final int FULL_SCORE_KEYWORDS = 2;
+
+    private final boolean enabled;
+    private final int strata;
+    private final List<String> keywords;
+
+    /**
+     * @param enabled false면 점수 없이 최근 메시지만 유지
+     * @param strata 대화 기간을 나누는 구간 수
+     * @param keywords 관심 키워드
+     */
+    public SalienceSampler(boolean enabled, int strata, List<String> keywords) {
+        this.enabled = enabled;
+        this.strata = Math.max(1, strata);
+        this.keywords = new ArrayList<>(keywords);
+    }
+
+    /**
+     * 설정(analysis.sampling.*) 기준 샘플러
+     */
+    public static SalienceSampler fromConfig() {
+        return new SalienceSampler(AnalysisConfig.isSamplingEnabled(), AnalysisConfig.getSamplingStrata(),
+            AnalysisConfig.getSamplingKeywords());
+    }
+
+    /**
+     * 메시지 비용: 정규화 텍스트 한 줄의 추정 토큰 수
+     */
+    public static IntUnaryOperator tokenCost(ConversationBuffer buffer, TokenEstimator estimator) {
+        StringBuilder line = new StringBuilder();
+        return index -> {
+            line.setLength(0);
+            buffer.appendMessageLine(line, index);
+            return estimator.estimate(line);
+        };
+    }
+
+    /**
+     * 메시지 비용: 정규화 텍스트 한 줄의 글자 수 (시각, 구분자 몫 포함)
+     */
+    public static IntUnaryOperator charCost(ConversationBuffer buffer) {
+        return index -> buffer.getTextLength(index) + buffer.getSpeakerName(index).length() + 8;
+    }
+
+    /**
+     * 예산 안에 들어가도록 메시지 선택
+     * @param buffer 전체 대화
+     * @param budget 예산 (cost와 같은 단위)
+     * @param cost 메시지 번호별 비용
+     * @return 예산 안이면 buffer 그대로, 넘으면 선택한 메시지만 담은 새 저장소 (최소 1개)
+     */
+    public ConversationBuffer sample(ConversationBuffer buffer, long budget, IntUnaryOperator cost) {
+        int size = buffer.size();
+        int[] costs = new int[size];
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            costs[i] = cost.applyAsInt(i);
+            total += costs[i];
+        }
+        if (total <= budget) {
+            return buffer;
+        }
+
+        int[] selected = enabled ? selectSalient(buffer, costs, budget) : selectRecent(costs, budget);
+        System.out.println("대화 샘플링 (" + (enabled ? "중요도" : "최근") + ") - 메시지 " + size + "개 중 "
+            + selected.length + "개 선택 (예산 " + budget + " / 전체 " + total + ")");
+        return buffer.select(selected);
+    }
+
+    /**
+     * 최근 메시지부터 예산까지 (샘플링 비활성화 시)
+     */
+    private static int[] selectRecent(int[] costs, long budget) {
+        int from = costs.length;
+        long spent = 0;
+        while (from > 0 && (spent + costs[from - 1] <= budget || from == costs.length)) {
+            spent += costs[--from];
+        }
+        int[] selected = new int[costs.length - from];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = from + i;
+        }
+        return selected;
+    }
+
+    /**
+     * 구간별 예산 배정 후 점수 순 선택
+     */
+    private int[] selectSalient(ConversationBuffer buffer, int[] costs, long budget) {
+        int size = costs.length;
+        double[] scores = score(buffer);
+
+        // 구간 나누기 (시각 기준, 모든 메시지의 시각이 같으면 순서 기준)
+        int strataCount = Math.min(strata, size);
+        long first = buffer.getEpochSecond(0);
+        long span = buffer.getEpochSecond(size - 1) - first;
+        int[] stratum = new int[size];
+        double[] weights = new double[strataCount];
+        for (int i = 0; i < size; i++) {
+            stratum[i] = span > 0
+                ? (int) Math.min(strataCount - 1, (buffer.getEpochSecond(i) - first) * strataCount / (span + 1))
+                : (int) ((long) i * strataCount / size);
+            weights[stratum[i]] += costs[i];
+        }
+        double weightSum = 0;
+        for (int s = 0; s < strataCount; s++) {
+            weights[s] *= 1.0 + (strataCount > 1 ? (double) s / (strataCount - 1) : 0);
+            weightSum += weights[s];
+        }
+        long[] allotments = new long[strataCount];
+        for (int s = 0; s < strataCount; s++) {
+            allotments[s] = (long) (budget * weights[s] / weightSum);
+        }
+
+        // 점수 내림차순 (같은 점수면 최근 메시지 먼저)
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = (Math.round(scores[i] * 1_000_000) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        boolean[] taken = new boolean[size];
+        long[] spent = new long[strataCount];
+        long totalSpent = 0;
+        int count = 0;
+        for (int k = size - 1; k >= 0; k--) {
+            int i = (int) order[k];
+            if (spent[stratum[i]] + costs[i] <= allotments[stratum[i]]) {
+                taken[i] = true;
+                spent[stratum[i]] += costs[i];
+                totalSpent += costs[i];
+                count++;
+            }
+        }
+        // 구간 예산을 다 못 쓴 몫은 전체 점수 순으로 채움
+        for (int k = size - 1; k >= 0 && totalSpent < budget; k--) {
+            int i = (int) order[k];
+            if (!taken[i] && totalSpent + costs[i] <= budget) {
+                taken[i] = true;
+                totalSpent += costs[i];
+                count++;
+            }
+        }
+        if (count == 0) {
+            taken[size - 1] = true;
+            count = 1;
+        }
+
+        int[] selected = new int[count];
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            if (taken[i]) {
+                selected[next++] = i;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 메시지별 중요도 점수 (0~1)
+     */
+    double[] score(ConversationBuffer buffer) {
+        int size = buffer.size();
+        double[] scores = new double[size];
+        long first = size > 0 ? buffer.getEpochSecond(0) : 0;
+        long span = size > 0 ? buffer.getEpochSecond(size - 1) - first : 0;
+
+        buffer.replay(0, size, new ChatExportParser.Listener() {
+            private int index;
+            private int previousSpeaker = -1;
+            private long previousTime;
+
+            @Override
+            public void onMessage(long epochSecond, int speaker, long textStart, long textEnd, CharSequence text) {
+                double recency = span > 0 ? (double) (epochSecond - first) / span
+                    : (size > 1 ? (double) index / (size - 1) : 1.0);
+
+                double reply = 0;
+                if (previousSpeaker >= 0 && speaker != previousSpeaker) {
+                    double minutes = Math.max(0, epochSecond - previousTime) / 60.0;
+                    reply = HALF_SCORE_REPLY_MINUTES / (HALF_SCORE_REPLY_MINUTES + minutes);
+                }
+
+                int characters = 0;
+                int emojis = 0;
+                boolean question = false;
+                for (int i = 0; i < text.length(); ) {
+                    int codePoint = Character.codePointAt(text, i);
+                    i += Character.charCount(codePoint);
+                    characters++;
+                    if (ConversationStatistics.isEmoji(codePoint)) {
+                        emojis++;
+                    } else if (codePoint == '?' || codePoint == '？') {
+                        question = true;
+                    }
+                }
+                double emoji = ConversationStatistics.isEmoticon(text) ? 1.0
+                    : Math.min(1.0, (double) emojis / Math.max(1, characters) / FULL_SCORE_EMOJI_RATE);
+                double length = Math.min(1.0, Math.log1p(characters) / Math.log1p(FULL_SCORE_LENGTH));
+
+                int hits = 0;
+                if (!keywords.isEmpty()) {
+                    String content = text.toString();
+                    for (String keyword : keywords) {
+                        if (content.contains(keyword)) {
+                            hits++;
+                        }
+                    }
+                }
+                double keyword = Math.min(1.0, (double) hits / FULL_SCORE_KEYWORDS);
+
+                scores[index++] = RECENCY_WEIGHT * recency + REPLY_WEIGHT * reply + KEYWORD_WEIGHT * keyword
+                    + QUESTION_WEIGHT * (question ? 1.0 : 0.0) + EMOJI_WEIGHT * emoji + LENGTH_WEIGHT * length;
+                previousSpeaker = speaker;
+                previousTime = epochSecond;
+            }
+        });
+        return scores;
+    }
+}
@@ -0,0 +1,119 @@
+package com.smhrd.service;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 동일 키 동시 호출 병합 (single-flight)
+ *
+ * 같은 키로 진행 중인 호출이 있으면 새로 실행하지 않고 진행 중인 호출의 결과를 함께 기다립니다.
+ * 먼저 들어온 호출(leader)만 실제로 실행하며, 완료되면 키를 제거하므로 결과를 보관하지는 않습니다.
+ * leader가 취소로 끝난 경우 대기하던 호출은 결과를 받지 못하므로 다시 leader 자리를 시도합니다.
+ *
+ * @param <T> 결과 타입
+ */
+public class SingleFlight<T> {
+
+    private final Map<String, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 실행 결과
+     */
+    public static class Outcome<T> {
+        private final T value;
+        private final boolean shared;
+
+        Outcome(T value, boolean shared) {
+            this.value = value;
+            this.shared = shared;
+        }
+
+        public T getValue() { return value; }
+
+        /**
+         * 다른 호출의 결과를 공유받았는지 여부 (같은 객체이므로 필요하면 복사해서 사용)
+         */
+        public boolean isShared() { return shared; }
+    }
+
+    /**
+     * 진행 중인 동일 호출에 합류할 때 호출되는 콜백
+     */
+    public interface JoinListener {
+        void onJoin(String key);
+    }
+
+    /**
+     * 키 단위로 병합하여 실행
+     * @param key 병합 키
+     * @param call 실제 호출 (leader만 실행)
+     * @param joinListener 진행 중인 호출에 합류할 때 알림 (null 가능)
+     */
+    public Outcome<T> execute(String key, Callable<T> call, JoinListener joinListener) throws Exception {
+        while (true) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            CompletableFuture<T> existing = inFlight.putIfAbsent(key, future);
+
+            if (existing == null) {
+                return new Outcome<>(lead(key, future, call), false);
+            }
+
+            if (joinListener != null) {
+                joinListener.onJoin(key);
+            }
+
+            try {
+                return new Outcome<>(existing.get(), true);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (isCancellation(cause)) {
+                    // leader가 취소됨: 이 호출이 다시 실행을 시도
+                    continue;
+                }
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private T lead(String key, CompletableFuture<T> future, Callable<T> call) throws Exception {
+        try {
+            T value = call.call();
+            future.complete(value);
+            return value;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw e;
+        } catch (Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 원인 체인에 취소 예외가 있는지 확인
+     */
+    private static boolean isCancellation(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof CancellationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 현재 진행 중인 호출 수
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,153 @@
+package com.smhrd.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+/**
+ * 스트리밍 응답용 JSON 섹션 증분 파서
+ *
+ * 모델 출력 텍스트를 조각 단위로 받아, 최상위 JSON 객체의 각 필드 값(객체/배열)이
+ * 닫히는 즉시 섹션 이름과 원문 JSON을 전달합니다.
+ * (예: "mainResults": {...} 가 닫히면 전체 응답을 기다리지 않고 바로 전달)
+ *
+ * 최상위 '{' 이전의 텍스트(```json 등)는 무시하며, 문자열 안의 괄호와
+ * 이스케이프 문자는 구조로 취급하지 않습니다. 이미 처리한 텍스트는 다시 훑지 않습니다.
+ */
+public class StreamingSectionParser {
+
+    /**
+     * 섹션 완료 알림
+     */
+    public interface SectionListener {
+        /**
+         * @param name 최상위 필드 이름 (예: mainResults)
+         * @param json 필드 값 원문 JSON (객체 또는 배열)
+         */
+        void onSection(String name, String json);
+    }
+
+    private final SectionListener listener;
+    private final StringBuilder buffer = new StringBuilder();
+
+    private int scanned = 0;          // buffer에서 이미 처리한 위치
+    private int depth = 0;            // 현재 괄호 깊이 (최상위 객체 안 = 1)
+    private boolean started = false;  // 최상위 '{'를 만났는지 여부
+    private boolean finished = false; // 최상위 객체가 닫혔는지 여부
+    private boolean inString = false;
+    private boolean escaped = false;
+
+    private int stringStart = -1;     // 깊이 1에서 시작한 문자열의 시작 위치
+    private String lastKey;           // 깊이 1에서 마지막으로 읽은 문자열 (필드 이름 후보)
+    private String currentKey;        // 값을 읽는 중인 필드 이름
+    private int valueStart = -1;      // 현재 필드 값의 시작 위치
+
+    /**
+     * @param listener 섹션 완료 알림 (null이면 텍스트 누적만 수행)
+     */
+    public StreamingSectionParser(SectionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 완성된 섹션을 분석 작업의 중간 결과로 전달하는 리스너
+     * (작업이 없으면 null 반환 → 텍스트 누적만 수행)
+     */
+    public static SectionListener jobPublisher(AnalysisJob job, Gson gson) {
+        if (job == null) {
+            return null;
+        }
+        return (name, json) -> {
+            try {
+                job.publishPartial(name, gson.fromJson(json, Object.class));
+                System.out.println("스트리밍 섹션 완료 - " + name + " (" + json.length() + "자)");
+            } catch (JsonSyntaxException e) {
+                System.err.println("스트리밍 섹션 파싱 실패 (" + name + "): " + e.getMessage());
+            }
+        };
+    }
+
+    /**
+     * 텍스트 조각 추가 후 새로 닫힌 섹션 전달
+     */
+    public void append(CharSequence fragment) {
+        if (finished || fragment == null || fragment.length() == 0) {
+            return;
+        }
+        buffer.append(fragment);
+
+        for (; scanned < buffer.length() && !finished; scanned++) {
+            char c = buffer.charAt(scanned);
+
+            if (!started) {
+                if (c == '{') {
+                    started = true;
+                    depth = 1;
+                }
+                continue;
+            }
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                    if (depth == 1 && stringStart >= 0) {
+                        lastKey = buffer.substring(stringStart, scanned);
+                        stringStart = -1;
+                    }
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"':
+                    inString = true;
+                    if (depth == 1) {
+                        stringStart = scanned + 1;
+                    }
+                    break;
+                case ':':
+                    if (depth == 1) {
+                        currentKey = lastKey;
+                    }
+                    break;
+                case '{':
+                case '[':
+                    if (depth == 1 && currentKey != null) {
+                        valueStart = scanned;
+                    }
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    depth--;
+                    if (depth == 1 && valueStart >= 0) {
+                        if (listener != null) {
+                            listener.onSection(currentKey, buffer.substring(valueStart, scanned + 1));
+                        }
+                        valueStart = -1;
+                        currentKey = null;
+                    } else if (depth == 0) {
+                        finished = true;
+                    }
+                    break;
+                case ',':
+                    if (depth == 1) {
+                        currentKey = null;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 지금까지 받은 전체 텍스트
+     */
+    public String getText() {
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package com.smhrd.service;
+
+/**
+ * 요청 비율 기반 추가 호출 예산 (토큰 버킷)
+ *
+ * 요청마다 ratio 만큼 적립(최대 maxTokens)하고 추가 호출(재시도, 헤지 요청)마다 1씩 사용하므로
+ * 추가 호출량이 요청의 일정 비율을 넘지 않습니다. 처음에는 가득 찬 상태로 시작합니다.
+ */
+class TokenBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    TokenBudget(double ratio, double maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    /**
+     * 요청 1건 적립
+     */
+    synchronized void deposit() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    /**
+     * 추가 호출 1건 사용 (예산이 부족하면 false)
+     */
+    synchronized boolean tryWithdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+}
@@ -0,0 +1,254 @@
+package com.smhrd.service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.smhrd.util.AnalysisConfig;
+
+/**
+ * 프로바이더별 토큰 수 추정기 (외부 토크나이저 없이 로컬에서 계산)
+ *
+ * 문자 종류(한글 음절, 한글 자모, ASCII, 공백, 기타)별 평균 토큰 비용으로 추정합니다.
+ * 한글은 토크나이저마다 ASCII와 비율이 크게 달라 글자 수 기준 자르기가 맞지 않으므로
+ * 프로바이더별 기본 비용을 두고(analysis.tokens.{provider}.{종류}로 변경 가능),
+ * 응답의 실제 입력 토큰 수와 비교하여 보정 계수를 계속 조정합니다.
+ * 최근 출력 토큰 수를 기록하여 요청의 max_tokens를 예상 출력 크기에 맞춥니다.
+ */
+public class TokenEstimator {
+
+    // 보정 계수 갱신 비율과 허용 범위
+    private static final double CORRECTION_ALPHA = 0.2;
+    private static final double MIN_CORRECTION = 0.5;
+    private static final double MAX_CORRECTION = 2.0;
+    // 이보다 짧은 프롬프트는 고정 오버헤드 비중이 커서 보정에 사용하지 않음
+    private static final int MIN_CALIBRATION_TOKENS = 200;
+
+    // 추정 오차를 감안하여 컨텍스트 창의 이 비율까지만 입력으로 사용
+    private static final double CONTEXT_FILL_RATIO = 0.9;
+    // 예상 출력(최근 p95) 대비 max_tokens 여유
+    private static final double OUTPUT_HEADROOM = 1.5;
+    private static final int OUTPUT_WINDOW = 50;
+    private static final int MIN_OUTPUT_SAMPLES = 5;
+
+    private static final Map<String, TokenEstimator> ESTIMATORS = new ConcurrentHashMap<>();
+
+    private final String provider;
+
+    // 문자 종류별 비용 (1/100 토큰 단위)
+    private final int hangulCost;
+    private final int jamoCost;
+    private final int asciiCost;
+    private final int spaceCost;
+    private final int otherCost;
+
+    private double correction = 1.0;
+    private final int[] recentOutputs = new int[OUTPUT_WINDOW];
+    private int outputNext = 0;
+    private int outputSize = 0;
+
+    private TokenEstimator(String provider) {
+        this.provider = provider;
+        // 기본값: Claude 토크나이저는 한글 음절당 1토큰 이상, Gemini(SentencePiece)는 그보다 적음
+        boolean gemini = "gemini".equals(provider);
+        this.hangulCost = cost(provider, "hangul", gemini ? 0.7 : 1.2);
+        this.jamoCost = cost(provider, "jamo", gemini ? 0.5 : 0.8);
+        this.asciiCost = cost(provider, "ascii", gemini ? 0.25 : 0.28);
+        this.spaceCost = cost(provider, "space", 0.25);
+        this.otherCost = cost(provider, "other", gemini ? 1.0 : 1.5);
+    }
+
+    /**
+     * 프로바이더용 추정기 조회 (최초 호출 시 생성)
+     */
+    public static TokenEstimator forProvider(String provider) {
+        return ESTIMATORS.computeIfAbsent(provider, TokenEstimator::new);
+    }
+
+    /**
+     * 텍스트의 토큰 수 추정
+     */
+    public int estimate(CharSequence text) {
+        return estimate(text, 0, text.length());
+    }
+
+    /**
+     * 텍스트 구간의 토큰 수 추정
+     */
+    public int estimate(CharSequence text, int start, int end) {
+        long cost = 0;
+        for (int i = start; i < end; i++) {
+            cost += charCost(text.charAt(i));
+        }
+        return toTokens(cost);
+    }
+
+    /**
+     * start부터 토큰 수가 maxTokens에 이르는 위치 (end를 넘지 않음, 최소 한 글자 진행)
+     */
+    public int advance(CharSequence text, int start, int end, int maxTokens) {
+        long limit = (long) Math.ceil(maxTokens * 100 / currentCorrection());
+        long cost = 0;
+        for (int i = start; i < end; i++) {
+            cost += charCost(text.charAt(i));
+            if (cost >= limit) {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * 최근 대화를 우선하여 maxTokens 안에 들어가도록 앞쪽(오래된) 줄부터 제외
+     */
+    public String keepRecent(String text, int maxTokens) {
+        if (estimate(text) <= maxTokens) {
+            return text;
+        }
+        long limit = (long) Math.floor(maxTokens * 100 / currentCorrection());
+        long cost = 0;
+        int keepFrom = text.length();
+        int cutAt = 0;
+        for (int i = text.length() - 1; i >= 0; i--) {
+            cost += charCost(text.charAt(i));
+            if (cost > limit) {
+                cutAt = i + 1;
+                break;
+            }
+            if (i == 0 || text.charAt(i - 1) == '\n') {
+                keepFrom = i;
+            }
+        }
+        if (keepFrom == text.length()) {
+            // 마지막 줄 하나가 예산보다 길면 줄 중간에서 자름
+            keepFrom = cutAt;
+        }
+        System.out.println("[" + provider + "] 프롬프트 예산 초과 - 앞쪽 " + keepFrom + "자 제외 (예산 " + maxTokens + "토큰)");
+        AnalysisMetrics.increment("tokens." + provider + ".trimmed");
+        return text.substring(keepFrom);
+    }
+
+    /**
+     * 윈도우 하나에 담을 대화 토큰 수
+     * 설정된 윈도우 크기를 사용하되, 템플릿과 출력 토큰을 더해 컨텍스트 창을 넘지 않도록 줄입니다.
+     */
+    public int windowBudget(int configuredWindowTokens, int contextWindow, int maxOutputTokens, CharSequence template) {
+        int available = inputBudget(contextWindow, maxOutputTokens) - estimate(template);
+        return Math.max(1, Math.min(configuredWindowTokens, available));
+    }
+
+    /**
+     * 프롬프트 전체에 사용할 수 있는 입력 토큰 수 (출력 토큰과 추정 오차 여유를 뺀 값)
+     */
+    public int inputBudget(int contextWindow, int maxOutputTokens) {
+        return Math.max(1, (int) (contextWindow * CONTEXT_FILL_RATIO) - maxOutputTokens);
+    }
+
+    /**
+     * 요청의 max_tokens 결정
+     * 최근 출력 토큰 수의 p95에 여유를 더한 값을 사용하고(표본이 부족하면 설정값),
+     * 설정값과 컨텍스트 창에 남은 토큰 수를 넘지 않게 합니다.
+     */
+    public int chooseMaxTokens(int promptTokens, int configuredMaxTokens, int contextWindow, int minOutputTokens) {
+        int target = configuredMaxTokens;
+        int expected = expectedOutputTokens();
+        if (expected > 0) {
+            target = Math.min(configuredMaxTokens, Math.max(minOutputTokens, (int) (expected * OUTPUT_HEADROOM)));
+        }
+        int remaining = contextWindow - promptTokens;
+        return Math.max(1, Math.min(target, remaining));
+    }
+
+    /**
+     * 응답의 실제 사용량으로 보정
+     * @param estimatedInputTokens 요청 전에 추정한 프롬프트 토큰 수
+     * @param actualInputTokens 응답에 포함된 입력 토큰 수 (없으면 0 이하)
+     * @param actualOutputTokens 응답에 포함된 출력 토큰 수 (없으면 0 이하, 출력이 잘렸으면 요청한 max_tokens)
+     */
+    public void recordUsage(int estimatedInputTokens, int actualInputTokens, int actualOutputTokens) {
+        synchronized (this) {
+            if (actualInputTokens > 0 && estimatedInputTokens >= MIN_CALIBRATION_TOKENS) {
+                double observed = correction * actualInputTokens / estimatedInputTokens;
+                correction = clamp(correction + CORRECTION_ALPHA * (observed - correction));
+            }
+            if (actualOutputTokens > 0) {
+                recentOutputs[outputNext] = actualOutputTokens;
+                outputNext = (outputNext + 1) % recentOutputs.length;
+                if (outputSize < recentOutputs.length) {
+                    outputSize++;
+                }
+            }
+        }
+        if (actualInputTokens > 0) {
+            System.out.println("[" + provider + "] 입력 토큰 추정 " + estimatedInputTokens + " / 실제 " + actualInputTokens
+                + " (보정 계수 " + String.format("%.3f", currentCorrection()) + ")");
+        }
+    }
+
+    /**
+     * 최근 출력 토큰 수의 p95 (표본이 부족하면 -1)
+     */
+    public synchronized int expectedOutputTokens() {
+        if (outputSize < MIN_OUTPUT_SAMPLES) {
+            return -1;
+        }
+        int[] sorted = Arrays.copyOf(recentOutputs, outputSize);
+        Arrays.sort(sorted);
+        return sorted[Math.min(outputSize - 1, (int) Math.ceil(0.95 * outputSize) - 1)];
+    }
+
+    /**
+     * 관리용 상태 (보정 계수, 예상 출력 토큰 수)
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("correction", currentCorrection());
+        status.put("expectedOutputTokens", expectedOutputTokens());
+        synchronized (this) {
+            status.put("outputSamples", outputSize);
+        }
+        return status;
+    }
+
+    /**
+     * 전체 프로바이더 추정기 상태
+     */
+    public static Map<String, Object> statusAll() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        for (Map.Entry<String, TokenEstimator> entry : ESTIMATORS.entrySet()) {
+            status.put(entry.getKey(), entry.getValue().getStatus());
+        }
+        return status;
+    }
+
+    private int toTokens(long cost) {
+        return (int) Math.ceil(cost * currentCorrection() / 100.0);
+    }
+
+    private synchronized double currentCorrection() {
+        return correction;
+    }
+
+    private int charCost(char c) {
+        if (c < 0x80) {
+            return (c == ' ' || c == '\n' || c == '\t' || c == '\r') ? spaceCost : asciiCost;
+        }
+        if (c >= 0xAC00 && c <= 0xD7A3) {
+            return hangulCost;
+        }
+        if (c >= 0x3131 && c <= 0x318E) {
+            // ㅋㅋ, ㅠㅠ 같은 자모 반복
+            return jamoCost;
+        }
+        return otherCost;
+    }
+
+    private static double clamp(double value) {
+        return Math.max(MIN_CORRECTION, Math.min(MAX_CORRECTION, value));
+    }
+
+    private static int cost(String provider, String kind, double defaultTokens) {
+        return (int) Math.round(AnalysisConfig.getTokenCost(provider, kind, defaultTokens) * 100);
+    }
+}
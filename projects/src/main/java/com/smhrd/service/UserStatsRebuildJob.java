@@ -0,0 +1,63 @@
+package com.smhrd.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.smhrd.model.AnalysisResultDAO;
+
+/**
+ * 사용자별 통계 요약(ANALYSIS_USER_STATS) 재계산 작업
+ *
+ * analysis_sessions에서 사용자마다 다시 집계하여 요약을 덮어씁니다. (사용자 1명당 짧은 트랜잭션 1개)
+ * 요약 테이블을 만든 뒤 기존 데이터를 채우거나, 요약이 어긋났을 때 보정하는 용도이며
+ * 여러 번 실행해도 결과는 같습니다. 트래픽이 적은 시간에 실행하세요.
+ *
+ * 실행 예 (배포된 WAR 기준):
+ * java -cp "WEB-INF/classes:WEB-INF/lib/*" com.smhrd.service.UserStatsRebuildJob [사용자ID ...]
+ * 사용자 ID를 지정하지 않으면 분석 결과가 있는 모든 사용자를 재계산하고 분석 결과가 없는 사용자의 요약은 삭제합니다.
+ */
+public class UserStatsRebuildJob {
+
+    private final AnalysisResultDAO resultDAO;
+
+    public UserStatsRebuildJob() {
+        this.resultDAO = new AnalysisResultDAO();
+    }
+
+    /**
+     * 모든 사용자 재계산
+     * @return 실패한 사용자 수
+     */
+    public int rebuildAll() {
+        long startTime = System.currentTimeMillis();
+        List<String> userIds = resultDAO.getStatsUserIds();
+        System.out.println("사용자 통계 요약 재계산 시작 - 대상 " + userIds.size() + "명");
+
+        int failed = rebuild(userIds);
+        int orphans = resultDAO.deleteOrphanUserStats();
+
+        System.out.println("사용자 통계 요약 재계산 완료 - 성공 " + (userIds.size() - failed) + "명, 실패 " + failed
+            + "명, 정리 " + orphans + "행 (" + (System.currentTimeMillis() - startTime) + "ms)");
+        return failed;
+    }
+
+    /**
+     * 지정한 사용자만 재계산
+     * @return 실패한 사용자 수
+     */
+    public int rebuild(List<String> userIds) {
+        int failed = 0;
+        for (String userId : userIds) {
+            if (!resultDAO.rebuildUserStats(userId)) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    public static void main(String[] args) {
+        UserStatsRebuildJob job = new UserStatsRebuildJob();
+        int failed = args.length > 0 ? job.rebuild(Arrays.asList(args)) : job.rebuildAll();
+        System.exit(failed > 0 ? 1 : 0);
+    }
+}
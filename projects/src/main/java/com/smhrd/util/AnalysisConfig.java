@@ -0,0 +1,485 @@
+package com.smhrd.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 분석 파이프라인 공통 설정 관리 클래스
+ *
+ * 프로바이더(Anthropic/Gemini)와 무관한 분석 실행 설정을 관리합니다.
+ * (청크 분할, 병렬 실행 스레드 수 등)
+ */
+public class AnalysisConfig {
+
+    private static final String CONFIG_FILE = "/config/analysis.properties";
+    private static Properties properties = new Properties();
+
+    // 싱글톤 패턴으로 설정 로드
+    static {
+        loadConfig();
+    }
+
+    /**
+     * 설정 파일 로드
+     */
+    private static void loadConfig() {
+        loadDefaultConfig();
+
+        try (InputStream inputStream = AnalysisConfig.class.getResourceAsStream(CONFIG_FILE)) {
+
+            if (inputStream != null) {
+                properties.load(inputStream);
+                System.out.println("분석 설정 파일 로드 완료: " + CONFIG_FILE);
+            } else {
+                System.out.println("분석 설정 파일이 없어 기본값을 사용합니다: " + CONFIG_FILE);
+            }
+
+        } catch (IOException e) {
+            System.err.println("분석 설정 파일 로드 실패: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 기본 설정 로드 (설정 파일에 없는 항목의 기본값)
+     */
+    private static void loadDefaultConfig() {
+        properties.setProperty("analysis.chunk.max_windows", "16");
+        properties.setProperty("analysis.chunk.max_concurrency_per_request", "4");
+        properties.setProperty("analysis.chunk.min_success_ratio", "0.5");
+        properties.setProperty("analysis.executor.threads", "8");
+        properties.setProperty("analysis.executor.queue_size", "64");
+        properties.setProperty("analysis.jobs.threads", "4");
+        properties.setProperty("analysis.jobs.queue_size", "100");
+        properties.setProperty("analysis.jobs.retention_minutes", "10");
+        properties.setProperty("analysis.jobs.sse_timeout_ms", "180000");
+        properties.setProperty("analysis.async.timeout_ms", "120000");
+        properties.setProperty("analysis.cache.enabled", "true");
+        properties.setProperty("analysis.cache.max_entries", "200");
+        properties.setProperty("analysis.cache.ttl_minutes", "1440");
+        properties.setProperty("analysis.cache.db_enabled", "false");
+        properties.setProperty("analysis.cache.purge_interval_minutes", "60");
+        properties.setProperty("analysis.response_cache.max_entries", "500");
+        properties.setProperty("analysis.user_stats.enabled", "false");
+        properties.setProperty("analysis.user_stats.cache_max_entries", "10000");
+        properties.setProperty("analysis.router.window_size", "50");
+        properties.setProperty("analysis.router.min_samples", "5");
+        properties.setProperty("analysis.router.max_error_rate", "0.5");
+        properties.setProperty("analysis.admin.token", "");
+        properties.setProperty("analysis.breaker.failure_threshold", "5");
+        properties.setProperty("analysis.breaker.open_ms", "30000");
+        properties.setProperty("analysis.breaker.half_open_max_calls", "1");
+        properties.setProperty("analysis.bulkhead.max_concurrent", "6");
+        properties.setProperty("analysis.bulkhead.max_wait_ms", "2000");
+        properties.setProperty("analysis.retry.max_delay_ms", "8000");
+        properties.setProperty("analysis.retry.budget_ratio", "0.1");
+        properties.setProperty("analysis.retry.budget_max_tokens", "10");
+        properties.setProperty("analysis.hedge.enabled", "false");
+        properties.setProperty("analysis.hedge.percentile", "0.95");
+        properties.setProperty("analysis.hedge.min_delay_ms", "1000");
+        properties.setProperty("analysis.hedge.max_rate", "0.05");
+        properties.setProperty("analysis.hedge.max_burst", "5");
+        properties.setProperty("analysis.tokens.min_output_tokens", "2048");
+        properties.setProperty("analysis.prompt.directory", "");
+        properties.setProperty("analysis.prompt.hot_reload", "true");
+        properties.setProperty("analysis.upload.max_bytes", "209715200");
+        properties.setProperty("analysis.upload.max_prompt_chars", "100000");
+        properties.setProperty("analysis.upload.spool_directory", "");
+        properties.setProperty("analysis.sampling.enabled", "true");
+        properties.setProperty("analysis.sampling.strata", "8");
+        properties.setProperty("analysis.sampling.keywords",
+            "좋아,보고 싶,보고싶,만나,데이트,주말,같이,영화,밥,카페,고마워,설레,사랑,연락,전화");
+    }
+
+    /**
+     * 설정 값 조회 (환경변수 > 시스템 프로퍼티 > 설정 파일 순)
+     * 환경변수 이름은 키의 '.'을 '_'로 바꾸고 대문자로 변환한 값 (예: ANALYSIS_EXECUTOR_THREADS)
+     */
+    private static String get(String key) {
+        String envKey = key.replace('.', '_').toUpperCase();
+
+        // 1. 환경변수에서 확인
+        String envValue = System.getenv(envKey);
+        if (envValue != null && !envValue.isEmpty()) {
+            return envValue;
+        }
+
+        // 2. 시스템 프로퍼티에서 확인
+        String sysValue = System.getProperty(key);
+        if (sysValue != null && !sysValue.isEmpty()) {
+            return sysValue;
+        }
+
+        // 3. 설정 파일에서 확인
+        return properties.getProperty(key);
+    }
+
+    /**
+     * 한 번의 분석에서 사용할 최대 청크(윈도우) 수
+     */
+    public static int getChunkMaxWindows() {
+        return Integer.parseInt(get("analysis.chunk.max_windows"));
+    }
+
+    /**
+     * 요청 1건당 동시에 진행할 수 있는 최대 프로바이더 호출 수
+     */
+    public static int getChunkMaxConcurrencyPerRequest() {
+        return Integer.parseInt(get("analysis.chunk.max_concurrency_per_request"));
+    }
+
+    /**
+     * 청크 분석 결과를 사용하기 위한 최소 윈도우 성공 비율 (0~1, 미달 시 분석 실패)
+     */
+    public static double getChunkMinSuccessRatio() {
+        return Double.parseDouble(get("analysis.chunk.min_success_ratio"));
+    }
+
+    /**
+     * 청크 분석 실행기 스레드 수
+     */
+    public static int getExecutorThreads() {
+        return Integer.parseInt(get("analysis.executor.threads"));
+    }
+
+    /**
+     * 청크 분석 실행기 대기열 크기
+     */
+    public static int getExecutorQueueSize() {
+        return Integer.parseInt(get("analysis.executor.queue_size"));
+    }
+
+    /**
+     * 비동기 분석 작업 실행 스레드 수
+     */
+    public static int getJobThreads() {
+        return Integer.parseInt(get("analysis.jobs.threads"));
+    }
+
+    /**
+     * 비동기 분석 작업 대기열 크기 (초과 시 요청 거절)
+     */
+    public static int getJobQueueSize() {
+        return Integer.parseInt(get("analysis.jobs.queue_size"));
+    }
+
+    /**
+     * 완료된 작업 보관 시간 (분)
+     */
+    public static int getJobRetentionMinutes() {
+        return Integer.parseInt(get("analysis.jobs.retention_minutes"));
+    }
+
+    /**
+     * 작업 진행 SSE 스트림 최대 유지 시간 (밀리초)
+     */
+    public static long getJobSseTimeoutMs() {
+        return Long.parseLong(get("analysis.jobs.sse_timeout_ms"));
+    }
+
+    /**
+     * mode=async 요청의 최대 응답 대기 시간 (밀리초, 초과 시 작업 취소)
+     */
+    public static long getAsyncTimeoutMs() {
+        return Long.parseLong(get("analysis.async.timeout_ms"));
+    }
+
+    /**
+     * 분석 결과 캐시 사용 여부
+     */
+    public static boolean isCacheEnabled() {
+        return Boolean.parseBoolean(get("analysis.cache.enabled"));
+    }
+
+    /**
+     * 메모리 캐시 최대 항목 수 (초과 시 가장 오래 사용하지 않은 항목 제거)
+     */
+    public static int getCacheMaxEntries() {
+        return Integer.parseInt(get("analysis.cache.max_entries"));
+    }
+
+    /**
+     * 캐시 유지 시간 (분)
+     */
+    public static int getCacheTtlMinutes() {
+        return Integer.parseInt(get("analysis.cache.ttl_minutes"));
+    }
+
+    /**
+     * DB 캐시(ANALYSIS_RESULT_CACHE 테이블) 사용 여부
+     */
+    public static boolean isCacheDbEnabled() {
+        return Boolean.parseBoolean(get("analysis.cache.db_enabled"));
+    }
+
+    /**
+     * 만료된 캐시 정리 주기 (분, 0 이하이면 기동 시에만 정리)
+     */
+    public static int getCachePurgeIntervalMinutes() {
+        return Integer.parseInt(get("analysis.cache.purge_interval_minutes"));
+    }
+
+    /**
+     * 결과 조회 응답(JSON) 캐시 최대 항목 수 (0이면 캐시하지 않음)
+     */
+    public static int getResponseCacheMaxEntries() {
+        return Integer.parseInt(get("analysis.response_cache.max_entries"));
+    }
+
+    /**
+     * 사용자별 통계 요약 테이블(ANALYSIS_USER_STATS) 사용 여부
+     * false면 대시보드 통계를 analysis_sessions 집계 쿼리로 계산
+     */
+    public static boolean isUserStatsEnabled() {
+        return Boolean.parseBoolean(get("analysis.user_stats.enabled"));
+    }
+
+    /**
+     * 메모리에 보관할 사용자별 통계 요약 최대 수
+     */
+    public static int getUserStatsCacheMaxEntries() {
+        return Integer.parseInt(get("analysis.user_stats.cache_max_entries"));
+    }
+
+    /**
+     * 프로바이더 라우팅 통계에 사용할 최근 호출 수 (프로바이더별)
+     */
+    public static int getRouterWindowSize() {
+        return Integer.parseInt(get("analysis.router.window_size"));
+    }
+
+    /**
+     * 라우팅 순위에 지연 시간/오류율을 반영하기 시작하는 최소 호출 수
+     */
+    public static int getRouterMinSamples() {
+        return Integer.parseInt(get("analysis.router.min_samples"));
+    }
+
+    /**
+     * 프로바이더를 비정상으로 보고 후순위로 보내는 오류율 (0~1)
+     */
+    public static double getRouterMaxErrorRate() {
+        return Double.parseDouble(get("analysis.router.max_error_rate"));
+    }
+
+    /**
+     * 프로바이더 라우팅 가중치 (analysis.router.weight.{provider}, 클수록 우선, 기본 1.0)
+     */
+    public static double getRouterWeight(String provider) {
+        String value = get("analysis.router.weight." + provider);
+        return (value != null && !value.isEmpty()) ? Double.parseDouble(value) : 1.0;
+    }
+
+    /**
+     * 회로 차단기를 여는 연속 실패 수
+     */
+    public static int getBreakerFailureThreshold() {
+        return Integer.parseInt(get("analysis.breaker.failure_threshold"));
+    }
+
+    /**
+     * 회로를 연 뒤 시험 호출까지 대기 시간 (밀리초)
+     */
+    public static long getBreakerOpenMs() {
+        return Long.parseLong(get("analysis.breaker.open_ms"));
+    }
+
+    /**
+     * HALF_OPEN 상태에서 허용할 시험 호출 수
+     */
+    public static int getBreakerHalfOpenMaxCalls() {
+        return Integer.parseInt(get("analysis.breaker.half_open_max_calls"));
+    }
+
+    /**
+     * 프로바이더별 최대 동시 호출 수 (analysis.bulkhead.max_concurrent.{provider}가 있으면 우선)
+     */
+    public static int getBulkheadMaxConcurrent(String provider) {
+        String value = get("analysis.bulkhead.max_concurrent." + provider);
+        return Integer.parseInt((value != null && !value.isEmpty()) ? value : get("analysis.bulkhead.max_concurrent"));
+    }
+
+    /**
+     * 동시 호출 한도 초과 시 빈 슬롯을 기다리는 최대 시간 (밀리초)
+     */
+    public static long getBulkheadMaxWaitMs() {
+        return Long.parseLong(get("analysis.bulkhead.max_wait_ms"));
+    }
+
+    /**
+     * 재시도 간 최대 대기 시간 (밀리초, Retry-After가 이보다 길면 재시도하지 않음)
+     */
+    public static long getRetryMaxDelayMs() {
+        return Long.parseLong(get("analysis.retry.max_delay_ms"));
+    }
+
+    /**
+     * 요청 1건당 적립되는 재시도 예산 (0.1이면 재시도량을 요청의 약 10%로 제한)
+     */
+    public static double getRetryBudgetRatio() {
+        return Double.parseDouble(get("analysis.retry.budget_ratio"));
+    }
+
+    /**
+     * 재시도 예산 최대 적립량 (유휴 후 몰아서 쓸 수 있는 재시도 수)
+     */
+    public static double getRetryBudgetMaxTokens() {
+        return Double.parseDouble(get("analysis.retry.budget_max_tokens"));
+    }
+
+    /**
+     * 헤지 요청 사용 여부 (응답이 늦으면 같은 분석을 한 번 더 요청)
+     */
+    public static boolean isHedgeEnabled() {
+        return Boolean.parseBoolean(get("analysis.hedge.enabled"));
+    }
+
+    /**
+     * 헤지 요청 시점 (첫 프로바이더의 최근 성공 지연 시간 백분위, 0.95면 p95)
+     */
+    public static double getHedgePercentile() {
+        return Double.parseDouble(get("analysis.hedge.percentile"));
+    }
+
+    /**
+     * 헤지 요청 전 최소 대기 시간 (밀리초)
+     */
+    public static long getHedgeMinDelayMs() {
+        return Long.parseLong(get("analysis.hedge.min_delay_ms"));
+    }
+
+    /**
+     * 요청 대비 헤지 요청 최대 비율 (비용 상한, 0.05면 약 5%)
+     */
+    public static double getHedgeMaxRate() {
+        return Double.parseDouble(get("analysis.hedge.max_rate"));
+    }
+
+    /**
+     * 한 번에 몰아서 보낼 수 있는 헤지 요청 수
+     */
+    public static double getHedgeMaxBurst() {
+        return Double.parseDouble(get("analysis.hedge.max_burst"));
+    }
+
+    /**
+     * 문자 종류별 토큰 비용 (analysis.tokens.{provider}.{종류}, 없으면 프로바이더 기본값)
+     * @param kind hangul, jamo, ascii, space, other
+     */
+    public static double getTokenCost(String provider, String kind, double defaultValue) {
+        String value = get("analysis.tokens." + provider + "." + kind);
+        return (value != null && !value.isEmpty()) ? Double.parseDouble(value) : defaultValue;
+    }
+
+    /**
+     * 예상 출력 크기로 max_tokens를 정할 때의 최소값
+     */
+    public static int getMinOutputTokens() {
+        return Integer.parseInt(get("analysis.tokens.min_output_tokens"));
+    }
+
+    /**
+     * 프롬프트 템플릿 디렉터리 (비어 있으면 클래스패스의 prompt_templates)
+     */
+    public static String getPromptDirectory() {
+        return get("analysis.prompt.directory");
+    }
+
+    /**
+     * 프롬프트 템플릿 파일 변경 시 자동으로 다시 읽을지 여부
+     */
+    public static boolean isPromptHotReload() {
+        return Boolean.parseBoolean(get("analysis.prompt.hot_reload"));
+    }
+
+    /**
+     * 업로드 대화 파일 최대 크기 (바이트)
+     */
+    public static long getUploadMaxBytes() {
+        return Long.parseLong(get("analysis.upload.max_bytes"));
+    }
+
+    /**
+     * 업로드 파일에서 분석 프롬프트에 넣을 대화의 최대 글자 수 (넘으면 중요 메시지 샘플링)
+     */
+    public static int getUploadMaxPromptChars() {
+        return Integer.parseInt(get("analysis.upload.max_prompt_chars"));
+    }
+
+    /**
+     * 업로드 파일을 임시 저장할 디렉터리 (비어 있으면 java.io.tmpdir)
+     */
+    public static String getUploadSpoolDirectory() {
+        return get("analysis.upload.spool_directory");
+    }
+
+    /**
+     * 대화가 예산을 넘을 때 중요 메시지 샘플링 사용 여부 (false면 최근 대화만 유지)
+     */
+    public static boolean isSamplingEnabled() {
+        return Boolean.parseBoolean(get("analysis.sampling.enabled"));
+    }
+
+    /**
+     * 샘플링 시 대화 기간을 나누는 구간 수 (구간마다 예산을 나누어 고르게 선택)
+     */
+    public static int getSamplingStrata() {
+        return Integer.parseInt(get("analysis.sampling.strata"));
+    }
+
+    /**
+     * 샘플링 점수에 반영할 관심 키워드 (쉼표 구분)
+     */
+    public static List<String> getSamplingKeywords() {
+        List<String> keywords = new ArrayList<>();
+        for (String keyword : get("analysis.sampling.keywords").split(",")) {
+            if (!keyword.trim().isEmpty()) {
+                keywords.add(keyword.trim());
+            }
+        }
+        return keywords;
+    }
+
+    /**
+     * 관리용 API 접근 토큰 (비어 있으면 로컬 접속만 허용)
+     */
+    public static String getAdminToken() {
+        return get("analysis.admin.token");
+    }
+
+    /**
+     * 설정 확인 및 출력 (디버그용)
+     */
+    public static void printConfig() {
+        System.out.println("=== 분석 파이프라인 설정 ===");
+        System.out.println("Chunk Max Windows: " + getChunkMaxWindows());
+        System.out.println("Chunk Max Concurrency / Request: " + getChunkMaxConcurrencyPerRequest());
+        System.out.println("Executor Threads: " + getExecutorThreads());
+        System.out.println("Executor Queue Size: " + getExecutorQueueSize());
+        System.out.println("Job Threads: " + getJobThreads());
+        System.out.println("Job Queue Size: " + getJobQueueSize());
+        System.out.println("Job Retention: " + getJobRetentionMinutes() + "분");
+        System.out.println("Job SSE Timeout: " + getJobSseTimeoutMs() + "ms");
+        System.out.println("Async Response Timeout: " + getAsyncTimeoutMs() + "ms");
+        System.out.println("Cache Enabled: " + isCacheEnabled() + " (DB: " + isCacheDbEnabled() + ")");
+        System.out.println("Cache Max Entries: " + getCacheMaxEntries());
+        System.out.println("Cache TTL: " + getCacheTtlMinutes() + "분");
+        System.out.println("Response Cache Max Entries: " + getResponseCacheMaxEntries());
+        System.out.println("User Stats Enabled / Cache Max Entries: " + isUserStatsEnabled() + " / "
+            + getUserStatsCacheMaxEntries());
+        System.out.println("Router Window / Min Samples: " + getRouterWindowSize() + " / " + getRouterMinSamples());
+        System.out.println("Router Max Error Rate: " + getRouterMaxErrorRate());
+        System.out.println("Breaker Threshold / Open: " + getBreakerFailureThreshold() + " / " + getBreakerOpenMs() + "ms");
+        System.out.println("Bulkhead Max Concurrent / Wait: " + get("analysis.bulkhead.max_concurrent") + " / " + getBulkheadMaxWaitMs() + "ms");
+        System.out.println("Retry Max Delay / Budget: " + getRetryMaxDelayMs() + "ms / " + getRetryBudgetRatio()
+            + " (최대 " + getRetryBudgetMaxTokens() + ")");
+        System.out.println("Hedge Enabled / Percentile / Max Rate: " + isHedgeEnabled() + " / "
+            + getHedgePercentile() + " / " + getHedgeMaxRate());
+        System.out.println("Upload Max Bytes / Prompt Chars: " + getUploadMaxBytes() + " / " + getUploadMaxPromptChars());
+        System.out.println("Sampling Enabled / Strata: " + isSamplingEnabled() + " / " + getSamplingStrata());
+        System.out.println("Admin Token: " + (getAdminToken().isEmpty() ? "설정되지 않음 (로컬 접속만 허용)" : "설정됨 (***)"));
+        System.out.println("============================");
+    }
+}
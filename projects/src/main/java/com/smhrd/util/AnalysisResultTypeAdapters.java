@@ -0,0 +1,425 @@
+package com.smhrd.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.smhrd.model.AnalysisResult;
+
+/**
+ * AnalysisResult 전용 Gson TypeAdapter 모음
+ *
+ * 모델 출력 JSON을 Map 트리를 거치지 않고 토큰 단위로 바로 AnalysisResult에 채웁니다.
+ * LLM 출력 특성상 숫자가 문자열("76", "76%")로 오거나 필드가 빠지는 경우가 있어
+ * 읽기는 관대하게 처리합니다.
+ * - 숫자 필드: 숫자/숫자 문자열 모두 허용, 변환할 수 없으면 기본값
+ * - 문자열 필드: 숫자/불리언도 문자열로 허용, 객체/배열이면 null
+ * - 목록 필드: 배열 대신 객체 하나가 오면 한 건짜리 목록으로 처리
+ * - 알 수 없는 필드는 건너뜀
+ * 누락 시 기본값은 기존 변환 로직과 같습니다
+ * (confidenceLevel = successRate × 0.8, 긍정 신호 confidence 3, 대표 메시지 confidence 85).
+ * 쓰기는 Gson 기본(리플렉션) 직렬화를 그대로 사용합니다.
+ */
+public class AnalysisResultTypeAdapters implements TypeAdapterFactory {
+
+    private static final int DEFAULT_SIGNAL_CONFIDENCE = 3;
+    private static final int DEFAULT_FAVORITE_CONFIDENCE = 85;
+    private static final double DEFAULT_CONFIDENCE_RATIO = 0.8;
+
+    /**
+     * GsonBuilder에 AnalysisResult 어댑터 등록
+     */
+    public static GsonBuilder register(GsonBuilder builder) {
+        return builder.registerTypeAdapterFactory(new AnalysisResultTypeAdapters());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+
+        if (rawType == AnalysisResult.class) {
+            return (TypeAdapter<T>) new ResultAdapter(gson, gson.getDelegateAdapter(this, (TypeToken<AnalysisResult>) type));
+        } else if (rawType == AnalysisResult.MainResults.class) {
+            return (TypeAdapter<T>) new MainResultsAdapter(gson.getDelegateAdapter(this, (TypeToken<AnalysisResult.MainResults>) type));
+        } else if (rawType == AnalysisResult.EmotionAnalysis.class) {
+            return (TypeAdapter<T>) new EmotionAdapter(gson.getDelegateAdapter(this, (TypeToken<AnalysisResult.EmotionAnalysis>) type));
+        } else if (rawType == AnalysisResult.InterestTrend.class) {
+            return (TypeAdapter<T>) new InterestTrendAdapter(gson.getDelegateAdapter(this, (TypeToken<AnalysisResult.InterestTrend>) type));
+        } else if (rawType == AnalysisResult.PositiveSignal.class) {
+            return (TypeAdapter<T>) new PositiveSignalAdapter(gson.getDelegateAdapter(this, (TypeToken<AnalysisResult.PositiveSignal>) type));
+        } else if (rawType == AnalysisResult.FavoriteMessage.class) {
+            return (TypeAdapter<T>) new FavoriteMessageAdapter(gson.getDelegateAdapter(this, (TypeToken<AnalysisResult.FavoriteMessage>) type));
+        } else if (rawType == AnalysisResult.CustomAdvice.class) {
+            return (TypeAdapter<T>) new CustomAdviceAdapter(gson.getDelegateAdapter(this, (TypeToken<AnalysisResult.CustomAdvice>) type));
+        } else if (rawType == AnalysisResult.ConversationGuide.class) {
+            return (TypeAdapter<T>) new ConversationGuideAdapter(gson.getDelegateAdapter(this, (TypeToken<AnalysisResult.ConversationGuide>) type));
+        }
+        return null;
+    }
+
+    /**
+     * 객체 읽기 공통 처리 (null/객체가 아닌 값은 null, 쓰기는 기본 직렬화에 위임)
+     */
+    private abstract static class ModelAdapter<T> extends TypeAdapter<T> {
+        private final TypeAdapter<T> delegate;
+
+        ModelAdapter(TypeAdapter<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            delegate.write(out, value);
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                return null;
+            }
+            T target = newInstance();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (!readField(in, name, target)) {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            complete(target);
+            return target;
+        }
+
+        abstract T newInstance();
+
+        /**
+         * 필드 하나 읽기
+         * @return 처리한 필드면 true (false면 값을 건너뜀)
+         */
+        abstract boolean readField(JsonReader in, String name, T target) throws IOException;
+
+        /**
+         * 모든 필드를 읽은 후 기본값 보정
+         */
+        void complete(T target) {
+        }
+    }
+
+    private static class ResultAdapter extends ModelAdapter<AnalysisResult> {
+        private final TypeAdapter<AnalysisResult.MainResults> mainAdapter;
+        private final TypeAdapter<AnalysisResult.EmotionAnalysis> emotionAdapter;
+        private final TypeAdapter<AnalysisResult.InterestTrend> trendAdapter;
+        private final TypeAdapter<AnalysisResult.PositiveSignal> signalAdapter;
+        private final TypeAdapter<AnalysisResult.FavoriteMessage> favoriteAdapter;
+        private final TypeAdapter<AnalysisResult.CustomAdvice> adviceAdapter;
+        private final TypeAdapter<AnalysisResult.ConversationGuide> guideAdapter;
+
+        ResultAdapter(Gson gson, TypeAdapter<AnalysisResult> delegate) {
+            super(delegate);
+            this.mainAdapter = gson.getAdapter(AnalysisResult.MainResults.class);
+            this.emotionAdapter = gson.getAdapter(AnalysisResult.EmotionAnalysis.class);
+            this.trendAdapter = gson.getAdapter(AnalysisResult.InterestTrend.class);
+            this.signalAdapter = gson.getAdapter(AnalysisResult.PositiveSignal.class);
+            this.favoriteAdapter = gson.getAdapter(AnalysisResult.FavoriteMessage.class);
+            this.adviceAdapter = gson.getAdapter(AnalysisResult.CustomAdvice.class);
+            this.guideAdapter = gson.getAdapter(AnalysisResult.ConversationGuide.class);
+        }
+
+        @Override
+        AnalysisResult newInstance() {
+            return new AnalysisResult();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, AnalysisResult target) throws IOException {
+            switch (name) {
+                case "sessionId": target.setSessionId(readString(in)); return true;
+                case "userId": target.setUserId(readString(in)); return true;
+                case "partnerName": target.setPartnerName(readString(in)); return true;
+                case "promptVersion": target.setPromptVersion(readString(in)); return true;
+                case "mainResults": target.setMainResults(mainAdapter.read(in)); return true;
+                case "emotionAnalysis": target.setEmotionAnalysis(emotionAdapter.read(in)); return true;
+                case "interestTrends": target.setInterestTrends(readList(in, trendAdapter)); return true;
+                case "positiveSignals": target.setPositiveSignals(readList(in, signalAdapter)); return true;
+                case "favoriteMessage": target.setFavoriteMessage(favoriteAdapter.read(in)); return true;
+                case "customAdvice": target.setCustomAdvice(readList(in, adviceAdapter)); return true;
+                case "conversationGuides": target.setConversationGuides(readList(in, guideAdapter)); return true;
+                default: return false;
+            }
+        }
+    }
+
+    private static class MainResultsAdapter extends ModelAdapter<AnalysisResult.MainResults> {
+        MainResultsAdapter(TypeAdapter<AnalysisResult.MainResults> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        AnalysisResult.MainResults newInstance() {
+            // 신뢰도 누락 여부를 구분하기 위해 NaN으로 시작
+            AnalysisResult.MainResults main = new AnalysisResult.MainResults();
+            main.setConfidenceLevel(Double.NaN);
+            return main;
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, AnalysisResult.MainResults target) throws IOException {
+            switch (name) {
+                case "successRate": target.setSuccessRate(readDouble(in, 0)); return true;
+                case "confidenceLevel": target.setConfidenceLevel(readDouble(in, Double.NaN)); return true;
+                case "relationshipStage": target.setRelationshipStage(readString(in)); return true;
+                case "summary": target.setSummary(readString(in)); return true;
+                case "heroInsight": target.setHeroInsight(readString(in)); return true;
+                default: return false;
+            }
+        }
+
+        @Override
+        void complete(AnalysisResult.MainResults target) {
+            if (Double.isNaN(target.getConfidenceLevel())) {
+                target.setConfidenceLevel(target.getSuccessRate() * DEFAULT_CONFIDENCE_RATIO);
+            }
+        }
+    }
+
+    private static class EmotionAdapter extends ModelAdapter<AnalysisResult.EmotionAnalysis> {
+        EmotionAdapter(TypeAdapter<AnalysisResult.EmotionAnalysis> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        AnalysisResult.EmotionAnalysis newInstance() {
+            return new AnalysisResult.EmotionAnalysis();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, AnalysisResult.EmotionAnalysis target) throws IOException {
+            switch (name) {
+                case "positive": target.setPositive(readDouble(in, 0)); return true;
+                case "neutral": target.setNeutral(readDouble(in, 0)); return true;
+                case "negative": target.setNegative(readDouble(in, 0)); return true;
+                default: return false;
+            }
+        }
+    }
+
+    private static class InterestTrendAdapter extends ModelAdapter<AnalysisResult.InterestTrend> {
+        InterestTrendAdapter(TypeAdapter<AnalysisResult.InterestTrend> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        AnalysisResult.InterestTrend newInstance() {
+            return new AnalysisResult.InterestTrend();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, AnalysisResult.InterestTrend target) throws IOException {
+            switch (name) {
+                case "date": target.setDate(readString(in)); return true;
+                case "value": target.setValue(readDouble(in, 0)); return true;
+                case "messageCount": target.setMessageCount(readInt(in, 0)); return true;
+                case "avgResponseTime": target.setAvgResponseTime(readDouble(in, 0)); return true;
+                case "emojiCount": target.setEmojiCount(readInt(in, 0)); return true;
+                default: return false;
+            }
+        }
+    }
+
+    private static class PositiveSignalAdapter extends ModelAdapter<AnalysisResult.PositiveSignal> {
+        PositiveSignalAdapter(TypeAdapter<AnalysisResult.PositiveSignal> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        AnalysisResult.PositiveSignal newInstance() {
+            AnalysisResult.PositiveSignal signal = new AnalysisResult.PositiveSignal();
+            signal.setConfidence(DEFAULT_SIGNAL_CONFIDENCE);
+            return signal;
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, AnalysisResult.PositiveSignal target) throws IOException {
+            switch (name) {
+                case "text": target.setText(readString(in)); return true;
+                case "description": target.setDescription(readString(in)); return true;
+                case "confidence": target.setConfidence(readInt(in, DEFAULT_SIGNAL_CONFIDENCE)); return true;
+                default: return false;
+            }
+        }
+    }
+
+    private static class FavoriteMessageAdapter extends ModelAdapter<AnalysisResult.FavoriteMessage> {
+        FavoriteMessageAdapter(TypeAdapter<AnalysisResult.FavoriteMessage> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        AnalysisResult.FavoriteMessage newInstance() {
+            AnalysisResult.FavoriteMessage message = new AnalysisResult.FavoriteMessage();
+            message.setConfidence(DEFAULT_FAVORITE_CONFIDENCE);
+            return message;
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, AnalysisResult.FavoriteMessage target) throws IOException {
+            switch (name) {
+                case "text": target.setText(readString(in)); return true;
+                case "confidence": target.setConfidence(readInt(in, DEFAULT_FAVORITE_CONFIDENCE)); return true;
+                case "date": target.setDate(readString(in)); return true;
+                case "reason": target.setReason(readString(in)); return true;
+                default: return false;
+            }
+        }
+    }
+
+    private static class CustomAdviceAdapter extends ModelAdapter<AnalysisResult.CustomAdvice> {
+        CustomAdviceAdapter(TypeAdapter<AnalysisResult.CustomAdvice> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        AnalysisResult.CustomAdvice newInstance() {
+            return new AnalysisResult.CustomAdvice();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, AnalysisResult.CustomAdvice target) throws IOException {
+            switch (name) {
+                case "title": target.setTitle(readString(in)); return true;
+                case "content": target.setContent(readString(in)); return true;
+                default: return false;
+            }
+        }
+    }
+
+    private static class ConversationGuideAdapter extends ModelAdapter<AnalysisResult.ConversationGuide> {
+        ConversationGuideAdapter(TypeAdapter<AnalysisResult.ConversationGuide> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        AnalysisResult.ConversationGuide newInstance() {
+            return new AnalysisResult.ConversationGuide();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, AnalysisResult.ConversationGuide target) throws IOException {
+            switch (name) {
+                case "type": target.setType(readString(in)); return true;
+                case "text": target.setText(readString(in)); return true;
+                case "timing": target.setTiming(readString(in)); return true;
+                case "context": target.setContext(readString(in)); return true;
+                default: return false;
+            }
+        }
+    }
+
+    // === 관대한 값 읽기 ===
+
+    /**
+     * 문자열 읽기 (숫자/불리언은 문자열로, 객체/배열/null은 null)
+     */
+    static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        switch (token) {
+            case STRING:
+            case NUMBER:
+                return in.nextString();
+            case BOOLEAN:
+                return String.valueOf(in.nextBoolean());
+            default:
+                in.skipValue();
+                return null;
+        }
+    }
+
+    /**
+     * 실수 읽기 (숫자 문자열 허용, "76%" 같은 단위 접미사 제거, 실패 시 기본값)
+     */
+    static double readDouble(JsonReader in, double defaultValue) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NUMBER) {
+            return in.nextDouble();
+        }
+        if (token != JsonToken.STRING) {
+            in.skipValue();
+            return defaultValue;
+        }
+        return parseNumber(in.nextString(), defaultValue);
+    }
+
+    /**
+     * 정수 읽기 (실수는 소수점 이하 버림, 숫자 문자열 허용, 실패 시 기본값)
+     */
+    static int readInt(JsonReader in, int defaultValue) throws IOException {
+        double value = readDouble(in, Double.NaN);
+        return Double.isNaN(value) ? defaultValue : (int) value;
+    }
+
+    /**
+     * 목록 읽기 (배열 대신 단일 객체가 오면 한 건짜리 목록, null 요소는 제외)
+     */
+    static <E> List<E> readList(JsonReader in, TypeAdapter<E> elementAdapter) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.BEGIN_OBJECT) {
+            List<E> single = new ArrayList<>(1);
+            E element = elementAdapter.read(in);
+            if (element != null) {
+                single.add(element);
+            }
+            return single;
+        }
+        if (token != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+
+        List<E> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            E element = elementAdapter.read(in);
+            if (element != null) {
+                list.add(element);
+            }
+        }
+        in.endArray();
+        return list;
+    }
+
+    private static double parseNumber(String text, double defaultValue) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        // 숫자 뒤의 단위(%, 점, 분 등)는 무시
+        int numberEnd = start;
+        while (numberEnd < end) {
+            char c = text.charAt(numberEnd);
+            if ((c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E') {
+                numberEnd++;
+            } else {
+                break;
+            }
+        }
+        if (numberEnd == start) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(text.substring(start, numberEnd));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
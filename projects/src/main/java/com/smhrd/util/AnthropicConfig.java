@@ -47,6 +47,10 @@ public class AnthropicConfig {
         return Integer.parseInt(properties.getProperty("anthropic.max_tokens", "4096"));
     }
     
+    public int getContextWindow() {
+        return Integer.parseInt(properties.getProperty("anthropic.context_window", "200000"));
+    }
+    
     public int getConnectTimeout() {
         return Integer.parseInt(properties.getProperty("anthropic.timeout.connect", "15000"));
     }
@@ -54,4 +58,20 @@ public class AnthropicConfig {
     public int getReadTimeout() {
         return Integer.parseInt(properties.getProperty("anthropic.timeout.read", "60000"));
     }
-}
\ No newline at end of file
+    
+    public int getChunkWindowTokens() {
+        return Integer.parseInt(properties.getProperty("anthropic.chunk.window_tokens", "6000"));
+    }
+    
+    public boolean isStreamEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("anthropic.stream.enabled", "true"));
+    }
+    
+    public int getRetryMaxAttempts() {
+        return Integer.parseInt(properties.getProperty("anthropic.retry.max_attempts", "2"));
+    }
+    
+    public long getRetryDelayMs() {
+        return Long.parseLong(properties.getProperty("anthropic.retry.delay_ms", "1000"));
+    }
+}
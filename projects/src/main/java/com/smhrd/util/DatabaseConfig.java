@@ -0,0 +1,247 @@
+package com.smhrd.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * 데이터베이스 연결 및 커넥션 풀 설정 관리 클래스
+ *
+ * SqlSessionManager가 MyBatis Environment(트랜잭션 + 데이터 소스)를 코드로 구성할 때 사용합니다.
+ * 접속 정보, 풀 구현(db.pool.factory)과 크기, 누수 감지, 검증 쿼리, Oracle 드라이버 튜닝
+ * (암시적 문장 캐시, 행 프리페치)을 설정 파일과 환경변수로 바꿀 수 있습니다.
+ * 접속 정보(db.url, db.username, db.password)는 기본값이 없으며 없으면 기동 시 바로 실패합니다.
+ */
+public class DatabaseConfig {
+
+    private static final String CONFIG_FILE = "/config/database.properties";
+    private static Properties properties = new Properties();
+
+    // Oracle 드라이버 연결 속성 이름 (oracle.jdbc.OracleConnection 상수와 같은 값)
+    private static final String ORACLE_IMPLICIT_STATEMENT_CACHE_SIZE = "oracle.jdbc.implicitStatementCacheSize";
+    private static final String ORACLE_DEFAULT_ROW_PREFETCH = "defaultRowPrefetch";
+
+    // 싱글톤 패턴으로 설정 로드
+    static {
+        loadConfig();
+    }
+
+    /**
+     * 설정 파일 로드
+     */
+    private static void loadConfig() {
+        loadDefaultConfig();
+
+        try (InputStream inputStream = DatabaseConfig.class.getResourceAsStream(CONFIG_FILE)) {
+
+            if (inputStream != null) {
+                properties.load(inputStream);
+                System.out.println("데이터베이스 설정 파일 로드 완료: " + CONFIG_FILE);
+            } else {
+                System.out.println("데이터베이스 설정 파일이 없어 기본값을 사용합니다: " + CONFIG_FILE);
+            }
+
+        } catch (IOException e) {
+            System.err.println("데이터베이스 설정 파일 로드 실패: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 기본 설정 로드 (설정 파일에 없는 항목의 기본값, 접속 정보 제외)
+     */
+    private static void loadDefaultConfig() {
+        properties.setProperty("db.driver", "oracle.jdbc.driver.OracleDriver");
+        properties.setProperty("db.pool.factory", "hikari");
+        properties.setProperty("db.pool.min_idle", "2");
+        properties.setProperty("db.pool.max_size", "10");
+        properties.setProperty("db.pool.connection_timeout_ms", "10000");
+        properties.setProperty("db.pool.idle_timeout_ms", "600000");
+        properties.setProperty("db.pool.max_lifetime_ms", "1800000");
+        properties.setProperty("db.pool.leak_detection_ms", "60000");
+        properties.setProperty("db.pool.validation_timeout_ms", "3000");
+        properties.setProperty("db.pool.validation_query", "");
+        properties.setProperty("db.oracle.statement_cache_size", "50");
+        properties.setProperty("db.oracle.row_prefetch", "100");
+    }
+
+    /**
+     * 설정 값 조회 (환경변수 > 시스템 프로퍼티 > 설정 파일 순)
+     * 환경변수 이름은 키의 '.'을 '_'로 바꾸고 대문자로 변환한 값 (예: DB_POOL_MAX_SIZE)
+     */
+    private static String get(String key) {
+        String envKey = key.replace('.', '_').toUpperCase();
+
+        // 1. 환경변수에서 확인
+        String envValue = System.getenv(envKey);
+        if (envValue != null && !envValue.isEmpty()) {
+            return envValue;
+        }
+
+        // 2. 시스템 프로퍼티에서 확인
+        String sysValue = System.getProperty(key);
+        if (sysValue != null && !sysValue.isEmpty()) {
+            return sysValue;
+        }
+
+        // 3. 설정 파일에서 확인
+        return properties.getProperty(key);
+    }
+
+    /**
+     * 필수 접속 정보 확인 (데이터 소스 생성 전 호출)
+     * @throws IllegalStateException db.url, db.username, db.password 중 설정 파일, 시스템 프로퍼티, 환경변수
+     *                               어디에도 없는 항목이 있는 경우
+     */
+    public static void requireConnectionSettings() {
+        StringBuilder missing = new StringBuilder();
+        for (String key : new String[] {"db.url", "db.username", "db.password"}) {
+            String value = get(key);
+            if (value == null || value.trim().isEmpty()) {
+                if (missing.length() > 0) {
+                    missing.append(", ");
+                }
+                missing.append(key).append(" (").append(key.replace('.', '_').toUpperCase()).append(")");
+            }
+        }
+        if (missing.length() > 0) {
+            throw new IllegalStateException("데이터베이스 접속 정보가 설정되지 않았습니다: " + missing
+                + " - " + CONFIG_FILE + ", 시스템 프로퍼티 또는 환경변수로 지정하세요.");
+        }
+    }
+
+    public static String getDriver() {
+        return get("db.driver");
+    }
+
+    public static String getUrl() {
+        return get("db.url");
+    }
+
+    public static String getUsername() {
+        return get("db.username");
+    }
+
+    public static String getPassword() {
+        return get("db.password");
+    }
+
+    /**
+     * 커넥션 풀 구현: hikari, pooled(MyBatis 내장), unpooled,
+     * 또는 org.apache.ibatis.datasource.DataSourceFactory 구현 클래스의 전체 이름
+     */
+    public static String getPoolFactory() {
+        return get("db.pool.factory").trim();
+    }
+
+    /**
+     * 항상 유지할 최소 유휴 커넥션 수
+     */
+    public static int getPoolMinIdle() {
+        return Integer.parseInt(get("db.pool.min_idle"));
+    }
+
+    /**
+     * 최대 커넥션 수 (사용 중 + 유휴)
+     */
+    public static int getPoolMaxSize() {
+        return Integer.parseInt(get("db.pool.max_size"));
+    }
+
+    /**
+     * 커넥션을 얻기 위해 기다리는 최대 시간 (밀리초, 초과 시 SQLException)
+     */
+    public static long getPoolConnectionTimeoutMs() {
+        return Long.parseLong(get("db.pool.connection_timeout_ms"));
+    }
+
+    /**
+     * 최소 유휴 수를 넘는 유휴 커넥션을 닫기까지의 시간 (밀리초)
+     */
+    public static long getPoolIdleTimeoutMs() {
+        return Long.parseLong(get("db.pool.idle_timeout_ms"));
+    }
+
+    /**
+     * 커넥션 최대 수명 (밀리초, DB/방화벽의 연결 종료 시간보다 짧게)
+     */
+    public static long getPoolMaxLifetimeMs() {
+        return Long.parseLong(get("db.pool.max_lifetime_ms"));
+    }
+
+    /**
+     * 커넥션을 이 시간 넘게 반환하지 않으면 누수로 보고 경고 로그 (밀리초, 0이면 사용 안 함)
+     */
+    public static long getPoolLeakDetectionMs() {
+        return Long.parseLong(get("db.pool.leak_detection_ms"));
+    }
+
+    /**
+     * 커넥션 검증 최대 시간 (밀리초)
+     */
+    public static long getPoolValidationTimeoutMs() {
+        return Long.parseLong(get("db.pool.validation_timeout_ms"));
+    }
+
+    /**
+     * 커넥션 검증 쿼리 (비어 있으면 JDBC4 Connection.isValid 사용, Oracle에서 가장 빠름)
+     */
+    public static String getPoolValidationQuery() {
+        String query = get("db.pool.validation_query");
+        return query != null ? query.trim() : "";
+    }
+
+    /**
+     * Oracle 암시적 문장 캐시 크기 (커넥션당 PreparedStatement 수, 0이면 사용 안 함)
+     */
+    public static int getOracleStatementCacheSize() {
+        return Integer.parseInt(get("db.oracle.statement_cache_size"));
+    }
+
+    /**
+     * Oracle 행 프리페치 수 (조회 시 한 번의 왕복으로 가져오는 행 수, 드라이버 기본값 10)
+     */
+    public static int getOracleRowPrefetch() {
+        return Integer.parseInt(get("db.oracle.row_prefetch"));
+    }
+
+    public static boolean isOracle() {
+        String url = getUrl();
+        return url != null && url.startsWith("jdbc:oracle:");
+    }
+
+    /**
+     * JDBC 드라이버에 전달할 연결 속성 (Oracle이면 문장 캐시, 행 프리페치)
+     */
+    public static Properties getDriverProperties() {
+        Properties driverProperties = new Properties();
+        if (isOracle()) {
+            int cacheSize = getOracleStatementCacheSize();
+            if (cacheSize > 0) {
+                driverProperties.setProperty(ORACLE_IMPLICIT_STATEMENT_CACHE_SIZE, String.valueOf(cacheSize));
+            }
+            int rowPrefetch = getOracleRowPrefetch();
+            if (rowPrefetch > 0) {
+                driverProperties.setProperty(ORACLE_DEFAULT_ROW_PREFETCH, String.valueOf(rowPrefetch));
+            }
+        }
+        return driverProperties;
+    }
+
+    /**
+     * 설정 확인 및 출력 (디버그용)
+     */
+    public static void printConfig() {
+        System.out.println("=== 데이터베이스 설정 ===");
+        System.out.println("URL: " + getUrl());
+        System.out.println("Username: " + getUsername());
+        System.out.println("Password: " + (getPassword() == null || getPassword().isEmpty() ? "설정되지 않음" : "설정됨 (***)"));
+        System.out.println("Pool Factory: " + getPoolFactory());
+        System.out.println("Pool Min Idle / Max Size: " + getPoolMinIdle() + " / " + getPoolMaxSize());
+        System.out.println("Pool Connection Timeout / Leak Detection: " + getPoolConnectionTimeoutMs() + "ms / "
+            + getPoolLeakDetectionMs() + "ms");
+        System.out.println("Pool Validation Query: "
+            + (getPoolValidationQuery().isEmpty() ? "(JDBC4 isValid)" : getPoolValidationQuery()));
+        System.out.println("Driver Properties: " + getDriverProperties());
+        System.out.println("========================");
+    }
+}
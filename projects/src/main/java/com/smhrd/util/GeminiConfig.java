@@ -50,10 +50,13 @@ public class GeminiConfig {
         properties.setProperty("gemini.top_k", "1");
         properties.setProperty("gemini.top_p", "0.8");
         properties.setProperty("gemini.max_output_tokens", "8192");
+        properties.setProperty("gemini.context_window", "1048576");
         properties.setProperty("gemini.retry.max_attempts", "3");
         properties.setProperty("gemini.retry.delay_ms", "1000");
         properties.setProperty("gemini.timeout.connect", "10000");
         properties.setProperty("gemini.timeout.read", "30000");
+        properties.setProperty("gemini.chunk.window_tokens", "2000");
+        properties.setProperty("gemini.stream.enabled", "true");
     }
     
     /**
@@ -111,6 +114,13 @@ public class GeminiConfig {
         return Integer.parseInt(properties.getProperty("gemini.max_output_tokens", "8192"));
     }
     
+    /**
+     * 모델 컨텍스트 창 크기 가져오기 (프롬프트 + 출력 토큰 상한)
+     */
+    public static int getContextWindow() {
+        return Integer.parseInt(properties.getProperty("gemini.context_window", "1048576"));
+    }
+    
     /**
      * 최대 재시도 횟수 가져오기
      */
@@ -139,6 +149,28 @@ public class GeminiConfig {
         return Integer.parseInt(properties.getProperty("gemini.timeout.read", "30000"));
     }
     
+    /**
+     * 청크 분석 윈도우 크기 가져오기 (토큰)
+     * 2.5 모델의 thinking token 문제로 윈도우를 작게 유지
+     */
+    public static int getChunkWindowTokens() {
+        return Integer.parseInt(properties.getProperty("gemini.chunk.window_tokens", "2000"));
+    }
+    
+    /**
+     * 스트리밍 응답(streamGenerateContent) 사용 여부
+     */
+    public static boolean isStreamEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("gemini.stream.enabled", "true"));
+    }
+    
+    /**
+     * 스트리밍 API URL (generateContent → streamGenerateContent, SSE 형식)
+     */
+    public static String getStreamApiUrl() {
+        return getApiUrl().replace(":generateContent", ":streamGenerateContent");
+    }
+    
     /**
      * 설정 확인 및 출력 (디버그용)
      */
@@ -150,10 +182,13 @@ public class GeminiConfig {
         System.out.println("Top K: " + getTopK());
         System.out.println("Top P: " + getTopP());
         System.out.println("Max Output Tokens: " + getMaxOutputTokens());
+        System.out.println("Context Window: " + getContextWindow());
         System.out.println("Max Retry Attempts: " + getMaxRetryAttempts());
         System.out.println("Retry Delay: " + getRetryDelayMs() + "ms");
         System.out.println("Connect Timeout: " + getConnectTimeout() + "ms");
         System.out.println("Read Timeout: " + getReadTimeout() + "ms");
+        System.out.println("Chunk Window Tokens: " + getChunkWindowTokens());
+        System.out.println("Stream Enabled: " + isStreamEnabled());
         System.out.println("========================");
     }
 }
@@ -0,0 +1,179 @@
+package com.smhrd.util;
+
+import java.io.Reader;
+import java.lang.reflect.Type;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * LLM 응답 텍스트에서 JSON 객체 추출
+ *
+ * 응답 전체를 한 번만 훑어 처음으로 균형이 맞는 최상위 JSON 객체의 범위를 찾습니다.
+ * ```json 같은 코드 펜스 표시는 건너뛰고, 문자열 안의 중괄호와 이스케이프 문자는
+ * 구조로 취급하지 않습니다. 찾은 범위는 부분 문자열로 복사하지 않고
+ * Reader로 감싸 Gson의 JsonReader에 바로 전달합니다.
+ */
+public class JsonExtractor {
+
+    private JsonExtractor() {
+    }
+
+    /**
+     * 추출된 JSON 범위 [start, end)
+     */
+    public static class Span {
+        private final int start;
+        private final int end;
+
+        Span(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getStart() { return start; }
+        public int getEnd() { return end; }
+
+        public int length() {
+            return end - start;
+        }
+    }
+
+    /**
+     * 첫 번째 최상위 JSON 객체 범위 찾기
+     * @return 객체 범위 (균형 맞는 객체가 없으면 null)
+     */
+    public static Span find(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+
+        int length = text.length();
+        int depth = 0;
+        int start = -1;
+        boolean inString = false;
+        boolean escaped = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+
+            // 코드 펜스(```json 등)는 줄 끝까지 건너뜀
+            // 객체를 읽는 중에 펜스가 나오면 앞의 '{'는 설명문의 일부였으므로 다시 시작
+            if (!inString && c == '`' && isFence(text, i)) {
+                depth = 0;
+                start = -1;
+                i += 3;
+                while (i < length && text.charAt(i) != '\n' && text.charAt(i) != '{') {
+                    i++;
+                }
+                i--;
+                continue;
+            }
+
+            if (depth == 0) {
+                if (c == '{') {
+                    start = i;
+                    depth = 1;
+                }
+                continue;
+            }
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+                if (depth == 0) {
+                    return new Span(start, i + 1);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isFence(CharSequence text, int index) {
+        return index + 2 < text.length()
+            && text.charAt(index + 1) == '`'
+            && text.charAt(index + 2) == '`';
+    }
+
+    /**
+     * 응답 텍스트에서 JSON 객체를 찾아 바로 변환
+     * @throws JsonParseException JSON 객체가 없거나 구문이 올바르지 않은 경우
+     */
+    public static <T> T parse(CharSequence text, Gson gson, Type type) {
+        Span span = find(text);
+        if (span == null) {
+            throw new JsonParseException("응답에서 유효한 JSON을 찾을 수 없습니다. 응답 길이: "
+                + (text != null ? text.length() : 0));
+        }
+        return parse(text, span, gson, type);
+    }
+
+    /**
+     * 이미 찾은 범위의 JSON 변환
+     */
+    public static <T> T parse(CharSequence text, Span span, Gson gson, Type type) {
+        JsonReader reader = gson.newJsonReader(new SliceReader(text, span.getStart(), span.getEnd()));
+        return gson.fromJson(reader, type);
+    }
+
+    /**
+     * 범위의 앞부분 미리보기 (로그용)
+     */
+    public static String preview(CharSequence text, Span span, int maxChars) {
+        int end = Math.min(span.getEnd(), span.getStart() + maxChars);
+        String head = text.subSequence(span.getStart(), end).toString();
+        return end < span.getEnd() ? head + "..." : head;
+    }
+
+    /**
+     * CharSequence 일부를 복사 없이 읽는 Reader
+     */
+    private static class SliceReader extends Reader {
+        private final CharSequence text;
+        private final int end;
+        private int position;
+
+        SliceReader(CharSequence text, int start, int end) {
+            this.text = text;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position >= end) {
+                return -1;
+            }
+            int count = Math.min(length, end - position);
+            if (text instanceof String) {
+                ((String) text).getChars(position, position + count, buffer, offset);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    buffer[offset + i] = text.charAt(position + i);
+                }
+            }
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            position = end;
+        }
+    }
+}
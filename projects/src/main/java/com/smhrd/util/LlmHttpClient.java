@@ -0,0 +1,495 @@
+package com.smhrd.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpTimeoutException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * LLM 프로바이더 공용 HTTP 클라이언트
+ *
+ * java.net.http.HttpClient를 프로바이더(연결 제한 시간)별로 하나만 만들어 공유하므로
+ * 커넥션 풀(Keep-Alive)과 HTTP/2 연결이 재사용되어, TLS 핸드셰이크와 연결 설정은
+ * 분석마다가 아니라 호스트마다 한 번만 발생합니다.
+ * 응답 제한 시간은 요청 단위로 적용되며, 헤더를 받은 뒤에는 본문 데이터 사이의 최대 대기 시간(유휴 제한)으로도 쓰여
+ * 본문 도중 멈춘 스트림이 작업 스레드를 붙잡지 않습니다.
+ * 스트리밍 응답(SSE)은 openStream()으로 받아 줄 단위로 처리할 수 있습니다.
+ * 진행 중인 요청은 cancel()로 중단하면 응답 본문 구독을 취소하여 프로바이더와의 교환(HTTP/2 스트림)도 끊습니다.
+ */
+public class LlmHttpClient {
+
+    // 연결 제한 시간별 공유 HttpClient (내부에 커넥션 풀 보유)
+    private static final Map<Integer, HttpClient> CLIENTS = new ConcurrentHashMap<>();
+    // 프로바이더별 클라이언트
+    private static final Map<String, LlmHttpClient> PROVIDERS = new ConcurrentHashMap<>();
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private final String provider;
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+
+    /**
+     * HTTP 응답 (상태 코드, 헤더, 본문)
+     */
+    public static class Response {
+        private final int statusCode;
+        private final HttpHeaders headers;
+        private final String body;
+
+        Response(int statusCode, HttpHeaders headers, String body) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public int getStatusCode() { return statusCode; }
+        public HttpHeaders getHeaders() { return headers; }
+        public String getBody() { return body; }
+
+        public boolean isSuccess() {
+            return statusCode >= 200 && statusCode < 300;
+        }
+
+        /**
+         * 헤더 값 조회 (없으면 null)
+         */
+        public String header(String name) {
+            Optional<String> value = headers.firstValue(name);
+            return value.orElse(null);
+        }
+
+        /**
+         * Retry-After 헤더 값 (초 단위 숫자 또는 HTTP 날짜, 밀리초로 변환, 없으면 -1)
+         */
+        public long getRetryAfterMs() {
+            String value = header("retry-after");
+            if (value == null || value.trim().isEmpty()) {
+                return -1;
+            }
+            value = value.trim();
+            try {
+                return Math.max(0, (long) (Double.parseDouble(value) * 1000));
+            } catch (NumberFormatException e) {
+                // HTTP 날짜 형식 (예: Wed, 21 Oct 2015 07:28:00 GMT)
+            }
+            try {
+                long untilMs = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant().toEpochMilli();
+                return Math.max(0, untilMs - System.currentTimeMillis());
+            } catch (DateTimeParseException e) {
+                return -1;
+            }
+        }
+    }
+
+    private LlmHttpClient(String provider, HttpClient httpClient, Duration readTimeout) {
+        this.provider = provider;
+        this.httpClient = httpClient;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * 프로바이더용 클라이언트 조회 (최초 호출 시 생성)
+     * @param provider 프로바이더 이름 (anthropic, gemini 등)
+     * @param connectTimeoutMs 연결 제한 시간 (밀리초)
+     * @param readTimeoutMs 응답 제한 시간 (밀리초)
+     */
+    public static LlmHttpClient forProvider(String provider, int connectTimeoutMs, int readTimeoutMs) {
+        String key = provider + ":" + connectTimeoutMs + ":" + readTimeoutMs;
+        return PROVIDERS.computeIfAbsent(key, k -> {
+            HttpClient client = CLIENTS.computeIfAbsent(connectTimeoutMs, LlmHttpClient::createHttpClient);
+            System.out.println("LLM HTTP 클라이언트 생성 - " + provider +
+                " (connect: " + connectTimeoutMs + "ms, read: " + readTimeoutMs + "ms)");
+            return new LlmHttpClient(provider, client, Duration.ofMillis(readTimeoutMs));
+        });
+    }
+
+    /**
+     * JSON POST 요청 (비동기)
+     * @param url 요청 URL
+     * @param headers 추가 요청 헤더 (Content-Type 제외)
+     * @param jsonBody 요청 본문
+     * @return 진행 중인 요청 (await()로 응답 대기, cancel()로 중단, 응답 제한 시간 초과 시 HttpTimeoutException)
+     */
+    public Call postJsonAsync(String url, Map<String, String> headers, String jsonBody) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+            .timeout(readTimeout)
+            .header("Content-Type", "application/json; charset=UTF-8")
+            .POST(HttpRequest.BodyPublishers.ofString(jsonBody, StandardCharsets.UTF_8));
+
+        if (headers != null) {
+            headers.forEach(builder::header);
+        }
+
+        Call call = new Call(readTimeout);
+        call.send(httpClient, builder.build());
+        return call;
+    }
+
+    /**
+     * JSON POST 요청 (응답까지 대기)
+     */
+    public Response postJson(String url, Map<String, String> headers, String jsonBody) throws IOException {
+        return postJsonAsync(url, headers, jsonBody).await();
+    }
+
+    /**
+     * 진행 중인 JSON 요청
+     * cancel()은 다른 스레드(작업 취소 훅 등)에서 호출할 수 있습니다.
+     * 응답 Future 취소만으로는 교환이 중단되지 않으므로(Java 16 미만 HttpClient) 본문 구독을 직접 취소합니다.
+     */
+    public static class Call {
+        private final Duration idleTimeout;
+        private volatile CompletableFuture<HttpResponse<InputStream>> future;
+        private volatile BodyStream body;
+        private volatile boolean cancelled;
+
+        Call(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        void send(HttpClient client, HttpRequest request) {
+            future = client.sendAsync(request, responseInfo -> {
+                BodyStream stream = new BodyStream(idleTimeout);
+                body = stream;
+                if (cancelled) {
+                    // 헤더 수신 전에 취소된 요청: 구독 즉시 취소
+                    stream.close();
+                }
+                return stream;
+            });
+        }
+
+        /**
+         * 응답 본문 전체를 받을 때까지 대기
+         */
+        public Response await() throws IOException {
+            HttpResponse<InputStream> response = awaitResponse();
+            try (InputStream in = response.body()) {
+                String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                checkCancelled();
+                return new Response(response.statusCode(), response.headers(), text);
+            }
+        }
+
+        /**
+         * 요청 취소 (응답 대기 중이면 대기 중단, 본문 수신 중이면 구독 취소로 교환 종료)
+         */
+        public void cancel() {
+            cancelled = true;
+            CompletableFuture<HttpResponse<InputStream>> current = future;
+            if (current != null) {
+                current.cancel(true);
+            }
+            BodyStream stream = body;
+            if (stream != null) {
+                stream.close();
+            }
+        }
+
+        HttpResponse<InputStream> awaitResponse() throws IOException {
+            HttpResponse<InputStream> response = awaitFuture(future);
+            checkCancelled();
+            return response;
+        }
+
+        void checkCancelled() throws IOException {
+            if (cancelled) {
+                throw new IOException("HTTP 요청이 취소되었습니다", new CancellationException());
+            }
+        }
+    }
+
+    /**
+     * 응답 본문 구독자 겸 입력 스트림
+     * 받은 버퍼를 큐에 넣고 한 번에 한 묶음씩만 요청하며(배압), close()하면 구독을 취소하고
+     * 읽기 대기 중인 스레드도 깨웁니다.
+     * 다음 데이터를 유휴 제한 시간 안에 받지 못하면 구독을 취소하고 HttpTimeoutException을 던집니다.
+     */
+    static final class BodyStream extends InputStream implements HttpResponse.BodySubscriber<InputStream> {
+        // 본문 끝(완료, 오류, 취소) 표시
+        private static final List<ByteBuffer> END = Collections.unmodifiableList(new ArrayList<>(0));
+
+        private final BlockingQueue<List<ByteBuffer>> chunks = new LinkedBlockingQueue<>();
+        private final long idleTimeoutMs;
+        private volatile Flow.Subscription subscription;
+        private volatile boolean closed;
+        private volatile Throwable error;
+
+        // 읽는 스레드 전용 상태
+        private Iterator<ByteBuffer> chunk = Collections.emptyIterator();
+        private ByteBuffer buffer;
+        private boolean ended;
+
+        BodyStream(Duration idleTimeout) {
+            this.idleTimeoutMs = idleTimeout.toMillis();
+        }
+
+        @Override
+        public CompletableFuture<InputStream> getBody() {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (closed) {
+                subscription.cancel();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            chunks.offer(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            chunks.offer(END);
+        }
+
+        @Override
+        public void onComplete() {
+            chunks.offer(END);
+        }
+
+        @Override
+        public int read() throws IOException {
+            ByteBuffer current = nextBuffer();
+            return current != null ? current.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            ByteBuffer current = nextBuffer();
+            if (current == null) {
+                return -1;
+            }
+            int n = Math.min(len, current.remaining());
+            current.get(b, off, n);
+            return n;
+        }
+
+        private ByteBuffer nextBuffer() throws IOException {
+            while (buffer == null || !buffer.hasRemaining()) {
+                if (chunk.hasNext()) {
+                    buffer = chunk.next();
+                    continue;
+                }
+                if (ended) {
+                    return null;
+                }
+                List<ByteBuffer> next = take();
+                if (next == END) {
+                    if (closed) {
+                        throw new IOException("HTTP 요청이 취소되었습니다", new CancellationException());
+                    }
+                    if (error != null) {
+                        throw error instanceof IOException ? (IOException) error : new IOException(error.getMessage(), error);
+                    }
+                    ended = true;
+                    return null;
+                }
+                chunk = next.iterator();
+                subscription.request(1);
+            }
+            return buffer;
+        }
+
+        private List<ByteBuffer> take() throws IOException {
+            if (closed) {
+                throw new IOException("HTTP 요청이 취소되었습니다", new CancellationException());
+            }
+            try {
+                List<ByteBuffer> next = chunks.poll(idleTimeoutMs, TimeUnit.MILLISECONDS);
+                if (next == null) {
+                    close();
+                    throw new HttpTimeoutException("HTTP 응답 본문 수신 대기 시간 초과 (" + idleTimeoutMs + "ms 동안 데이터 없음)");
+                }
+                return next;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IOException("HTTP 응답 수신 중 인터럽트 발생", e);
+            }
+        }
+
+        /**
+         * 구독 취소 (여러 번, 다른 스레드에서 호출 가능)
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+            chunks.offer(END);
+        }
+    }
+
+    /**
+     * 스트리밍 JSON POST 요청 시작 (SSE 등 줄 단위 응답)
+     * 반환된 StreamCall의 read()로 응답을 받는 대로 한 줄씩 처리합니다.
+     */
+    public StreamCall openStream(String url, Map<String, String> headers, String jsonBody) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+            .timeout(readTimeout)
+            .header("Content-Type", "application/json; charset=UTF-8")
+            .header("Accept", "text/event-stream")
+            .POST(HttpRequest.BodyPublishers.ofString(jsonBody, StandardCharsets.UTF_8));
+
+        if (headers != null) {
+            headers.forEach(builder::header);
+        }
+
+        StreamCall call = new StreamCall(readTimeout, System.nanoTime());
+        call.send(httpClient, builder.build());
+        return call;
+    }
+
+    /**
+     * 스트리밍 응답 줄 처리기
+     */
+    public interface LineHandler {
+        void onLine(String line) throws IOException;
+    }
+
+    /**
+     * 진행 중인 스트리밍 요청
+     * cancel()은 다른 스레드(작업 취소 훅 등)에서 호출할 수 있습니다.
+     * 줄 사이에 응답 제한 시간 넘게 데이터가 없으면 요청을 중단하고 HttpTimeoutException을 던집니다.
+     */
+    public static class StreamCall extends Call {
+        private final long startNanos;
+        private volatile long firstLineNanos = -1;
+
+        StreamCall(Duration idleTimeout, long startNanos) {
+            super(idleTimeout);
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * 응답을 받는 대로 한 줄씩 처리
+         * @return 상태 코드와 헤더 (오류 응답이면 본문 포함, 성공 응답은 본문 null)
+         */
+        public Response read(LineHandler handler) throws IOException {
+            HttpResponse<InputStream> response = awaitResponse();
+
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                    return new Response(response.statusCode(), response.headers(),
+                        reader.lines().collect(Collectors.joining("\n")));
+                }
+
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    checkCancelled();
+                    if (firstLineNanos < 0) {
+                        firstLineNanos = System.nanoTime();
+                    }
+                    handler.onLine(line);
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            checkCancelled();
+            return new Response(response.statusCode(), response.headers(), null);
+        }
+
+        /**
+         * 요청 시작부터 첫 응답 줄 수신까지 걸린 시간 (밀리초, 아직 없으면 -1)
+         */
+        public long getTimeToFirstByteMs() {
+            long first = firstLineNanos;
+            return first < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(first - startNanos);
+        }
+    }
+
+    /**
+     * 응답 Future 대기 후 결과 반환
+     * 비동기 실행 중 발생한 예외는 원래의 IOException 형태로 다시 던집니다.
+     */
+    private static <T> T awaitFuture(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IOException("HTTP 요청 대기 중 인터럽트 발생", e);
+        } catch (CancellationException e) {
+            throw new IOException("HTTP 요청이 취소되었습니다", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause != null ? cause.getMessage() : e.getMessage(), cause);
+        }
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    private static HttpClient createHttpClient(int connectTimeoutMs) {
+        return HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(EXECUTOR)
+            .build();
+    }
+
+    private static ExecutorService createExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "llm-http-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,19 @@
+-- DateGenie 분석 히스토리 인덱스 생성 스크립트 (Oracle)
+-- 히스토리 키셋 페이지네이션(getUserHistoryPage)과 사용자별 통계 집계(getAnalysisStatsSummary)에 사용됩니다.
+
+-- 1. 사용자별 최신순 인덱스 (created_at, session_id 내림차순으로 커서 다음 행부터 바로 읽음)
+CREATE INDEX IDX_ANALYSIS_USER_CREATED
+    ON ANALYSIS_SESSIONS (USER_ID, CREATED_AT DESC, SESSION_ID DESC);
+
+-- 2. 확인 쿼리 (실행 후 확인용, 실행 계획에 INDEX RANGE SCAN과 COUNT STOPKEY가 나오면 정상)
+/*
+EXPLAIN PLAN FOR
+SELECT * FROM (
+    SELECT session_id, partner_name, success_rate, relationship_stage, analysis_date, created_at
+    FROM analysis_sessions
+    WHERE user_id = 'user@example.com'
+    ORDER BY created_at DESC, session_id DESC
+) WHERE ROWNUM <= 21;
+
+SELECT * FROM TABLE(DBMS_XPLAN.DISPLAY);
+*/
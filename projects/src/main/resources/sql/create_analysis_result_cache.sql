@@ -0,0 +1,24 @@
+-- DateGenie 분석 결과 캐시 테이블 생성 스크립트 (Oracle)
+-- analysis.cache.db_enabled=true 인 경우에만 사용됩니다.
+
+-- 1. 캐시 테이블 생성
+-- CACHE_KEY: 정규화한 대화 + 상대방 이름 + 프로바이더 + 모델 + 프롬프트 버전의 SHA-256 (16진수 64자)
+CREATE TABLE ANALYSIS_RESULT_CACHE (
+    CACHE_KEY    VARCHAR2(64)  NOT NULL,
+    PROVIDER     VARCHAR2(30)  NOT NULL,
+    RESULT_JSON  CLOB          NOT NULL,
+    CREATED_AT   TIMESTAMP     DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    EXPIRES_AT   TIMESTAMP     NOT NULL,
+    CONSTRAINT PK_ANALYSIS_RESULT_CACHE PRIMARY KEY (CACHE_KEY)
+);
+
+-- 2. 만료 캐시 정리 작업을 위한 인덱스
+CREATE INDEX IDX_ANALYSIS_CACHE_EXPIRES
+    ON ANALYSIS_RESULT_CACHE (EXPIRES_AT);
+
+-- 3. 확인 쿼리 (실행 후 확인용)
+/*
+SELECT CACHE_KEY, PROVIDER, CREATED_AT, EXPIRES_AT
+FROM ANALYSIS_RESULT_CACHE
+ORDER BY CREATED_AT DESC;
+*/
@@ -0,0 +1,38 @@
+-- DateGenie 사용자별 분석 통계 요약 테이블 생성 스크립트 (Oracle)
+-- analysis.user_stats.enabled=true 인 경우에만 사용됩니다.
+
+-- 1. 통계 요약 테이블 생성 (사용자 + 관계 단계별 1행)
+-- 분석 결과를 저장/삭제한 뒤 별도 트랜잭션으로 갱신합니다. (반영 실패 시 해당 사용자만 다시 집계)
+-- 총 분석 수 = ANALYSIS_COUNT 합, 평균 성공률 = SUCCESS_RATE_SUM 합 / ANALYSIS_COUNT 합,
+-- 최근 분석 일시 = LAST_ANALYSIS_AT 최댓값, 관계 단계 분포 = 행별 ANALYSIS_COUNT
+-- 관계 단계가 없는 분석은 '미분류'로 집계합니다.
+CREATE TABLE ANALYSIS_USER_STATS (
+    USER_ID             VARCHAR2(100)  NOT NULL,
+    RELATIONSHIP_STAGE  VARCHAR2(100)  NOT NULL,
+    ANALYSIS_COUNT      NUMBER(10)     DEFAULT 0 NOT NULL,
+    SUCCESS_RATE_SUM    NUMBER(14,2)   DEFAULT 0 NOT NULL,
+    LAST_ANALYSIS_AT    DATE,
+    UPDATED_AT          DATE           DEFAULT SYSDATE NOT NULL,
+    CONSTRAINT PK_ANALYSIS_USER_STATS PRIMARY KEY (USER_ID, RELATIONSHIP_STAGE)
+);
+
+-- 2. 기존 분석 결과 백필 (테이블 생성 직후 1회, 이후 재계산은 UserStatsRebuildJob 사용)
+INSERT INTO ANALYSIS_USER_STATS (
+    USER_ID, RELATIONSHIP_STAGE, ANALYSIS_COUNT, SUCCESS_RATE_SUM, LAST_ANALYSIS_AT, UPDATED_AT
+)
+SELECT USER_ID, NVL(RELATIONSHIP_STAGE, '미분류'), COUNT(*), NVL(SUM(SUCCESS_RATE), 0), MAX(ANALYSIS_DATE), SYSDATE
+FROM ANALYSIS_SESSIONS
+GROUP BY USER_ID, NVL(RELATIONSHIP_STAGE, '미분류');
+
+COMMIT;
+
+-- 3. 확인 쿼리 (실행 후 확인용, 두 결과의 건수와 평균이 같으면 정상)
+/*
+SELECT USER_ID, SUM(ANALYSIS_COUNT), SUM(SUCCESS_RATE_SUM) / SUM(ANALYSIS_COUNT), MAX(LAST_ANALYSIS_AT)
+FROM ANALYSIS_USER_STATS
+GROUP BY USER_ID;
+
+SELECT USER_ID, COUNT(*), AVG(NVL(SUCCESS_RATE, 0)), MAX(ANALYSIS_DATE)
+FROM ANALYSIS_SESSIONS
+GROUP BY USER_ID;
+*/
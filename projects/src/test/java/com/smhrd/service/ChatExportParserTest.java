@@ -0,0 +1,201 @@
+package com.smhrd.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * ChatExportParser 형식별 파싱 테스트
+ *
+ * 형식마다 작은 내보내기 예시를 문자열(CharSequence)과 UTF-8 바이트(ByteBuffer)로 각각 파싱하여
+ * 같은 메시지가 나오는지, 본문 위치로 원본을 잘라내면 본문과 같은지 확인합니다.
+ */
+public class ChatExportParserTest {
+
+    private static final String BOM = "﻿";
+
+    private static final Object[][] CASES = {
+        {
+            "카카오톡 PC",
+            BOM
+            + "민지 님과 카카오톡 대화\n"
+            + "저장한 날짜 : 2024-08-14 10:00:00\n"
+            + "\n"
+            + "--------------- 2024년 8월 13일 화요일 ---------------\n"
+            + "[민지] [오후 3:21] 안녕 😀 반가워\n"
+            + "[준호] [오후 12:05] 점심 먹었어?\n"
+            + "둘째 줄\n"
+            + "[민지] [오전 12:30] 자정 지나서\n"
+            + "\n"
+            + "--------------- 2024년 8월 14일 수요일 ---------------\n"
+            + "준호님이 들어왔습니다.\n"
+            + "[준호] [오전 9:00] 좋은 아침\n",
+            ChatExportParser.Format.KAKAO_PC,
+            new String[][] {
+                {"2024-08-13T15:21", "민지", "안녕 😀 반가워"},
+                {"2024-08-13T12:05", "준호", "점심 먹었어?\n둘째 줄"},
+                {"2024-08-13T00:30", "민지", "자정 지나서"},
+                {"2024-08-14T09:00", "준호", "좋은 아침"},
+            },
+        },
+        {
+            "카카오톡 Android",
+            "민지 님과 카카오톡 대화\n"
+            + "저장한 날짜 : 2024년 8월 14일 오전 10:00\n"
+            + "\n"
+            + "2024년 8월 13일 화요일\n"
+            + "2024년 8월 13일 오후 3:21, 민지 : 안녕\n"
+            + "2024년 8월 13일 오후 3:22, 준호님이 들어왔습니다.\n"
+            + "2024년 8월 13일 오후 12:05, 준호 : 여러 줄\n"
+            + "메시지 : 입니다\n"
+            + "2024년 8월 14일 오전 12:00, 민지 : 자정\n",
+            ChatExportParser.Format.KAKAO_MOBILE,
+            new String[][] {
+                {"2024-08-13T15:21", "민지", "안녕"},
+                {"2024-08-13T12:05", "준호", "여러 줄\n메시지 : 입니다"},
+                {"2024-08-14T00:00", "민지", "자정"},
+            },
+        },
+        {
+            "카카오톡 iOS (CRLF)",
+            "2024. 8. 13. 오후 3:21, 민지 : 안녕\r\n"
+            + "2024. 8. 13. 오후 11:59, 준호 : 🙂🙂 이모지\r\n"
+            + "다음 줄\r\n"
+            + "2024. 8. 14. 오전 8:05, 민지 : 𝄞 음표\r\n",
+            ChatExportParser.Format.KAKAO_MOBILE,
+            new String[][] {
+                {"2024-08-13T15:21", "민지", "안녕"},
+                {"2024-08-13T23:59", "준호", "🙂🙂 이모지\r\n다음 줄"},
+                {"2024-08-14T08:05", "민지", "𝄞 음표"},
+            },
+        },
+        {
+            "LINE",
+            "[LINE] 민지와의 대화\n"
+            + "저장한 날짜: 2024/08/14 10:00\n"
+            + "\n"
+            + "2024/08/13(화)\n"
+            + "15:21\t민지\t안녕\n"
+            + "오후 3:22\t준호\t\"여러\n"
+            + "줄\"\n"
+            + "3:23 PM\t민지\tPM 표기\n"
+            + "15:24\t준호님이 참여했습니다.\n"
+            + "2024.08.14 수요일\n"
+            + "12:10 AM\t준호\t자정 직후\n",
+            ChatExportParser.Format.LINE,
+            new String[][] {
+                {"2024-08-13T15:21", "민지", "안녕"},
+                {"2024-08-13T15:22", "준호", "\"여러\n줄\""},
+                {"2024-08-13T15:23", "민지", "PM 표기"},
+                {"2024-08-14T00:10", "준호", "자정 직후"},
+            },
+        },
+    };
+
+    @Test
+    public void parsesEachFormatFromTextAndBytes() throws Exception {
+        for (Object[] c : CASES) {
+            String name = (String) c[0];
+            String input = (String) c[1];
+            ChatExportParser.Format format = (ChatExportParser.Format) c[2];
+            List<String> expected = new ArrayList<>();
+            for (String[] message : (String[][]) c[3]) {
+                long epochSecond = LocalDateTime.parse(message[0]).toEpochSecond(ZoneOffset.UTC);
+                // 본문은 원본 줄바꿈 그대로(iOS 예시는 CRLF)가 아니라 줄 사이를 \n으로 이어 붙임
+                expected.add(epochSecond + "|" + message[1] + "|" + message[2].replace("\r\n", "\n"));
+            }
+
+            // 문자열 입력: 본문 위치는 문자 오프셋
+            Collected fromText = new Collected();
+            ChatExportParser textParser = new ChatExportParser(fromText);
+            textParser.parse(input);
+            assertEquals(name, expected, fromText.messages(textParser));
+            assertEquals(name, format, textParser.getFormat());
+            assertEquals(name, expected.size(), textParser.getMessageCount());
+            for (int i = 0; i < expected.size(); i++) {
+                String slice = input.substring((int) fromText.starts.get(i).longValue(), (int) fromText.ends.get(i).longValue());
+                assertEquals(name + " 문자 오프셋 #" + i, ((String[][]) c[3])[i][2], slice);
+            }
+
+            // UTF-8 바이트 입력: 본문 위치는 바이트 오프셋, 메시지는 문자열 입력과 같아야 함
+            byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+            Collected fromBytes = new Collected();
+            ChatExportParser byteParser = new ChatExportParser(fromBytes);
+            byteParser.parse(ByteBuffer.wrap(bytes));
+            assertEquals(name, expected, fromBytes.messages(byteParser));
+            assertEquals(name, format, byteParser.getFormat());
+            assertEquals(name, textParser.getSpeakers(), byteParser.getSpeakers());
+            for (int i = 0; i < expected.size(); i++) {
+                int start = (int) fromBytes.starts.get(i).longValue();
+                int end = (int) fromBytes.ends.get(i).longValue();
+                String slice = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+                assertEquals(name + " 바이트 오프셋 #" + i, ((String[][]) c[3])[i][2], slice);
+            }
+        }
+    }
+
+    @Test
+    public void byteOffsetsRespectBufferPositionAndBom() throws Exception {
+        String input = BOM + "2024. 8. 13. 오후 3:21, 민지 : 😀 안녕\n";
+        byte[] prefix = "이전 데이터".getBytes(StandardCharsets.UTF_8);
+        byte[] body = input.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(prefix.length + body.length);
+        buffer.put(prefix).put(body).position(prefix.length);
+
+        Collected collected = new Collected();
+        ChatExportParser parser = new ChatExportParser(collected);
+        parser.parse(buffer);
+
+        assertEquals(1, parser.getMessageCount());
+        int start = (int) collected.starts.get(0).longValue();
+        int end = (int) collected.ends.get(0).longValue();
+        assertEquals("😀 안녕", new String(buffer.array(), start, end - start, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void ignoresMessagesBeforeAnyDateLine() {
+        Collected collected = new Collected();
+        ChatExportParser parser = new ChatExportParser(collected);
+        parser.parse("[민지] [오후 3:21] 날짜 줄 전\n15:21\t민지\t날짜 줄 전\n");
+
+        assertEquals(0, parser.getMessageCount());
+        assertEquals(ChatExportParser.Format.UNKNOWN, parser.getFormat());
+        assertEquals(Arrays.asList(), parser.getSpeakers());
+    }
+
+    /**
+     * 받은 메시지 수집 (본문은 호출 중에만 유효하므로 복사)
+     */
+    private static class Collected implements ChatExportParser.Listener {
+        final List<Long> times = new ArrayList<>();
+        final List<Integer> speakers = new ArrayList<>();
+        final List<Long> starts = new ArrayList<>();
+        final List<Long> ends = new ArrayList<>();
+        final List<String> texts = new ArrayList<>();
+
+        @Override
+        public void onMessage(long epochSecond, int speaker, long textStart, long textEnd, CharSequence text) {
+            times.add(epochSecond);
+            speakers.add(speaker);
+            starts.add(textStart);
+            ends.add(textEnd);
+            texts.add(text.toString());
+        }
+
+        List<String> messages(ChatExportParser parser) {
+            List<String> messages = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i++) {
+                messages.add(times.get(i) + "|" + parser.getSpeakers().get(speakers.get(i)) + "|" + texts.get(i));
+            }
+            return messages;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.smhrd.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CancellationException;
+
+import org.junit.Test;
+
+import com.google.gson.JsonSyntaxException;
+
+/**
+ * 청크 분석 재시도 대상 판정 테스트 (작은 윈도우로 풀 수 있는 실패만 다시 시도)
+ */
+public class ChunkedAnalysisServiceTest {
+
+    @Test
+    public void fallsBackOnlyForFailuresSmallerWindowsCanFix() {
+        Object[][] cases = {
+            {httpError(400), true},
+            {httpError(413), true},
+            {new JsonSyntaxException("Unterminated object"), true},
+            {new IllegalStateException("응답 검증 실패"), true},
+            {httpError(401), false},
+            {httpError(404), false},
+            {httpError(408), false},
+            {httpError(429), false},
+            {httpError(500), false},
+            {httpError(503), false},
+            {new HttpTimeoutException("timeout"), false},
+            {new IOException("connection reset"), false},
+            {new ProviderUnavailableException("test", "회로 열림"), false},
+            {new CancellationException("취소"), false},
+        };
+        for (Object[] c : cases) {
+            Throwable cause = (Throwable) c[0];
+            // 실제 호출 경로처럼 재시도 래퍼와 AnalysisException으로 감싼 상태로 판정
+            Exception wrapped = new Exception("대화 분석 중 오류가 발생했습니다",
+                new Exception("Gemini API 호출 실패", cause));
+            assertEquals(cause.toString(), c[1], ChunkedAnalysisService.isFixableWithSmallerWindows(wrapped));
+        }
+    }
+
+    private static ProviderHttpException httpError(int status) {
+        return new ProviderHttpException("test", status, -1, "HTTP " + status);
+    }
+}
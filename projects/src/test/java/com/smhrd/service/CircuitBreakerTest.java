@@ -0,0 +1,115 @@
+package com.smhrd.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * CircuitBreaker 상태 전이 테스트
+ */
+public class CircuitBreakerTest {
+
+    private static final long LONG_OPEN_MS = 60_000;
+
+    @Test
+    public void opensAtFailureThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, LONG_OPEN_MS, 1);
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(2, breaker.getConsecutiveFailures());
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.isCallPermitted());
+        assertTrue(breaker.getRemainingOpenMs() > 0);
+    }
+
+    @Test
+    public void successResetsConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, LONG_OPEN_MS, 1);
+
+        breaker.tryAcquire();
+        breaker.onFailure();
+        breaker.tryAcquire();
+        breaker.onFailure();
+        breaker.tryAcquire();
+        breaker.onSuccess();
+        breaker.tryAcquire();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1, breaker.getConsecutiveFailures());
+    }
+
+    @Test
+    public void halfOpenLimitsTrialCallsAndClosesOnSuccess() {
+        CircuitBreaker breaker = openedBreaker(2);
+
+        // 차단 시간(0ms)이 지나면 시험 호출을 한도만큼만 허용
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.isCallPermitted());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getConsecutiveFailures());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void halfOpenFailureReopens() {
+        CircuitBreaker breaker = openedBreaker(1);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void ignoredCallReleasesHalfOpenSlotWithoutClosing() {
+        CircuitBreaker breaker = openedBreaker(1);
+
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onIgnored();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void ignoredCallDoesNotCountAsFailureOrSuccess() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, LONG_OPEN_MS, 1);
+
+        breaker.tryAcquire();
+        breaker.onFailure();
+        for (int i = 0; i < 5; i++) {
+            breaker.tryAcquire();
+            breaker.onIgnored();
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1, breaker.getConsecutiveFailures());
+    }
+
+    /**
+     * 실패 1번으로 열리고 차단 시간이 0인 (다음 tryAcquire에서 바로 HALF_OPEN) 차단기
+     */
+    private static CircuitBreaker openedBreaker(int halfOpenMaxCalls) {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 0, halfOpenMaxCalls);
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
@@ -0,0 +1,33 @@
+package com.smhrd.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * ProviderGuard 오류 집계 기준 테스트 (4xx 요청 오류는 회로 차단기 실패로 세지 않음)
+ */
+public class ProviderGuardTest {
+
+    @Test
+    public void clientErrorsAreNotProviderFailures() {
+        Object[][] cases = {
+            {400, true}, {404, true}, {413, true},
+            {408, false}, {429, false}, {500, false}, {503, false}, {529, false},
+        };
+        for (Object[] c : cases) {
+            int status = (Integer) c[0];
+            ProviderHttpException e = new ProviderHttpException("test", status, -1, "HTTP " + status);
+            assertEquals("HTTP " + status, c[1], ProviderGuard.isClientError(e));
+            assertEquals("wrapped HTTP " + status, c[1],
+                ProviderGuard.isClientError(new IOException("wrapped", e)));
+        }
+    }
+
+    @Test
+    public void networkErrorsAreProviderFailures() {
+        assertEquals(false, ProviderGuard.isClientError(new IOException("connection reset")));
+    }
+}
@@ -0,0 +1,146 @@
+package com.smhrd.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * RetryPolicy 분류, 대기 시간, 재시도 예산 테스트
+ * 재시도 예산은 정책 이름별로 공유되므로 테스트마다 다른 이름을 사용합니다.
+ */
+public class RetryPolicyTest {
+
+    private static final long BASE_DELAY_MS = 1;
+    private static final long MAX_DELAY_MS = 5;
+
+    @Test
+    public void permanentErrorIsNotRetried() throws Exception {
+        RetryPolicy policy = policy("test-permanent", 5);
+        AtomicInteger calls = new AtomicInteger();
+        ProviderHttpException badRequest = httpError(400, -1);
+
+        assertThrown(badRequest, () -> policy.execute(() -> {
+            calls.incrementAndGet();
+            throw badRequest;
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void cancellationIsNotRetried() throws Exception {
+        RetryPolicy policy = policy("test-cancel", 5);
+        AtomicInteger calls = new AtomicInteger();
+        IOException cancelled = new IOException("취소", new CancellationException());
+
+        assertThrown(cancelled, () -> policy.execute(() -> {
+            calls.incrementAndGet();
+            throw cancelled;
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void transientErrorIsRetriedUntilSuccess() throws Exception {
+        RetryPolicy policy = policy("test-transient", 5);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = policy.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw httpError(503, -1);
+            }
+            return "ok";
+        });
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void stopsAtMaxAttempts() throws Exception {
+        RetryPolicy policy = policy("test-max-attempts", 3);
+        AtomicInteger calls = new AtomicInteger();
+        IOException timeout = new IOException("timeout");
+
+        assertThrown(timeout, () -> policy.execute(() -> {
+            calls.incrementAndGet();
+            throw timeout;
+        }));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void retryAfterLongerThanMaxDelayIsRethrown() throws Exception {
+        RetryPolicy policy = policy("test-retry-after", 5);
+        AtomicInteger calls = new AtomicInteger();
+        ProviderHttpException rateLimited = httpError(429, MAX_DELAY_MS * 1000);
+
+        assertThrown(rateLimited, () -> policy.execute(() -> {
+            calls.incrementAndGet();
+            throw rateLimited;
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void retryAfterWithinMaxDelayIsRetried() throws Exception {
+        RetryPolicy policy = policy("test-retry-after-short", 5);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = policy.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw httpError(429, MAX_DELAY_MS);
+            }
+            return "ok";
+        });
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void stopsRetryingWhenBudgetIsExhausted() throws Exception {
+        // 예산은 가득 찬 상태(analysis.retry.budget_max_tokens, 기본 10)로 시작하고 요청마다 비율만큼 적립
+        RetryPolicy policy = policy("test-budget", 1000);
+        AtomicInteger calls = new AtomicInteger();
+        ProviderHttpException unavailable = httpError(503, -1);
+
+        assertThrown(unavailable, () -> policy.execute(() -> {
+            calls.incrementAndGet();
+            throw unavailable;
+        }));
+        int firstRequestCalls = calls.get();
+        assertEquals(1 + 10, firstRequestCalls);
+
+        // 다음 요청의 적립분(0.1)으로는 재시도할 수 없음
+        assertThrown(unavailable, () -> policy.execute(() -> {
+            calls.incrementAndGet();
+            throw unavailable;
+        }));
+        assertEquals(firstRequestCalls + 1, calls.get());
+    }
+
+    private static RetryPolicy policy(String name, int maxAttempts) {
+        return new RetryPolicy(name, maxAttempts, BASE_DELAY_MS, MAX_DELAY_MS, RetryPolicy.PROVIDER_ERRORS);
+    }
+
+    private static ProviderHttpException httpError(int status, long retryAfterMs) {
+        return new ProviderHttpException("test", status, retryAfterMs, "HTTP " + status);
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    private static void assertThrown(Exception expected, Action action) {
+        try {
+            action.run();
+            fail("예외가 발생해야 합니다: " + expected);
+        } catch (Exception e) {
+            assertSame(expected, e);
+        }
+    }
+}